@@ -0,0 +1,135 @@
+package com.backened.verisay.config;
+
+import com.backened.verisay.repository.AgreementDataColumns;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings the generated columns of the agreements table in line with {@link AgreementDataColumns}.
+ * Hibernate doesn't map these columns, so its schema update never touches them; this adds the missing ones
+ * with their index, redefines any whose type or expression changed, rebuilds indexes whose columns changed,
+ * and drops the columns whose field is no longer indexed.
+ * Adding a virtual column is instant and the index is built online, so writes carry on meanwhile.
+ * Runs on MySQL only; if several nodes start at once the losers just log the clash.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AgreementDataColumnMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementDataColumnMigrator.class);
+
+    private static final String EXISTING_COLUMNS = """
+            SELECT COLUMN_NAME, COLUMN_TYPE, COLUMN_COMMENT
+              FROM information_schema.COLUMNS
+             WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'agreements' AND GENERATION_EXPRESSION <> ''
+            """;
+
+    private static final String EXISTING_INDEXES = """
+            SELECT INDEX_NAME, COLUMN_NAME
+              FROM information_schema.STATISTICS
+             WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'agreements'
+             ORDER BY INDEX_NAME, SEQ_IN_INDEX
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${agreement.data-columns.migrate:true}")
+    private boolean migrate;
+
+    @PostConstruct
+    public void migrate() {
+        if (!migrate || !isMySql()) {
+            return;
+        }
+        Map<String, ExistingColumn> columns = new HashMap<>();
+        jdbcTemplate.query(EXISTING_COLUMNS, (RowCallbackHandler) rs -> columns.put(rs.getString("COLUMN_NAME"),
+                new ExistingColumn(rs.getString("COLUMN_TYPE"), rs.getString("COLUMN_COMMENT"))));
+        Map<String, List<String>> indexes = new HashMap<>();
+        jdbcTemplate.query(EXISTING_INDEXES, (RowCallbackHandler) rs -> indexes
+                .computeIfAbsent(rs.getString("INDEX_NAME"), name -> new ArrayList<>())
+                .add(rs.getString("COLUMN_NAME").toLowerCase()));
+
+        plan(columns, indexes).forEach(this::execute);
+    }
+
+    /**
+     * The statements that bring the table from the given generated columns and indexes (by name, with their
+     * columns in order) to what {@link AgreementDataColumns} declares.
+     */
+    static List<String> plan(Map<String, ExistingColumn> columns, Map<String, List<String>> indexes) {
+        Map<String, ExistingColumn> existing = new HashMap<>(columns);
+        Map<String, List<String>> existingIndexes = new HashMap<>(indexes);
+        List<String> ddl = new ArrayList<>();
+
+        for (AgreementDataColumns.Column column : AgreementDataColumns.all()) {
+            ExistingColumn current = existing.remove(column.name());
+            if (current == null) {
+                ddl.add("ALTER TABLE agreements ADD COLUMN " + column.name() + " " + column.definition()
+                        + ", ALGORITHM=INSTANT");
+            } else if (!current.type().equalsIgnoreCase(column.sqlType())
+                    || !column.fingerprint().equals(current.comment())) {
+                // A virtual column can't change in place; the index goes with it and is rebuilt below
+                ddl.add("ALTER TABLE agreements DROP COLUMN " + column.name());
+                existingIndexes.remove(column.indexName());
+                ddl.add("ALTER TABLE agreements ADD COLUMN " + column.name() + " " + column.definition());
+            }
+            List<String> indexColumns = existingIndexes.get(column.indexName());
+            String addIndex = "ADD INDEX " + column.indexName() + " (" + String.join(", ", column.indexColumns())
+                    + "), ALGORITHM=INPLACE, LOCK=NONE";
+            if (indexColumns == null) {
+                ddl.add("ALTER TABLE agreements " + addIndex);
+            } else if (!indexColumns.equals(column.indexColumns())) {
+                ddl.add("ALTER TABLE agreements DROP INDEX " + column.indexName() + ", " + addIndex);
+            }
+        }
+
+        for (String leftover : existing.keySet()) {
+            if (AgreementDataColumns.isGenerated(leftover)) {
+                ddl.add("ALTER TABLE agreements DROP COLUMN " + leftover);
+            }
+        }
+        return ddl;
+    }
+
+    private void execute(String ddl) {
+        try {
+            jdbcTemplate.execute(ddl);
+            log.info("Migrated agreements: {}", ddl);
+        } catch (DataAccessException e) {
+            // Typically another node got there first; otherwise the next startup tries again
+            log.warn("Agreement data column migration failed ({}): {}", ddl, e.getMessage());
+        }
+    }
+
+    private boolean isMySql() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.toLowerCase().contains("mysql");
+        } catch (MetaDataAccessException e) {
+            log.debug("Skipping agreement data column migration: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // A generated column as information_schema reports it; the comment holds its fingerprint
+    record ExistingColumn(String type, String comment) {
+    }
+}
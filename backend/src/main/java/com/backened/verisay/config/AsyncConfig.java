@@ -0,0 +1,148 @@
+package com.backened.verisay.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors for background work.
+ * With {@code spring.threads.virtual.enabled=true} on Java 21+ (the same switch that puts Tomcat's request
+ * handling on virtual threads) each executor runs every task on its own virtual thread instead of a pool thread,
+ * keeping the pool's limits on running and waiting tasks. On Java 17 the switch is ignored.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${transcription.executor.core-size:4}")
+    private int transcriptionCoreSize;
+
+    @Value("${transcription.executor.max-size:8}")
+    private int transcriptionMaxSize;
+
+    @Value("${transcription.executor.queue-capacity:100}")
+    private int transcriptionQueueCapacity;
+
+    @Value("${transcription.chunking.parallelism:4}")
+    private int chunkParallelism;
+
+    @Value("${transcription.chunking.queue-capacity:100}")
+    private int chunkQueueCapacity;
+
+    @Value("${pdf.render.executor.core-size:2}")
+    private int pdfRenderCoreSize;
+
+    @Value("${pdf.render.executor.max-size:4}")
+    private int pdfRenderMaxSize;
+
+    @Value("${pdf.render.executor.queue-capacity:50}")
+    private int pdfRenderQueueCapacity;
+
+    @Value("${push.executor.size:8}")
+    private int pushSize;
+
+    @Value("${push.executor.queue-capacity:100000}")
+    private int pushQueueCapacity;
+
+    /**
+     * Bounded pool for transcription jobs.
+     * When both the pool and the queue are full, new submissions are rejected
+     * instead of piling up, so callers can answer with a 503 and retry later.
+     */
+    @Bean(name = "transcriptionExecutor")
+    public TaskExecutor transcriptionExecutor() {
+        if (virtualThreads()) {
+            BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor(
+                    "transcription-", transcriptionMaxSize, transcriptionQueueCapacity, false);
+            executor.setTaskTerminationTimeout(30_000);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(transcriptionCoreSize);
+        executor.setMaxPoolSize(transcriptionMaxSize);
+        executor.setQueueCapacity(transcriptionQueueCapacity);
+        executor.setThreadNamePrefix("transcription-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Uploads chunks of long recordings to Whisper, for every transcription job at once.
+     * Kept apart from the job pool so jobs waiting on their chunks can't starve them of threads.
+     * When it is full the job thread uploads the chunk itself, which slows that job down instead of failing it.
+     */
+    @Bean(name = "whisperChunkExecutor")
+    public TaskExecutor whisperChunkExecutor() {
+        if (virtualThreads()) {
+            return new BoundedVirtualThreadExecutor("whisper-chunk-", chunkParallelism, chunkQueueCapacity, true);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(chunkParallelism);
+        executor.setMaxPoolSize(chunkParallelism);
+        executor.setQueueCapacity(chunkQueueCapacity);
+        executor.setThreadNamePrefix("whisper-chunk-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Renders PDFs that are streamed into file storage: the render runs here while the caller uploads.
+     * Caller-runs would deadlock on the pipe, so a full pool rejects instead.
+     */
+    @Bean(name = "pdfRenderExecutor")
+    public TaskExecutor pdfRenderExecutor() {
+        if (virtualThreads()) {
+            return new BoundedVirtualThreadExecutor("pdf-render-", pdfRenderMaxSize, pdfRenderQueueCapacity, false);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pdfRenderCoreSize);
+        executor.setMaxPoolSize(pdfRenderMaxSize);
+        executor.setQueueCapacity(pdfRenderQueueCapacity);
+        executor.setThreadNamePrefix("pdf-render-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Writes server-sent events to clients (see PushHub). A connection has at most one task here at a time,
+     * so the queue grows with the number of connections that have something to send, not with messages.
+     * A full executor disconnects the connection it was asked to serve; the client then reconnects.
+     */
+    @Bean(name = "pushExecutor")
+    public TaskExecutor pushExecutor() {
+        if (virtualThreads()) {
+            return new BoundedVirtualThreadExecutor("push-", pushSize, pushQueueCapacity, false);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pushSize);
+        executor.setMaxPoolSize(pushSize);
+        executor.setQueueCapacity(pushQueueCapacity);
+        executor.setThreadNamePrefix("push-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // --- VIRTUAL THREADS ---
+
+    // Boot's own switch, so request handling and these executors change over together
+    private boolean virtualThreads() {
+        return Threading.VIRTUAL.isActive(environment);
+    }
+}
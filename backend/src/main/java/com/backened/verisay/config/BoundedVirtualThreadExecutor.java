@@ -0,0 +1,85 @@
+package com.backened.verisay.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs each task on its own virtual thread, with the admission rules of a bounded pool:
+ * at most {@code maxRunning} tasks run at once, up to {@code queueCapacity} more wait their turn
+ * (parked, which costs a virtual thread next to nothing), and anything beyond that is rejected,
+ * or run by the submitting thread when {@code callerRunsWhenFull} is set.
+ * Needs Java 21+.
+ */
+public class BoundedVirtualThreadExecutor implements TaskExecutor, DisposableBean {
+
+    private final SimpleAsyncTaskExecutor threads;
+    private final int maxRunning;
+    private final int queueCapacity;
+    private final boolean callerRunsWhenFull;
+
+    // Fair, so waiting tasks start in submission order like a queue
+    private final Semaphore running;
+    private final Semaphore admitted;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxRunning, int queueCapacity,
+                                        boolean callerRunsWhenFull) {
+        this.threads = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        this.threads.setVirtualThreads(true);
+        this.maxRunning = maxRunning;
+        this.queueCapacity = queueCapacity;
+        this.callerRunsWhenFull = callerRunsWhenFull;
+        this.running = new Semaphore(maxRunning, true);
+        this.admitted = new Semaphore(maxRunning + queueCapacity);
+    }
+
+    /**
+     * How long shutdown waits for running tasks, in milliseconds.
+     */
+    public void setTaskTerminationTimeout(long timeoutMillis) {
+        threads.setTaskTerminationTimeout(timeoutMillis);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            if (callerRunsWhenFull) {
+                task.run();
+                return;
+            }
+            throw new RejectedExecutionException(
+                    "Executor is full (" + maxRunning + " running, " + queueCapacity + " waiting)");
+        }
+        try {
+            threads.execute(() -> run(task));
+        } catch (RuntimeException e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            // Shutting down before the task got its turn
+            Thread.currentThread().interrupt();
+            admitted.release();
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            running.release();
+            admitted.release();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        threads.close();
+    }
+}
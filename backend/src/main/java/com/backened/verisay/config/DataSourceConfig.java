@@ -1,21 +1,150 @@
 package com.backened.verisay.config;
 
+import com.backened.verisay.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Pooled MySQL DataSource. Connection settings come from the usual spring.datasource.* properties
+ * (or DB_URL / DB_USERNAME / DB_PASSWORD), pool sizing from spring.datasource.hikari.*.
+ * Every pool exports its hikaricp.* metrics through actuator.
+ * When spring.datasource.replica.urls is set, read-only transactions are routed to those replicas.
+ */
 @Configuration
 public class DataSourceConfig {
 
+    @Value("${spring.datasource.url:${DB_URL:jdbc:mysql://localhost:3306/verisay_db}}")
+    private String url;
+
+    @Value("${spring.datasource.username:${DB_USERNAME:root}}")
+    private String username;
+
+    @Value("${spring.datasource.password:${DB_PASSWORD:}}")
+    private String password;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:20}")
+    private int maximumPoolSize;
+
+    @Value("${spring.datasource.hikari.minimum-idle:5}")
+    private int minimumIdle;
+
+    @Value("${spring.datasource.hikari.connection-timeout:5000}")
+    private long connectionTimeoutMs;
+
+    @Value("${spring.datasource.hikari.idle-timeout:300000}")
+    private long idleTimeoutMs;
+
+    // Must stay below MySQL's wait_timeout so the pool retires connections before the server drops them
+    @Value("${spring.datasource.hikari.max-lifetime:1500000}")
+    private long maxLifetimeMs;
+
+    // Logs a stack trace when a connection is held longer than this; 0 turns it off
+    @Value("${spring.datasource.hikari.leak-detection-threshold:60000}")
+    private long leakDetectionThresholdMs;
+
+    // --- READ REPLICAS ---
+    // Comma separated JDBC URLs; empty means every query goes to the primary
+    @Value("${spring.datasource.replica.urls:}")
+    private List<String> replicaUrls;
+
+    // Default to the primary's credentials when empty
+    @Value("${spring.datasource.replica.username:}")
+    private String replicaUsername;
+
+    @Value("${spring.datasource.replica.password:}")
+    private String replicaPassword;
+
+    @Value("${spring.datasource.replica.max-lag-ms:2000}")
+    private long replicaMaxLagMs;
+
+    @Value("${spring.datasource.replica.lag-query:SHOW REPLICA STATUS}")
+    private String replicaLagQuery;
+
+    @Value("${spring.datasource.replica.lag-column:Seconds_Behind_Source}")
+    private String replicaLagColumn;
+
+    // Set when replicas are configured. The bean is then a proxy Spring cannot close, so this closes the pools.
+    private ReplicaRoutingDataSource routing;
+
     @Bean(name = "appDataSource")
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/verisay_db");
-        dataSource.setUsername("root");  // Update with your database credentials
-        dataSource.setPassword("Piyush@01");  // Update with your database credentials
-
-        return dataSource;
+    public DataSource dataSource(ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = pool("verisay-db", url, username, password, false, meterRegistry.getIfAvailable());
+
+        List<String> urls = replicaUrls.stream().filter(StringUtils::hasText).map(String::trim).toList();
+        if (urls.isEmpty()) {
+            return primary;
+        }
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "verisay-db-replica-" + (i + 1);
+            replicas.put(name, pool(name, urls.get(i),
+                    StringUtils.hasText(replicaUsername) ? replicaUsername : username,
+                    StringUtils.hasText(replicaUsername) ? replicaPassword : password,
+                    true, meterRegistry.getIfAvailable()));
+        }
+        routing = new ReplicaRoutingDataSource(primary, replicas,
+                replicaLagQuery, replicaLagColumn, replicaMaxLagMs);
+        routing.afterPropertiesSet();
+        // Lazy, so the route is picked on first use, after the transaction is marked read-only
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @PreDestroy
+    public void closeReplicaRouting() throws IOException {
+        if (routing != null) {
+            routing.close();
+        }
+    }
+
+    private HikariDataSource pool(String name, String jdbcUrl, String user, String pass, boolean readOnly,
+                                  MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(pass);
+        config.setReadOnly(readOnly);
+        if (meterRegistry != null) {
+            config.setMetricRegistry(meterRegistry);
+        }
+
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(minimumIdle);
+        config.setConnectionTimeout(connectionTimeoutMs);
+        config.setIdleTimeout(idleTimeoutMs);
+        config.setMaxLifetime(maxLifetimeMs);
+        config.setLeakDetectionThreshold(leakDetectionThresholdMs);
+
+        // --- MYSQL DRIVER TUNING ---
+        // Cache prepared statements per connection instead of re-parsing the same SQL on every call
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        // Turns a JDBC batch of inserts into one multi-row INSERT
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        // Skip round trips for session state the driver already knows
+        config.addDataSourceProperty("useLocalSessionState", "true");
+        config.addDataSourceProperty("elideSetAutoCommits", "true");
+        config.addDataSourceProperty("cacheResultSetMetadata", "true");
+        config.addDataSourceProperty("cacheServerConfiguration", "true");
+        config.addDataSourceProperty("maintainTimeStats", "false");
+
+        return new HikariDataSource(config);
     }
 }
@@ -1,7 +1,11 @@
 package com.backened.verisay.config;
 
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -11,15 +15,34 @@ import java.nio.file.Paths;
 @Configuration
 public class FileStorageConfig {
 
+    // Parts up to this size stay in memory and are never spooled to a temp file.
+    @Value("${file.upload.memory-threshold:512KB}")
+    private DataSize memoryThreshold;
+
+    @Value("${file.upload.max-file-size:50MB}")
+    private DataSize maxFileSize;
+
+    @Value("${file.upload.max-request-size:60MB}")
+    private DataSize maxRequestSize;
+
+    // Where larger parts are spooled. Keeping it on the upload volume avoids a cross-device copy.
+    @Value("${file.upload.spool-dir:${file.upload-dir:${java.io.tmpdir}}/.incoming}")
+    private String spoolDir;
+
     @Bean
-    public Path uploadPath() {
-        Path path = Paths.get(System.getProperty("user.dir"), "uploads");
+    public MultipartConfigElement multipartConfigElement() {
+        Path spoolPath = Paths.get(spoolDir).toAbsolutePath();
         try {
-            // Ensure the directory exists
-            Files.createDirectories(path);
+            Files.createDirectories(spoolPath);
         } catch (IOException e) {
-            throw new RuntimeException("Could not create upload directory", e);
+            throw new RuntimeException("Could not create upload spool directory", e);
         }
-        return path;
+
+        MultipartConfigFactory factory = new MultipartConfigFactory();
+        factory.setFileSizeThreshold(memoryThreshold);
+        factory.setMaxFileSize(maxFileSize);
+        factory.setMaxRequestSize(maxRequestSize);
+        factory.setLocation(spoolPath.toString());
+        return factory.createMultipartConfig();
     }
 }
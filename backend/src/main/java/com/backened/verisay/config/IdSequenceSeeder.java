@@ -0,0 +1,56 @@
+package com.backened.verisay.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the emulated id sequences past the ids already handed out by AUTO_INCREMENT.
+ * On MySQL Hibernate emulates each sequence with a one-row table ({@code next_val}). The pooled optimizer
+ * hands out ids from {@code next_val - allocationSize + 1}, so the value must sit at least
+ * one allocation block above the current maximum id.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceSeeder.class);
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    // sequence table -> entity table
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "agreements_seq", "agreements",
+            "audio_records_seq", "audio_records",
+            "face_identities_seq", "face_identities",
+            "id_proofs_seq", "id_proofs");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void seedSequences() {
+        SEQUENCES.forEach((sequenceTable, entityTable) -> {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + entityTable, Long.class);
+                long floor = maxId + ALLOCATION_SIZE + 1;
+                int updated = jdbcTemplate.update(
+                        "UPDATE " + sequenceTable + " SET next_val = GREATEST(next_val, ?)", floor);
+                if (updated == 0) {
+                    jdbcTemplate.update("INSERT INTO " + sequenceTable + " (next_val) VALUES (?)", floor);
+                }
+            } catch (DataAccessException e) {
+                // Native sequences (or a schema not created yet) need no seeding here
+                log.debug("Skipping id sequence seeding for {}: {}", sequenceTable, e.getMessage());
+            }
+        });
+    }
+}
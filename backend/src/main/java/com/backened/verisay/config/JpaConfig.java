@@ -1,5 +1,9 @@
 package com.backened.verisay.config;
 
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -8,4 +12,25 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 public class JpaConfig {
     // Remove all the manual bean configurations
     // Spring Boot will auto-configure everything based on application.properties
+
+    @Value("${agreements.jdbc.batch-size:50}")
+    private int jdbcBatchSize;
+
+    /**
+     * JDBC batching defaults, so bulk agreement creation sends inserts in batches,
+     * and per-transaction connection release for replica routing.
+     * Anything set under spring.jpa.properties in application.properties still wins.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer batchingPropertiesCustomizer() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(jdbcBatchSize));
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, "true");
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, "true");
+            // Give the connection back after each transaction instead of holding it for the whole request,
+            // so a read-only transaction can go to a replica even after a write earlier in the same request
+            properties.putIfAbsent(AvailableSettings.CONNECTION_HANDLING,
+                    "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+        };
+    }
 }
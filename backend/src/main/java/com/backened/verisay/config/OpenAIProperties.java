@@ -3,6 +3,8 @@ package com.backened.verisay.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @ConfigurationProperties(prefix = "openai.api")
 public class OpenAIProperties {
@@ -10,6 +12,30 @@ public class OpenAIProperties {
     private String key;
     private String url;
 
+    // --- TRANSPORT ---
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    // Whisper takes a while on long recordings, so this is generous
+    private Duration readTimeout = Duration.ofSeconds(120);
+
+    // --- RETRIES (429 and 5xx, with jittered exponential backoff) ---
+    private int maxRetries = 3;
+    private Duration retryBaseDelay = Duration.ofMillis(500);
+    private Duration retryMaxDelay = Duration.ofSeconds(10);
+
+    // --- REACTIVE CLIENT ---
+    // Connections the non-blocking client may keep open at once; requests beyond that wait for one
+    private int reactiveMaxConnections = 500;
+
+    // --- BULKHEAD ---
+    private int maxConcurrentRequests = 8;
+    // How long a caller waits for a free slot before being rejected
+    private Duration bulkheadWait = Duration.ofSeconds(2);
+
+    // --- CIRCUIT BREAKER ---
+    // Consecutive failed attempts that open the circuit
+    private int circuitFailureThreshold = 5;
+    private Duration circuitOpenDuration = Duration.ofSeconds(30);
+
     public String getKey() {
         return key;
     }
@@ -25,5 +51,85 @@ public class OpenAIProperties {
     public void setUrl(String url) {
         this.url = url;
     }
-    
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public Duration getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    public void setRetryBaseDelay(Duration retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+    }
+
+    public Duration getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    public void setRetryMaxDelay(Duration retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    public int getReactiveMaxConnections() {
+        return reactiveMaxConnections;
+    }
+
+    public void setReactiveMaxConnections(int reactiveMaxConnections) {
+        this.reactiveMaxConnections = reactiveMaxConnections;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public Duration getBulkheadWait() {
+        return bulkheadWait;
+    }
+
+    public void setBulkheadWait(Duration bulkheadWait) {
+        this.bulkheadWait = bulkheadWait;
+    }
+
+    public int getCircuitFailureThreshold() {
+        return circuitFailureThreshold;
+    }
+
+    public void setCircuitFailureThreshold(int circuitFailureThreshold) {
+        this.circuitFailureThreshold = circuitFailureThreshold;
+    }
+
+    public Duration getCircuitOpenDuration() {
+        return circuitOpenDuration;
+    }
+
+    public void setCircuitOpenDuration(Duration circuitOpenDuration) {
+        this.circuitOpenDuration = circuitOpenDuration;
+    }
+
 }
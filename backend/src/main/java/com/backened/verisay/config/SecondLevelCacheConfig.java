@@ -0,0 +1,155 @@
+package com.backened.verisay.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hibernate second-level and query cache, kept in Caffeine on each node.
+ * Every region is bounded and expires entries; the cache is local, so the TTL is also how long a node can
+ * serve a row another node has since changed (writes on this node update the cache themselves).
+ * Hit and miss counts per region are published as {@code hibernate.second.level.cache.*} on actuator.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // Region names, as used in the entities' @Cache and the repositories' query hints
+    public static final String USERS = "users";
+    public static final String AGREEMENTS = "agreements";
+    public static final String USERS_BY_FIREBASE_UID = "users-by-firebase-uid";
+
+    @Value("${cache.second-level.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.second-level.users.max-entries:10000}")
+    private long userMaxEntries;
+
+    @Value("${cache.second-level.users.ttl-minutes:30}")
+    private long userTtlMinutes;
+
+    // Short: agreements change often and are also written by other nodes
+    @Value("${cache.second-level.agreements.max-entries:10000}")
+    private long agreementMaxEntries;
+
+    @Value("${cache.second-level.agreements.ttl-seconds:60}")
+    private long agreementTtlSeconds;
+
+    @Value("${cache.second-level.queries.max-entries:10000}")
+    private long queryMaxEntries;
+
+    @Value("${cache.second-level.queries.ttl-minutes:5}")
+    private long queryTtlMinutes;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        cacheManager.createCache(USERS, region(userMaxEntries, Duration.ofMinutes(userTtlMinutes)));
+        cacheManager.createCache(AGREEMENTS, region(agreementMaxEntries, Duration.ofSeconds(agreementTtlSeconds)));
+        cacheManager.createCache(USERS_BY_FIREBASE_UID, region(queryMaxEntries, Duration.ofMinutes(queryTtlMinutes)));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(queryMaxEntries, Duration.ofMinutes(queryTtlMinutes)));
+        // Last write time per table, checked before any cached query result is used.
+        // One entry per table, and it must never be dropped before the results it guards.
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(null, null));
+        return cacheManager;
+    }
+
+    /**
+     * Anything set under spring.jpa.properties in application.properties still wins.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCachePropertiesCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.USE_SECOND_LEVEL_CACHE, String.valueOf(enabled));
+            properties.putIfAbsent(AvailableSettings.USE_QUERY_CACHE, String.valueOf(enabled));
+            properties.putIfAbsent(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.putIfAbsent(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            // Only entities marked @Cacheable
+            properties.putIfAbsent(AvailableSettings.JAKARTA_SHARED_CACHE_MODE, "ENABLE_SELECTIVE");
+            // Feeds the hit/miss meters below
+            properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, "true");
+        };
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        if (!enabled) {
+            return registry -> { };
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Function<Statistics, CacheRegionStatistics>> regions = Map.of(
+                USERS, stats -> stats.getDomainDataRegionStatistics(USERS),
+                AGREEMENTS, stats -> stats.getDomainDataRegionStatistics(AGREEMENTS),
+                USERS_BY_FIREBASE_UID, stats -> stats.getQueryRegionStatistics(USERS_BY_FIREBASE_UID));
+        return registry -> regions.forEach((region, regionStatistics) -> {
+            FunctionCounter.builder("hibernate.second.level.cache.requests", statistics,
+                            count(regionStatistics, CacheRegionStatistics::getHitCount))
+                    .tags("region", region, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("hibernate.second.level.cache.requests", statistics,
+                            count(regionStatistics, CacheRegionStatistics::getMissCount))
+                    .tags("region", region, "result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("hibernate.second.level.cache.puts", statistics,
+                            count(regionStatistics, CacheRegionStatistics::getPutCount))
+                    .tags("region", region)
+                    .register(registry);
+            Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, stats -> hitRatio(regionStatistics.apply(stats)))
+                    .description("Share of lookups answered from the cache since startup")
+                    .tags("region", region)
+                    .register(registry);
+        });
+    }
+
+    private static ToDoubleFunction<Statistics> count(Function<Statistics, CacheRegionStatistics> regionStatistics,
+                                                      ToLongFunction<CacheRegionStatistics> counter) {
+        return statistics -> {
+            CacheRegionStatistics region = regionStatistics.apply(statistics);
+            return region != null ? counter.applyAsLong(region) : 0;
+        };
+    }
+
+    private static double hitRatio(CacheRegionStatistics region) {
+        if (region == null) {
+            return 0;
+        }
+        long hits = region.getHitCount();
+        long lookups = hits + region.getMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(Long maxEntries, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate caches its own disassembled copies, so there is nothing to gain from copying them again
+        configuration.setStoreByValue(false);
+        if (maxEntries != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        return configuration;
+    }
+}
@@ -1,18 +1,43 @@
 package com.backened.verisay.config;
 
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // Async responses can run for minutes: reactive transcription waits on Whisper, PDF downloads stream
+    @Value("${web.async.request-timeout-ms:300000}")
+    private long asyncRequestTimeoutMs;
+
+    // Boot's own property, with a higher default: each SSE client (see PushHub) holds a connection while idle,
+    // but no thread, so a node can keep tens of thousands open (the process's open-file limit has to allow it)
+    @Value("${server.tomcat.max-connections:30000}")
+    private int maxConnections;
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> maxConnectionsCustomizer() {
+        return factory -> factory.addConnectorCustomizers(
+                connector -> connector.setProperty("maxConnections", String.valueOf(maxConnections)));
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeoutMs);
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")  // Allow all endpoints
             .allowedOrigins("http://localhost:3000")  // Allow React Native frontend
-            .allowedMethods("GET", "POST", "PUT", "DELETE")  // Allow these HTTP methods
+            .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE")  // Allow these HTTP methods
             .allowedHeaders("*");  // Allow all headers
     }
 }
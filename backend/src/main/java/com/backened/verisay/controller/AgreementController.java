@@ -1,27 +1,83 @@
 package com.backened.verisay.controller;
 
+import com.backened.verisay.dto.AgreementSummary;
+import com.backened.verisay.dto.AgreementSummaryPage;
+import com.backened.verisay.dto.BulkAgreementRequest;
+import com.backened.verisay.dto.BulkAgreementResult;
 import com.backened.verisay.model.Agreement;
 import com.backened.verisay.model.FaceIdentity;
+import com.backened.verisay.model.FinalPDF;
 import com.backened.verisay.model.IdProof;
+import com.backened.verisay.outbox.AgreementEventStream;
+import com.backened.verisay.service.AgreementCounters;
 import com.backened.verisay.service.AgreementService;
 import com.backened.verisay.service.AudioTranscriptionService.TranscriptionResult;
+import com.backened.verisay.service.BulkAgreementService;
+import com.backened.verisay.service.FinalPDFService;
+import com.backened.verisay.service.PdfGenerationService;
+import com.backened.verisay.service.TranscriptionJobService;
+import com.backened.verisay.service.TranscriptionJobService.TranscriptionJob;
+import com.backened.verisay.storage.FileStat;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/agreements")
 @CrossOrigin(origins = "*") // For development only
 public class AgreementController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private AgreementService agreementService;
 
+    @Autowired
+    private TranscriptionJobService transcriptionJobService;
+
+    @Autowired
+    private BulkAgreementService bulkAgreementService;
+
+    @Autowired
+    private PdfGenerationService pdfGenerationService;
+
+    @Autowired
+    private FinalPDFService finalPDFService;
+
+    @Autowired
+    private StoredFileResponder storedFileResponder;
+
+    // Read directly: counts come from memory, so no service transaction (and no connection) is needed
+    @Autowired
+    private AgreementCounters agreementCounters;
+
+    @Autowired
+    private AgreementEventStream agreementEventStream;
+
+    @Value("${transcription.jobs.legacy-wait-ms:300000}")
+    private long legacyWaitMillis;
+
     // --- STEP 1: Create the Agreement Record ---
     @PostMapping("/save")
     public ResponseEntity<?> createAgreement(@RequestBody Map<String, Object> payload) {
@@ -65,30 +121,125 @@ public class AgreementController {
         return ResponseEntity.ok(Map.of("message", "Audio uploaded successfully."));
     }
 
+    // --- BULK: Create many agreements with their files in one request ---
+    // The "manifest" part is a JSON BulkAgreementRequest; every other part is a file it refers to by part name.
+    @PostMapping(value = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> createAgreementsInBulk(@RequestPart("manifest") BulkAgreementRequest manifest,
+                                                    MultipartHttpServletRequest request) {
+        try {
+            List<BulkAgreementResult> results = bulkAgreementService.createAll(manifest, request.getMultiFileMap());
+            return ResponseEntity.ok(Map.of("results", results));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // --- STEP 3: Trigger AI Processing ---
+
+    // Queues transcription and returns the job straight away; poll the job endpoint for progress.
+    @PostMapping("/transcribe/{agreementId}/jobs")
+    public ResponseEntity<?> submitTranscriptionJob(@PathVariable Long agreementId) {
+        try {
+            TranscriptionJob job = transcriptionJobService.submit(agreementId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Transcription queue is full, please retry shortly."));
+        }
+    }
+
+    @GetMapping("/transcribe/jobs/{jobId}")
+    public ResponseEntity<?> getTranscriptionJob(@PathVariable String jobId) {
+        return transcriptionJobService.getJob(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Transcription job not found: " + jobId)));
+    }
+
+    // Kept for existing clients: runs through the same job pipeline and waits for the result.
+    // No transaction is held while waiting, but the request thread still is; prefer the job endpoints.
+    // A job still running after transcription.jobs.legacy-wait-ms answers 504 with its id, to poll from there.
     @GetMapping("/transcribe/{agreementId}")
-    public ResponseEntity<TranscriptionResult> transcribeAgreementAudio(@PathVariable Long agreementId) {
-        TranscriptionResult result = agreementService.processAgreementAudioAndExtractFields(agreementId);
-        return ResponseEntity.ok(result);
+    public ResponseEntity<?> transcribeAgreementAudio(@PathVariable Long agreementId) {
+        TranscriptionJob job;
+        try {
+            job = transcriptionJobService.submit(agreementId);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            return ResponseEntity.ok(job.getCompletion().get(legacyWaitMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(Map.of("error", "Transcription is still running", "jobId", job.getJobId()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (ExecutionException e) {
+            // Jobs complete with a result even when they fail, so this doesn't happen
+            throw new IllegalStateException(e.getCause());
+        }
     }
-    
+
+    // Non-blocking variant: no request or worker thread waits on Whisper, so many can be in flight at once.
+    @GetMapping("/transcribe/{agreementId}/reactive")
+    public Mono<TranscriptionResult> transcribeAgreementAudioReactive(@PathVariable Long agreementId) {
+        return transcriptionJobService.transcribeReactive(agreementId);
+    }
+
     // --- STEP 4: Complete with Manual Data ---
     @PostMapping("/complete-fields/{agreementId}")
-    public ResponseEntity<Agreement> completeFields(@PathVariable Long agreementId, @RequestBody Map<String, Object> payload) {
-        // The frontend sends a payload like {"fields": {...}}
+    public ResponseEntity<?> completeFields(@PathVariable Long agreementId, @RequestBody Map<String, Object> payload) {
+        // The frontend sends a payload like {"fields": {...}}, optionally with the "version" it loaded
         @SuppressWarnings("unchecked")
         Map<String, Object> fields = (Map<String, Object>) payload.get("fields");
-        Agreement updatedAgreement = agreementService.completeAgreementFields(agreementId, fields);
-        return ResponseEntity.ok(updatedAgreement);
+        Long expectedVersion = payload.get("version") instanceof Number number ? number.longValue() : null;
+        try {
+            Agreement updatedAgreement = agreementService.completeAgreementFields(agreementId, fields, expectedVersion);
+            return ResponseEntity.ok(updatedAgreement);
+        } catch (ConcurrencyFailureException e) {
+            return conflict(agreementId);
+        }
+    }
+
+    // Autosave: send only the changed fields as an RFC 7386 merge patch ({"rentAmount": "16000", "oldField": null}).
+    // Send the version from the last response as If-Match to reject the patch if someone else saved in between.
+    @PatchMapping(value = "/{agreementId}/data", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchAgreementData(@PathVariable Long agreementId,
+                                                @RequestBody Map<String, Object> patch,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = parseVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "If-Match must be an agreement version, e.g. \"3\""));
+        }
+        try {
+            long version = agreementService.patchAgreementData(agreementId, patch, expectedVersion);
+            return ResponseEntity.ok()
+                    .eTag(Long.toString(version))
+                    .body(Map.of("version", version));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", "Agreement " + agreementId + " has changed since version " + expectedVersion + "; reload it and retry."));
+        } catch (ConcurrencyFailureException e) {
+            return conflict(agreementId);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
     }
 
     // --- STEP 5: Finalize the Agreement ---
     @PutMapping("/update-status/{agreementId}")
-    public ResponseEntity<Agreement> updateStatus(@PathVariable Long agreementId, @RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> updateStatus(@PathVariable Long agreementId, @RequestBody Map<String, String> payload) {
         String statusStr = payload.get("status");
         if ("SIGNED".equalsIgnoreCase(statusStr)) {
-            Agreement finalizedAgreement = agreementService.finalizeAgreement(agreementId);
-            return ResponseEntity.ok(finalizedAgreement);
+            try {
+                Agreement finalizedAgreement = agreementService.finalizeAgreement(agreementId);
+                return ResponseEntity.ok(finalizedAgreement);
+            } catch (ConcurrencyFailureException e) {
+                return conflict(agreementId);
+            }
         }
         // Can add more status updates here if needed later
         return ResponseEntity.badRequest().build();
@@ -102,8 +253,128 @@ public class AgreementController {
         return ResponseEntity.ok(agreementService.findAgreementById(id));
     }
 
+    // Signed agreements are served from the PDF stored at signing (ETag + Range);
+    // others are rendered straight into the response as a preview
+    @GetMapping("/{id}/pdf")
+    public ResponseEntity<StreamingResponseBody> getAgreementPdf(@PathVariable Long id,
+                                                                 HttpServletRequest request, WebRequest webRequest) {
+        Optional<FinalPDF> finalPDF = finalPDFService.findByAgreementId(id);
+        if (finalPDF.isPresent()) {
+            String eTag = finalPDF.get().getBlockchainHash();
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+            FileStat stat = finalPDFService.verifiedStat(finalPDF.get());
+            return storedFileResponder.respond(request, stat, eTag, MediaType.APPLICATION_PDF, "agreement-" + id + ".pdf");
+        }
+
+        Agreement agreement = agreementService.findAgreementById(id);
+        StreamingResponseBody body = out -> pdfGenerationService.writeAgreementPdf(agreement, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"agreement-" + id + ".pdf\"")
+                .body(body);
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<Agreement>> getAgreementsForUser(@PathVariable Integer userId) {
         return ResponseEntity.ok(agreementService.getAgreementsByUserId(userId));
     }
+
+    // Paginated listing without agreement data or files: pass back "nextCursor" as "cursor" for the next page
+    @GetMapping("/user/{userId}/summaries")
+    public ResponseEntity<?> listAgreementSummaries(@PathVariable Integer userId,
+                                                    @RequestParam(required = false) Agreement.AgreementStatus status,
+                                                    @RequestParam(required = false) Agreement.AgreementType type,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        try {
+            AgreementSummaryPage page = agreementService.listAgreementSummaries(userId, status, type, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Dashboard counts per status, from the in-memory counters. Commits on this node show at once,
+    // those on other nodes within agreement.counters.reconcile-ms
+    @GetMapping("/user/{userId}/counts")
+    public ResponseEntity<?> countAgreements(@PathVariable Integer userId) {
+        return ResponseEntity.ok(Map.of(
+                "total", agreementCounters.count(userId, null, null),
+                "byStatus", agreementCounters.countByStatus(userId)));
+    }
+
+    // Full-text search over the user's agreements: title, filled-in fields and what was said in the recording
+    @GetMapping("/user/{userId}/search")
+    public ResponseEntity<?> searchAgreements(@PathVariable Integer userId,
+                                              @RequestParam("q") String query,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "q is required."));
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        List<AgreementSummary> results = agreementService.searchAgreements(userId, query, limit);
+        return ResponseEntity.ok(results);
+    }
+
+    // Live events of the user's agreements: CREATED, STATUS_CHANGED, AUDIO_STATUS_CHANGED and FIELDS_EXTRACTED.
+    // After a reconnect, EventSource sends Last-Event-ID and gets what it missed first, or RESYNC if that's too much
+    @GetMapping(value = "/user/{userId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAgreementEvents(@PathVariable Integer userId,
+                                            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return agreementEventStream.subscribeUser(userId, lastEventId);
+    }
+
+    // The same for one agreement: follow a transcription and its extracted fields instead of polling for them
+    @GetMapping(value = "/{agreementId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEventsOfAgreement(@PathVariable Long agreementId,
+                                              @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return agreementEventStream.subscribeAgreement(agreementId, lastEventId);
+    }
+
+    // Filter by an indexed data field, e.g. ?type=RENTAL&field=rentAmount&from=10000&to=20000, or &value= for one value
+    @GetMapping("/user/{userId}/by-field")
+    public ResponseEntity<?> findAgreementsByField(@PathVariable Integer userId,
+                                                   @RequestParam Agreement.AgreementType type,
+                                                   @RequestParam String field,
+                                                   @RequestParam(required = false) String value,
+                                                   @RequestParam(required = false) String from,
+                                                   @RequestParam(required = false) String to,
+                                                   @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        try {
+            List<AgreementSummary> results = value != null
+                    ? agreementService.findAgreementsByField(userId, type, field, value, value, limit)
+                    : agreementService.findAgreementsByField(userId, type, field, from, to, limit);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Someone else changed the agreement first, or is changing it right now
+    private static ResponseEntity<?> conflict(Long agreementId) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Agreement " + agreementId + " was changed concurrently; reload it and retry."));
+    }
+
+    // If-Match: "3", W/"3" or * (any version)
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        return Long.parseLong(tag.replace("\"", ""));
+    }
 }
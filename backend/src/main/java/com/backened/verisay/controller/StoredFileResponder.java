@@ -0,0 +1,111 @@
+package com.backened.verisay.controller;
+
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.FileStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds download responses for stored files, with single-range support (206 / 416).
+ * Files on the local filesystem are handed to Tomcat's sendfile when the connector supports it,
+ * so their bytes never pass through the JVM; everything else is streamed from storage.
+ * ETag / If-None-Match is left to the caller (WebRequest.checkNotModified).
+ */
+@Component
+public class StoredFileResponder {
+
+    // Tomcat's request attributes for zero-copy file transfer
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private FileStorage fileStorage;
+
+    public ResponseEntity<StreamingResponseBody> respond(HttpServletRequest request, FileStat stat, String eTag,
+                                                         MediaType contentType, String filename) {
+        long total = stat.getSize();
+        long start = 0;
+        long end = total - 1;
+        HttpStatus status = HttpStatus.OK;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range with a stale validator means "send the whole file"
+        boolean rangeApplies = rangeHeader != null && (ifRange == null || ifRange.equals(quoted(eTag)));
+        if (rangeApplies) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                return unsatisfiable(total);
+            }
+            // Multi-range requests are answered with the whole file, which the spec allows
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(total);
+                    end = range.getRangeEnd(total);
+                } catch (IllegalArgumentException e) {
+                    return unsatisfiable(total);
+                }
+                if (start >= total || start > end) {
+                    return unsatisfiable(total);
+                }
+                status = HttpStatus.PARTIAL_CONTENT;
+            }
+        }
+
+        long length = end - start + 1;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .eTag(eTag)
+                .lastModified(stat.getLastModified())
+                .contentType(contentType)
+                .contentLength(length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + total);
+        }
+
+        Optional<Path> localFile = fileStorage.localFile(stat.getPath());
+        if (localFile.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // No body: Tomcat writes the file region itself once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, localFile.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return response.build();
+        }
+
+        long offset = start;
+        StreamingResponseBody body = out -> {
+            try (InputStream in = fileStorage.open(stat.getPath(), offset, length)) {
+                in.transferTo(out);
+            }
+        };
+        return response.body(body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> unsatisfiable(long total) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + total)
+                .build();
+    }
+
+    private static String quoted(String eTag) {
+        return eTag.startsWith("\"") ? eTag : "\"" + eTag + "\"";
+    }
+}
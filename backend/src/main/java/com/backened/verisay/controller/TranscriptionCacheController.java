@@ -0,0 +1,35 @@
+package com.backened.verisay.controller;
+
+import com.backened.verisay.service.TranscriptionCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/transcription-cache")
+@CrossOrigin(origins = "*") // For development only
+public class TranscriptionCacheController {
+
+    @Autowired
+    private TranscriptionCacheService transcriptionCacheService;
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(transcriptionCacheService.getStats());
+    }
+
+    // Forgets the cached results for one recording, identified by its SHA-256 hash.
+    @DeleteMapping("/{contentHash}")
+    public ResponseEntity<Map<String, Object>> invalidate(@PathVariable String contentHash) {
+        long removed = transcriptionCacheService.invalidate(contentHash);
+        return ResponseEntity.ok(Map.of("removed", removed));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> invalidateAll() {
+        transcriptionCacheService.invalidateAll();
+        return ResponseEntity.ok(Map.of("message", "Transcription cache cleared."));
+    }
+}
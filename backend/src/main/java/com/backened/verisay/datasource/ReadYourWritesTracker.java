@@ -0,0 +1,80 @@
+package com.backened.verisay.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which agreements and users were written recently, so reads of them go to the primary
+ * until the replicas have had time to catch up. The window should be longer than the allowed replica lag.
+ * State is per node; a load balancer with sticky sessions keeps a user on the node that saw the write.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    @Value("${spring.datasource.replica.read-your-writes-ms:5000}")
+    private long windowMillis;
+
+    // "agreement:42" / "user:7" -> time (nanoTime) until which reads must go to the primary
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Records a write to the agreement, and to its owner's agreement list.
+     * Inside a transaction the window starts when it commits.
+     */
+    public void recordWrite(Long agreementId, Integer userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(agreementId, userId);
+                }
+            });
+        } else {
+            record(agreementId, userId);
+        }
+    }
+
+    /**
+     * Pins the current transaction to the primary if the agreement was written recently.
+     */
+    public void routeAgreementRead(Long agreementId) {
+        if (isRecent("agreement:" + agreementId)) {
+            ReplicaRoutingDataSource.pinToPrimary();
+        }
+    }
+
+    /**
+     * Pins the current transaction to the primary if one of the user's agreements was written recently.
+     */
+    public void routeUserRead(Integer userId) {
+        if (isRecent("user:" + userId)) {
+            ReplicaRoutingDataSource.pinToPrimary();
+        }
+    }
+
+    private void record(Long agreementId, Integer userId) {
+        long until = System.nanoTime() + windowMillis * 1_000_000;
+        if (agreementId != null) {
+            recentWrites.put("agreement:" + agreementId, until);
+        }
+        if (userId != null) {
+            recentWrites.put("user:" + userId, until);
+        }
+        if (recentWrites.size() > PRUNE_THRESHOLD) {
+            long now = System.nanoTime();
+            recentWrites.values().removeIf(expiry -> expiry - now < 0);
+        }
+    }
+
+    private boolean isRecent(String key) {
+        Long until = recentWrites.get(key);
+        return until != null && until - System.nanoTime() > 0;
+    }
+}
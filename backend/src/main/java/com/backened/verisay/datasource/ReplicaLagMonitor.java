@@ -0,0 +1,25 @@
+package com.backened.verisay.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Periodically re-checks replica lag so lagging or unreachable replicas stop taking reads.
+ */
+@Component
+public class ReplicaLagMonitor {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Scheduled(initialDelayString = "0", fixedDelayString = "${spring.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkReplicas() throws SQLException {
+        if (dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+            dataSource.unwrap(ReplicaRoutingDataSource.class).refreshReplicaHealth();
+        }
+    }
+}
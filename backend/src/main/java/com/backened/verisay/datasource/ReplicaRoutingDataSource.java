@@ -0,0 +1,187 @@
+package com.backened.verisay.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy, so the connection is fetched after the
+ * transaction's read-only flag has been set.
+ * A replica whose replication lag exceeds the limit (or that can't be reached) is skipped until it catches up;
+ * with no healthy replica, reads fall back to the primary.
+ * Owns the primary and replica pools: closing it closes them.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+
+    // Set for the rest of the current transaction by pinToPrimary()
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> healthyReplicas = new ArrayList<>();
+    private final Map<String, Long> lagMillis = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagMillis;
+
+    /**
+     * @param replicas  Replica pools by name, in preference order.
+     * @param lagQuery  Query run on a replica to read its lag, e.g. "SHOW REPLICA STATUS".
+     * @param lagColumn Column of the lag query holding the lag in seconds; NULL means replication is stopped.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    String lagQuery, String lagColumn, long maxLagMillis) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagMillis = maxLagMillis;
+
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // Replicas start out unused until their first lag check passes
+    }
+
+    /**
+     * Sends the rest of the current transaction to the primary, whatever its read-only flag says.
+     * Used for read-your-writes. Outside a transaction this is a no-op, as everything goes to the primary anyway.
+     */
+    public static void pinToPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || Boolean.TRUE.equals(PINNED_TO_PRIMARY.get())) {
+            return;
+        }
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PINNED_TO_PRIMARY.remove();
+            }
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || Boolean.TRUE.equals(PINNED_TO_PRIMARY.get())) {
+            return PRIMARY;
+        }
+        synchronized (healthyReplicas) {
+            if (healthyReplicas.isEmpty()) {
+                return PRIMARY;
+            }
+            return healthyReplicas.get(Math.floorMod(nextReplica.getAndIncrement(), healthyReplicas.size()));
+        }
+    }
+
+    /**
+     * Re-checks every replica's lag and updates which ones take reads. Called on a schedule.
+     */
+    public void refreshReplicaHealth() {
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            OptionalLong lag = measureLag(replica.getKey(), replica.getValue());
+            if (lag.isPresent()) {
+                lagMillis.put(replica.getKey(), lag.getAsLong());
+                if (lag.getAsLong() <= maxLagMillis) {
+                    healthy.add(replica.getKey());
+                }
+            } else {
+                lagMillis.remove(replica.getKey());
+            }
+        }
+
+        synchronized (healthyReplicas) {
+            if (!healthyReplicas.equals(healthy)) {
+                log.info("Replicas taking reads: {} (lag ms: {})", healthy, lagMillis);
+            }
+            healthyReplicas.clear();
+            healthyReplicas.addAll(healthy);
+        }
+    }
+
+    private OptionalLong measureLag(String name, DataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next()) {
+                    log.warn("Replica {} reports no replication status", name);
+                    return OptionalLong.empty();
+                }
+                long seconds = rs.getLong(lagColumn);
+                if (rs.wasNull()) {
+                    log.warn("Replication is stopped on replica {}", name);
+                    return OptionalLong.empty();
+                }
+                return OptionalLong.of(seconds * 1000);
+            }
+        } catch (SQLException e) {
+            log.warn("Could not check lag of replica {}: {}", name, e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Names of the replicas currently taking reads.
+     */
+    public List<String> getHealthyReplicas() {
+        synchronized (healthyReplicas) {
+            return List.copyOf(healthyReplicas);
+        }
+    }
+
+    /**
+     * Last measured lag per reachable replica, in milliseconds.
+     */
+    public Map<String, Long> getReplicaLagMillis() {
+        return Map.copyOf(lagMillis);
+    }
+
+    /**
+     * Closes every pool that can be closed, the replicas first; all are attempted even if one fails.
+     */
+    @Override
+    public void close() throws IOException {
+        List<DataSource> pools = new ArrayList<>(replicas.values());
+        pools.add(primary);
+        IOException failure = null;
+        for (DataSource pool : pools) {
+            if (!(pool instanceof AutoCloseable closeable)) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = new IOException("Could not close every connection pool", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.backened.verisay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * When an agreement last changed and to which version, without loading it; what the search indexer follows.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgreementChange {
+
+    private Long id;
+    private Long version;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,25 @@
+package com.backened.verisay.dto;
+
+import com.backened.verisay.model.Agreement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agreement list entry: the agreement's own columns only, without its JSON data or child records.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgreementSummary {
+
+    private Long id;
+    private String title;
+    private Agreement.AgreementType type;
+    private Agreement.AgreementStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime signedAt;
+}
@@ -0,0 +1,19 @@
+package com.backened.verisay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of an agreement listing. Pass {@code nextCursor} back to get the next page; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgreementSummaryPage {
+
+    private List<AgreementSummary> items;
+    private String nextCursor;
+}
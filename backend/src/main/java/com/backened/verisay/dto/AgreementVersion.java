@@ -0,0 +1,19 @@
+package com.backened.verisay.dto;
+
+import com.backened.verisay.model.Agreement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An agreement's version and the little else needed around an in-database update, without loading its data.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgreementVersion {
+
+    private Long version;
+    private Integer userId;
+    private Agreement.AgreementStatus status;
+}
@@ -0,0 +1,48 @@
+package com.backened.verisay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The "manifest" part of a bulk upload: the agreements to create and, for each one,
+ * which multipart file parts belong to it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAgreementRequest {
+
+    private List<Item> agreements;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        // Echoed back in the result so the caller can match items up
+        private String clientRef;
+        private Integer userId;
+        private String type;
+        private String title;
+        private List<FileRef> files;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileRef {
+        // Name of the multipart part carrying the file
+        private String part;
+        private FileKind kind;
+        private String partyType;    // FACE and ID_PROOF only
+        private String idProofType;  // ID_PROOF only
+    }
+
+    public enum FileKind {
+        FACE,
+        ID_PROOF,
+        AUDIO
+    }
+}
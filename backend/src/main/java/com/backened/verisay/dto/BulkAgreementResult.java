@@ -0,0 +1,32 @@
+package com.backened.verisay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk upload.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAgreementResult {
+
+    private String clientRef;
+    private Status status;
+    private Long agreementId;
+    private String error;
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    public static BulkAgreementResult created(String clientRef, Long agreementId) {
+        return new BulkAgreementResult(clientRef, Status.CREATED, agreementId, null);
+    }
+
+    public static BulkAgreementResult failed(String clientRef, String error) {
+        return new BulkAgreementResult(clientRef, Status.FAILED, null, error);
+    }
+}
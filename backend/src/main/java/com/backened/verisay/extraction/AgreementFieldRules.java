@@ -0,0 +1,101 @@
+package com.backened.verisay.extraction;
+
+import com.backened.verisay.model.Agreement;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fields of every agreement type, declared once.
+ * Keys, labels and required flags match the frontend's AGREEMENT_FIELDS constant.
+ * Fields marked {@code indexed()} get a generated column and index on the agreements table.
+ */
+public final class AgreementFieldRules {
+
+    private static final Map<Agreement.AgreementType, List<FieldRule>> RULES = new EnumMap<>(Agreement.AgreementType.class);
+
+    static {
+        RULES.put(Agreement.AgreementType.RENTAL, List.of(
+                new FieldRule("landlordName", "Landlord Name", true, FieldType.NAME,
+                        "landlord name", "name of the landlord", "landlord", "owner name", "owner").indexed(),
+                new FieldRule("tenantName", "Tenant Name", true, FieldType.NAME,
+                        "tenant name", "name of the tenant", "tenant", "renter").indexed(),
+                new FieldRule("propertyAddress", "Property Address", true, FieldType.TEXT,
+                        "property address", "address of the property", "property is located at", "property located at", "address"),
+                new FieldRule("rentAmount", "Monthly Rent Amount", true, FieldType.AMOUNT,
+                        "monthly rent amount", "rent amount", "monthly rent", "rent").indexed(),
+                new FieldRule("securityDeposit", "Security Deposit", true, FieldType.AMOUNT,
+                        "security deposit amount", "security deposit", "deposit"),
+                new FieldRule("startDate", "Lease Start Date", true, FieldType.DATE,
+                        "lease start date", "start date", "lease starts on", "lease starts", "starting from", "starting on", "starts on").indexed(),
+                new FieldRule("endDate", "Lease End Date", true, FieldType.DATE,
+                        "lease end date", "end date", "lease ends on", "lease ends", "ending on", "ends on", "valid till", "valid until"),
+                new FieldRule("utilities", "Utilities Responsibility", false, FieldType.TEXT,
+                        "utilities", "utility bills", "electricity and water"),
+                new FieldRule("noticePeriod", "Notice Period (days)", false, FieldType.DURATION_DAYS,
+                        "notice period", "notice of")));
+
+        RULES.put(Agreement.AgreementType.LOAN, List.of(
+                new FieldRule("lenderName", "Lender Name", true, FieldType.NAME,
+                        "lender name", "name of the lender", "lender"),
+                new FieldRule("borrowerName", "Borrower Name", true, FieldType.NAME,
+                        "borrower name", "name of the borrower", "borrower").indexed(),
+                new FieldRule("loanAmount", "Loan Amount", true, FieldType.AMOUNT,
+                        "loan amount", "principal amount", "amount of the loan", "principal", "loan of").indexed(),
+                new FieldRule("interestRate", "Interest Rate (%)", true, FieldType.PERCENT,
+                        "interest rate", "rate of interest", "interest of", "interest"),
+                new FieldRule("repaymentPeriod", "Repayment Period (months)", true, FieldType.DURATION_MONTHS,
+                        "repayment period", "repayment term", "loan term", "tenure", "repaid within", "repaid in"),
+                new FieldRule("startDate", "Loan Start Date", true, FieldType.DATE,
+                        "loan start date", "start date", "starting from", "starting on", "starts on", "disbursed on").indexed(),
+                new FieldRule("endDate", "Repayment End Date", true, FieldType.DATE,
+                        "repayment end date", "end date", "repaid by", "ends on", "due date", "due on"),
+                new FieldRule("collateral", "Collateral Details", false, FieldType.TEXT,
+                        "collateral details", "collateral", "security for the loan")));
+
+        RULES.put(Agreement.AgreementType.BUSINESS, List.of(
+                new FieldRule("businessName", "Business Name", true, FieldType.TEXT,
+                        "business name", "name of the business", "company name", "firm name").indexed(),
+                new FieldRule("partnerName", "Partner Name", true, FieldType.NAME,
+                        "partner name", "name of the partner", "partner"),
+                new FieldRule("businessType", "Business Type", true, FieldType.TEXT,
+                        "business type", "type of business", "nature of business"),
+                new FieldRule("investmentAmount", "Investment Amount", true, FieldType.AMOUNT,
+                        "investment amount", "capital contribution", "investment of", "investment", "invest"),
+                new FieldRule("profitSharingRatio", "Profit Sharing Ratio", true, FieldType.RATIO,
+                        "profit sharing ratio", "profit sharing", "profit ratio", "profits shared", "profits split"),
+                new FieldRule("startDate", "Partnership Start Date", true, FieldType.DATE,
+                        "partnership start date", "start date", "starting from", "starting on", "starts on", "commences on").indexed(),
+                new FieldRule("responsibilities", "Responsibilities", false, FieldType.TEXT,
+                        "responsibilities", "responsible for", "duties"),
+                new FieldRule("terminationClause", "Termination Clause", false, FieldType.TEXT,
+                        "termination clause", "termination", "terminated")));
+
+        RULES.put(Agreement.AgreementType.FREELANCING, List.of(
+                new FieldRule("clientName", "Client Name", true, FieldType.NAME,
+                        "client name", "name of the client", "client").indexed(),
+                new FieldRule("freelancerName", "Freelancer Name", true, FieldType.NAME,
+                        "freelancer name", "name of the freelancer", "freelancer", "contractor"),
+                new FieldRule("projectDescription", "Project Description", true, FieldType.TEXT,
+                        "project description", "description of the project", "project is", "project"),
+                new FieldRule("projectAmount", "Project Amount", true, FieldType.AMOUNT,
+                        "project amount", "project fee", "total fee", "fee of", "fee", "paid"),
+                new FieldRule("deadline", "Project Deadline", true, FieldType.DATE,
+                        "project deadline", "deadline", "delivered by", "completed by", "due by").indexed(),
+                new FieldRule("paymentTerms", "Payment Terms", true, FieldType.TEXT,
+                        "payment terms", "terms of payment", "payment will be made", "payment"),
+                new FieldRule("deliverables", "Deliverables", false, FieldType.TEXT,
+                        "deliverables", "will deliver"),
+                new FieldRule("revisionPolicy", "Revision Policy", false, FieldType.TEXT,
+                        "revision policy", "revisions")));
+    }
+
+    private AgreementFieldRules() {
+    }
+
+    public static List<FieldRule> forType(Agreement.AgreementType type) {
+        return RULES.getOrDefault(type, Collections.emptyList());
+    }
+}
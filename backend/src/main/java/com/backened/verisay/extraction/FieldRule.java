@@ -0,0 +1,44 @@
+package com.backened.verisay.extraction;
+
+import java.util.List;
+
+/**
+ * Declares one agreement field: its key in agreementData, whether the form requires it,
+ * how its value looks, the phrases that introduce it in a transcript, and whether agreements can be filtered on it.
+ */
+public class FieldRule {
+    private final String key;
+    private final String label;
+    private final boolean required;
+    private final FieldType type;
+    private final List<String> phrases;
+    private final boolean indexed;
+
+    public FieldRule(String key, String label, boolean required, FieldType type, String... phrases) {
+        this(key, label, required, type, List.of(phrases), false);
+    }
+
+    private FieldRule(String key, String label, boolean required, FieldType type, List<String> phrases, boolean indexed) {
+        this.key = key;
+        this.label = label;
+        this.required = required;
+        this.type = type;
+        this.phrases = phrases;
+        this.indexed = indexed;
+    }
+
+    /**
+     * The same rule, with the field also kept in an indexed column of the agreements table
+     * (see AgreementDataColumns), so agreements can be filtered and sorted on it without reading their JSON.
+     */
+    public FieldRule indexed() {
+        return new FieldRule(key, label, required, type, phrases, true);
+    }
+
+    public String getKey() { return key; }
+    public String getLabel() { return label; }
+    public boolean isRequired() { return required; }
+    public FieldType getType() { return type; }
+    public List<String> getPhrases() { return phrases; }
+    public boolean isIndexed() { return indexed; }
+}
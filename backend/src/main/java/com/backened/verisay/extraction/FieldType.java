@@ -0,0 +1,213 @@
+package com.backened.verisay.extraction;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How a field value looks in a transcript and how it is normalised.
+ * Every value pattern is compiled once and starts with the connecting words that usually follow a label
+ * ("is", "will be", ":" ...), so it can be matched right where the label ends.
+ */
+public enum FieldType {
+
+    // Person names: up to four words, cut at the first word that clearly isn't part of a name
+    NAME("(\\p{L}[\\p{L}'-]*\\.?(?:\\s+\\p{L}[\\p{L}'-]*\\.?){0,3})") {
+        @Override
+        String normalise(Matcher m) {
+            StringBuilder name = new StringBuilder();
+            for (String word : m.group(1).split("\\s+")) {
+                if (NAME_STOP_WORDS.contains(word.toLowerCase(Locale.ROOT))) {
+                    break;
+                }
+                if (name.length() > 0) {
+                    name.append(' ');
+                }
+                // A full stop after anything longer than an initial ends the sentence, and the name
+                boolean endOfSentence = word.endsWith(".") && word.length() > 2;
+                String cleaned = endOfSentence ? word.substring(0, word.length() - 1) : word;
+                name.append(Character.toUpperCase(cleaned.charAt(0))).append(cleaned.substring(1));
+                if (endOfSentence) {
+                    break;
+                }
+            }
+            return name.length() > 0 ? name.toString() : null;
+        }
+    },
+
+    // Free text up to the end of the sentence
+    TEXT("(.{1,200}?)(?=\\.\\s|\\.$|[;\\n]|$)") {
+        @Override
+        String normalise(Matcher m) {
+            String text = m.group(1).trim();
+            return text.isEmpty() ? null : text;
+        }
+    },
+
+    // "Rs. 15,000", "1.5 lakh rupees", "$2k" -> "15000", "150000", "2000"
+    AMOUNT("(?:(?:rs\\.?|inr|rupees|\u20B9|\\$|usd|dollars)\\s*)?([0-9][0-9,]*(?:\\.[0-9]+)?)\\s*(k|thousand|lakhs?|lacs?|crores?|million)?\\b") {
+        @Override
+        String normalise(Matcher m) {
+            BigDecimal amount = new BigDecimal(m.group(1).replace(",", ""));
+            String unit = m.group(2);
+            if (unit != null) {
+                amount = amount.multiply(BigDecimal.valueOf(multiplier(unit.toLowerCase(Locale.ROOT))));
+            }
+            return amount.stripTrailingZeros().toPlainString();
+        }
+    },
+
+    // "12.5 percent", "12%" -> "12.5", "12"
+    PERCENT("([0-9]+(?:\\.[0-9]+)?)\\s*(?:%|percent|per\\s+cent)?") {
+        @Override
+        String normalise(Matcher m) {
+            return new BigDecimal(m.group(1)).stripTrailingZeros().toPlainString();
+        }
+    },
+
+    // "1st June 2025", "June 1, 2025", "01/06/2025", "2025-06-01" -> "2025-06-01"
+    DATE("(?:(\\d{4})-(\\d{1,2})-(\\d{1,2})"
+            + "|(\\d{1,2})[/.-](\\d{1,2})[/.-](\\d{2,4})"
+            + "|(\\d{1,2})(?:st|nd|rd|th)?\\s+(?:of\\s+)?(" + FieldType.MONTHS + ")\\w*,?\\s+(\\d{4})"
+            + "|(" + FieldType.MONTHS + ")\\w*\\s+(\\d{1,2})(?:st|nd|rd|th)?,?\\s+(\\d{4}))") {
+        @Override
+        String normalise(Matcher m) {
+            try {
+                LocalDate date;
+                if (m.group(1) != null) {
+                    date = LocalDate.of(toInt(m.group(1)), toInt(m.group(2)), toInt(m.group(3)));
+                } else if (m.group(4) != null) {
+                    // Numeric dates are day first, as written in India
+                    date = LocalDate.of(fullYear(m.group(6)), toInt(m.group(5)), toInt(m.group(4)));
+                } else if (m.group(7) != null) {
+                    date = LocalDate.of(toInt(m.group(9)), month(m.group(8)), toInt(m.group(7)));
+                } else {
+                    date = LocalDate.of(toInt(m.group(12)), month(m.group(10)), toInt(m.group(11)));
+                }
+                return date.toString();
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+    },
+
+    // "two years", "18 months" -> "24", "18"
+    DURATION_MONTHS("(\\d+|" + FieldType.NUMBER_WORDS + ")\\s*(days?|weeks?|months?|years?)") {
+        @Override
+        String normalise(Matcher m) {
+            long value = number(m.group(1));
+            String unit = m.group(2).toLowerCase(Locale.ROOT);
+            if (unit.startsWith("year")) {
+                return String.valueOf(value * 12);
+            }
+            if (unit.startsWith("month")) {
+                return String.valueOf(value);
+            }
+            return null;
+        }
+    },
+
+    // "one month", "30 days" -> "30", "30"
+    DURATION_DAYS("(\\d+|" + FieldType.NUMBER_WORDS + ")\\s*(days?|weeks?|months?)") {
+        @Override
+        String normalise(Matcher m) {
+            long value = number(m.group(1));
+            String unit = m.group(2).toLowerCase(Locale.ROOT);
+            if (unit.startsWith("week")) {
+                return String.valueOf(value * 7);
+            }
+            if (unit.startsWith("month")) {
+                return String.valueOf(value * 30);
+            }
+            return String.valueOf(value);
+        }
+    },
+
+    // "60:40", "60 to 40", "60/40" -> "60:40"
+    RATIO("(\\d+(?:\\.\\d+)?)\\s*(?::|/|to|is\\s+to)\\s*(\\d+(?:\\.\\d+)?)") {
+        @Override
+        String normalise(Matcher m) {
+            return m.group(1) + ":" + m.group(2);
+        }
+    };
+
+    private static final String MONTHS = "jan|feb|mar|apr|may|jun|jul|aug|sep|oct|nov|dec";
+    private static final String NUMBER_WORDS = "one|two|three|four|five|six|seven|eight|nine|ten|eleven|twelve";
+
+    // Words that may follow a label before the value
+    private static final String CONNECTOR =
+            "(?:\\s*(?:(?:is|are|was|will\\s+be|shall\\s+be|would\\s+be|of|at|on|from|for|by|amounting\\s+to|amounts\\s+to)\\b|[:=,-]))*\\s*";
+
+    private static final Set<String> NAME_STOP_WORDS = Set.of(
+            "and", "the", "is", "are", "was", "will", "shall", "would", "has", "have", "who", "which", "that",
+            "agrees", "agreed", "pays", "paid", "for", "with", "as", "from", "on", "at", "to", "of", "in", "by");
+
+    private static final Map<String, Long> NUMBERS = Map.ofEntries(
+            Map.entry("one", 1L), Map.entry("two", 2L), Map.entry("three", 3L), Map.entry("four", 4L),
+            Map.entry("five", 5L), Map.entry("six", 6L), Map.entry("seven", 7L), Map.entry("eight", 8L),
+            Map.entry("nine", 9L), Map.entry("ten", 10L), Map.entry("eleven", 11L), Map.entry("twelve", 12L));
+
+    private final Pattern valuePattern;
+
+    FieldType(String valueRegex) {
+        this.valuePattern = Pattern.compile(CONNECTOR + valueRegex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    Pattern valuePattern() {
+        return valuePattern;
+    }
+
+    /**
+     * Turns a successful value match into the normalised string, or null if it isn't a usable value.
+     */
+    abstract String normalise(Matcher m);
+
+    private static int toInt(String digits) {
+        return Integer.parseInt(digits);
+    }
+
+    private static int fullYear(String year) {
+        int value = Integer.parseInt(year);
+        return year.length() == 2 ? 2000 + value : value;
+    }
+
+    private static int month(String name) {
+        return switch (name.substring(0, 3).toLowerCase(Locale.ROOT)) {
+            case "jan" -> 1;
+            case "feb" -> 2;
+            case "mar" -> 3;
+            case "apr" -> 4;
+            case "may" -> 5;
+            case "jun" -> 6;
+            case "jul" -> 7;
+            case "aug" -> 8;
+            case "sep" -> 9;
+            case "oct" -> 10;
+            case "nov" -> 11;
+            default -> 12;
+        };
+    }
+
+    private static long number(String value) {
+        Long word = NUMBERS.get(value.toLowerCase(Locale.ROOT));
+        return word != null ? word : Long.parseLong(value);
+    }
+
+    private static long multiplier(String unit) {
+        if (unit.equals("k") || unit.equals("thousand")) {
+            return 1_000L;
+        }
+        if (unit.startsWith("lakh") || unit.startsWith("lac")) {
+            return 100_000L;
+        }
+        if (unit.startsWith("crore")) {
+            return 10_000_000L;
+        }
+        return 1_000_000L;
+    }
+}
@@ -0,0 +1,128 @@
+package com.backened.verisay.extraction;
+
+import com.backened.verisay.model.Agreement;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pulls agreement fields out of a transcript.
+ * The label phrases of every field of a type are compiled once into a single alternation, so a transcript
+ * is scanned in one pass; at each label hit the field's value pattern is matched right after the label.
+ * The first usable value of each field wins.
+ */
+@Component
+public class TranscriptFieldExtractor {
+
+    // How far after a label we look for its value
+    private static final int VALUE_WINDOW = 250;
+
+    private final Map<Agreement.AgreementType, CompiledRules> compiledRules = new EnumMap<>(Agreement.AgreementType.class);
+
+    public TranscriptFieldExtractor() {
+        for (Agreement.AgreementType type : Agreement.AgreementType.values()) {
+            compiledRules.put(type, new CompiledRules(AgreementFieldRules.forType(type)));
+        }
+    }
+
+    /**
+     * Extracts the fields of the given agreement type. Fields that were not found are left out.
+     */
+    public Map<String, Object> extract(String transcript, Agreement.AgreementType type) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (transcript == null || transcript.isBlank()) {
+            return fields;
+        }
+
+        CompiledRules rules = compiledRules.get(type);
+        if (rules.fieldByGroup.length == 0) {
+            return fields;
+        }
+
+        Matcher labels = rules.labelPattern.matcher(transcript);
+        Map<FieldType, Matcher> valueMatchers = new EnumMap<>(FieldType.class);
+
+        while (labels.find() && fields.size() < rules.fieldCount) {
+            FieldRule rule = rules.ruleFor(labels);
+            if (fields.containsKey(rule.getKey())) {
+                continue;
+            }
+
+            Matcher value = valueMatchers.computeIfAbsent(rule.getType(), t -> t.valuePattern().matcher(transcript));
+            value.region(labels.end(), Math.min(transcript.length(), labels.end() + VALUE_WINDOW));
+            value.useTransparentBounds(true);
+            if (value.lookingAt()) {
+                String normalised = rule.getType().normalise(value);
+                if (normalised != null) {
+                    fields.put(rule.getKey(), normalised);
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Keys of the fields the form requires for this agreement type, in form order.
+     */
+    public List<String> requiredFields(Agreement.AgreementType type) {
+        return compiledRules.get(type).requiredKeys;
+    }
+
+    // The compiled form of one agreement type's rules.
+    private static final class CompiledRules {
+        private final Pattern labelPattern;
+        // Capturing group i + 1 of labelPattern is a phrase of fieldByGroup[i]
+        private final FieldRule[] fieldByGroup;
+        private final int fieldCount;
+        private final List<String> requiredKeys;
+
+        CompiledRules(List<FieldRule> rules) {
+            // Phrases are bucketed by first letter so the scanner only tries the few that can match at a position,
+            // and within a bucket the longest go first so "lease start date" wins over "lease"
+            Map<Character, List<Map.Entry<String, FieldRule>>> byFirstLetter = new TreeMap<>();
+            for (FieldRule rule : rules) {
+                for (String phrase : rule.getPhrases()) {
+                    byFirstLetter.computeIfAbsent(Character.toLowerCase(phrase.charAt(0)), c -> new ArrayList<>())
+                            .add(Map.entry(phrase, rule));
+                }
+            }
+
+            List<FieldRule> groups = new ArrayList<>();
+            StringJoiner buckets = new StringJoiner("|", "\\b(?:", ")\\b");
+            byFirstLetter.forEach((letter, phrases) -> {
+                phrases.sort(Comparator.comparingInt((Map.Entry<String, FieldRule> e) -> e.getKey().length()).reversed());
+                StringJoiner alternatives = new StringJoiner("|", "(?=" + Pattern.quote(String.valueOf(letter)) + ")(?:", ")");
+                for (Map.Entry<String, FieldRule> phrase : phrases) {
+                    alternatives.add("(" + phraseRegex(phrase.getKey()) + ")");
+                    groups.add(phrase.getValue());
+                }
+                buckets.add(alternatives.toString());
+            });
+            labelPattern = Pattern.compile(buckets.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            fieldByGroup = groups.toArray(new FieldRule[0]);
+
+            fieldCount = rules.size();
+            requiredKeys = rules.stream().filter(FieldRule::isRequired).map(FieldRule::getKey).toList();
+        }
+
+        FieldRule ruleFor(Matcher labels) {
+            for (int group = 1; group <= fieldByGroup.length; group++) {
+                if (labels.start(group) != -1) {
+                    return fieldByGroup[group - 1];
+                }
+            }
+            throw new IllegalStateException("Label match without a matching group");
+        }
+
+        // "landlord name" -> landlord(?:'s)?\s+name, so "landlord's name" matches too
+        private static String phraseRegex(String phrase) {
+            StringJoiner words = new StringJoiner("(?:'s)?\\s+");
+            for (String word : phrase.trim().split("\\s+")) {
+                words.add(Pattern.quote(word));
+            }
+            return words.toString();
+        }
+    }
+}
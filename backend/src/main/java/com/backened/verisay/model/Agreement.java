@@ -1,7 +1,10 @@
 package com.backened.verisay.model;
 
+import com.backened.verisay.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -13,15 +16,26 @@ import java.util.List;
 import java.util.Map;
 
 @Entity
-@Table(name = "agreements")
+// Serves the per-user listing: equality on user_id, then keyset order on (created_at, id).
+// The search indexer follows changes in (updated_at, id) order.
+@Table(name = "agreements", indexes = {
+        @Index(name = "idx_agreements_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_agreements_updated", columnList = "updated_at, id")
+})
+// Second-level cached: a flow loads the same agreement several times. The child collections are not cached.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.AGREEMENTS)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Agreement {
 
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (IDENTITY disables JDBC batching).
+    // On MySQL the sequence is emulated with a one-row table; IdSequenceSeeder keeps it above existing ids.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agreement_seq")
+    @SequenceGenerator(name = "agreement_seq", sequenceName = "agreements_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -50,6 +64,12 @@ public class Agreement {
     @Column(name = "agreement_data", columnDefinition = "json")
     private Map<String, Object> agreementData;
 
+    // Optimistic lock: a write based on a stale read fails instead of silently overwriting a newer one.
+    // AgreementLocks orders writers on one node; this catches the rest.
+    @Version
+    @Column(name = "version", columnDefinition = "bigint not null default 0")
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
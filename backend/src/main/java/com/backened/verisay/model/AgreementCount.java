@@ -0,0 +1,52 @@
+package com.backened.verisay.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * How many agreements a user has of one status and type. Kept up to date by AgreementCounters, which only ever
+ * adds deltas to a row, so the flushes of every node add up. updated_at is the database's clock.
+ */
+@Entity
+@Table(name = "agreement_counts", indexes = {
+        @Index(name = "idx_agreement_counts_updated", columnList = "updated_at")
+})
+@IdClass(AgreementCount.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AgreementCount {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "agreement_status", length = 20)
+    private Agreement.AgreementStatus status;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "agreement_type", length = 20)
+    private Agreement.AgreementType type;
+
+    @Column(name = "agreement_count", nullable = false)
+    private long count;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer userId;
+        private Agreement.AgreementStatus status;
+        private Agreement.AgreementType type;
+    }
+}
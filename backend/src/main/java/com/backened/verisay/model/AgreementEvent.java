@@ -0,0 +1,84 @@
+package com.backened.verisay.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One agreement change that clients and downstream systems follow: a lifecycle step, or progress of the
+ * agreement's audio, written in the same transaction as the change itself (transactional outbox).
+ * AgreementEventRelay gives committed events a gapless sequence number and delivers them in that order;
+ * it is null until then. Receivers drop duplicates by sequence number.
+ */
+@Entity
+// The relay numbers events where sequence_number is null and reads on from a position;
+// SSE clients catch up by (user_id, sequence_number) or (agreement_id, sequence_number).
+@Table(name = "agreement_events", indexes = {
+        @Index(name = "idx_agreement_events_sequence", columnList = "sequence_number", unique = true),
+        @Index(name = "idx_agreement_events_user_sequence", columnList = "user_id, sequence_number"),
+        @Index(name = "idx_agreement_events_agreement_sequence", columnList = "agreement_id, sequence_number")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AgreementEvent {
+
+    // IDENTITY, unlike the other entities: the id is taken at insert time from one counter, and an event is
+    // inserted after its transaction has read the agreement, so one agreement's events are numbered in
+    // the order they happened. A pooled sequence hands each node its own block and loses that order.
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sequence_number")
+    private Long sequenceNumber;
+
+    @Column(name = "agreement_id", nullable = false)
+    private Long agreementId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "agreement_type", length = 20, nullable = false)
+    private Agreement.AgreementType agreementType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", length = 20, nullable = false)
+    private Type type;
+
+    // Set for STATUS_CHANGED only
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", length = 20)
+    private Agreement.AgreementStatus fromStatus;
+
+    // The agreement's status after the event
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", length = 20, nullable = false)
+    private Agreement.AgreementStatus toStatus;
+
+    // The agreement's version after the event
+    @Column(name = "agreement_version", nullable = false)
+    private Long agreementVersion;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    // Per type: AUDIO_STATUS_CHANGED has audioRecordId and audioStatus; FIELDS_EXTRACTED has audioRecordId
+    // and fields (the extracted values that were merged into the agreement's data)
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "detail", columnDefinition = "json")
+    private Map<String, Object> detail;
+
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED,
+        AUDIO_STATUS_CHANGED,
+        FIELDS_EXTRACTED
+    }
+}
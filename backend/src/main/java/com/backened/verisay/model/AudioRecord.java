@@ -15,8 +15,10 @@ import java.time.LocalDateTime;
 @Builder
 public class AudioRecord {
 
+    // Sequence-generated like Agreement, so bulk inserts of children are batched too
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audio_record_seq")
+    @SequenceGenerator(name = "audio_record_seq", sequenceName = "audio_records_seq", allocationSize = 50)
     private Long id;
 
     // --- CORRECTED RELATIONSHIP ---
@@ -31,6 +33,10 @@ public class AudioRecord {
     @Column(name = "uploaded_at", nullable = false, updatable = false)
     private LocalDateTime uploadedAt;
 
+    // SHA-256 of the file, computed while it was being stored
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     // Other fields are good
     private String fileName;
     private Long fileSize; // In bytes
@@ -39,6 +45,10 @@ public class AudioRecord {
     @Enumerated(EnumType.STRING)
     private AudioStatus status;
 
+    // Whisper's text for this recording, set when transcription succeeds; indexed for search
+    @Column(name = "transcript", columnDefinition = "TEXT")
+    private String transcript;
+
     public enum AudioStatus {
         UPLOADED,
         PROCESSING_TRANSCRIPTION,
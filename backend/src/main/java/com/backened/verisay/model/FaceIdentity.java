@@ -15,8 +15,10 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 @Builder
 public class FaceIdentity {
 
+    // Sequence-generated like Agreement, so bulk inserts of children are batched too
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "face_identity_seq")
+    @SequenceGenerator(name = "face_identity_seq", sequenceName = "face_identities_seq", allocationSize = 50)
     private Long id;
 
     // --- CORRECTED RELATIONSHIP ---
@@ -6,6 +6,7 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_final_pdf_agreement", columnList = "agreement_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,6 +22,7 @@ public class FinalPDF {
     @Column(name="file_path")
     private String filePath;
 
+    // SHA-256 of the stored PDF, hex encoded; also served as the download's ETag
     @Lob
     @Column(name = "blockchain_hash")
     private String blockchainHash;
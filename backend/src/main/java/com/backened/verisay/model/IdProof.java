@@ -15,8 +15,10 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 @Builder
 public class IdProof {
 
+    // Sequence-generated like Agreement, so bulk inserts of children are batched too
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "id_proof_seq")
+    @SequenceGenerator(name = "id_proof_seq", sequenceName = "id_proofs_seq", allocationSize = 50)
     private Long id;
 
     // --- CORRECTED RELATIONSHIP ---
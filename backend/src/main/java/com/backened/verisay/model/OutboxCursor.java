@@ -0,0 +1,32 @@
+package com.backened.verisay.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A position in the agreement event sequence, kept by AgreementEventRelay: the "sequencer" row holds the last
+ * sequence number handed out and the lease of the node doing it; every sink has a row with the last one it was sent.
+ */
+@Entity
+@Table(name = "outbox_cursors")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxCursor {
+
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+}
@@ -0,0 +1,52 @@
+package com.backened.verisay.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Entity
+@Table(name = "transcription_cache",
+       indexes = @Index(name = "idx_transcription_cache_hash", columnList = "content_hash"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TranscriptionCacheEntry {
+
+    // "<sha256 of the audio>:<agreement type>", so one recording can be cached per agreement type.
+    @Id
+    @Column(name = "cache_key", length = 100)
+    private String cacheKey;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "agreement_type", nullable = false)
+    private Agreement.AgreementType agreementType;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "extracted_fields", columnDefinition = "json")
+    private Map<String, Object> extractedFields;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "missing_fields", columnDefinition = "json")
+    private List<String> missingFields;
+
+    // Null for entries cached before transcripts were kept
+    @Column(name = "transcript", columnDefinition = "TEXT")
+    private String transcript;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
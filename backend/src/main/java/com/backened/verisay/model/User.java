@@ -1,7 +1,10 @@
 package com.backened.verisay.model;
 
+import com.backened.verisay.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -9,6 +12,9 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
 @Table(name = "users") // Explicitly naming the table is good practice
+// Second-level cached: every request resolves its user by firebaseUid (see UserRepository)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USERS)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
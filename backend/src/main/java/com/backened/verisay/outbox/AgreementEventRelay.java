@@ -0,0 +1,275 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.AgreementEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves committed agreement events from the outbox table to the sinks, replacing polls of the agreements table.
+ * <ul>
+ *   <li>One node at a time holds the relay lease (renewed every pass, taken over once it lapses). It numbers new
+ *       events in id order, which is the order they happened per agreement, then sends every sink the events
+ *       after its saved position. A sink's position only moves once it has accepted a batch.</li>
+ *   <li>Every node follows the numbered events into its own {@link AgreementEventStream} for its SSE clients.</li>
+ * </ul>
+ * Passes run every {@code outbox.relay.poll-ms}, and straight after a commit that recorded events on this node.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AgreementEventRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementEventRelay.class);
+
+    static final String SEQUENCER = "sequencer";
+
+    // A new cursor starts at the newest event: a new sink isn't sent the whole history
+    private static final String ADD_CURSOR = """
+            INSERT IGNORE INTO outbox_cursors (name, last_sequence)
+            SELECT ?, COALESCE(MAX(sequence_number), 0) FROM agreement_events
+            """;
+
+    // On the database's clock, so the nodes' clocks needn't agree
+    private static final String TAKE_LEASE = """
+            UPDATE outbox_cursors
+               SET lease_owner = ?, lease_until = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(6))
+             WHERE name = 'sequencer'
+               AND (lease_owner = ? OR lease_until IS NULL OR lease_until < CURRENT_TIMESTAMP(6))
+            """;
+
+    private static final String EVENTS_AFTER = """
+            SELECT id, sequence_number, agreement_id, user_id, agreement_type, event_type,
+                   from_status, to_status, agreement_version, occurred_at, detail
+              FROM agreement_events
+             WHERE sequence_number > ?
+             ORDER BY sequence_number
+             LIMIT ?
+            """;
+
+    private static final ObjectMapper DETAIL_READER = new ObjectMapper();
+
+    private static final RowMapper<AgreementEvent> EVENT = (rs, row) -> AgreementEvent.builder()
+            .id(rs.getLong("id"))
+            .sequenceNumber(rs.getLong("sequence_number"))
+            .agreementId(rs.getLong("agreement_id"))
+            .userId(rs.getInt("user_id"))
+            .agreementType(Agreement.AgreementType.valueOf(rs.getString("agreement_type")))
+            .type(AgreementEvent.Type.valueOf(rs.getString("event_type")))
+            .fromStatus(rs.getString("from_status") != null
+                    ? Agreement.AgreementStatus.valueOf(rs.getString("from_status")) : null)
+            .toStatus(Agreement.AgreementStatus.valueOf(rs.getString("to_status")))
+            .agreementVersion(rs.getLong("agreement_version"))
+            .occurredAt(rs.getObject("occurred_at", LocalDateTime.class))
+            .detail(readDetail(rs.getString("detail")))
+            .build();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private List<AgreementEventSink> sinks;
+
+    @Autowired
+    private AgreementEventStream stream;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.lease-ms:30000}")
+    private long leaseMillis;
+
+    @Value("${outbox.relay.max-retry-delay-ms:60000}")
+    private long maxRetryDelayMillis;
+
+    // Numbered events that reached the sinks stay this long, for SSE clients catching up
+    @Value("${outbox.retention-hours:168}")
+    private long retentionHours;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+    // A failing sink is retried after a growing delay: sink -> consecutive failures, and when to try next
+    private final Map<String, Integer> failures = new HashMap<>();
+    private final Map<String, Long> retryAt = new HashMap<>();
+    private ExecutorService waker;
+    private TransactionTemplate transactions;
+    // The last sequence number handed to this node's stream
+    private long streamed;
+
+    @PostConstruct
+    public void init() {
+        transactions = new TransactionTemplate(transactionManager);
+        jdbcTemplate.update(ADD_CURSOR, SEQUENCER);
+        for (AgreementEventSink sink : sinks) {
+            jdbcTemplate.update(ADD_CURSOR, sink.name());
+        }
+        streamed = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(sequence_number), 0) FROM agreement_events", Long.class);
+        waker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        waker.shutdownNow();
+    }
+
+    /**
+     * Runs a pass soon, on another thread. Wakes that arrive before it starts share it.
+     */
+    public void wake() {
+        if (wakeQueued.compareAndSet(false, true)) {
+            waker.execute(() -> {
+                wakeQueued.set(false);
+                relay();
+            });
+        }
+    }
+
+    @Scheduled(initialDelayString = "${outbox.relay.poll-ms:1000}", fixedDelayString = "${outbox.relay.poll-ms:1000}")
+    public synchronized void relay() {
+        try {
+            if (takeLease()) {
+                int numbered;
+                do {
+                    numbered = sequence();
+                } while (numbered == batchSize);
+                for (AgreementEventSink sink : sinks) {
+                    deliver(sink);
+                }
+            }
+            follow();
+        } catch (DataAccessException e) {
+            log.warn("Agreement event relay pass failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes numbered events older than {@code outbox.retention-hours} that every sink has been sent.
+     */
+    @Scheduled(initialDelayString = "${outbox.purge-ms:3600000}", fixedDelayString = "${outbox.purge-ms:3600000}")
+    public synchronized void purge() {
+        if (!takeLease()) {
+            return;
+        }
+        long delivered = jdbcTemplate.queryForObject(
+                "SELECT last_sequence FROM outbox_cursors WHERE name = ?", Long.class, SEQUENCER);
+        for (AgreementEventSink sink : sinks) {
+            delivered = Math.min(delivered, position(sink.name()));
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM agreement_events WHERE sequence_number <= ? AND occurred_at < ?",
+                delivered, LocalDateTime.now().minusHours(retentionHours));
+        log.debug("Purged {} delivered agreement events", deleted);
+    }
+
+    boolean takeLease() {
+        return jdbcTemplate.update(TAKE_LEASE, nodeId, leaseMillis * 1000, nodeId) == 1;
+    }
+
+    // Numbers a batch of new events after the last number handed out; returns how many
+    private int sequence() {
+        return transactions.execute(status -> {
+            // Locked, so a node whose lease lapsed mid-pass can't hand out the same numbers
+            long last = jdbcTemplate.queryForObject(
+                    "SELECT last_sequence FROM outbox_cursors WHERE name = ? FOR UPDATE", Long.class, SEQUENCER);
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM agreement_events WHERE sequence_number IS NULL ORDER BY id LIMIT ?", Long.class, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<Object[]> numbers = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                numbers.add(new Object[]{++last, id});
+            }
+            jdbcTemplate.batchUpdate("UPDATE agreement_events SET sequence_number = ? WHERE id = ?", numbers);
+            jdbcTemplate.update("UPDATE outbox_cursors SET last_sequence = ? WHERE name = ?", last, SEQUENCER);
+            return ids.size();
+        });
+    }
+
+    private void deliver(AgreementEventSink sink) {
+        String name = sink.name();
+        if (System.currentTimeMillis() < retryAt.getOrDefault(name, 0L)) {
+            return;
+        }
+        long position = position(name);
+        List<AgreementEvent> batch;
+        do {
+            batch = jdbcTemplate.query(EVENTS_AFTER, EVENT, position, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                sink.publish(batch);
+            } catch (Exception e) {
+                int failed = failures.merge(name, 1, Integer::sum);
+                long delay = Math.min(maxRetryDelayMillis, 1000L << Math.min(failed, 16));
+                retryAt.put(name, System.currentTimeMillis() + delay);
+                log.warn("Agreement event sink {} failed at sequence {} ({} in a row), retrying in {} ms: {}",
+                        name, position + 1, failed, delay, e.toString());
+                return;
+            }
+            failures.remove(name);
+            retryAt.remove(name);
+            position = batch.get(batch.size() - 1).getSequenceNumber();
+            jdbcTemplate.update("UPDATE outbox_cursors SET last_sequence = GREATEST(last_sequence, ?) WHERE name = ?",
+                    position, name);
+        } while (batch.size() == batchSize);
+    }
+
+    private void follow() {
+        List<AgreementEvent> batch;
+        do {
+            batch = jdbcTemplate.query(EVENTS_AFTER, EVENT, streamed, batchSize);
+            if (!batch.isEmpty()) {
+                stream.publish(batch);
+                streamed = batch.get(batch.size() - 1).getSequenceNumber();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private static Map<String, Object> readDetail(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return DETAIL_READER.readValue(json, new TypeReference<>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable agreement event detail: " + json, e);
+        }
+    }
+
+    private long position(String cursor) {
+        return jdbcTemplate.queryForObject("SELECT last_sequence FROM outbox_cursors WHERE name = ?", Long.class, cursor);
+    }
+}
@@ -0,0 +1,21 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.AgreementEvent;
+
+import java.util.List;
+
+/**
+ * A destination for agreement events. {@link AgreementEventRelay} sends each sink the events in sequence order
+ * from its own saved position, on one node at a time. Delivery is at least once: a batch that throws is sent
+ * again, as is one in flight when the relay stops, so receivers drop sequence numbers they have already seen.
+ * A failing sink holds back only itself.
+ */
+public interface AgreementEventSink {
+
+    /**
+     * Keys the sink's position in outbox_cursors. A new name starts from the newest event.
+     */
+    String name();
+
+    void publish(List<AgreementEvent> events) throws Exception;
+}
@@ -0,0 +1,108 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.AgreementEvent;
+import com.backened.verisay.push.PushConnection;
+import com.backened.verisay.push.PushHub;
+import com.backened.verisay.push.PushMessage;
+import com.backened.verisay.repository.AgreementEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Server-sent agreement events for clients connected to this node, per user or per agreement, through the
+ * {@link PushHub}. Every node's {@link AgreementEventRelay} feeds its own stream, so it doesn't matter which node
+ * a client lands on. The SSE id is the event's sequence number: a client reconnecting with Last-Event-ID
+ * first gets what it missed from agreement_events, then live events, in order and without repeats.
+ * The emitter buffers whatever is sent before the handler returns, so the catch-up is capped at
+ * {@code outbox.sse.replay-limit} events; a client that missed more gets a single RESYNC event instead,
+ * reloads over REST, and carries on from the live events.
+ */
+@Component
+public class AgreementEventStream {
+
+    @Autowired
+    private AgreementEventRepository eventRepository;
+
+    @Autowired
+    private PushHub pushHub;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    static final String RESYNC = "RESYNC";
+
+    @Value("${outbox.sse.replay-limit:100}")
+    private int replayLimit;
+
+    /**
+     * Streams the user's events, after lastEventId if given, otherwise from now on.
+     */
+    public SseEmitter subscribeUser(Integer userId, Long lastEventId) {
+        return subscribe(userTopic(userId), lastEventId, (after, page) -> eventRepository
+                .findByUserIdAndSequenceNumberGreaterThanOrderBySequenceNumberAsc(userId, after, page));
+    }
+
+    /**
+     * Streams one agreement's events, after lastEventId if given, otherwise from now on.
+     */
+    public SseEmitter subscribeAgreement(Long agreementId, Long lastEventId) {
+        return subscribe(agreementTopic(agreementId), lastEventId, (after, page) -> eventRepository
+                .findByAgreementIdAndSequenceNumberGreaterThanOrderBySequenceNumberAsc(agreementId, after, page));
+    }
+
+    /**
+     * Sends numbered events, in sequence order, to the subscribers of their user and agreement.
+     */
+    public void publish(List<AgreementEvent> events) {
+        for (AgreementEvent event : events) {
+            PushMessage message = message(event);
+            pushHub.publish(userTopic(event.getUserId()), message);
+            pushHub.publish(agreementTopic(event.getAgreementId()), message);
+        }
+    }
+
+    private SseEmitter subscribe(String topic, Long lastEventId,
+                                 BiFunction<Long, Pageable, List<AgreementEvent>> missedAfter) {
+        // Connected before catching up, so nothing published meanwhile is missed; it waits in the connection
+        PushConnection connection = pushHub.connect(Set.of(topic));
+        if (lastEventId != null) {
+            connection.catchUp(replay(missedAfter.apply(lastEventId, PageRequest.of(0, replayLimit + 1))));
+        }
+        connection.resume();
+        return connection.getEmitter();
+    }
+
+    // What to send for the missed events, fetched up to one more than the limit to tell whether there are too many
+    List<PushMessage> replay(List<AgreementEvent> missed) {
+        if (missed.size() > replayLimit) {
+            return List.of(new PushMessage(null, RESYNC, "{\"missedMoreThan\":" + replayLimit + "}"));
+        }
+        return missed.stream().map(this::message).toList();
+    }
+
+    private PushMessage message(AgreementEvent event) {
+        try {
+            return new PushMessage(event.getSequenceNumber(), event.getType().name(), objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Agreement event " + event.getId() + " could not be serialized", e);
+        }
+    }
+
+    private static String userTopic(Integer userId) {
+        return "user:" + userId;
+    }
+
+    private static String agreementTopic(Long agreementId) {
+        return "agreement:" + agreementId;
+    }
+}
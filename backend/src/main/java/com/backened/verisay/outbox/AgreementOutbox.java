@@ -0,0 +1,92 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.AgreementEvent;
+import com.backened.verisay.model.AudioRecord;
+import com.backened.verisay.repository.AgreementEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records agreement events in the transaction that makes the change, so an event exists
+ * exactly when its change committed. Call after the change is flushed, so the event carries the new version.
+ * Committing wakes this node's {@link AgreementEventRelay} rather than waiting for its next poll.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class AgreementOutbox {
+
+    @Autowired
+    private AgreementEventRepository eventRepository;
+
+    @Autowired
+    private AgreementEventRelay relay;
+
+    public void recordCreated(List<Agreement> agreements) {
+        LocalDateTime now = LocalDateTime.now();
+        eventRepository.saveAll(agreements.stream()
+                .map(agreement -> event(agreement, AgreementEvent.Type.CREATED, null, now))
+                .toList());
+        wakeRelayAfterCommit();
+    }
+
+    public void recordStatusChange(Agreement agreement, Agreement.AgreementStatus from) {
+        if (from == agreement.getStatus()) {
+            return;
+        }
+        eventRepository.save(event(agreement, AgreementEvent.Type.STATUS_CHANGED, from, LocalDateTime.now()));
+        wakeRelayAfterCommit();
+    }
+
+    public void recordAudioStatus(Agreement agreement, AudioRecord audioRecord) {
+        AgreementEvent event = event(agreement, AgreementEvent.Type.AUDIO_STATUS_CHANGED, null, LocalDateTime.now());
+        event.setDetail(Map.of("audioRecordId", audioRecord.getId(), "audioStatus", audioRecord.getStatus().name()));
+        eventRepository.save(event);
+        wakeRelayAfterCommit();
+    }
+
+    /**
+     * @param fields the extracted values that were merged into the agreement's data
+     */
+    public void recordFieldsExtracted(Agreement agreement, Long audioRecordId, Map<String, Object> fields) {
+        AgreementEvent event = event(agreement, AgreementEvent.Type.FIELDS_EXTRACTED, null, LocalDateTime.now());
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("audioRecordId", audioRecordId);
+        detail.put("fields", fields);
+        event.setDetail(detail);
+        eventRepository.save(event);
+        wakeRelayAfterCommit();
+    }
+
+    private static AgreementEvent event(Agreement agreement, AgreementEvent.Type type, Agreement.AgreementStatus from,
+                                        LocalDateTime now) {
+        return AgreementEvent.builder()
+                .agreementId(agreement.getId())
+                .userId(agreement.getUser().getId())
+                .agreementType(agreement.getType())
+                .type(type)
+                .fromStatus(from)
+                .toStatus(agreement.getStatus())
+                .agreementVersion(agreement.getVersion() != null ? agreement.getVersion() : 0L)
+                .occurredAt(now)
+                .build();
+    }
+
+    private void wakeRelayAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.wake();
+            }
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.AgreementEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands events to in-process {@code @EventListener(AgreementEvent.class)} methods, on the relay's thread and
+ * on whichever node holds the relay lease, so each event is handled by one node. A listener that throws
+ * has the batch sent again.
+ */
+@Component
+public class ApplicationEventSink implements AgreementEventSink {
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Override
+    public String name() {
+        return "in-process";
+    }
+
+    @Override
+    public void publish(List<AgreementEvent> events) {
+        events.forEach(publisher::publishEvent);
+    }
+}
@@ -0,0 +1,61 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.AgreementEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Appends events as JSON lines to one file per day under {@code outbox.file-queue.path}
+ * (agreement-events-2025-01-31.jsonl), synced to disk before the batch counts as delivered.
+ * Only the node holding the relay lease writes, so the directory should be shared storage when
+ * more than one node runs.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.file-queue.path")
+public class FileQueueEventSink implements AgreementEventSink {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${outbox.file-queue.path}")
+    private String path;
+
+    @Override
+    public String name() {
+        return "file-queue";
+    }
+
+    @Override
+    public void publish(List<AgreementEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (AgreementEvent event : events) {
+            lines.write(objectMapper.writeValueAsBytes(event));
+            lines.write('\n');
+        }
+
+        Path directory = Path.of(path);
+        Files.createDirectories(directory);
+        Path file = directory.resolve("agreement-events-" + LocalDate.now() + ".jsonl");
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.AgreementEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * POSTs each batch of events as a JSON array to {@code outbox.webhook.url}. Anything but a 2xx response
+ * (or no response within {@code outbox.webhook.timeout-ms}) has the batch sent again.
+ * With {@code outbox.webhook.secret} set, the body's HMAC-SHA256 is sent as {@code X-Verisay-Signature: sha256=<hex>}.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.webhook.url")
+public class WebhookEventSink implements AgreementEventSink {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${outbox.webhook.url}")
+    private String url;
+
+    @Value("${outbox.webhook.secret:}")
+    private String secret;
+
+    @Value("${outbox.webhook.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    private WebClient webClient;
+
+    @PostConstruct
+    public void init() {
+        webClient = WebClient.create();
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public void publish(List<AgreementEvent> events) throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(events);
+        WebClient.RequestBodySpec request = webClient.post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (!secret.isEmpty()) {
+            request.header("X-Verisay-Signature", "sha256=" + sign(body));
+        }
+        // Throws on a non-2xx status or a timeout
+        request.bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .block(Duration.ofMillis(timeoutMillis));
+    }
+
+    private String sign(byte[] body) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body));
+    }
+}
@@ -0,0 +1,19 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+
+import java.util.Map;
+
+/**
+ * Renders the type-specific body of an agreement PDF, between the shared introduction and signature blocks.
+ * One Spring bean per agreement type; {@link PdfRenderingEngine} picks the one matching the agreement.
+ * Implementations must be stateless, since batch exports call them from many threads at once.
+ */
+public interface AgreementPdfRenderer {
+
+    Agreement.AgreementType getType();
+
+    void renderDetails(Document document, Map<String, Object> data) throws DocumentException;
+}
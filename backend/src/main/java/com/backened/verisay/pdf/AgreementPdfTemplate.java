@@ -0,0 +1,39 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.extraction.AgreementFieldRules;
+import com.backened.verisay.extraction.FieldRule;
+import com.backened.verisay.model.Agreement;
+
+import java.util.List;
+
+/**
+ * The layout of one agreement type's PDF: the label and data key of each row of the details table.
+ * Built once per type from the same field declarations the transcript extractor uses.
+ */
+public final class AgreementPdfTemplate {
+
+    private final Agreement.AgreementType type;
+    private final List<Row> rows;
+
+    private AgreementPdfTemplate(Agreement.AgreementType type, List<Row> rows) {
+        this.type = type;
+        this.rows = rows;
+    }
+
+    public static AgreementPdfTemplate forType(Agreement.AgreementType type) {
+        List<Row> rows = AgreementFieldRules.forType(type).stream().map(Row::of).toList();
+        return new AgreementPdfTemplate(type, rows);
+    }
+
+    public Agreement.AgreementType getType() { return type; }
+    public List<Row> getRows() { return rows; }
+
+    /**
+     * One row of the details table; the label carries its trailing colon, e.g. "Landlord Name:".
+     */
+    public record Row(String label, String key) {
+        static Row of(FieldRule rule) {
+            return new Row(rule.getLabel() + ":", rule.getKey());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A business partnership agreement: the business, the partner, capital and profit sharing.
+ */
+@Component
+public class BusinessPdfRenderer extends SectionedPdfRenderer {
+
+    public BusinessPdfRenderer(PdfLayout layout) {
+        super(Agreement.AgreementType.BUSINESS, layout, sections());
+    }
+
+    private static Map<String, List<String>> sections() {
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        sections.put("Business", List.of("businessName", "businessType", "startDate"));
+        sections.put("Partner", List.of("partnerName", "responsibilities"));
+        sections.put("Capital and Profits", List.of("investmentAmount", "profitSharingRatio"));
+        sections.put("Termination", List.of("terminationClause"));
+        return sections;
+    }
+
+    @Override
+    protected void renderClauses(Document document, Map<String, Object> data) throws DocumentException {
+        layout.paragraph(document, "Profits and losses of " + layout.value(data, "businessName")
+                + " shall be shared in the ratio " + layout.value(data, "profitSharingRatio") + ".",
+                layout.bodyFont(), 15f);
+    }
+}
@@ -0,0 +1,37 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A freelancing agreement: client and freelancer, the project scope, payment and delivery.
+ */
+@Component
+public class FreelancingPdfRenderer extends SectionedPdfRenderer {
+
+    public FreelancingPdfRenderer(PdfLayout layout) {
+        super(Agreement.AgreementType.FREELANCING, layout, sections());
+    }
+
+    private static Map<String, List<String>> sections() {
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        sections.put("Parties", List.of("clientName", "freelancerName"));
+        sections.put("Project", List.of("projectDescription", "deliverables", "deadline"));
+        sections.put("Payment", List.of("projectAmount", "paymentTerms"));
+        sections.put("Revisions", List.of("revisionPolicy"));
+        return sections;
+    }
+
+    @Override
+    protected void renderClauses(Document document, Map<String, Object> data) throws DocumentException {
+        layout.paragraph(document, "The Freelancer shall deliver the work by " + layout.value(data, "deadline")
+                + ", and the Client shall pay " + layout.value(data, "projectAmount") + " as per the payment terms above.",
+                layout.bodyFont(), 15f);
+    }
+}
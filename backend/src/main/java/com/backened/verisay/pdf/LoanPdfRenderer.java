@@ -0,0 +1,37 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A loan agreement: parties, principal and interest, repayment schedule and collateral.
+ */
+@Component
+public class LoanPdfRenderer extends SectionedPdfRenderer {
+
+    public LoanPdfRenderer(PdfLayout layout) {
+        super(Agreement.AgreementType.LOAN, layout, sections());
+    }
+
+    private static Map<String, List<String>> sections() {
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        sections.put("Parties", List.of("lenderName", "borrowerName"));
+        sections.put("Loan Terms", List.of("loanAmount", "interestRate", "collateral"));
+        sections.put("Repayment", List.of("repaymentPeriod", "startDate", "endDate"));
+        return sections;
+    }
+
+    @Override
+    protected void renderClauses(Document document, Map<String, Object> data) throws DocumentException {
+        layout.paragraph(document, "The Borrower shall repay the principal of " + layout.value(data, "loanAmount")
+                + " with interest at " + layout.value(data, "interestRate") + "% per annum over "
+                + layout.value(data, "repaymentPeriod") + " months, ending on " + layout.value(data, "endDate") + ".",
+                layout.bodyFont(), 15f);
+    }
+}
@@ -0,0 +1,109 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders many agreements in parallel, e.g. for the nightly archival export.
+ * Work runs on a dedicated fork-join pool sized by {@code pdf.batch.parallelism} (default: one thread per core),
+ * so a large export neither starves the common pool nor the request threads.
+ * Rendering is CPU-bound and the engine shares all its fonts and layouts, so throughput grows with the pool size.
+ */
+@Component
+public class PdfBatchRenderer {
+
+    @Autowired
+    private PdfRenderingEngine renderingEngine;
+
+    @Value("${pdf.batch.parallelism:0}")
+    private int parallelism;
+
+    // Agreements rendered per zip chunk per pool thread; bounds how many finished PDFs wait in memory
+    @Value("${pdf.batch.chunk-per-thread:4}")
+    private int chunkPerThread;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Renders every agreement; results come back in input order. A failed render is reported in its result
+     * instead of failing the batch.
+     */
+    public List<RenderedPdf> renderAll(List<Agreement> agreements) {
+        try {
+            return pool.submit(() -> agreements.parallelStream().map(this::renderOne).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while rendering PDFs", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error rendering PDFs", e.getCause());
+        }
+    }
+
+    /**
+     * Writes a zip with one "agreement-&lt;id&gt;.pdf" entry per agreement into {@code out}.
+     * Agreements are rendered chunk by chunk, so memory holds at most one chunk of PDFs at a time.
+     * @return The results without their bytes, to report failures.
+     */
+    public List<RenderedPdf> exportZip(List<Agreement> agreements, OutputStream out) throws IOException {
+        int chunkSize = Math.max(1, pool.getParallelism() * chunkPerThread);
+        List<RenderedPdf> summary = new ArrayList<>(agreements.size());
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (int start = 0; start < agreements.size(); start += chunkSize) {
+            List<RenderedPdf> chunk = renderAll(agreements.subList(start, Math.min(start + chunkSize, agreements.size())));
+            for (RenderedPdf pdf : chunk) {
+                if (pdf.succeeded()) {
+                    zip.putNextEntry(new ZipEntry("agreement-" + pdf.agreementId() + ".pdf"));
+                    zip.write(pdf.content());
+                    zip.closeEntry();
+                }
+                summary.add(new RenderedPdf(pdf.agreementId(), null, pdf.error()));
+            }
+        }
+        zip.finish();
+        return summary;
+    }
+
+    private RenderedPdf renderOne(Agreement agreement) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+            renderingEngine.render(agreement, out);
+            return new RenderedPdf(agreement.getId(), out.toByteArray(), null);
+        } catch (RuntimeException e) {
+            return new RenderedPdf(agreement.getId(), null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * Outcome of one render: the PDF bytes, or the error message if it failed.
+     */
+    public record RenderedPdf(Long agreementId, byte[] content, String error) {
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The layout model shared by every renderer: fonts, spacing and the per-type field templates,
+ * all resolved once. Nothing here changes after construction, so renders on any number of threads share it.
+ */
+@Component
+public class PdfLayout {
+
+    // Fonts are never modified after creation, so one instance is shared by every render
+    private final Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Font.NORMAL);
+    private final Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Font.NORMAL);
+    private final Font bodyFont = FontFactory.getFont(FontFactory.HELVETICA, 11, Font.NORMAL);
+    private final Font labelFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11, Font.NORMAL);
+
+    private final Map<Agreement.AgreementType, AgreementPdfTemplate> templates = new EnumMap<>(Agreement.AgreementType.class);
+
+    public PdfLayout() {
+        for (Agreement.AgreementType type : Agreement.AgreementType.values()) {
+            templates.put(type, AgreementPdfTemplate.forType(type));
+        }
+    }
+
+    public AgreementPdfTemplate template(Agreement.AgreementType type) {
+        return templates.get(type);
+    }
+
+    public Font titleFont() { return titleFont; }
+    public Font headerFont() { return headerFont; }
+    public Font bodyFont() { return bodyFont; }
+    public Font labelFont() { return labelFont; }
+
+    public void paragraph(Document document, String text, Font font, float spacingAfter) throws DocumentException {
+        Paragraph p = new Paragraph(text, font);
+        p.setSpacingAfter(spacingAfter);
+        document.add(p);
+    }
+
+    public void sectionHeading(Document document, String heading) throws DocumentException {
+        Paragraph p = new Paragraph(heading, headerFont);
+        p.setSpacingBefore(5f);
+        p.setSpacingAfter(8f);
+        document.add(p);
+    }
+
+    /**
+     * Two-column label/value table; missing values show as "N/A".
+     */
+    public void fieldTable(Document document, List<AgreementPdfTemplate.Row> rows, Map<String, Object> data)
+            throws DocumentException {
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(100);
+        table.setSpacingAfter(15f);
+        for (AgreementPdfTemplate.Row row : rows) {
+            table.addCell(cell(row.label(), labelFont));
+            table.addCell(cell(value(data, row.key()), bodyFont));
+        }
+        document.add(table);
+    }
+
+    public String value(Map<String, Object> data, String key) {
+        return String.valueOf(data.getOrDefault(key, "N/A"));
+    }
+
+    private static PdfPCell cell(String text, Font font) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setPadding(5);
+        return cell;
+    }
+}
@@ -0,0 +1,84 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders agreement PDFs. The shared layout and one {@link AgreementPdfRenderer} per agreement type are
+ * resolved once, when the engine is created; rendering only builds the document. Output is written straight
+ * to the given stream as the writer produces it, so the caller decides whether the PDF goes to memory,
+ * a file, storage or an HTTP response. Safe to call from many threads at once.
+ */
+@Component
+public class PdfRenderingEngine {
+
+    private static final DateTimeFormatter AGREEMENT_DATE = DateTimeFormatter.ofPattern("MMMM dd, yyyy");
+
+    private static final String CLOSING_CLAUSE = "By signing below, the parties acknowledge that they have read, "
+            + "understood, and agree to the terms and conditions of this agreement.";
+    private static final String SIGNATURE_LINE =
+            "Party 1: _________________________          Party 2: _________________________";
+
+    private final PdfLayout layout;
+    private final Map<Agreement.AgreementType, AgreementPdfRenderer> renderers = new EnumMap<>(Agreement.AgreementType.class);
+
+    public PdfRenderingEngine(PdfLayout layout, List<AgreementPdfRenderer> renderers) {
+        this.layout = layout;
+        for (AgreementPdfRenderer renderer : renderers) {
+            if (this.renderers.put(renderer.getType(), renderer) != null) {
+                throw new IllegalStateException("More than one PDF renderer for " + renderer.getType());
+            }
+        }
+        for (Agreement.AgreementType type : Agreement.AgreementType.values()) {
+            if (!this.renderers.containsKey(type)) {
+                throw new IllegalStateException("No PDF renderer for " + type);
+            }
+        }
+    }
+
+    /**
+     * Renders the agreement into {@code out}. The stream is flushed but left open.
+     */
+    public void render(Agreement agreement, OutputStream out) {
+        Document document = new Document(PageSize.A4);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.open();
+
+            // 1. Title
+            Paragraph title = new Paragraph(agreement.getTitle().toUpperCase(), layout.titleFont());
+            title.setAlignment(Element.ALIGN_CENTER);
+            title.setSpacingAfter(20f);
+            document.add(title);
+
+            // 2. Introduction
+            layout.paragraph(document, "This agreement is made on " + agreement.getCreatedAt().format(AGREEMENT_DATE) + ".",
+                    layout.bodyFont(), 15f);
+
+            // 3. Agreement-specific details
+            Map<String, Object> data = agreement.getAgreementData() != null ? agreement.getAgreementData() : Collections.emptyMap();
+            renderers.get(agreement.getType()).renderDetails(document, data);
+
+            // 4. Closing clause
+            layout.paragraph(document, CLOSING_CLAUSE, layout.bodyFont(), 30f);
+
+            // 5. Signature section
+            layout.paragraph(document, "Signatures:", layout.headerFont(), 20f);
+            document.add(new Paragraph(SIGNATURE_LINE, layout.bodyFont()));
+
+            document.close();
+        } catch (DocumentException e) {
+            throw new RuntimeException("Error generating PDF", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A rental agreement: parties, the property, rent and lease term.
+ */
+@Component
+public class RentalPdfRenderer extends SectionedPdfRenderer {
+
+    public RentalPdfRenderer(PdfLayout layout) {
+        super(Agreement.AgreementType.RENTAL, layout, sections());
+    }
+
+    private static Map<String, List<String>> sections() {
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        sections.put("Parties", List.of("landlordName", "tenantName"));
+        sections.put("Property", List.of("propertyAddress"));
+        sections.put("Rent and Deposit", List.of("rentAmount", "securityDeposit", "utilities"));
+        sections.put("Lease Term", List.of("startDate", "endDate", "noticePeriod"));
+        return sections;
+    }
+
+    @Override
+    protected void renderClauses(Document document, Map<String, Object> data) throws DocumentException {
+        String clause = "The Tenant shall pay the monthly rent of " + layout.value(data, "rentAmount") + " to the Landlord.";
+        if (data.containsKey("noticePeriod")) {
+            clause += " Either party may end this lease by giving " + data.get("noticePeriod") + " days' written notice.";
+        }
+        layout.paragraph(document, clause, layout.bodyFont(), 15f);
+    }
+}
@@ -0,0 +1,69 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.model.Agreement;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+
+import java.util.*;
+
+/**
+ * Base for renderers that lay the fields out as titled sections of label/value rows.
+ * Sections are resolved against the type's template once, in the constructor; fields of the template
+ * that no section names are collected into a trailing "Other Terms" section so nothing is dropped.
+ */
+public abstract class SectionedPdfRenderer implements AgreementPdfRenderer {
+
+    protected final PdfLayout layout;
+    private final Agreement.AgreementType type;
+    private final List<Section> sections = new ArrayList<>();
+
+    /**
+     * @param sectionKeys Section heading -> data keys, in display order.
+     */
+    protected SectionedPdfRenderer(Agreement.AgreementType type, PdfLayout layout, Map<String, List<String>> sectionKeys) {
+        this.type = type;
+        this.layout = layout;
+
+        Map<String, AgreementPdfTemplate.Row> rowsByKey = new LinkedHashMap<>();
+        for (AgreementPdfTemplate.Row row : layout.template(type).getRows()) {
+            rowsByKey.put(row.key(), row);
+        }
+        sectionKeys.forEach((heading, keys) -> {
+            List<AgreementPdfTemplate.Row> rows = new ArrayList<>();
+            for (String key : keys) {
+                AgreementPdfTemplate.Row row = rowsByKey.remove(key);
+                if (row == null) {
+                    throw new IllegalStateException(type + " has no field " + key);
+                }
+                rows.add(row);
+            }
+            sections.add(new Section(heading, List.copyOf(rows)));
+        });
+        if (!rowsByKey.isEmpty()) {
+            sections.add(new Section("Other Terms", List.copyOf(rowsByKey.values())));
+        }
+    }
+
+    @Override
+    public Agreement.AgreementType getType() {
+        return type;
+    }
+
+    @Override
+    public void renderDetails(Document document, Map<String, Object> data) throws DocumentException {
+        for (Section section : sections) {
+            layout.sectionHeading(document, section.heading());
+            layout.fieldTable(document, section.rows(), data);
+        }
+        renderClauses(document, data);
+    }
+
+    /**
+     * Type-specific wording after the field sections. None by default.
+     */
+    protected void renderClauses(Document document, Map<String, Object> data) throws DocumentException {
+    }
+
+    private record Section(String heading, List<AgreementPdfTemplate.Row> rows) {
+    }
+}
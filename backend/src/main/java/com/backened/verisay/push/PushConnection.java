@@ -0,0 +1,130 @@
+package com.backened.verisay.push;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One client's SSE connection in a {@link PushHub}. Messages wait in a small bounded queue and are written
+ * by the hub's executor, so publishers never block on a client; one that falls a full queue behind
+ * is disconnected, and catches up from Last-Event-ID when it reconnects.
+ * A new connection holds live messages back until {@link #resume()}, so a catch-up can go first.
+ */
+public class PushConnection {
+
+    private final PushHub hub;
+    private final SseEmitter emitter;
+    private final Set<String> topics;
+    private final int capacity;
+
+    // Guarded by this
+    private final ArrayDeque<PushMessage> queue = new ArrayDeque<>(4);
+    private boolean paused = true;
+    private boolean draining;
+    private boolean closed;
+
+    // Only touched by the one thread writing at a time: the caller during catch-up, then one drain task
+    private long lastSentId;
+    private volatile long lastWriteMillis = System.currentTimeMillis();
+
+    PushConnection(PushHub hub, SseEmitter emitter, Set<String> topics, int capacity) {
+        this.hub = hub;
+        this.emitter = emitter;
+        this.topics = topics;
+        this.capacity = capacity;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    Set<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * Writes messages the client missed, on the calling thread, ahead of anything live.
+     * Called before the handler returns, these stay in the emitter's memory until then, so keep them few.
+     */
+    public void catchUp(List<PushMessage> missed) {
+        for (PushMessage message : missed) {
+            if (!write(message)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts writing live messages, skipping those the catch-up already covered.
+     */
+    public synchronized void resume() {
+        paused = false;
+        scheduleDrain();
+    }
+
+    // False when the queue is full
+    synchronized boolean offer(PushMessage message) {
+        if (closed) {
+            return true;
+        }
+        if (queue.size() >= capacity) {
+            return false;
+        }
+        queue.add(message);
+        scheduleDrain();
+        return true;
+    }
+
+    long idleMillis() {
+        return System.currentTimeMillis() - lastWriteMillis;
+    }
+
+    synchronized void markClosed() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void scheduleDrain() {
+        if (paused || draining || closed || queue.isEmpty()) {
+            return;
+        }
+        draining = true;
+        hub.execute(this, this::drain);
+    }
+
+    private void drain() {
+        while (true) {
+            PushMessage message;
+            synchronized (this) {
+                message = closed ? null : queue.poll();
+                if (message == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            if (!write(message)) {
+                return;
+            }
+        }
+    }
+
+    private boolean write(PushMessage message) {
+        if (message.id() != null && message.id() <= lastSentId) {
+            return true;
+        }
+        try {
+            emitter.send(message.toEvent());
+        } catch (IOException | IllegalStateException e) {
+            hub.lost(this);
+            return false;
+        }
+        lastWriteMillis = System.currentTimeMillis();
+        if (message.id() != null) {
+            lastSentId = message.id();
+        }
+        return true;
+    }
+}
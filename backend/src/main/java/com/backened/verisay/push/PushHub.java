@@ -0,0 +1,150 @@
+package com.backened.verisay.push;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * In-memory fan-out of server-sent events to this node's clients, by topic (e.g. "user:7", "agreement:42").
+ * <ul>
+ *   <li>An idle connection costs a socket and a few small objects: no thread, and nothing is written
+ *       but a heartbeat comment every {@code push.heartbeat-ms}, which also finds clients that went away.</li>
+ *   <li>Publishing only queues; {@code pushExecutor} does the writing, one task per connection with something
+ *       to send. A connection more than {@code push.queue-capacity} messages behind is disconnected.</li>
+ * </ul>
+ * The number of open connections per node is bounded by Tomcat's {@code server.tomcat.max-connections}.
+ */
+@Component
+public class PushHub {
+
+    @Autowired
+    @Qualifier("pushExecutor")
+    private TaskExecutor executor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${push.queue-capacity:64}")
+    private int queueCapacity;
+
+    // Clients reconnect when it runs out, which also spreads them again over the nodes
+    @Value("${push.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${push.heartbeat-ms:20000}")
+    private long heartbeatMillis;
+
+    private final Set<PushConnection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<PushConnection>> subscribers = new ConcurrentHashMap<>();
+    private Counter slowDisconnects;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("push.connections", connections, Set::size)
+                .description("Open server-sent event connections")
+                .register(meterRegistry);
+        slowDisconnects = Counter.builder("push.disconnects.slow")
+                .description("Connections closed for falling too far behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a connection to the topics. Nothing live is written to it until {@link PushConnection#resume()}.
+     */
+    public PushConnection connect(Collection<String> topics) {
+        PushConnection connection = new PushConnection(this, new SseEmitter(timeoutMillis), Set.copyOf(topics), queueCapacity);
+        connection.getEmitter().onCompletion(() -> remove(connection));
+        connection.getEmitter().onTimeout(() -> remove(connection));
+        connection.getEmitter().onError(e -> remove(connection));
+        connections.add(connection);
+        for (String topic : connection.getTopics()) {
+            subscribers.compute(topic, (key, topicConnections) -> {
+                Set<PushConnection> added = topicConnections != null ? topicConnections : ConcurrentHashMap.newKeySet();
+                added.add(connection);
+                return added;
+            });
+        }
+        return connection;
+    }
+
+    /**
+     * Queues the message on every connection to the topic; never waits on a client.
+     */
+    public void publish(String topic, PushMessage message) {
+        Set<PushConnection> topicConnections = subscribers.get(topic);
+        if (topicConnections == null) {
+            return;
+        }
+        for (PushConnection connection : topicConnections) {
+            if (!connection.offer(message)) {
+                slowDisconnects.increment();
+                disconnect(connection);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${push.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (PushConnection connection : connections) {
+            if (connection.idleMillis() >= heartbeatMillis && !connection.offer(PushMessage.HEARTBEAT)) {
+                slowDisconnects.increment();
+                disconnect(connection);
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public int getConnectionCount(String topic) {
+        Set<PushConnection> topicConnections = subscribers.get(topic);
+        return topicConnections != null ? topicConnections.size() : 0;
+    }
+
+    void execute(PushConnection connection, Runnable drain) {
+        try {
+            executor.execute(drain);
+        } catch (RejectedExecutionException e) {
+            disconnect(connection);
+        }
+    }
+
+    // A write failed: the client is gone, and the container completes the emitter
+    void lost(PushConnection connection) {
+        remove(connection);
+    }
+
+    // The client reconnects with Last-Event-ID and catches up
+    private void disconnect(PushConnection connection) {
+        remove(connection);
+        connection.getEmitter().complete();
+    }
+
+    private void remove(PushConnection connection) {
+        connection.markClosed();
+        if (!connections.remove(connection)) {
+            return;
+        }
+        for (String topic : connection.getTopics()) {
+            subscribers.computeIfPresent(topic, (key, topicConnections) -> {
+                topicConnections.remove(connection);
+                return topicConnections.isEmpty() ? null : topicConnections;
+            });
+        }
+    }
+}
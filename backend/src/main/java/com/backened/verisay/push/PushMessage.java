@@ -0,0 +1,30 @@
+package com.backened.verisay.push;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * One server-sent event, serialized once and written as-is to every connection it fans out to.
+ * @param id   the SSE id, which clients send back as Last-Event-ID; also how a connection skips repeats
+ * @param name the SSE event name
+ * @param data JSON
+ */
+public record PushMessage(Long id, String name, String data) {
+
+    // An SSE comment: ignored by EventSource, but keeps proxies from closing an idle connection
+    // and shows up a client that went away
+    static final PushMessage HEARTBEAT = new PushMessage(null, null, null);
+
+    SseEmitter.SseEventBuilder toEvent() {
+        if (this == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        SseEmitter.SseEventBuilder event = SseEmitter.event();
+        if (id != null) {
+            event.id(id.toString());
+        }
+        if (name != null) {
+            event.name(name);
+        }
+        return event.data(data);
+    }
+}
@@ -0,0 +1,151 @@
+package com.backened.verisay.repository;
+
+import com.backened.verisay.extraction.AgreementFieldRules;
+import com.backened.verisay.extraction.FieldRule;
+import com.backened.verisay.extraction.FieldType;
+import com.backened.verisay.model.Agreement;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The agreementData fields declared {@code indexed()} in {@link AgreementFieldRules}, each copied out of the JSON
+ * into a virtual generated column of the agreements table with an index on (user_id, agreement_type, column):
+ * the by-field lookup is always for one user's agreements of one type.
+ * A key shared by several agreement types (e.g. startDate) shares one column.
+ * The expressions let through only values of the field's shape and leave anything else NULL,
+ * so a badly typed value can never make a write fail.
+ */
+public final class AgreementDataColumns {
+
+    private static final String PREFIX = "jf_";
+
+    /**
+     * One indexed field: its generated column and index, and how query values are read for it.
+     */
+    public record Column(String fieldKey, FieldType fieldType, String name, String sqlType, String expression) {
+
+        public String indexName() {
+            return "idx_agreements_" + name;
+        }
+
+        public List<String> indexColumns() {
+            return List.of("user_id", "agreement_type", name);
+        }
+
+        /**
+         * The column definition for ALTER TABLE ... ADD COLUMN. The comment carries the {@link #fingerprint()}.
+         */
+        public String definition() {
+            return sqlType + " GENERATED ALWAYS AS (" + expression + ") VIRTUAL COMMENT '" + fingerprint() + "'";
+        }
+
+        /**
+         * Identifies the type and expression the column was created with. MySQL reports the expression
+         * rewritten (lower case, quoted names, charset introducers), so it can't be compared as written.
+         */
+        public String fingerprint() {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256")
+                        .digest((sqlType + "\n" + expression).getBytes(StandardCharsets.UTF_8));
+                return PREFIX + HexFormat.of().formatHex(digest, 0, 8);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * A filter value as the column holds it.
+         * @throws IllegalArgumentException if the value doesn't have the field's shape
+         */
+        public Object parse(String value) {
+            try {
+                return switch (fieldType) {
+                    case AMOUNT, PERCENT -> new BigDecimal(value.trim());
+                    case DURATION_MONTHS, DURATION_DAYS -> Integer.valueOf(value.trim());
+                    case DATE -> LocalDate.parse(value.trim()).toString();
+                    default -> value.trim();
+                };
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid " + fieldType.name().toLowerCase() + " for " + fieldKey + ": " + value);
+            }
+        }
+    }
+
+    private static final Map<String, Column> COLUMNS = collect();
+
+    private AgreementDataColumns() {
+    }
+
+    public static Collection<Column> all() {
+        return COLUMNS.values();
+    }
+
+    /**
+     * The column of a field, if that field is indexed for the given agreement type.
+     */
+    public static Optional<Column> forField(Agreement.AgreementType type, String fieldKey) {
+        boolean indexed = AgreementFieldRules.forType(type).stream()
+                .anyMatch(rule -> rule.isIndexed() && rule.getKey().equals(fieldKey));
+        return indexed ? Optional.of(COLUMNS.get(fieldKey)) : Optional.empty();
+    }
+
+    /**
+     * Whether a column name is one of ours, i.e. safe to drop once its field is no longer indexed.
+     */
+    public static boolean isGenerated(String columnName) {
+        return columnName.startsWith(PREFIX);
+    }
+
+    private static Map<String, Column> collect() {
+        Map<String, Column> columns = new LinkedHashMap<>();
+        for (Agreement.AgreementType type : Agreement.AgreementType.values()) {
+            for (FieldRule rule : AgreementFieldRules.forType(type)) {
+                if (!rule.isIndexed()) {
+                    continue;
+                }
+                Column existing = columns.get(rule.getKey());
+                if (existing != null && existing.fieldType() != rule.getType()) {
+                    throw new IllegalStateException("Indexed field " + rule.getKey() + " is declared as both "
+                            + existing.fieldType() + " and " + rule.getType());
+                }
+                columns.putIfAbsent(rule.getKey(), column(rule.getKey(), rule.getType()));
+            }
+        }
+        return Collections.unmodifiableMap(columns);
+    }
+
+    static Column column(String key, FieldType type) {
+        // 'null' is what a JSON null unquotes to
+        String value = "NULLIF(JSON_UNQUOTE(JSON_EXTRACT(agreement_data, '$.\"" + key + "\"')), 'null')";
+        String name = PREFIX + key.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+        return switch (type) {
+            case AMOUNT -> new Column(key, type, name, "DECIMAL(15,2)",
+                    guarded(value, "^-?[0-9]{1,13}([.][0-9]{1,2})?$", "CAST(" + value + " AS DECIMAL(15,2))"));
+            case PERCENT -> new Column(key, type, name, "DECIMAL(9,4)",
+                    guarded(value, "^[0-9]{1,5}([.][0-9]{1,4})?$", "CAST(" + value + " AS DECIMAL(9,4))"));
+            case DURATION_MONTHS, DURATION_DAYS -> new Column(key, type, name, "INT",
+                    guarded(value, "^[0-9]{1,9}$", "CAST(" + value + " AS UNSIGNED)"));
+            // ISO dates sort as text, and an impossible date like 2025-02-30 can't fail a write as a DATE cast would
+            case DATE -> new Column(key, type, name, "CHAR(10)",
+                    guarded(value, "^[0-9]{4}-[0-9]{2}-[0-9]{2}$", value));
+            case RATIO -> new Column(key, type, name, "VARCHAR(20)", "LEFT(" + value + ", 20)");
+            case NAME, TEXT -> new Column(key, type, name, "VARCHAR(255)", "LEFT(" + value + ", 255)");
+        };
+    }
+
+    private static String guarded(String value, String pattern, String result) {
+        return "CASE WHEN " + value + " REGEXP '" + pattern + "' THEN " + result + " END";
+    }
+}
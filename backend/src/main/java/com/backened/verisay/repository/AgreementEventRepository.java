@@ -0,0 +1,21 @@
+package com.backened.verisay.repository;
+
+import com.backened.verisay.model.AgreementEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Writes go through AgreementOutbox; AgreementEventRelay reads and numbers events over JDBC
+@Repository
+public interface AgreementEventRepository extends JpaRepository<AgreementEvent, Long> {
+
+    // A user's events after the given sequence number, for SSE clients catching up; idx_agreement_events_user_sequence
+    List<AgreementEvent> findByUserIdAndSequenceNumberGreaterThanOrderBySequenceNumberAsc(Integer userId, Long after,
+                                                                                         Pageable pageable);
+
+    // The same for one agreement; idx_agreement_events_agreement_sequence
+    List<AgreementEvent> findByAgreementIdAndSequenceNumberGreaterThanOrderBySequenceNumberAsc(Long agreementId, Long after,
+                                                                                               Pageable pageable);
+}
@@ -1,14 +1,26 @@
 package com.backened.verisay.repository;
 
+import com.backened.verisay.dto.AgreementChange;
+import com.backened.verisay.dto.AgreementSummary;
+import com.backened.verisay.dto.AgreementVersion;
 import com.backened.verisay.model.Agreement;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+// Derived finders and counters are read-only, so outside a write transaction they can run on a replica.
+// Inherited save/delete methods keep their own read-write transactions.
 @Repository
-public interface AgreementRepository extends JpaRepository<Agreement, Long> {
+@Transactional(readOnly = true)
+public interface AgreementRepository extends JpaRepository<Agreement, Long>, AgreementRepositoryCustom {
 
     // --- Core Finders ---
 
@@ -29,6 +41,7 @@ public interface AgreementRepository extends JpaRepository<Agreement, Long> {
     List<Agreement> findByUser_IdAndType(Integer userId, Agreement.AgreementType type);
     
     // --- Counter Methods ---
+    // Exact COUNT(*)s over the table; dashboards read AgreementCounters instead, which never hits MySQL
     
     long countByUser_Id(Integer userId);
     
@@ -37,7 +50,27 @@ public interface AgreementRepository extends JpaRepository<Agreement, Long> {
     long countByUser_IdAndStatus(Integer userId, Agreement.AgreementStatus status);
 
     // --- Search ---
+    // Text search is served by the Lucene index in com.backened.verisay.search; these queries feed it.
 
-    // Find by title (your version was already perfect)
-    List<Agreement> findByTitleContainingIgnoreCase(String title);
+    /**
+     * Agreements changed after (since, afterId) in (updated_at, id) order, a page at a time.
+     * A range scan on idx_agreements_updated.
+     */
+    @Query("select new com.backened.verisay.dto.AgreementChange(a.id, a.version, a.updatedAt) from Agreement a " +
+            "where a.updatedAt >= :since and (a.updatedAt > :since or a.id > :afterId) order by a.updatedAt, a.id")
+    List<AgreementChange> findChangesSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    // Every agreement in id order, a page at a time, for filling an empty index
+    @Query("select new com.backened.verisay.dto.AgreementChange(a.id, a.version, a.updatedAt) from Agreement a " +
+            "where a.id > :afterId order by a.id")
+    List<AgreementChange> findChangesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Search hits as summaries; the user check makes sure a stale index entry can't leak another user's agreement
+    @Query("select new com.backened.verisay.dto.AgreementSummary(a.id, a.title, a.type, a.status, a.createdAt, a.updatedAt, a.signedAt) " +
+            "from Agreement a where a.user.id = :userId and a.id in :ids")
+    List<AgreementSummary> findSummariesByIds(@Param("userId") Integer userId, @Param("ids") Collection<Long> ids);
+
+    @Query("select new com.backened.verisay.dto.AgreementVersion(a.version, a.user.id, a.status) from Agreement a where a.id = :id")
+    Optional<AgreementVersion> findVersionById(@Param("id") Long id);
 }
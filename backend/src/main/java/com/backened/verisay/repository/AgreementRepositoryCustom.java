@@ -0,0 +1,46 @@
+package com.backened.verisay.repository;
+
+import com.backened.verisay.dto.AgreementSummary;
+import com.backened.verisay.model.Agreement;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Agreement queries that need to be built dynamically or run outside Hibernate's usual paths,
+ * implemented in {@link AgreementRepositoryImpl}.
+ */
+public interface AgreementRepositoryCustom {
+
+    /**
+     * A user's agreements as summaries, newest first (created_at, then id, descending).
+     * Keyset paginated: pass the createdAt and id of the last row of the previous page to continue after it,
+     * or nulls for the first page. Status and type are optional filters.
+     */
+    List<AgreementSummary> findSummaries(Integer userId, Agreement.AgreementStatus status, Agreement.AgreementType type,
+                                         LocalDateTime afterCreatedAt, Long afterId, int limit);
+
+    /**
+     * Agreements of one type whose indexed data field is between from and to inclusive, ordered by that field,
+     * then id. Either bound may be null for an open range; userId, if set, keeps only that user's agreements.
+     * Reads the field's generated column (see {@link AgreementDataColumns}), so for one user it is a range scan
+     * on the (user_id, agreement_type, column) index and never parses agreement_data.
+     */
+    List<AgreementSummary> findSummariesByDataField(Agreement.AgreementType type, AgreementDataColumns.Column field,
+                                                    Object from, Object to, Integer userId, int limit);
+
+    /**
+     * Applies an RFC 7386 merge patch to agreement_data inside MySQL, so the document is never loaded or rewritten
+     * by the application. Bumps the version; with expectedVersion set, only applies to that version.
+     * Signed agreements are left alone.
+     * @return the number of rows changed: 0 if the agreement is missing, signed or at another version.
+     */
+    int mergeAgreementData(Long id, String patch, Long expectedVersion, LocalDateTime now);
+
+    /**
+     * Like {@link #mergeAgreementData}, but only adds the keys agreement_data doesn't have yet; values already
+     * stored are kept.
+     * @return the number of rows changed: 0 if the agreement is missing or signed.
+     */
+    int fillAgreementData(Long id, String fields, LocalDateTime now);
+}
@@ -0,0 +1,183 @@
+package com.backened.verisay.repository;
+
+import com.backened.verisay.dto.AgreementSummary;
+import com.backened.verisay.model.Agreement;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Only the predicates that apply are added, so every filter combination becomes a plain range scan
+ * on the (user_id, created_at, id) index, or on a data field's index, instead of an "? IS NULL OR ..." query
+ * the optimizer can't use.
+ */
+@Transactional(readOnly = true)
+public class AgreementRepositoryImpl implements AgreementRepositoryCustom {
+
+    private static final String MERGE_AGREEMENT_DATA = """
+            UPDATE agreements
+               SET agreement_data = JSON_MERGE_PATCH(COALESCE(agreement_data, JSON_OBJECT()), CAST(? AS JSON)),
+                   version = version + 1,
+                   updated_at = ?
+             WHERE id = ?
+               AND agreement_status <> 'SIGNED'
+               AND (? IS NULL OR version = ?)
+            """;
+
+    // The same update with the stored document as the patch, so its keys win over the new ones
+    private static final String FILL_AGREEMENT_DATA = """
+            UPDATE agreements
+               SET agreement_data = JSON_MERGE_PATCH(CAST(? AS JSON), COALESCE(agreement_data, JSON_OBJECT())),
+                   version = version + 1,
+                   updated_at = ?
+             WHERE id = ?
+               AND agreement_status <> 'SIGNED'
+               AND (? IS NULL OR version = ?)
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AgreementSummary> findSummaries(Integer userId, Agreement.AgreementStatus status, Agreement.AgreementType type,
+                                                LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AgreementSummary> query = cb.createQuery(AgreementSummary.class);
+        Root<Agreement> agreement = query.from(Agreement.class);
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(agreement.get("user").get("id"), userId));
+        if (status != null) {
+            where.add(cb.equal(agreement.get("status"), status));
+        }
+        if (type != null) {
+            where.add(cb.equal(agreement.get("type"), type));
+        }
+        if (afterCreatedAt != null && afterId != null) {
+            // (created_at, id) < (:afterCreatedAt, :afterId)
+            where.add(cb.or(
+                    cb.lessThan(agreement.get("createdAt"), afterCreatedAt),
+                    cb.and(cb.equal(agreement.get("createdAt"), afterCreatedAt),
+                            cb.lessThan(agreement.get("id"), afterId))));
+        }
+
+        query.select(cb.construct(AgreementSummary.class,
+                        agreement.get("id"), agreement.get("title"), agreement.get("type"), agreement.get("status"),
+                        agreement.get("createdAt"), agreement.get("updatedAt"), agreement.get("signedAt")))
+                .where(where.toArray(new Predicate[0]))
+                .orderBy(cb.desc(agreement.get("createdAt")), cb.desc(agreement.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<AgreementSummary> findSummariesByDataField(Agreement.AgreementType type, AgreementDataColumns.Column field,
+                                                           Object from, Object to, Integer userId, int limit) {
+        // The column name comes from AgreementDataColumns, never from the caller
+        String column = field.name();
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, title, agreement_type, agreement_status, created_at, updated_at, signed_at"
+                        + " FROM agreements WHERE agreement_type = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(type.name());
+        if (userId != null) {
+            sql.append(" AND user_id = ?");
+            params.add(userId);
+        }
+        if (from != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            params.add(from);
+        } else {
+            sql.append(" AND ").append(column).append(" IS NOT NULL");
+        }
+        if (to != null) {
+            sql.append(" AND ").append(column).append(" <= ?");
+            params.add(to);
+        }
+        sql.append(" ORDER BY ").append(column).append(", id LIMIT ?");
+        params.add(limit);
+
+        return entityManager.unwrap(SessionImplementor.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                List<AgreementSummary> summaries = new ArrayList<>();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        summaries.add(new AgreementSummary(rs.getLong("id"), rs.getString("title"),
+                                Agreement.AgreementType.valueOf(rs.getString("agreement_type")),
+                                Agreement.AgreementStatus.valueOf(rs.getString("agreement_status")),
+                                rs.getObject("created_at", LocalDateTime.class),
+                                rs.getObject("updated_at", LocalDateTime.class),
+                                rs.getObject("signed_at", LocalDateTime.class)));
+                    }
+                }
+                return summaries;
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public int mergeAgreementData(Long id, String patch, Long expectedVersion, LocalDateTime now) {
+        return updateAgreementData(MERGE_AGREEMENT_DATA, id, patch, expectedVersion, now);
+    }
+
+    @Override
+    @Transactional
+    public int fillAgreementData(Long id, String fields, LocalDateTime now) {
+        return updateAgreementData(FILL_AGREEMENT_DATA, id, fields, null, now);
+    }
+
+    /**
+     * Runs as plain JDBC on the transaction's connection. A native query through Hibernate would evict the whole
+     * agreements cache region on every autosave; here only this agreement's entry is soft-locked until commit,
+     * the way Hibernate handles its own updates, so no reader can cache the pre-patch row meanwhile.
+     */
+    private int updateAgreementData(String sql, Long id, String json, Long expectedVersion, LocalDateTime now) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        // Pending changes go out first, and the agreement's managed copy is dropped after, as it won't match the row anymore
+        session.flush();
+
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Agreement.class);
+        if (persister.canWriteToCache()) {
+            EntityDataAccess cache = persister.getCacheAccessStrategy();
+            Object key = cache.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+            SoftLock lock = cache.lockItem(session, key, null);
+            session.getActionQueue().registerProcess((success, completed) -> cache.unlockItem(completed, key, lock));
+        }
+
+        int updated = session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, json);
+                statement.setObject(2, now);
+                statement.setLong(3, id);
+                statement.setObject(4, expectedVersion, Types.BIGINT);
+                statement.setObject(5, expectedVersion, Types.BIGINT);
+                return statement.executeUpdate();
+            }
+        });
+        // Only this agreement (detach cascades to the children it has loaded); nothing else the caller holds is stale
+        Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+        if (managed != null) {
+            entityManager.detach(managed);
+        }
+        return updated;
+    }
+}
@@ -2,8 +2,11 @@ package com.backened.verisay.repository;
 
 import com.backened.verisay.model.AudioRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +19,11 @@ public interface AudioRecordRepository extends JpaRepository<AudioRecord, Long>
     // Find the most recent audio record for an agreement. This is what we will use for transcription.
     // Spring Data JPA's "findFirst" or "findTop" keywords are perfect for this.
     Optional<AudioRecord> findTopByAgreement_IdOrderByUploadedAtDesc(Long agreementId);
+
+    // Transcribed recordings of several agreements, oldest first; the search indexer keeps the newest per agreement.
+    List<AudioRecord> findByAgreement_IdInAndTranscriptIsNotNullOrderByUploadedAtAsc(Collection<Long> agreementIds);
+
+    // Which of these stored files some row points at; used by blob garbage collection.
+    @Query("select distinct r.filePath from AudioRecord r where r.filePath in :paths")
+    List<String> findReferencedFilePaths(@Param("paths") Collection<String> paths);
 }
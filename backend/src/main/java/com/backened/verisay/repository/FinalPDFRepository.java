@@ -2,6 +2,19 @@ package com.backened.verisay.repository;
 
 import com.backened.verisay.model.FinalPDF;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface FinalPDFRepository extends JpaRepository<FinalPDF, Long> {
+
+    // Which of these stored files some row points at; used by blob garbage collection.
+    @Query("select distinct r.filePath from FinalPDF r where r.filePath in :paths")
+    List<String> findReferencedFilePaths(@Param("paths") Collection<String> paths);
+
+    // The artifact rendered when the agreement was signed
+    Optional<FinalPDF> findTopByAgreementIdOrderByCreatedAtDesc(Long agreementId);
 }
@@ -2,9 +2,16 @@ package com.backened.verisay.repository;
 
 import com.backened.verisay.model.IdProof;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface IdProofRepository extends JpaRepository<IdProof, Long> {
-    // Standard CRUD methods are sufficient.
+    // Which of these stored files some row points at; used by blob garbage collection.
+    @Query("select distinct r.filePath from IdProof r where r.filePath in :paths")
+    List<String> findReferencedFilePaths(@Param("paths") Collection<String> paths);
 }
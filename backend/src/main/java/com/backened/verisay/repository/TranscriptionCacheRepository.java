@@ -0,0 +1,12 @@
+package com.backened.verisay.repository;
+
+import com.backened.verisay.model.TranscriptionCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TranscriptionCacheRepository extends JpaRepository<TranscriptionCacheEntry, String> {
+
+    // Drops the cached results of one recording, for every agreement type.
+    long deleteByContentHash(String contentHash);
+}
@@ -1,7 +1,11 @@
 package com.backened.verisay.repository;
 
+import com.backened.verisay.config.SecondLevelCacheConfig;
 import com.backened.verisay.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,6 +14,12 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Integer> {
 
     // CRUCIAL: Must return Optional<User> to safely handle cases where the user is not found.
+    // Runs on every request, so the result (the user's id) goes to the query cache and the user to the entity cache.
+    // Hibernate drops cached results whenever the users table is written.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.USERS_BY_FIREBASE_UID)
+    })
     Optional<User> findByFirebaseUid(String firebaseUid);
 
 }
@@ -0,0 +1,37 @@
+package com.backened.verisay.search;
+
+import com.backened.verisay.model.Agreement;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * What the search index keeps of an agreement: who owns it, which version it was, and its searchable text.
+ * @param fields the agreement data's values (party names, addresses, amounts...) as one text.
+ * @param transcript the latest transcript of the agreement's audio, or null.
+ */
+public record AgreementDocument(Long id, Integer userId, Long version, String title, String fields, String transcript) {
+
+    public static AgreementDocument of(Agreement agreement, String transcript) {
+        return new AgreementDocument(agreement.getId(), agreement.getUser().getId(), agreement.getVersion(),
+                agreement.getTitle(), valuesOf(agreement.getAgreementData()), transcript);
+    }
+
+    // Values only: the keys are the same form field names on every agreement of a type
+    private static String valuesOf(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Map<?, ?> map) {
+            return valuesOf(map.values());
+        }
+        if (value instanceof Collection<?> values) {
+            return values.stream()
+                    .map(AgreementDocument::valuesOf)
+                    .filter(text -> !text.isEmpty())
+                    .collect(Collectors.joining("\n"));
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,156 @@
+package com.backened.verisay.search;
+
+import com.backened.verisay.dto.AgreementChange;
+import com.backened.verisay.model.AudioRecord;
+import com.backened.verisay.repository.AgreementRepository;
+import com.backened.verisay.repository.AudioRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps {@link AgreementSearchIndex} in step with the agreements table by following updated_at, so it sees every
+ * write whichever node made it: creation, completed fields, autosaves, transcriptions and status changes.
+ * Each pass starts a little before the newest change it has seen, to pick up transactions that committed late
+ * and replicas that were behind, and skips agreements whose indexed version is current.
+ * An empty index is first filled from the whole table, a time-boxed slice per pass.
+ */
+@Component
+public class AgreementIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementIndexer.class);
+
+    // Bookkeeping saved with each index commit, so a restart carries on where it stopped
+    private static final String WATERMARK = "watermark";
+    private static final String BACKFILL_AFTER_ID = "backfill-after-id";
+
+    @Autowired
+    private AgreementSearchIndex index;
+
+    @Autowired
+    private AgreementRepository agreementRepository;
+
+    @Autowired
+    private AudioRecordRepository audioRecordRepository;
+
+    @Value("${search.index.batch-size:500}")
+    private int batchSize;
+
+    @Value("${search.index.overlap-ms:10000}")
+    private long overlapMillis;
+
+    @Value("${search.index.backfill-budget-ms:500}")
+    private long backfillBudgetMillis;
+
+    @Value("${search.index.commit-interval-ms:30000}")
+    private long commitIntervalMillis;
+
+    // Newest updated_at seen so far
+    private LocalDateTime watermark;
+    // Where the initial fill has got to; null once it is done
+    private Long backfillAfterId;
+    private long lastCommitMillis = System.currentTimeMillis();
+
+    @PostConstruct
+    public void init() {
+        Map<String, String> committed = index.getCommitData();
+        if (committed.containsKey(WATERMARK)) {
+            watermark = LocalDateTime.parse(committed.get(WATERMARK));
+            String afterId = committed.get(BACKFILL_AFTER_ID);
+            backfillAfterId = afterId != null ? Long.valueOf(afterId) : null;
+        } else {
+            // New index: fill it from the table, and follow changes made from now on
+            watermark = LocalDateTime.now();
+            backfillAfterId = 0L;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${search.index.refresh-ms:1000}", fixedDelayString = "${search.index.refresh-ms:1000}")
+    public synchronized void sync() {
+        followChanges();
+        if (backfillAfterId != null) {
+            backfill();
+        }
+        index.refresh();
+        if (System.currentTimeMillis() - lastCommitMillis >= commitIntervalMillis) {
+            commit();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void commit() {
+        Map<String, String> commitData = new HashMap<>();
+        commitData.put(WATERMARK, watermark.toString());
+        if (backfillAfterId != null) {
+            commitData.put(BACKFILL_AFTER_ID, backfillAfterId.toString());
+        }
+        index.commit(commitData);
+        lastCommitMillis = System.currentTimeMillis();
+    }
+
+    private void followChanges() {
+        LocalDateTime since = watermark.minusNanos(overlapMillis * 1_000_000);
+        long afterId = 0;
+        List<AgreementChange> changes;
+        do {
+            changes = agreementRepository.findChangesSince(since, afterId, PageRequest.of(0, batchSize));
+            if (changes.isEmpty()) {
+                break;
+            }
+            index(changes);
+            AgreementChange last = changes.get(changes.size() - 1);
+            since = last.getUpdatedAt();
+            afterId = last.getId();
+            if (since.isAfter(watermark)) {
+                watermark = since;
+            }
+        } while (changes.size() == batchSize);
+    }
+
+    private void backfill() {
+        long deadline = System.currentTimeMillis() + backfillBudgetMillis;
+        while (System.currentTimeMillis() < deadline) {
+            List<AgreementChange> page = agreementRepository.findChangesAfterId(backfillAfterId, PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                log.info("Search index filled: {} agreements", index.size());
+                backfillAfterId = null;
+                return;
+            }
+            index(page);
+            backfillAfterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    // Re-indexes the agreements whose indexed version is missing or behind
+    private void index(List<AgreementChange> changes) {
+        Map<Long, Long> indexed = index.indexedVersions(changes.stream().map(AgreementChange::getId).toList());
+        List<Long> stale = changes.stream()
+                .filter(change -> !Objects.equals(indexed.get(change.getId()), change.getVersion()))
+                .map(AgreementChange::getId)
+                .toList();
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        // Oldest first, so the newest transcript of each agreement is the one left in the map
+        Map<Long, String> transcripts = new HashMap<>();
+        for (AudioRecord audio : audioRecordRepository.findByAgreement_IdInAndTranscriptIsNotNullOrderByUploadedAtAsc(stale)) {
+            transcripts.put(audio.getAgreement().getId(), audio.getTranscript());
+        }
+        index.update(agreementRepository.findAllById(stale).stream()
+                .map(agreement -> AgreementDocument.of(agreement, transcripts.get(agreement.getId())))
+                .toList());
+    }
+}
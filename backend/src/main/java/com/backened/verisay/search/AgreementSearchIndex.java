@@ -0,0 +1,248 @@
+package com.backened.verisay.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process Lucene index of agreements: title, data field values and transcript, one document per agreement.
+ * Kept on local disk under {@code search.index.path}; {@link AgreementIndexer} keeps it in step with the database.
+ * Updates become searchable at the next {@link #refresh()} and survive a restart after the next {@link #commit}.
+ */
+@Component
+public class AgreementSearchIndex {
+
+    static final String ID = "id";
+    static final String USER = "user";
+    static final String VERSION = "version";
+    static final String TITLE = "title";
+    static final String FIELDS = "fields";
+    static final String TRANSCRIPT = "transcript";
+
+    // A title match counts most, then the form fields, then anything said in the recording
+    private static final Map<String, Float> BOOSTS = Map.of(TITLE, 3f, FIELDS, 2f, TRANSCRIPT, 1f);
+    // Longer queries are cut here; every word adds a prefix and a fuzzy expansion per field
+    private static final int MAX_QUERY_TERMS = 8;
+
+    @Value("${search.index.path:./search-index}")
+    private String indexPath;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = FSDirectory.open(Path.of(indexPath));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    // --- Writing ---
+
+    /**
+     * Adds the documents, replacing any earlier version of the same agreements.
+     */
+    public void update(List<AgreementDocument> documents) {
+        try {
+            for (AgreementDocument document : documents) {
+                writer.updateDocument(new Term(ID, document.id().toString()), toLucene(document));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes everything written so far searchable.
+     */
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes everything written so far durable, with the given bookkeeping (e.g. how far the indexer got).
+     */
+    public void commit(Map<String, String> commitData) {
+        try {
+            writer.setLiveCommitData(Map.copyOf(commitData).entrySet());
+            writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The bookkeeping saved with the last commit; empty for a new index.
+     */
+    public Map<String, String> getCommitData() {
+        Map<String, String> commitData = new HashMap<>();
+        Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+        if (live != null) {
+            live.forEach(entry -> commitData.put(entry.getKey(), entry.getValue()));
+        }
+        return commitData;
+    }
+
+    public int size() {
+        return writer.getDocStats().numDocs;
+    }
+
+    // --- Reading ---
+
+    /**
+     * The indexed version of each of the given agreements that is in the index, as of the last refresh.
+     */
+    public Map<Long, Long> indexedVersions(List<Long> agreementIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        withSearcher(searcher -> {
+            StoredFields storedFields = searcher.storedFields();
+            for (Long id : agreementIds) {
+                TopDocs hit = searcher.search(new TermQuery(new Term(ID, id.toString())), 1);
+                if (hit.scoreDocs.length > 0) {
+                    versions.put(id, storedFields.document(hit.scoreDocs[0].doc).getField(VERSION).numericValue().longValue());
+                }
+            }
+        });
+        return versions;
+    }
+
+    /**
+     * Ids of the user's agreements matching every word of the text, best match first.
+     * A word matches a word in the title, data or transcript that it equals, starts, or is within a typo or two of.
+     */
+    public List<Long> search(Integer userId, String text, int limit) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USER, userId.toString())), BooleanClause.Occur.FILTER);
+        for (String term : terms) {
+            query.add(anyField(term), BooleanClause.Occur.MUST);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        withSearcher(searcher -> {
+            StoredFields storedFields = searcher.storedFields();
+            for (ScoreDoc hit : searcher.search(query.build(), limit).scoreDocs) {
+                ids.add(Long.valueOf(storedFields.document(hit.doc).get(ID)));
+            }
+        });
+        return ids;
+    }
+
+    // One word against every text field: exact beats prefix beats fuzzy
+    private static Query anyField(String term) {
+        BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+        int maxEdits = term.length() < 4 ? 0 : term.length() < 7 ? 1 : 2;
+        BOOSTS.forEach((field, boost) -> {
+            Term fieldTerm = new Term(field, term);
+            anyField.add(new BoostQuery(new TermQuery(fieldTerm), boost * 2), BooleanClause.Occur.SHOULD);
+            anyField.add(new BoostQuery(new PrefixQuery(fieldTerm), boost), BooleanClause.Occur.SHOULD);
+            if (maxEdits > 0) {
+                // The first letter has to match, which keeps the fuzzy expansion small
+                anyField.add(new BoostQuery(new FuzzyQuery(fieldTerm, maxEdits, 1), boost / 2), BooleanClause.Occur.SHOULD);
+            }
+        });
+        return anyField.build();
+    }
+
+    // The query text split and normalised the same way the indexed text was
+    private List<String> analyze(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        try (TokenStream stream = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (terms.size() < MAX_QUERY_TERMS && stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private static Document toLucene(AgreementDocument agreement) {
+        Document document = new Document();
+        document.add(new StringField(ID, agreement.id().toString(), Field.Store.YES));
+        document.add(new StringField(USER, agreement.userId().toString(), Field.Store.NO));
+        document.add(new StoredField(VERSION, agreement.version() != null ? agreement.version() : 0L));
+        document.add(new TextField(TITLE, nullToEmpty(agreement.title()), Field.Store.NO));
+        document.add(new TextField(FIELDS, nullToEmpty(agreement.fields()), Field.Store.NO));
+        document.add(new TextField(TRANSCRIPT, nullToEmpty(agreement.transcript()), Field.Store.NO));
+        return document;
+    }
+
+    private static String nullToEmpty(String text) {
+        return text != null ? text : "";
+    }
+
+    private interface SearcherWork {
+        void run(IndexSearcher searcher) throws IOException;
+    }
+
+    private void withSearcher(SearcherWork work) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                work.run(searcher);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
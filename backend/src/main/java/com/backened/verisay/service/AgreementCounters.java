@@ -0,0 +1,260 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.model.Agreement;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agreement counts per (user, status, type), held in memory so that dashboard counts never query MySQL.
+ * Each count is also kept rolled up over any user, status or type, so every combination is a single lookup.
+ * <ul>
+ *   <li>Creations and status changes are counted when their transaction commits.</li>
+ *   <li>Every {@code agreement.counters.flush-ms} the changes are added to the agreement_counts table.</li>
+ *   <li>Every {@code agreement.counters.reconcile-ms} rows changed by other nodes are read back.</li>
+ *   <li>On startup agreement_counts is filled from agreements if it is empty, then loaded.</li>
+ * </ul>
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AgreementCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementCounters.class);
+
+    private static final String SEED = """
+            INSERT IGNORE INTO agreement_counts (user_id, agreement_status, agreement_type, agreement_count, updated_at)
+            SELECT user_id, agreement_status, agreement_type, COUNT(*), CURRENT_TIMESTAMP(6)
+              FROM agreements
+             GROUP BY user_id, agreement_status, agreement_type
+            """;
+
+    private static final String ADD = """
+            INSERT INTO agreement_counts (user_id, agreement_status, agreement_type, agreement_count, updated_at)
+            VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP(6))
+            ON DUPLICATE KEY UPDATE agreement_count = agreement_count + VALUES(agreement_count),
+                                    updated_at = VALUES(updated_at)
+            """;
+
+    private static final String CHANGED_SINCE = """
+            SELECT user_id, agreement_status, agreement_type, agreement_count, updated_at
+              FROM agreement_counts
+             WHERE updated_at >= ?
+            """;
+
+    // A count, or a rollup when some parts are null ("any")
+    record Key(Integer userId, Agreement.AgreementStatus status, Agreement.AgreementType type) {
+
+        boolean isExact() {
+            return userId != null && status != null && type != null;
+        }
+
+        // This key and the 7 rollups it is part of
+        List<Key> withRollups() {
+            List<Key> keys = new ArrayList<>(8);
+            for (int mask = 0; mask < 8; mask++) {
+                keys.add(new Key((mask & 1) == 0 ? userId : null,
+                        (mask & 2) == 0 ? status : null,
+                        (mask & 4) == 0 ? type : null));
+            }
+            return keys;
+        }
+    }
+
+    private static final class Count {
+        // As of the last flush or reconcile; only written inside those, which hold the lock
+        volatile long base;
+        // Counted here since then, striped so concurrent commits don't contend
+        final LongAdder pending = new LongAdder();
+
+        long value() {
+            return base + pending.sum();
+        }
+
+        // Moves a flushed delta from pending into base
+        void settle(long delta) {
+            base += delta;
+            pending.add(-delta);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${agreement.counters.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    // Re-read a little before the newest row seen, for flushes that committed late
+    @Value("${agreement.counters.reconcile-overlap-ms:10000}")
+    private long reconcileOverlapMillis;
+
+    private final Map<Key, Count> counts = new ConcurrentHashMap<>();
+    private TransactionTemplate transactions;
+    private LocalDateTime reconciledThrough = LocalDateTime.MIN;
+
+    @PostConstruct
+    public void init() {
+        // Read-write, so reads of agreement_counts go to the primary rather than a lagging replica
+        transactions = new TransactionTemplate(transactionManager);
+        transactions.executeWithoutResult(status -> {
+            if (rebuildOnStartup) {
+                log.warn("Rebuilding agreement_counts from agreements; counts flushed by other nodes meanwhile are lost");
+                jdbcTemplate.update("DELETE FROM agreement_counts");
+            }
+            boolean empty = jdbcTemplate.queryForList("SELECT 1 FROM agreement_counts LIMIT 1").isEmpty();
+            if (empty) {
+                int rows = jdbcTemplate.update(SEED);
+                log.info("Seeded agreement_counts with {} rows from agreements", rows);
+            }
+        });
+        reconcile();
+    }
+
+    // --- Recording ---
+
+    /**
+     * Counts new agreements once the current transaction commits.
+     */
+    public void recordCreated(List<Agreement> agreements) {
+        afterCommit(() -> agreements.forEach(agreement -> add(agreement, agreement.getStatus(), 1)));
+    }
+
+    /**
+     * Moves an agreement from one status count to another once the current transaction commits.
+     */
+    public void recordStatusChange(Agreement agreement, Agreement.AgreementStatus from) {
+        Agreement.AgreementStatus to = agreement.getStatus();
+        if (from == to) {
+            return;
+        }
+        afterCommit(() -> {
+            add(agreement, from, -1);
+            add(agreement, to, 1);
+        });
+    }
+
+    private void add(Agreement agreement, Agreement.AgreementStatus status, long delta) {
+        Key key = new Key(agreement.getUser().getId(), status, agreement.getType());
+        for (Key rollup : key.withRollups()) {
+            count(rollup).pending.add(delta);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // --- Reading ---
+
+    /**
+     * Agreements matching the given user, status and type; a null matches any. Never queries the database.
+     */
+    public long count(Integer userId, Agreement.AgreementStatus status, Agreement.AgreementType type) {
+        Count count = counts.get(new Key(userId, status, type));
+        return count != null ? count.value() : 0;
+    }
+
+    /**
+     * The user's agreements (everyone's for null) per status.
+     */
+    public Map<Agreement.AgreementStatus, Long> countByStatus(Integer userId) {
+        Map<Agreement.AgreementStatus, Long> byStatus = new EnumMap<>(Agreement.AgreementStatus.class);
+        for (Agreement.AgreementStatus status : Agreement.AgreementStatus.values()) {
+            byStatus.put(status, count(userId, status, null));
+        }
+        return byStatus;
+    }
+
+    // --- Syncing with agreement_counts ---
+
+    /**
+     * Adds what was counted here since the last flush to agreement_counts, in one transaction.
+     */
+    @Scheduled(fixedDelayString = "${agreement.counters.flush-ms:5000}")
+    public synchronized void flush() {
+        Map<Key, Long> deltas = new HashMap<>();
+        counts.forEach((key, count) -> {
+            long delta = count.pending.sum();
+            if (key.isExact() && delta != 0) {
+                deltas.put(key, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> rows.add(new Object[]{key.userId(), key.status().name(), key.type().name(), delta}));
+        // On failure nothing is settled, and the same deltas go out with the next flush
+        transactions.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD, rows));
+
+        deltas.forEach((key, delta) -> {
+            for (Key rollup : key.withRollups()) {
+                count(rollup).settle(delta);
+            }
+        });
+    }
+
+    /**
+     * Flushes, then takes the rows of agreement_counts that changed since the last reconcile as the new base,
+     * which brings in what other nodes flushed.
+     */
+    @Scheduled(initialDelayString = "${agreement.counters.reconcile-ms:60000}",
+            fixedDelayString = "${agreement.counters.reconcile-ms:60000}")
+    public synchronized void reconcile() {
+        flush();
+        LocalDateTime since = reconciledThrough.equals(LocalDateTime.MIN)
+                ? LocalDateTime.of(1970, 1, 1, 0, 0)
+                : reconciledThrough.minusNanos(reconcileOverlapMillis * 1_000_000);
+        transactions.executeWithoutResult(status -> jdbcTemplate.query(CHANGED_SINCE, rs -> {
+            Key key = new Key(rs.getInt("user_id"),
+                    Agreement.AgreementStatus.valueOf(rs.getString("agreement_status")),
+                    Agreement.AgreementType.valueOf(rs.getString("agreement_type")));
+            long diff = rs.getLong("agreement_count") - count(key).base;
+            if (diff != 0) {
+                for (Key rollup : key.withRollups()) {
+                    count(rollup).base += diff;
+                }
+            }
+            LocalDateTime updatedAt = rs.getTimestamp("updated_at").toLocalDateTime();
+            if (updatedAt.isAfter(reconciledThrough)) {
+                reconciledThrough = updatedAt;
+            }
+        }, Timestamp.valueOf(since)));
+    }
+
+    private Count count(Key key) {
+        return counts.computeIfAbsent(key, k -> new Count());
+    }
+}
@@ -0,0 +1,88 @@
+package com.backened.verisay.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process coordination of writes to one agreement, without database row locks.
+ * <ul>
+ *   <li>Shared: file uploads. They only add child rows, so any number run side by side.</li>
+ *   <li>Exclusive: steps that read the set of uploads or rewrite the agreement (transcription,
+ *       completing fields, signing). They wait for in-flight uploads and keep new ones out until they finish.</li>
+ * </ul>
+ * Locks are held until the current transaction completes, so whoever goes next sees committed data.
+ * Agreements share a fixed set of lock stripes; @Version on Agreement covers writers on other nodes.
+ * A transaction should lock at most one agreement: shared-then-exclusive on the same stripe would wait on itself.
+ */
+@Component
+public class AgreementLocks {
+
+    @Value("${agreement.locks.stripes:256}")
+    private int stripes;
+
+    @Value("${agreement.locks.wait-ms:10000}")
+    private long waitMillis;
+
+    private ReentrantReadWriteLock[] locks;
+
+    @PostConstruct
+    public void init() {
+        // Power of two, so a stripe is picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Takes the agreement's lock in shared mode until the current transaction completes.
+     * @throws CannotAcquireLockException if an exclusive holder doesn't finish within {@code agreement.locks.wait-ms}.
+     */
+    public void lockShared(Long agreementId) {
+        hold(stripe(agreementId).readLock(), agreementId);
+    }
+
+    /**
+     * Takes the agreement's lock in exclusive mode until the current transaction completes.
+     * @throws CannotAcquireLockException if other holders don't finish within {@code agreement.locks.wait-ms}.
+     */
+    public void lockExclusive(Long agreementId) {
+        hold(stripe(agreementId).writeLock(), agreementId);
+    }
+
+    private void hold(Lock lock, Long agreementId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Agreement locks are held until commit, so they need a transaction");
+        }
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted while waiting for agreement " + agreementId, e);
+        }
+        if (!acquired) {
+            throw new CannotAcquireLockException("Agreement " + agreementId + " is busy, please retry");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private ReentrantReadWriteLock stripe(Long agreementId) {
+        int hash = Long.hashCode(agreementId);
+        return locks[(hash ^ (hash >>> 16)) & (locks.length - 1)];
+    }
+}
@@ -1,15 +1,33 @@
 package com.backened.verisay.service;
 
+import com.backened.verisay.datasource.ReadYourWritesTracker;
+import com.backened.verisay.dto.AgreementSummary;
+import com.backened.verisay.dto.AgreementSummaryPage;
+import com.backened.verisay.dto.AgreementVersion;
 import com.backened.verisay.model.*;
+import com.backened.verisay.outbox.AgreementOutbox;
 import com.backened.verisay.repository.*;
+import com.backened.verisay.search.AgreementSearchIndex;
+import com.backened.verisay.storage.StoredFile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -24,7 +42,15 @@ public class AgreementService {
 
     // --- TOOL SERVICES ---
     @Autowired private FileStorageService fileStorageService;
-    @Autowired private AudioTranscriptionService transcriptionService;
+    @Autowired private FinalPDFService finalPDFService;
+    @Autowired private ReadYourWritesTracker readYourWrites;
+    @Autowired private AgreementLocks agreementLocks;
+    @Autowired private AgreementSearchIndex searchIndex;
+    @Autowired private AgreementCounters agreementCounters;
+    @Autowired private AgreementOutbox outbox;
+
+    // Serializes merge patches; the patch is small, the stored document is never touched here
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
      * Step 1: Creates the initial agreement record.
@@ -42,15 +68,35 @@ public class AgreementService {
                 .agreementData(Collections.emptyMap()) // Initialize with empty data
                 .build();
         
-        return agreementRepository.save(agreement);
+        Agreement saved = agreementRepository.save(agreement);
+        recordWrite(saved);
+        agreementCounters.recordCreated(List.of(saved));
+        outbox.recordCreated(List.of(saved));
+        return saved;
     }
 
+    /**
+     * Inserts fully built agreements (children included) in one transaction.
+     * Flushed here so insert failures surface inside this call, and sent as JDBC batches.
+     */
+    public List<Agreement> saveAgreementsBatch(List<Agreement> agreements) {
+        List<Agreement> saved = agreementRepository.saveAllAndFlush(agreements);
+        saved.forEach(this::recordWrite);
+        agreementCounters.recordCreated(saved);
+        outbox.recordCreated(saved);
+        return saved;
+    }
+
+    // Uploads only add child rows, so they hold the agreement's lock shared: they run side by side
+    // with each other, but never while a step that reads the set of uploads is running.
+
     /**
      * Handles uploading and saving the path for Party Face images.
      */
     public void savePartyFace(Long agreementId, FaceIdentity.PartyType partyType, MultipartFile file) {
+        agreementLocks.lockShared(agreementId);
         Agreement agreement = findAgreementById(agreementId);
-        String filePath = fileStorageService.store(file, "faces");
+        String filePath = fileStorageService.storeStreaming(file, "faces").getPath();
 
         FaceIdentity faceIdentity = FaceIdentity.builder()
                 .agreement(agreement)
@@ -59,14 +105,16 @@ public class AgreementService {
                 .build();
         
         faceIdentityRepository.save(faceIdentity);
+        recordWrite(agreement);
     }
 
     /**
      * Handles uploading and saving the path for Party ID proofs.
      */
     public void savePartyIdProof(Long agreementId, IdProof.PartyType partyType, IdProof.IdProofType idProofType, MultipartFile file) {
+        agreementLocks.lockShared(agreementId);
         Agreement agreement = findAgreementById(agreementId);
-        String filePath = fileStorageService.store(file, "id-proofs");
+        String filePath = fileStorageService.storeStreaming(file, "id-proofs").getPath();
 
         IdProof idProof = IdProof.builder()
                 .agreement(agreement)
@@ -76,89 +124,312 @@ public class AgreementService {
                 .build();
         
         idProofRepository.save(idProof);
+        recordWrite(agreement);
     }
     
     /**
      * Handles uploading and saving the path for the agreement audio.
      */
     public void saveAgreementAudio(Long agreementId, MultipartFile file) {
+        agreementLocks.lockShared(agreementId);
         Agreement agreement = findAgreementById(agreementId);
-        String filePath = fileStorageService.store(file, "audio");
+        StoredFile storedFile = fileStorageService.storeStreaming(file, "audio");
 
         AudioRecord audioRecord = AudioRecord.builder()
                 .agreement(agreement)
-                .filePath(filePath)
+                .filePath(storedFile.getPath())
+                .contentHash(storedFile.getSha256())
                 .fileName(file.getOriginalFilename())
-                .fileSize(file.getSize())
+                .fileSize(storedFile.getSize())
                 .contentType(file.getContentType())
                 .status(AudioRecord.AudioStatus.UPLOADED)
                 .build();
                 
         audioRecordRepository.save(audioRecord);
+        recordWrite(agreement);
+        outbox.recordAudioStatus(agreement, audioRecord);
     }
 
     /**
-     * Step 2: The Core AI Processing Logic.
-     * This is called by the frontend after all files are uploaded.
+     * Step 2a: Prepares the AI processing of the agreement audio.
+     * Marks the latest audio record as PROCESSING_TRANSCRIPTION and returns the job describing it.
+     * The transcription itself runs in {@link TranscriptionJobService}, outside of this transaction.
+     * Waits for uploads in flight, so an audio upload that started first is the one transcribed.
      */
-    public AudioTranscriptionService.TranscriptionResult processAgreementAudioAndExtractFields(Long agreementId) {
+    public TranscriptionJobService.TranscriptionJob beginTranscription(Long agreementId) {
+        agreementLocks.lockExclusive(agreementId);
         Agreement agreement = findAgreementById(agreementId);
 
         // Find the latest audio record for this agreement
         AudioRecord audioRecord = audioRecordRepository.findTopByAgreement_IdOrderByUploadedAtDesc(agreementId)
                 .orElse(null);
 
-        AudioTranscriptionService.TranscriptionResult result;
-        
-        if (audioRecord != null) {
-            // If audio exists, process it
-            result = transcriptionService.processAudio(audioRecord.getFilePath(), agreement.getType());
-        } else {
-            // If no audio, return a result indicating all required fields are missing
-            List<String> requiredFields = transcriptionService.getRequiredFieldsForType(agreement.getType());
-            result = new AudioTranscriptionService.TranscriptionResult(Collections.emptyMap(), requiredFields);
+        if (audioRecord == null) {
+            return new TranscriptionJobService.TranscriptionJob(agreementId, null, null, null, agreement.getType());
         }
 
-        // Save the extracted fields to the agreement's JSON data column
-        agreement.setAgreementData(result.getExtractedFields());
-        agreementRepository.save(agreement);
-        
-        return result;
+        audioRecord.setStatus(AudioRecord.AudioStatus.PROCESSING_TRANSCRIPTION);
+        audioRecordRepository.save(audioRecord);
+        outbox.recordAudioStatus(agreement, audioRecord);
+
+        return new TranscriptionJobService.TranscriptionJob(
+                agreementId, audioRecord.getId(), audioRecord.getFilePath(), audioRecord.getContentHash(), agreement.getType());
+    }
+
+    /**
+     * Step 2b: Stores the outcome of a transcription job.
+     * On success the extracted fields the agreement doesn't have yet are added to its JSON data column;
+     * a field the user already filled in, e.g. by autosave while the job ran, keeps the user's value.
+     * On failure the existing data is left untouched.
+     * If newer audio was uploaded while the job ran, its fields are stale and are not saved either.
+     */
+    public void completeTranscription(TranscriptionJobService.TranscriptionJob job,
+                                      AudioRecord.AudioStatus status,
+                                      AudioTranscriptionService.TranscriptionResult result) {
+        agreementLocks.lockExclusive(job.getAgreementId());
+        Map<String, Object> merged = Map.of();
+        if (status != AudioRecord.AudioStatus.PROCESSED_FAILED && isLatestAudio(job)) {
+            // Keys already stored are left alone, both here and in the update itself: the user's input wins
+            // over what was heard, and a value saved after this read still survives the update
+            Map<String, Object> stored = findAgreementById(job.getAgreementId()).getAgreementData();
+            Map<String, Object> extracted = new LinkedHashMap<>();
+            result.getExtractedFields().forEach((key, value) -> {
+                if (value != null && (stored == null || !stored.containsKey(key))) {
+                    extracted.put(key, value);
+                }
+            });
+            // Written even with nothing new when there is a transcript: that bumps updated_at,
+            // which is what the search indexer watches for
+            boolean changed = !extracted.isEmpty() || result.getTranscript() != null;
+            if (changed && fillAgreementData(job.getAgreementId(), extracted) > 0) {
+                recordWrite(job.getAgreementId());
+                merged = extracted;
+            }
+        }
+
+        // Loaded after the merge, so the events carry the agreement's new version
+        Agreement agreement = findAgreementById(job.getAgreementId());
+        if (!merged.isEmpty()) {
+            outbox.recordFieldsExtracted(agreement, job.getAudioRecordId(), merged);
+        }
+        if (job.getAudioRecordId() != null) {
+            audioRecordRepository.findById(job.getAudioRecordId()).ifPresent(audioRecord -> {
+                audioRecord.setStatus(status);
+                if (status != AudioRecord.AudioStatus.PROCESSED_FAILED && result.getTranscript() != null) {
+                    audioRecord.setTranscript(result.getTranscript());
+                }
+                audioRecordRepository.save(audioRecord);
+                outbox.recordAudioStatus(agreement, audioRecord);
+            });
+        }
+    }
+
+    /**
+     * Step 2b for a job that never ran, e.g. because the queue was full: the audio goes back to UPLOADED,
+     * so it can be submitted again.
+     */
+    public void abandonTranscription(TranscriptionJobService.TranscriptionJob job) {
+        if (job.getAudioRecordId() == null) {
+            return;
+        }
+        agreementLocks.lockExclusive(job.getAgreementId());
+        Agreement agreement = findAgreementById(job.getAgreementId());
+        audioRecordRepository.findById(job.getAudioRecordId())
+                .filter(audioRecord -> audioRecord.getStatus() == AudioRecord.AudioStatus.PROCESSING_TRANSCRIPTION)
+                .ifPresent(audioRecord -> {
+                    audioRecord.setStatus(AudioRecord.AudioStatus.UPLOADED);
+                    audioRecordRepository.save(audioRecord);
+                    outbox.recordAudioStatus(agreement, audioRecord);
+                });
+    }
+
+    // Whether the job's audio is still the agreement's latest upload
+    private boolean isLatestAudio(TranscriptionJobService.TranscriptionJob job) {
+        if (job.getAudioRecordId() == null) {
+            return true;
+        }
+        return audioRecordRepository.findTopByAgreement_IdOrderByUploadedAtDesc(job.getAgreementId())
+                .map(latest -> latest.getId().equals(job.getAudioRecordId()))
+                .orElse(true);
+    }
+
+    /**
+     * Autosave: applies an RFC 7386 merge patch to the agreement's data (changed fields, null to remove one).
+     * The merge runs inside MySQL, so the stored document is not loaded or rewritten here, and concurrent
+     * patches to different fields both land. Holds the agreement's lock shared, like uploads.
+     * @param expectedVersion the version the patch was based on, or null to apply it regardless.
+     * @return the agreement's new version.
+     * @throws ObjectOptimisticLockingFailureException if the agreement is at another version.
+     * @throws IllegalStateException if the agreement is already signed.
+     */
+    public long patchAgreementData(Long agreementId, Map<String, Object> patch, Long expectedVersion) {
+        agreementLocks.lockShared(agreementId);
+        int updated = mergeAgreementData(agreementId, patch, expectedVersion);
+
+        AgreementVersion current = agreementRepository.findVersionById(agreementId)
+                .orElseThrow(() -> new RuntimeException("Agreement not found with ID: " + agreementId));
+        if (updated == 0) {
+            if (current.getStatus() == Agreement.AgreementStatus.SIGNED) {
+                throw new IllegalStateException("Agreement " + agreementId + " is signed and can no longer be edited");
+            }
+            throw new ObjectOptimisticLockingFailureException(Agreement.class, agreementId);
+        }
+        readYourWrites.recordWrite(agreementId, current.getUserId());
+        return current.getVersion();
+    }
+
+    private int mergeAgreementData(Long agreementId, Map<String, Object> patch, Long expectedVersion) {
+        return agreementRepository.mergeAgreementData(agreementId, toJson(patch), expectedVersion, LocalDateTime.now());
+    }
+
+    private int fillAgreementData(Long agreementId, Map<String, Object> fields) {
+        return agreementRepository.fillAgreementData(agreementId, toJson(fields), LocalDateTime.now());
+    }
+
+    private String toJson(Map<String, Object> fields) {
+        try {
+            return objectMapper.writeValueAsString(fields);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Patch is not serializable as JSON", e);
+        }
     }
 
     /**
      * Step 3: Completes the agreement with data manually entered by the user.
+     * @param expectedVersion the version the user's form was based on, or null to skip the check.
+     * @throws ObjectOptimisticLockingFailureException if the agreement changed since that version.
      */
-    public Agreement completeAgreementFields(Long agreementId, Map<String, Object> allFields) {
+    public Agreement completeAgreementFields(Long agreementId, Map<String, Object> allFields, Long expectedVersion) {
+        agreementLocks.lockExclusive(agreementId);
         Agreement agreement = findAgreementById(agreementId);
+        if (expectedVersion != null && !expectedVersion.equals(agreement.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Agreement.class, agreementId);
+        }
 
         // The map of fields contains both AI-extracted and user-entered data.
         // We simply overwrite the entire JSON map.
         agreement.setAgreementData(allFields);
+        Agreement.AgreementStatus previousStatus = agreement.getStatus();
         agreement.setStatus(Agreement.AgreementStatus.REVIEW); // Ready for final review
         
-        return agreementRepository.save(agreement);
+        recordWrite(agreement);
+        agreementCounters.recordStatusChange(agreement, previousStatus);
+        // Flushed so the returned version is the new one, ready to send back with the next edit
+        Agreement saved = agreementRepository.saveAndFlush(agreement);
+        outbox.recordStatusChange(saved, previousStatus);
+        return saved;
     }
 
     /**
      * Step 4: Finalizes the agreement.
+     * The final PDF is rendered and stored once here; downloads are then served from that artifact.
      */
     public Agreement finalizeAgreement(Long agreementId) {
+        agreementLocks.lockExclusive(agreementId);
         Agreement agreement = findAgreementById(agreementId);
+        Agreement.AgreementStatus previousStatus = agreement.getStatus();
         agreement.setStatus(Agreement.AgreementStatus.SIGNED);
         agreement.setSignedAt(java.time.LocalDateTime.now());
         
-        return agreementRepository.save(agreement);
+        recordWrite(agreement);
+        agreementCounters.recordStatusChange(agreement, previousStatus);
+        Agreement saved = agreementRepository.saveAndFlush(agreement);
+        outbox.recordStatusChange(saved, previousStatus);
+        if (finalPDFService.findByAgreementId(agreementId).isEmpty()) {
+            finalPDFService.renderAndStore(saved);
+        }
+        return saved;
     }
 
-    // Helper method to find an agreement or throw an exception
+    // Helper method to find an agreement or throw an exception.
+    // Read-only, so it can be served by a replica unless the agreement was just written.
+    @Transactional(readOnly = true)
     public Agreement findAgreementById(Long agreementId) {
+        readYourWrites.routeAgreementRead(agreementId);
         return agreementRepository.findById(agreementId)
                 .orElseThrow(() -> new RuntimeException("Agreement not found with ID: " + agreementId));
     }
     
     // You can keep other simple finders/getters from your old service if you need them.
+    @Transactional(readOnly = true)
     public List<Agreement> getAgreementsByUserId(Integer userId) {
+        readYourWrites.routeUserRead(userId);
         return agreementRepository.findByUser_Id(userId);
     }
+
+    /**
+     * One page of a user's agreements as lightweight summaries, newest first.
+     * The cursor is the {@code nextCursor} of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public AgreementSummaryPage listAgreementSummaries(Integer userId, Agreement.AgreementStatus status,
+                                                      Agreement.AgreementType type, String cursor, int limit) {
+        readYourWrites.routeUserRead(userId);
+
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            // Cursor = base64url("<createdAt>|<id>") of the last row already returned
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterCreatedAt = LocalDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        // One extra row tells us whether there is a next page
+        List<AgreementSummary> rows = agreementRepository.findSummaries(userId, status, type, afterCreatedAt, afterId, limit + 1);
+        if (rows.size() <= limit) {
+            return new AgreementSummaryPage(rows, null);
+        }
+
+        List<AgreementSummary> page = rows.subList(0, limit);
+        AgreementSummary last = page.get(limit - 1);
+        String nextCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        return new AgreementSummaryPage(List.copyOf(page), nextCursor);
+    }
+
+    /**
+     * Full-text search over one user's agreements (title, data fields and transcript), best match first.
+     * Words match by prefix and tolerate a typo or two. The index trails writes by about a second.
+     */
+    @Transactional(readOnly = true)
+    public List<AgreementSummary> searchAgreements(Integer userId, String text, int limit) {
+        List<Long> ids = searchIndex.search(userId, text, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        readYourWrites.routeUserRead(userId);
+        Map<Long, AgreementSummary> byId = agreementRepository.findSummariesByIds(userId, ids).stream()
+                .collect(Collectors.toMap(AgreementSummary::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * A user's agreements of one type whose data field is between from and to (inclusive; either may be null),
+     * ordered by that field. Only fields declared indexed in AgreementFieldRules can be filtered on.
+     */
+    @Transactional(readOnly = true)
+    public List<AgreementSummary> findAgreementsByField(Integer userId, Agreement.AgreementType type, String field,
+                                                        String from, String to, int limit) {
+        AgreementDataColumns.Column column = AgreementDataColumns.forField(type, field)
+                .orElseThrow(() -> new IllegalArgumentException(type + " agreements can't be filtered on " + field));
+        readYourWrites.routeUserRead(userId);
+        return agreementRepository.findSummariesByDataField(type, column,
+                from != null ? column.parse(from) : null, to != null ? column.parse(to) : null, userId, limit);
+    }
+
+    // Sends the next reads of this agreement, and of its owner's list, to the primary (see ReadYourWritesTracker)
+    private void recordWrite(Agreement agreement) {
+        readYourWrites.recordWrite(agreement.getId(), agreement.getUser() != null ? agreement.getUser().getId() : null);
+    }
+
+    // Same, for a write made in the database without loading the agreement
+    private void recordWrite(Long agreementId) {
+        agreementRepository.findVersionById(agreementId)
+                .ifPresent(current -> readYourWrites.recordWrite(agreementId, current.getUserId()));
+    }
 }
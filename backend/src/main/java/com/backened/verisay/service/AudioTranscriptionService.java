@@ -1,143 +1,183 @@
 package com.backened.verisay.service;
 
-import com.backened.verisay.config.OpenAIProperties;
+import com.backened.verisay.extraction.TranscriptFieldExtractor;
 import com.backened.verisay.model.Agreement;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.FileStorage;
+import com.backened.verisay.transcription.ChunkedTranscriber;
+import com.backened.verisay.transcription.ReactiveWhisperClient;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.File;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.security.MessageDigest;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 public class AudioTranscriptionService {
 
+    // Splits long recordings and transcribes the chunks in parallel through the Whisper client
     @Autowired
-    private OpenAIProperties openAIProperties;
+    private ChunkedTranscriber transcriber;
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
+    // Non-blocking client for the reactive path
+    @Autowired
+    private ReactiveWhisperClient reactiveWhisperClient;
+
+    @Autowired
+    private TranscriptionCacheService transcriptionCache;
+
+    @Autowired
+    private TranscriptFieldExtractor fieldExtractor;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Audio is read through the storage SPI, wherever it is kept
+    @Autowired
+    private FileStorage fileStorage;
 
     // This inner class is a DTO (Data Transfer Object) to hold the results cleanly.
     public static class TranscriptionResult {
         private final Map<String, Object> extractedFields;
         private final List<String> missingFields;
+        // What Whisper heard, kept for search; null when nothing was transcribed
+        private final String transcript;
 
         public TranscriptionResult(Map<String, Object> extractedFields, List<String> missingFields) {
+            this(extractedFields, missingFields, null);
+        }
+
+        public TranscriptionResult(Map<String, Object> extractedFields, List<String> missingFields, String transcript) {
             this.extractedFields = extractedFields;
             this.missingFields = missingFields;
+            this.transcript = transcript;
         }
 
         public Map<String, Object> getExtractedFields() { return extractedFields; }
         public List<String> getMissingFields() { return missingFields; }
+        public String getTranscript() { return transcript; }
     }
 
     /**
      * The main public method of this service.
      * It takes a file path and an agreement type, and returns the extracted and missing fields.
+     * Any failure falls back to a result where every required field is missing.
      */
     public TranscriptionResult processAudio(String relativeFilePath, Agreement.AgreementType agreementType) {
-        // 1. Construct the full, absolute path to the file
-        Path fullPath = Paths.get(uploadDir).resolve(relativeFilePath);
-        File audioFile = fullPath.toFile();
-
-        if (!audioFile.exists()) {
-            throw new RuntimeException("Audio file not found for processing: " + fullPath);
-        }
-
         try {
-            // 2. Transcribe the audio file using OpenAI Whisper
-            String transcribedText = transcribeWithWhisper(audioFile);
-
-            // 3. Extract key-value fields from the transcript
-            Map<String, Object> extractedFields = extractFieldsFromText(transcribedText, agreementType);
-            
-            // 4. Determine which required fields are missing
-            List<String> requiredFieldKeys = getRequiredFieldsForType(agreementType);
-            List<String> missingFieldKeys = new ArrayList<>();
-            for (String key : requiredFieldKeys) {
-                if (extractedFields.get(key) == null || String.valueOf(extractedFields.get(key)).isBlank()) {
-                    missingFieldKeys.add(key);
-                }
-            }
-
-            // 5. Return the result in our clean DTO
-            return new TranscriptionResult(extractedFields, missingFieldKeys);
-            
+            return transcribeAndExtract(relativeFilePath, null, agreementType);
         } catch (Exception e) {
             // If anything goes wrong, we assume all fields are missing.
             // This provides a graceful fallback to the manual form.
-            return new TranscriptionResult(Collections.emptyMap(), getRequiredFieldsForType(agreementType));
+            return emptyResult(agreementType);
         }
     }
 
-    private String transcribeWithWhisper(File audioFile) throws Exception {
-        // ... (The rest of this method is the same as your `transcribeAudio` method)
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        body.add("file", new FileSystemResource(audioFile));
-        body.add("model", "whisper-1");
+    /**
+     * Same as {@link #processAudio} but lets failures propagate,
+     * so background jobs can record them instead of silently falling back.
+     * @param contentHash SHA-256 recorded at upload time, or null to hash the file here.
+     */
+    public TranscriptionResult transcribeAndExtract(String relativeFilePath, String contentHash,
+                                                    Agreement.AgreementType agreementType) throws Exception {
+        // 1. Look the file up in storage
+        FileStat audioStat = fileStorage.stat(relativeFilePath)
+                .orElseThrow(() -> new RuntimeException("Audio file not found for processing: " + relativeFilePath));
+
+        // 2. Identical recordings are only sent upstream once
+        if (contentHash == null) {
+            contentHash = sha256(relativeFilePath);
+        }
+        Optional<TranscriptionResult> cached = transcriptionCache.get(contentHash, agreementType);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-        headers.setBearerAuth(openAIProperties.getKey());
+        // 3. Transcribe the audio file using OpenAI Whisper, in parallel chunks for long recordings
+        String transcribedText = transcriber.transcribe(audioStat);
 
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-        
-        ResponseEntity<String> response = restTemplate.postForEntity(
-                openAIProperties.getUrl(), requestEntity, String.class);
+        // 4. Extract the fields, then cache and return the result in our clean DTO
+        TranscriptionResult result = toResult(transcribedText, agreementType);
+        transcriptionCache.put(contentHash, agreementType, result);
+        return result;
+    }
 
-        if (response.getStatusCode() != HttpStatus.OK) {
-            throw new RuntimeException("OpenAI API error: " + response.getBody());
-        }
+    /**
+     * Non-blocking variant of {@link #transcribeAndExtract}: the upload and the wait for Whisper hold no thread.
+     * The storage lookup, hashing and cache access block, so they run on the bounded-elastic scheduler.
+     * Recordings long enough to be split go through {@link ChunkedTranscriber} on that scheduler too, so its
+     * chunks are transcribed in parallel and Whisper never gets a long recording in one upload.
+     */
+    public Mono<TranscriptionResult> transcribeAndExtractReactive(String relativeFilePath, String contentHash,
+                                                                  Agreement.AgreementType agreementType) {
+        return Mono.fromCallable(() -> {
+                    FileStat audioStat = fileStorage.stat(relativeFilePath)
+                            .orElseThrow(() -> new RuntimeException("Audio file not found for processing: " + relativeFilePath));
+                    String hash = contentHash != null ? contentHash : sha256(relativeFilePath);
+                    return new PreparedAudio(audioStat, hash, transcriptionCache.get(hash, agreementType).orElse(null));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(prepared -> {
+                    if (prepared.cached() != null) {
+                        return Mono.just(prepared.cached());
+                    }
+                    Mono<String> text = transcriber.splits(prepared.stat())
+                            ? Mono.fromCallable(() -> transcriber.transcribe(prepared.stat())).subscribeOn(Schedulers.boundedElastic())
+                            : reactiveWhisperClient.transcribe(prepared.stat());
+                    return text
+                            .map(transcript -> toResult(transcript, agreementType))
+                            .publishOn(Schedulers.boundedElastic())
+                            .doOnNext(result -> transcriptionCache.put(prepared.contentHash(), agreementType, result));
+                });
+    }
 
-        JsonNode root = objectMapper.readTree(response.getBody());
-        return root.get("text").asText();
+    // A stored recording with its cache key, and the cached result if there is one
+    private record PreparedAudio(FileStat stat, String contentHash, TranscriptionResult cached) {
     }
-    
-    // --- The helper methods for extraction remain largely the same ---
-    // You have these already, just make sure they return Map<String, Object>
 
-    public List<String> getRequiredFieldsForType(Agreement.AgreementType type) {
-         // This can be mapped from your AGREEMENT_FIELDS constant from the frontend
-         // for perfect synchronization. For now, a map is fine.
-        return switch (type) {
-            case RENTAL -> List.of("landlordName", "tenantName", "propertyAddress", "rentAmount", "startDate", "endDate");
-            case LOAN -> List.of("lenderName", "borrowerName", "loanAmount", "interestRate", "repaymentPeriod", "startDate");
-            // Add other types
-            default -> Collections.emptyList();
-        };
+    private TranscriptionResult toResult(String transcribedText, Agreement.AgreementType agreementType) {
+        // Extract key-value fields from the transcript
+        Map<String, Object> extractedFields = extractFieldsFromText(transcribedText, agreementType);
+
+        // Determine which required fields are missing
+        List<String> requiredFieldKeys = getRequiredFieldsForType(agreementType);
+        List<String> missingFieldKeys = new ArrayList<>();
+        for (String key : requiredFieldKeys) {
+            if (extractedFields.get(key) == null || String.valueOf(extractedFields.get(key)).isBlank()) {
+                missingFieldKeys.add(key);
+            }
+        }
+        return new TranscriptionResult(extractedFields, missingFieldKeys, transcribedText);
     }
 
-    private Map<String, Object> extractFieldsFromText(String text, Agreement.AgreementType agreementType) {
-        // ... your extraction logic (extractRentalFields, etc.) goes here
-        // Just ensure it returns Map<String, Object>
-        return new HashMap<>(); // Placeholder
+    // Hex SHA-256 of the file contents, used as the transcription cache key
+    private String sha256(String relativeFilePath) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = fileStorage.open(relativeFilePath)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
     }
-    
-    // Example:
-    private Map<String, Object> extractRentalFields(String text) {
-        Map<String, Object> fields = new HashMap<>();
-        fields.put("landlordName", extractPattern(text, "(Landlord name is|Landlord|Owner)\\s*:?\\s*([A-Za-z ]+)"));
-        // ... other fields
-        return fields;
+
+    /**
+     * A result with nothing extracted, i.e. every required field is missing.
+     */
+    public TranscriptionResult emptyResult(Agreement.AgreementType agreementType) {
+        return new TranscriptionResult(Collections.emptyMap(), getRequiredFieldsForType(agreementType));
     }
 
-    private String extractPattern(String text, String regex) {
-        // ... your existing extractPattern method
-        return ""; // Placeholder
+    // --- Field extraction is delegated to the precompiled TranscriptFieldExtractor ---
+
+    public List<String> getRequiredFieldsForType(Agreement.AgreementType type) {
+        // Declared once in AgreementFieldRules, in sync with the frontend's AGREEMENT_FIELDS
+        return fieldExtractor.requiredFields(type);
+    }
+
+    private Map<String, Object> extractFieldsFromText(String text, Agreement.AgreementType agreementType) {
+        return fieldExtractor.extract(text, agreementType);
     }
 }
@@ -0,0 +1,265 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.dto.BulkAgreementRequest;
+import com.backened.verisay.dto.BulkAgreementResult;
+import com.backened.verisay.model.*;
+import com.backened.verisay.repository.UserRepository;
+import com.backened.verisay.storage.BlobGarbageCollector;
+import com.backened.verisay.storage.StoredFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many agreements, with their face, ID-proof and audio files, from one request.
+ * Each item is validated in full before any of its files is stored, and the files of an item that fails
+ * later are deleted again. The rows are then inserted chunk by chunk, one transaction per chunk,
+ * so Hibernate sends them as JDBC batches.
+ * A failing chunk is retried item by item so one bad item doesn't fail its neighbours.
+ */
+@Service
+public class BulkAgreementService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkAgreementService.class);
+
+    @Autowired private AgreementService agreementService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FileStorageService fileStorageService;
+    // Only in cas mode, where a blob can be shared with rows outside this request
+    @Autowired private ObjectProvider<BlobGarbageCollector> blobGarbageCollector;
+
+    @Value("${agreements.bulk.max-items:500}")
+    private int maxItems;
+
+    @Value("${agreements.bulk.chunk-size:50}")
+    private int chunkSize;
+
+    /**
+     * @param files The request's multipart files, by part name.
+     * @return One result per requested item, in request order.
+     */
+    public List<BulkAgreementResult> createAll(BulkAgreementRequest request, MultiValueMap<String, MultipartFile> files) {
+        List<BulkAgreementRequest.Item> items = request.getAgreements();
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("No agreements in the request.");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Too many agreements in one request: " + items.size() + " (max " + maxItems + ").");
+        }
+
+        // One query for every user in the request instead of one per agreement
+        Set<Integer> userIds = items.stream().map(BulkAgreementRequest.Item::getUserId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Integer, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        BulkAgreementResult[] results = new BulkAgreementResult[items.size()];
+        List<Integer> preparedIndexes = new ArrayList<>();
+        List<Agreement> prepared = new ArrayList<>();
+        // Files stored for items that did not make it into the database
+        List<String> orphanedPaths = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            BulkAgreementRequest.Item item = items.get(i);
+            List<PendingUpload> uploads = new ArrayList<>();
+            Agreement agreement;
+            try {
+                agreement = buildAgreement(item, users, files, uploads);
+            } catch (RuntimeException e) {
+                results[i] = BulkAgreementResult.failed(item.getClientRef(), e.getMessage());
+                continue;
+            }
+
+            List<String> storedPaths = new ArrayList<>();
+            try {
+                for (PendingUpload upload : uploads) {
+                    StoredFile storedFile = fileStorageService.storeStreaming(upload.file(), upload.subDirectory());
+                    storedPaths.add(storedFile.getPath());
+                    upload.attach().accept(storedFile);
+                }
+                prepared.add(agreement);
+                preparedIndexes.add(i);
+            } catch (RuntimeException e) {
+                orphanedPaths.addAll(storedPaths);
+                results[i] = BulkAgreementResult.failed(item.getClientRef(), e.getMessage());
+            }
+        }
+
+        for (int start = 0; start < prepared.size(); start += chunkSize) {
+            int end = Math.min(start + chunkSize, prepared.size());
+            persistChunk(prepared.subList(start, end), preparedIndexes.subList(start, end), items, results, orphanedPaths);
+        }
+
+        Set<String> createdPaths = new HashSet<>();
+        for (int i = 0; i < prepared.size(); i++) {
+            if (results[preparedIndexes.get(i)].getStatus() == BulkAgreementResult.Status.CREATED) {
+                createdPaths.addAll(filePaths(prepared.get(i)));
+            }
+        }
+        deleteOrphans(orphanedPaths, createdPaths);
+        return Arrays.asList(results);
+    }
+
+    private void persistChunk(List<Agreement> chunk, List<Integer> indexes,
+                              List<BulkAgreementRequest.Item> items, BulkAgreementResult[] results,
+                              List<String> orphanedPaths) {
+        try {
+            agreementService.saveAgreementsBatch(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                results[indexes.get(i)] = BulkAgreementResult.created(items.get(indexes.get(i)).getClientRef(), chunk.get(i).getId());
+            }
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Bulk insert of {} agreements failed, retrying one by one", chunk.size(), e);
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Agreement agreement = chunk.get(i);
+            String clientRef = items.get(indexes.get(i)).getClientRef();
+            // The rolled-back attempt already assigned ids; they must be regenerated
+            clearIds(agreement);
+            try {
+                agreementService.saveAgreementsBatch(List.of(agreement));
+                results[indexes.get(i)] = BulkAgreementResult.created(clientRef, agreement.getId());
+            } catch (RuntimeException e) {
+                orphanedPaths.addAll(filePaths(agreement));
+                results[indexes.get(i)] = BulkAgreementResult.failed(clientRef, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Validates the item and builds its agreement without storing anything; the files it refers to are
+     * added to {@code uploads}, each with the entity whose path it fills in once stored.
+     */
+    private Agreement buildAgreement(BulkAgreementRequest.Item item, Map<Integer, User> users,
+                                     MultiValueMap<String, MultipartFile> files, List<PendingUpload> uploads) {
+        User user = users.get(item.getUserId());
+        if (user == null) {
+            throw new IllegalArgumentException("User not found with id: " + item.getUserId());
+        }
+        if (item.getType() == null) {
+            throw new IllegalArgumentException("Agreement type is required.");
+        }
+
+        Agreement agreement = Agreement.builder()
+                .user(user)
+                .type(Agreement.AgreementType.valueOf(item.getType().toUpperCase()))
+                .title(item.getTitle())
+                .status(Agreement.AgreementStatus.IN_PROGRESS)
+                .agreementData(Collections.emptyMap())
+                .faceIdentities(new ArrayList<>())
+                .idProofs(new ArrayList<>())
+                .audioRecords(new ArrayList<>())
+                .build();
+
+        List<BulkAgreementRequest.FileRef> fileRefs = item.getFiles() != null ? item.getFiles() : Collections.emptyList();
+        for (BulkAgreementRequest.FileRef ref : fileRefs) {
+            MultipartFile file = files.getFirst(ref.getPart());
+            if (file == null || ref.getKind() == null) {
+                throw new IllegalArgumentException("Missing file part or kind: " + ref.getPart());
+            }
+            uploads.add(attachFile(agreement, ref, file));
+        }
+        return agreement;
+    }
+
+    private PendingUpload attachFile(Agreement agreement, BulkAgreementRequest.FileRef ref, MultipartFile file) {
+        switch (ref.getKind()) {
+            case FACE -> {
+                FaceIdentity face = FaceIdentity.builder()
+                        .agreement(agreement)
+                        .partyType(FaceIdentity.PartyType.valueOf(required(ref.getPartyType(), "Party type", ref).toUpperCase()))
+                        .build();
+                agreement.getFaceIdentities().add(face);
+                return new PendingUpload(file, "faces", stored -> face.setImagePath(stored.getPath()));
+            }
+            case ID_PROOF -> {
+                IdProof idProof = IdProof.builder()
+                        .agreement(agreement)
+                        .partyType(IdProof.PartyType.valueOf(required(ref.getPartyType(), "Party type", ref).toUpperCase()))
+                        .idProofType(IdProof.IdProofType.valueOf(required(ref.getIdProofType(), "ID proof type", ref).toUpperCase()))
+                        .build();
+                agreement.getIdProofs().add(idProof);
+                return new PendingUpload(file, "id-proofs", stored -> idProof.setFilePath(stored.getPath()));
+            }
+            default -> {
+                AudioRecord audio = AudioRecord.builder()
+                        .agreement(agreement)
+                        .fileName(file.getOriginalFilename())
+                        .contentType(file.getContentType())
+                        .status(AudioRecord.AudioStatus.UPLOADED)
+                        .build();
+                agreement.getAudioRecords().add(audio);
+                return new PendingUpload(file, "audio", stored -> {
+                    audio.setFilePath(stored.getPath());
+                    audio.setContentHash(stored.getSha256());
+                    audio.setFileSize(stored.getSize());
+                });
+            }
+        }
+    }
+
+    private static String required(String value, String what, BulkAgreementRequest.FileRef ref) {
+        if (value == null) {
+            throw new IllegalArgumentException(what + " is required for file part: " + ref.getPart());
+        }
+        return value;
+    }
+
+    /**
+     * Deletes files stored for failed items, unless a created agreement of this request, or in cas mode
+     * any other row, holds the same path; identical uploads share one blob there.
+     */
+    private void deleteOrphans(List<String> orphanedPaths, Set<String> createdPaths) {
+        if (orphanedPaths.isEmpty()) {
+            return;
+        }
+        Set<String> keep = new HashSet<>(createdPaths);
+        BlobGarbageCollector gc = blobGarbageCollector.getIfAvailable();
+        if (gc != null) {
+            keep.addAll(gc.referencedPaths(orphanedPaths));
+        }
+        for (String path : new LinkedHashSet<>(orphanedPaths)) {
+            if (keep.contains(path)) {
+                continue;
+            }
+            try {
+                fileStorageService.delete(path);
+            } catch (RuntimeException e) {
+                log.warn("Could not delete {} stored for a failed bulk item", path, e);
+            }
+        }
+    }
+
+    private List<String> filePaths(Agreement agreement) {
+        List<String> paths = new ArrayList<>();
+        agreement.getFaceIdentities().forEach(face -> paths.add(face.getImagePath()));
+        agreement.getIdProofs().forEach(idProof -> paths.add(idProof.getFilePath()));
+        agreement.getAudioRecords().forEach(audio -> paths.add(audio.getFilePath()));
+        return paths;
+    }
+
+    private void clearIds(Agreement agreement) {
+        agreement.setId(null);
+        // A set version would make the retry look like an update of an existing row
+        agreement.setVersion(null);
+        agreement.getFaceIdentities().forEach(face -> face.setId(null));
+        agreement.getIdProofs().forEach(idProof -> idProof.setId(null));
+        agreement.getAudioRecords().forEach(audio -> audio.setId(null));
+    }
+
+    // A file of an item and how its stored path is written into the item's entities
+    private record PendingUpload(MultipartFile file, String subDirectory, Consumer<StoredFile> attach) {
+    }
+}
@@ -1,74 +1,92 @@
 package com.backened.verisay.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.backened.verisay.storage.FileStorage;
+import com.backened.verisay.storage.StoredFile;
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
 
-    // This will be configured in your application.properties file
-    @Value("${file.upload-dir}")
-    private String uploadDir;
+    // Local directory or content-addressed blobs, depending on file.storage.mode
+    @Autowired
+    private FileStorage fileStorage;
 
-    private Path rootLocation;
-
-    // This method runs after the service is created and sets up the storage directory.
-    @PostConstruct
-    public void init() {
-        try {
-            rootLocation = Paths.get(uploadDir);
-            Files.createDirectories(rootLocation);
-        } catch (IOException e) {
-            throw new RuntimeException("Could not initialize storage location", e);
-        }
-    }
+    // Where and above which size the container spools multipart parts to disk (see FileStorageConfig)
+    @Autowired
+    private MultipartConfigElement multipartConfig;
 
     /**
-     * Stores a file with a unique name to prevent collisions.
+     * Stores a file and returns its path.
      * @param file The MultipartFile to store.
      * @param subDirectory A subdirectory within the main storage (e.g., "faces", "ids", "audio").
      * @return The path to the stored file, relative to the root storage location.
      */
     public String store(MultipartFile file, String subDirectory) {
+        return storeStreaming(file, subDirectory).getPath();
+    }
+
+    /**
+     * Stores an upload, computing its SHA-256 digest and size. Small parts are streamed from memory;
+     * larger ones, which the container has spooled to disk, are moved into place rather than written again.
+     * @param file The MultipartFile to store.
+     * @param subDirectory A subdirectory within the main storage (e.g., "faces", "ids", "audio").
+     * @return The relative path of the stored file together with its digest and size.
+     */
+    public StoredFile storeStreaming(MultipartFile file, String subDirectory) {
         if (file.isEmpty()) {
             throw new RuntimeException("Failed to store empty file.");
         }
 
-        // 1. Sanitize filename
+        // Sanitize filename; the storage only uses it for the extension
         String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
-        
-        // 2. Create a unique filename to avoid overwrites
-        String extension = StringUtils.getFilenameExtension(originalFilename);
-        String uniqueFilename = UUID.randomUUID().toString() + "." + extension;
 
         try {
-            // 3. Create the specific subdirectory if it doesn't exist
-            Path targetDirectory = this.rootLocation.resolve(subDirectory);
-            Files.createDirectories(targetDirectory);
-            
-            Path destinationFile = targetDirectory.resolve(uniqueFilename).normalize().toAbsolutePath();
-            
-            // 4. Copy the file to the target location
+            if (file.getSize() > multipartConfig.getFileSizeThreshold()) {
+                // The container already spooled this part to disk: hand the file over instead of copying it.
+                // transferTo(File) has the container rename it within the spool directory; transferTo(Path) would copy
+                Path spooled = Paths.get(multipartConfig.getLocation(), "upload-" + UUID.randomUUID());
+                file.transferTo(spooled.toFile());
+                return fileStorage.storeFile(spooled, originalFilename, subDirectory);
+            }
             try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+                return fileStorage.store(inputStream, originalFilename, subDirectory);
             }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file " + originalFilename, e);
+        }
+    }
 
-            // 5. Return the path relative to the root location for storing in the DB
-            return Paths.get(subDirectory, uniqueFilename).toString().replace("\\", "/");
+    /**
+     * Stores generated content (e.g. a rendered PDF) read from a stream.
+     * @param filename Only used for the extension.
+     * @return The relative path of the stored file together with its digest and size.
+     */
+    public StoredFile store(InputStream content, String filename, String subDirectory) {
+        try {
+            return fileStorage.store(content, filename, subDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file " + filename, e);
+        }
+    }
 
+    /**
+     * Deletes a stored file; a missing file is not an error.
+     */
+    public void delete(String path) {
+        try {
+            fileStorage.delete(path);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to store file " + originalFilename, e);
+            throw new RuntimeException("Failed to delete file " + path, e);
         }
     }
 
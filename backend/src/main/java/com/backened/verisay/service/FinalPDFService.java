@@ -1,11 +1,26 @@
 package com.backened.verisay.service;
 
+import com.backened.verisay.model.Agreement;
 import com.backened.verisay.model.FinalPDF;
 import com.backened.verisay.repository.FinalPDFRepository;
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.FileStorage;
+import com.backened.verisay.storage.StoredFile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class FinalPDFService {
@@ -13,6 +28,61 @@ public class FinalPDFService {
     @Autowired
     private FinalPDFRepository finalPDFRepository;
 
+    @Autowired
+    private PdfGenerationService pdfGenerationService;
+
+    @Autowired
+    private FileStorage fileStorage;
+
+    // Artifacts whose stored bytes were already checked against their recorded hash on this node
+    private final Set<Long> verifiedArtifacts = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Renders the signed agreement's PDF once, streams it into storage and records it with its SHA-256.
+     */
+    public FinalPDF renderAndStore(Agreement agreement) {
+        StoredFile stored = pdfGenerationService.storeAgreementPdf(agreement);
+
+        FinalPDF finalPDF = new FinalPDF();
+        finalPDF.setAgreementId(agreement.getId());
+        finalPDF.setFilePath(stored.getPath());
+        finalPDF.setBlockchainHash(stored.getSha256());
+        finalPDF.setCreatedAt(LocalDateTime.now());
+        return finalPDFRepository.save(finalPDF);
+    }
+
+    // Method to get the final PDF of an agreement, if it has been signed
+    public Optional<FinalPDF> findByAgreementId(Long agreementId) {
+        return finalPDFRepository.findTopByAgreementIdOrderByCreatedAtDesc(agreementId);
+    }
+
+    /**
+     * Size and modification time of the stored artifact.
+     * The first time an artifact is served on this node its content is hashed and compared with the recorded hash,
+     * so a corrupted or replaced file is never sent; later downloads skip the check.
+     */
+    public FileStat verifiedStat(FinalPDF finalPDF) {
+        try {
+            FileStat stat = fileStorage.stat(finalPDF.getFilePath())
+                    .orElseThrow(() -> new RuntimeException("Final PDF file is missing: " + finalPDF.getFilePath()));
+            if (verifiedArtifacts.contains(finalPDF.getId())) {
+                return stat;
+            }
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(fileStorage.open(finalPDF.getFilePath()), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(finalPDF.getBlockchainHash())) {
+                throw new RuntimeException("Final PDF " + finalPDF.getId() + " does not match its recorded hash");
+            }
+            verifiedArtifacts.add(finalPDF.getId());
+            return stat;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not read final PDF " + finalPDF.getId(), e);
+        }
+    }
+
     // Method to save final PDF
     public FinalPDF saveFinalPDF(FinalPDF finalPDF) {
         return finalPDFRepository.save(finalPDF);
@@ -34,5 +104,6 @@ public class FinalPDFService {
         FinalPDF finalPDF = finalPDFRepository.findById(finalPdfId)
                 .orElseThrow(() -> new RuntimeException("Final PDF not found"));
         finalPDFRepository.delete(finalPDF);
+        verifiedArtifacts.remove(finalPdfId);
     }
 }
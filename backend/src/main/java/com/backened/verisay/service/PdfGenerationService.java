@@ -1,108 +1,101 @@
 package com.backened.verisay.service;
 
 import com.backened.verisay.model.Agreement;
-import com.lowagie.text.*;
-import com.lowagie.text.pdf.PdfWriter;
+import com.backened.verisay.pdf.PdfRenderingEngine;
+import com.backened.verisay.storage.StoredFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.time.format.DateTimeFormatter;
-import java.util.Map;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class PdfGenerationService {
 
-    // Helper method to add a paragraph with specific font and spacing
-    private void addParagraph(Document document, String text, Font font, float spacingAfter) throws DocumentException {
-        Paragraph p = new Paragraph(text, font);
-        p.setSpacingAfter(spacingAfter);
-        document.add(p);
-    }
-
-    // Helper method to get data from the agreement map safely
-    private String get(Map<String, Object> data, String key) {
-        return data.getOrDefault(key, "N/A").toString();
-    }
-
-    public ByteArrayInputStream generateAgreementPdf(Agreement agreement) {
-        Document document = new Document(PageSize.A4);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-        try {
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            // Define fonts
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Font.NORMAL);
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Font.NORMAL);
-            Font bodyFont = FontFactory.getFont(FontFactory.HELVETICA, 11, Font.NORMAL);
-            Font labelFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11, Font.NORMAL);
-
-            // 1. Add Title
-            Paragraph title = new Paragraph(agreement.getTitle().toUpperCase(), titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20f);
-            document.add(title);
+    // Buffer between the renderer and the storage upload when streaming to storage
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
 
-            // 2. Introduction
-            addParagraph(document, "This agreement is made on " +
-                    agreement.getCreatedAt().format(DateTimeFormatter.ofPattern("MMMM dd, yyyy")) + ".", bodyFont, 15f);
+    @Autowired
+    private PdfRenderingEngine renderingEngine;
 
-            Map<String, Object> data = agreement.getAgreementData();
+    @Autowired
+    private FileStorageService fileStorageService;
 
-            // 3. Render Agreement-Specific Details (Example for RENTAL)
-            // You can use a switch statement for different agreement types
-            switch (agreement.getType()) {
-                case RENTAL:
-                    renderRentalDetails(document, data, labelFont, bodyFont);
-                    break;
-                case LOAN:
-                    // renderLoanDetails(document, data, labelFont, bodyFont);
-                    break;
-                // Add other cases
-            }
+    @Autowired
+    @Qualifier("pdfRenderExecutor")
+    private TaskExecutor pdfRenderExecutor;
 
-            // 4. Closing Clause
-            addParagraph(document, "By signing below, the parties acknowledge that they have read, understood, and agree to the terms and conditions of this agreement.", bodyFont, 30f);
-            
-            // 5. Signature Section
-            addParagraph(document, "Signatures:", headerFont, 20f);
-            
-            Paragraph p1 = new Paragraph("Party 1: _________________________          Party 2: _________________________", bodyFont);
-            document.add(p1);
+    /**
+     * Renders the PDF into memory. The returned stream reads the render buffer directly, without a copy.
+     */
+    public ByteArrayInputStream generateAgreementPdf(Agreement agreement) {
+        ExposedByteArrayOutputStream out = new ExposedByteArrayOutputStream();
+        renderingEngine.render(agreement, out);
+        return out.toInputStream();
+    }
 
+    /**
+     * Streams the PDF straight into {@code out} (e.g. an HTTP response), without buffering the whole document.
+     */
+    public void writeAgreementPdf(Agreement agreement, OutputStream out) {
+        renderingEngine.render(agreement, out);
+    }
 
-            document.close();
+    /**
+     * Streams the PDF into file storage under "pdfs". The renderer writes into a pipe on the render executor
+     * while this thread uploads from the other end, so only the pipe buffer is held in memory.
+     */
+    public StoredFile storeAgreementPdf(Agreement agreement) {
+        PipedInputStream in = new PipedInputStream(PIPE_BUFFER_SIZE);
+        CompletableFuture<Void> render;
+        try {
+            PipedOutputStream out = new PipedOutputStream(in);
+            render = CompletableFuture.runAsync(() -> {
+                try (out) {
+                    renderingEngine.render(agreement, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, pdfRenderExecutor);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not start PDF rendering", e);
+        }
 
-        } catch (DocumentException e) {
-            throw new RuntimeException("Error generating PDF", e);
+        StoredFile stored;
+        try (in) {
+            stored = fileStorageService.store(in, "agreement-" + agreement.getId() + ".pdf", "pdfs");
+        } catch (IOException | RuntimeException e) {
+            render.cancel(true);
+            throw new RuntimeException("Failed to store PDF for agreement " + agreement.getId(), e);
         }
 
-        return new ByteArrayInputStream(out.toByteArray());
+        try {
+            render.join();
+        } catch (CompletionException e) {
+            // The upload saw a truncated stream; don't leave it behind
+            fileStorageService.delete(stored.getPath());
+            throw new RuntimeException("Error generating PDF", e.getCause());
+        }
+        return stored;
     }
-    
-    // Renders the specific fields for a Rental Agreement
-    private void renderRentalDetails(Document document, Map<String, Object> data, Font labelFont, Font bodyFont) throws DocumentException {
-        Table table = new Table(2); // 2 columns
-        table.setBorder(Rectangle.NO_BORDER);
-        table.setWidth(100);
-        table.setPadding(5);
 
-        // Helper to add rows
-        java.util.function.BiConsumer<String, String> addRow = (label, value) -> {
-            table.addCell(new Paragraph(label, labelFont));
-            table.addCell(new Paragraph(value, bodyFont));
-        };
+    // Lets the input stream share the output's buffer instead of copying it with toByteArray()
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        ExposedByteArrayOutputStream() {
+            super(32 * 1024);
+        }
 
-        addRow.accept("Landlord Name:", get(data, "landlordName"));
-        addRow.accept("Tenant Name:", get(data, "tenantName"));
-        addRow.accept("Property Address:", get(data, "propertyAddress"));
-        addRow.accept("Monthly Rent:", get(data, "rentAmount"));
-        addRow.accept("Security Deposit:", get(data, "securityDeposit"));
-        addRow.accept("Lease Start Date:", get(data, "startDate"));
-        addRow.accept("Lease End Date:", get(data, "endDate"));
-        
-        document.add(table);
+        ByteArrayInputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
     }
 }
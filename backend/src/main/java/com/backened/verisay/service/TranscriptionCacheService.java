@@ -0,0 +1,156 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.TranscriptionCacheEntry;
+import com.backened.verisay.repository.TranscriptionCacheRepository;
+import com.backened.verisay.service.AudioTranscriptionService.TranscriptionResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Caches transcription results by audio content hash and agreement type.
+ * Two tiers: a size-bounded in-memory LRU in front of the transcription_cache table,
+ * which survives restarts. Only successful transcriptions are cached.
+ */
+@Service
+public class TranscriptionCacheService {
+
+    // Another node or thread may have cached the same recording first; its result is just as good, so it stays
+    private static final String INSERT_IF_ABSENT = """
+            INSERT IGNORE INTO transcription_cache
+                (cache_key, content_hash, agreement_type, extracted_fields, missing_fields, transcript, created_at)
+            VALUES (?, ?, ?, CAST(? AS JSON), CAST(? AS JSON), ?, ?)
+            """;
+
+    @Autowired
+    private TranscriptionCacheRepository cacheRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${transcription.cache.max-entries:1000}")
+    private int maxEntries;
+
+    // Serializes the fields for the JSON columns
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, TranscriptionResult> memoryCache;
+
+    private Counter memoryHits;
+    private Counter databaseHits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        // Access-ordered LinkedHashMap gives us LRU eviction once maxEntries is reached
+        memoryCache = Collections.synchronizedMap(new LinkedHashMap<String, TranscriptionResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TranscriptionResult> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        memoryHits = Counter.builder("transcription.cache.requests").tag("result", "memory-hit").register(meterRegistry);
+        databaseHits = Counter.builder("transcription.cache.requests").tag("result", "database-hit").register(meterRegistry);
+        misses = Counter.builder("transcription.cache.requests").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gaugeMapSize("transcription.cache.memory.size", Tags.empty(), memoryCache);
+    }
+
+    /**
+     * Looks up a cached result, checking memory first and then the database.
+     */
+    public Optional<TranscriptionResult> get(String contentHash, Agreement.AgreementType agreementType) {
+        String key = cacheKey(contentHash, agreementType);
+
+        TranscriptionResult cached = memoryCache.get(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return Optional.of(copyOf(cached));
+        }
+
+        Optional<TranscriptionCacheEntry> entry = cacheRepository.findById(key);
+        if (entry.isPresent()) {
+            databaseHits.increment();
+            TranscriptionResult result = new TranscriptionResult(
+                    entry.get().getExtractedFields(), entry.get().getMissingFields(), entry.get().getTranscript());
+            memoryCache.put(key, result);
+            return Optional.of(copyOf(result));
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores a result in both tiers.
+     */
+    public void put(String contentHash, Agreement.AgreementType agreementType, TranscriptionResult result) {
+        String key = cacheKey(contentHash, agreementType);
+        TranscriptionResult stored = copyOf(result);
+        memoryCache.put(key, stored);
+
+        try {
+            jdbcTemplate.update(INSERT_IF_ABSENT, key, contentHash, agreementType.name(),
+                    objectMapper.writeValueAsString(stored.getExtractedFields()),
+                    objectMapper.writeValueAsString(stored.getMissingFields()),
+                    stored.getTranscript(), LocalDateTime.now());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Transcription result for " + key + " could not be serialized", e);
+        }
+    }
+
+    /**
+     * Removes every cached result for one recording.
+     */
+    @Transactional
+    public long invalidate(String contentHash) {
+        String prefix = contentHash + ":";
+        synchronized (memoryCache) {
+            memoryCache.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+        return cacheRepository.deleteByContentHash(contentHash);
+    }
+
+    /**
+     * Empties both tiers, e.g. after the extraction rules change.
+     */
+    @Transactional
+    public void invalidateAll() {
+        memoryCache.clear();
+        cacheRepository.deleteAllInBatch();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "memoryHits", (long) memoryHits.count(),
+                "databaseHits", (long) databaseHits.count(),
+                "misses", (long) misses.count(),
+                "memoryEntries", memoryCache.size(),
+                "maxMemoryEntries", maxEntries);
+    }
+
+    private String cacheKey(String contentHash, Agreement.AgreementType agreementType) {
+        return contentHash + ":" + agreementType.name();
+    }
+
+    // Callers get their own copy so nothing they do can change the cached value
+    private TranscriptionResult copyOf(TranscriptionResult result) {
+        return new TranscriptionResult(new HashMap<>(result.getExtractedFields()),
+                new ArrayList<>(result.getMissingFields()), result.getTranscript());
+    }
+}
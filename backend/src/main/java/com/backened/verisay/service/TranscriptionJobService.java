@@ -0,0 +1,234 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.AudioRecord;
+import com.backened.verisay.service.AudioTranscriptionService.TranscriptionResult;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs audio transcription as background jobs.
+ * Submitting returns straight away with a job id; the Whisper call runs on the bounded
+ * transcription executor and no database transaction is held while it is in flight.
+ */
+@Service
+public class TranscriptionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptionJobService.class);
+
+    @Autowired private AgreementService agreementService;
+    @Autowired private AudioTranscriptionService transcriptionService;
+
+    @Autowired
+    @Qualifier("transcriptionExecutor")
+    private TaskExecutor transcriptionExecutor;
+
+    // Finished jobs are kept around this long so clients can still poll for the result.
+    @Value("${transcription.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, TranscriptionJob> jobs = new ConcurrentHashMap<>();
+
+    // This inner class tracks one job; it is also what the status endpoint returns.
+    public static class TranscriptionJob {
+        private final String jobId = UUID.randomUUID().toString();
+        private final Long agreementId;
+        private final Long audioRecordId;
+        private final String filePath;
+        private final String contentHash;
+        private final Agreement.AgreementType agreementType;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final CompletableFuture<TranscriptionResult> completion = new CompletableFuture<>();
+        private final AtomicBoolean completing = new AtomicBoolean();
+
+        private volatile AudioRecord.AudioStatus status;
+        private volatile TranscriptionResult result;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        public TranscriptionJob(Long agreementId, Long audioRecordId, String filePath, String contentHash,
+                                Agreement.AgreementType agreementType) {
+            this.agreementId = agreementId;
+            this.audioRecordId = audioRecordId;
+            this.filePath = filePath;
+            this.contentHash = contentHash;
+            this.agreementType = agreementType;
+            this.status = audioRecordId != null ? AudioRecord.AudioStatus.PROCESSING_TRANSCRIPTION : AudioRecord.AudioStatus.UPLOADED;
+        }
+
+        // Only the first of the pipeline and a cancellation gets to complete the job
+        boolean claimCompletion() {
+            return completing.compareAndSet(false, true);
+        }
+
+        void finish(AudioRecord.AudioStatus finalStatus, TranscriptionResult finalResult, String errorMessage) {
+            this.result = finalResult;
+            this.error = errorMessage;
+            this.finishedAt = LocalDateTime.now();
+            this.status = finalStatus;
+            completion.complete(finalResult);
+        }
+
+        public boolean isDone() {
+            return finishedAt != null;
+        }
+
+        public String getJobId() { return jobId; }
+        public Long getAgreementId() { return agreementId; }
+        public Long getAudioRecordId() { return audioRecordId; }
+        public Agreement.AgreementType getAgreementType() { return agreementType; }
+        public AudioRecord.AudioStatus getStatus() { return status; }
+        public TranscriptionResult getResult() { return result; }
+        public String getError() { return error; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+
+        @JsonIgnore
+        public String getFilePath() { return filePath; }
+
+        @JsonIgnore
+        public String getContentHash() { return contentHash; }
+
+        @JsonIgnore
+        public CompletableFuture<TranscriptionResult> getCompletion() { return completion; }
+    }
+
+    /**
+     * Queues transcription of the agreement's latest audio record and returns the job immediately.
+     * @throws RejectedExecutionException if the transcription executor is saturated.
+     */
+    public TranscriptionJob submit(Long agreementId) {
+        // Short transaction: look up the audio and flag it as PROCESSING_TRANSCRIPTION
+        TranscriptionJob job = agreementService.beginTranscription(agreementId);
+        jobs.put(job.getJobId(), job);
+
+        if (job.getAudioRecordId() == null) {
+            // No audio uploaded, nothing to send upstream: every required field is missing
+            complete(job, AudioRecord.AudioStatus.PROCESSED_SUCCESS, transcriptionService.emptyResult(job.getAgreementType()), null);
+            return job;
+        }
+
+        try {
+            transcriptionExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            // Never attempted, so not a failure: the audio goes back to UPLOADED and the job is dropped
+            jobs.remove(job.getJobId());
+            agreementService.abandonTranscription(job);
+            job.finish(AudioRecord.AudioStatus.UPLOADED, transcriptionService.emptyResult(job.getAgreementType()),
+                    "Transcription queue is full");
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Runs the same job without the transcription executor: the Whisper call is non-blocking, and only the
+     * short database steps run on the bounded-elastic scheduler. The job is tracked, so it can be polled too.
+     * Failures complete with every required field missing, as the job pipeline does; so does cancelling,
+     * e.g. when the client goes away, so the audio isn't left in PROCESSING_TRANSCRIPTION.
+     */
+    public Mono<TranscriptionResult> transcribeReactive(Long agreementId) {
+        return Mono.defer(() -> {
+            AtomicReference<TranscriptionJob> started = new AtomicReference<>();
+            return Mono.fromCallable(() -> {
+                        TranscriptionJob job = agreementService.beginTranscription(agreementId);
+                        jobs.put(job.getJobId(), job);
+                        started.set(job);
+                        return job;
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(job -> {
+                        if (job.getAudioRecordId() == null) {
+                            return finish(job, AudioRecord.AudioStatus.PROCESSED_SUCCESS,
+                                    transcriptionService.emptyResult(job.getAgreementType()), null);
+                        }
+                        return transcriptionService.transcribeAndExtractReactive(
+                                        job.getFilePath(), job.getContentHash(), job.getAgreementType())
+                                .flatMap(result -> finish(job, AudioRecord.AudioStatus.PROCESSED_SUCCESS, result, null))
+                                .onErrorResume(e -> {
+                                    log.warn("Transcription job {} for agreement {} failed", job.getJobId(), job.getAgreementId(), e);
+                                    return finish(job, AudioRecord.AudioStatus.PROCESSED_FAILED,
+                                            transcriptionService.emptyResult(job.getAgreementType()), e.getMessage());
+                                });
+                    })
+                    .doFinally(signal -> {
+                        TranscriptionJob job = started.get();
+                        if (signal == SignalType.CANCEL && job != null) {
+                            Schedulers.boundedElastic().schedule(() -> complete(job, AudioRecord.AudioStatus.PROCESSED_FAILED,
+                                    transcriptionService.emptyResult(job.getAgreementType()), "Transcription was cancelled"));
+                        }
+                    });
+        });
+    }
+
+    // complete() writes to the database, so it runs on the blocking-I/O scheduler
+    private Mono<TranscriptionResult> finish(TranscriptionJob job, AudioRecord.AudioStatus status,
+                                             TranscriptionResult result, String error) {
+        return Mono.fromCallable(() -> {
+            complete(job, status, result, error);
+            return result;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Optional<TranscriptionJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(TranscriptionJob job) {
+        try {
+            // The network round-trip happens here, outside of any transaction
+            TranscriptionResult result = transcriptionService.transcribeAndExtract(
+                    job.getFilePath(), job.getContentHash(), job.getAgreementType());
+            complete(job, AudioRecord.AudioStatus.PROCESSED_SUCCESS, result, null);
+        } catch (Exception e) {
+            log.warn("Transcription job {} for agreement {} failed", job.getJobId(), job.getAgreementId(), e);
+            complete(job, AudioRecord.AudioStatus.PROCESSED_FAILED,
+                    transcriptionService.emptyResult(job.getAgreementType()), e.getMessage());
+        }
+    }
+
+    private void complete(TranscriptionJob job, AudioRecord.AudioStatus status, TranscriptionResult result, String error) {
+        if (!job.claimCompletion()) {
+            return;
+        }
+        try {
+            // Persist first so a client that sees the final status also sees the saved fields
+            agreementService.completeTranscription(job, status, result);
+        } catch (Exception e) {
+            log.error("Could not persist transcription job {} for agreement {}", job.getJobId(), job.getAgreementId(), e);
+            status = AudioRecord.AudioStatus.PROCESSED_FAILED;
+            error = e.getMessage();
+        }
+        job.finish(status, result, error);
+    }
+
+    /**
+     * Forgets finished jobs older than the retention, whether or not anyone submits new ones.
+     */
+    @Scheduled(fixedDelayString = "${transcription.jobs.evict-ms:60000}")
+    public void evictExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isDone() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,104 @@
+package com.backened.verisay.storage;
+
+import com.backened.verisay.repository.AudioRecordRepository;
+import com.backened.verisay.repository.FaceIdentityRepository;
+import com.backened.verisay.repository.FinalPDFRepository;
+import com.backened.verisay.repository.IdProofRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Removes content-addressed blobs that no row references any more.
+ * A blob is referenced while a FaceIdentity, IdProof, AudioRecord or FinalPDF row holds its path;
+ * references are looked up for a batch of blobs at a time. Blobs younger than the grace period are skipped:
+ * their row may not be committed yet.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.mode", havingValue = "cas")
+public class BlobGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobGarbageCollector.class);
+
+    @Autowired private ContentAddressableFileStorage blobStorage;
+    @Autowired private FaceIdentityRepository faceIdentityRepository;
+    @Autowired private IdProofRepository idProofRepository;
+    @Autowired private AudioRecordRepository audioRecordRepository;
+    @Autowired private FinalPDFRepository finalPDFRepository;
+
+    @Value("${file.storage.gc.grace-period-ms:3600000}")
+    private long gracePeriodMillis;
+
+    // Paths per reference lookup
+    @Value("${file.storage.gc.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * The paths among these that some row points at.
+     */
+    public Set<String> referencedPaths(Collection<String> paths) {
+        Set<String> referenced = new HashSet<>();
+        referenced.addAll(faceIdentityRepository.findReferencedImagePaths(paths));
+        referenced.addAll(idProofRepository.findReferencedFilePaths(paths));
+        referenced.addAll(audioRecordRepository.findReferencedFilePaths(paths));
+        referenced.addAll(finalPDFRepository.findReferencedFilePaths(paths));
+        return referenced;
+    }
+
+    /**
+     * One sweep over the blob store. Returns how many blobs were deleted.
+     */
+    @Scheduled(fixedDelayString = "${file.storage.gc.interval-ms:3600000}",
+               initialDelayString = "${file.storage.gc.initial-delay-ms:600000}")
+    public int collectGarbage() {
+        long cutoff = System.currentTimeMillis() - gracePeriodMillis;
+        int deleted = 0;
+
+        try (Stream<ContentAddressableFileStorage.BlobEntry> blobs = blobStorage.listBlobs()) {
+            Iterator<ContentAddressableFileStorage.BlobEntry> it = blobs.iterator();
+            List<String> batch = new ArrayList<>(batchSize);
+            while (it.hasNext()) {
+                ContentAddressableFileStorage.BlobEntry blob = it.next();
+                if (blob.lastModifiedMillis() <= cutoff) {
+                    batch.add(blob.path());
+                }
+                if (batch.size() == batchSize || (!it.hasNext() && !batch.isEmpty())) {
+                    deleted += deleteUnreferenced(batch, cutoff);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Blob garbage collection stopped early", e);
+        }
+
+        if (deleted > 0) {
+            log.info("Blob garbage collection removed {} unreferenced blobs", deleted);
+        }
+        return deleted;
+    }
+
+    private int deleteUnreferenced(List<String> paths, long cutoff) throws IOException {
+        Set<String> referenced = referencedPaths(paths);
+        int deleted = 0;
+        for (String path : paths) {
+            // An upload may have reused the blob since it was listed; the storage re-checks its age under the blob's lock
+            if (!referenced.contains(path) && blobStorage.deleteIfNotModifiedSince(path, cutoff)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
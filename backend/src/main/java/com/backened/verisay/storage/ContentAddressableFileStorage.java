@@ -0,0 +1,198 @@
+package com.backened.verisay.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Stores each distinct content once, named after its SHA-256 and sharded by hash prefix:
+ * {@code blobs/ab/cd/abcd...ef.mp3}. Uploading the same bytes twice returns the same path,
+ * so retried uploads don't take extra space. Blobs no row points to any more are removed
+ * by {@link BlobGarbageCollector}.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.mode", havingValue = "cas")
+public class ContentAddressableFileStorage implements FileStorage {
+
+    static final String BLOB_DIRECTORY = "blobs";
+    private static final String TEMP_DIRECTORY = ".tmp";
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    private Path rootLocation;
+    private Path blobRoot;
+    private Path tempRoot;
+
+    // Striped by blob name. Orders reusing a blob against the garbage collector deleting it, so a reused blob
+    // either gets a fresh timestamp before the collector looks at it again or is written anew after it is gone
+    private final ReentrantLock[] blobLocks = Stream.generate(ReentrantLock::new).limit(64).toArray(ReentrantLock[]::new);
+
+    @PostConstruct
+    public void init() throws IOException {
+        rootLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        blobRoot = rootLocation.resolve(BLOB_DIRECTORY);
+        tempRoot = blobRoot.resolve(TEMP_DIRECTORY);
+        Files.createDirectories(tempRoot);
+    }
+
+    @Override
+    public StoredFile store(InputStream content, String originalFilename, String subDirectory) throws IOException {
+        // 1. Write to a temp file first: we only know the name once every byte has been hashed.
+        //    The extension is kept because downstream consumers (e.g. Whisper) rely on it.
+        //    The subdirectory doesn't matter here, identical bytes share one blob whatever they are.
+        Path tempFile = tempRoot.resolve(UUID.randomUUID().toString());
+        StoredFile written = StorageStreams.writeAndDigest(content, tempFile, null);
+        return place(tempFile, written, originalFilename);
+    }
+
+    /**
+     * An upload the container already spooled to disk is hashed where it is and renamed into place,
+     * never written again.
+     */
+    @Override
+    public StoredFile storeFile(Path file, String originalFilename, String subDirectory) throws IOException {
+        StoredFile digested;
+        try {
+            digested = StorageStreams.digest(file, null);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return place(file, digested, originalFilename);
+    }
+
+    private StoredFile place(Path tempFile, StoredFile written, String originalFilename) throws IOException {
+        String hash = written.getSha256();
+        String extension = StringUtils.getFilenameExtension(originalFilename);
+        String blobName = extension != null ? hash + "." + extension : hash;
+        Path blobDirectory = blobRoot.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+        Path blobFile = blobDirectory.resolve(blobName);
+
+        // 2. Move it into place, or drop it if an identical blob is already there
+        ReentrantLock lock = blobLock(blobName);
+        lock.lock();
+        try {
+            if (Files.exists(blobFile)) {
+                Files.delete(tempFile);
+                // Refresh the timestamp so the garbage collector's grace period covers the new reference
+                Files.setLastModifiedTime(blobFile, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                Files.createDirectories(blobDirectory);
+                moveIntoPlace(tempFile, blobFile);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // A concurrent upload of the same bytes won the race; its blob is identical
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+
+        return new StoredFile(StorageStreams.toRelativePath(rootLocation, blobFile), hash, written.getSize());
+    }
+
+    // Atomic, so a reader never sees a half-written blob. A spooled upload on another volume is copied
+    // next to the blobs first, which keeps the last step atomic; the upload itself is only deleted once
+    // the blob is in place, so a failure leaves it where it was.
+    private void moveIntoPlace(Path file, Path blobFile) throws IOException {
+        try {
+            Files.move(file, blobFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path tempFile = tempRoot.resolve(UUID.randomUUID().toString());
+            try {
+                Files.copy(file, tempFile);
+                Files.move(tempFile, blobFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException copyFailure) {
+                Files.deleteIfExists(tempFile);
+                throw copyFailure;
+            }
+            Files.delete(file);
+        }
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        return Files.newInputStream(StorageStreams.resolveInside(rootLocation, path));
+    }
+
+    @Override
+    public InputStream open(String path, long offset, long length) throws IOException {
+        return StorageStreams.openRange(StorageStreams.resolveInside(rootLocation, path), offset, length);
+    }
+
+    @Override
+    public boolean delete(String path) throws IOException {
+        return Files.deleteIfExists(StorageStreams.resolveInside(rootLocation, path));
+    }
+
+    /**
+     * Deletes a blob unless it was written or reused after {@code cutoffMillis}.
+     * Checked under the blob's lock, so an upload reusing it concurrently either keeps it or writes it anew.
+     */
+    public boolean deleteIfNotModifiedSince(String path, long cutoffMillis) throws IOException {
+        Path blobFile = StorageStreams.resolveInside(rootLocation, path);
+        ReentrantLock lock = blobLock(blobFile.getFileName().toString());
+        lock.lock();
+        try {
+            if (!Files.exists(blobFile) || Files.getLastModifiedTime(blobFile).toMillis() > cutoffMillis) {
+                return false;
+            }
+            return Files.deleteIfExists(blobFile);
+        } catch (NoSuchFileException e) {
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<FileStat> stat(String path) throws IOException {
+        return StorageStreams.stat(StorageStreams.resolveInside(rootLocation, path), path);
+    }
+
+    @Override
+    public Optional<Path> localFile(String path) {
+        return Optional.of(StorageStreams.resolveInside(rootLocation, path));
+    }
+
+    /**
+     * Lists every blob as a path relative to the storage root, the same form the entity rows hold.
+     * The caller must close the stream.
+     */
+    public Stream<BlobEntry> listBlobs() throws IOException {
+        return Files.walk(blobRoot)
+                .filter(Files::isRegularFile)
+                .filter(file -> !file.startsWith(tempRoot))
+                .map(file -> new BlobEntry(StorageStreams.toRelativePath(rootLocation, file), lastModified(file)));
+    }
+
+    private ReentrantLock blobLock(String blobName) {
+        return blobLocks[Math.floorMod(blobName.hashCode(), blobLocks.length)];
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return System.currentTimeMillis();
+        }
+    }
+
+    // A blob path and when it was last written.
+    public record BlobEntry(String path, long lastModifiedMillis) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.backened.verisay.storage;
+
+import java.time.Instant;
+
+/**
+ * Metadata of a stored file.
+ */
+public class FileStat {
+    private final String path;
+    private final long size;
+    private final Instant lastModified;
+
+    public FileStat(String path, long size, Instant lastModified) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getPath() { return path; }
+    public long getSize() { return size; }
+    public Instant getLastModified() { return lastModified; }
+}
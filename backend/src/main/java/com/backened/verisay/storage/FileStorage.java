@@ -0,0 +1,69 @@
+package com.backened.verisay.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Storage SPI for uploaded and generated files. Paths are always relative to the storage root,
+ * which is what the entity rows hold. The implementation is picked with {@code file.storage.mode}:
+ * <ul>
+ *   <li>{@code local} (default) keeps every upload under its own UUID name in {@code file.upload-dir},</li>
+ *   <li>{@code cas} stores each distinct content once in {@code file.upload-dir}, addressed by its hash,</li>
+ *   <li>{@code s3} keeps files in an S3-compatible bucket shared by every node.</li>
+ * </ul>
+ */
+public interface FileStorage {
+
+    /**
+     * Stores the stream and returns where it went, together with its digest and size.
+     * @param originalFilename Used only for its extension.
+     * @param subDirectory A logical folder, e.g. "faces", "id-proofs", "audio".
+     */
+    StoredFile store(InputStream content, String originalFilename, String subDirectory) throws IOException;
+
+    /**
+     * Stores a file that is already on the local disk, e.g. an upload the servlet container spooled,
+     * and takes it over: the file is gone afterwards, whether or not this succeeds.
+     * Storages on the local filesystem move it into place instead of copying it.
+     */
+    default StoredFile storeFile(Path file, String originalFilename, String subDirectory) throws IOException {
+        try (InputStream content = Files.newInputStream(file)) {
+            return store(content, originalFilename, subDirectory);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Opens a stored file for reading. The caller must close the stream.
+     * @throws java.nio.file.NoSuchFileException if nothing is stored under the path.
+     */
+    InputStream open(String path) throws IOException;
+
+    /**
+     * Opens {@code length} bytes of a stored file starting at {@code offset}.
+     * The stream ends early if the file is shorter. The caller must close the stream.
+     */
+    InputStream open(String path, long offset, long length) throws IOException;
+
+    /**
+     * Removes a stored file. Returns false if there was nothing to delete.
+     */
+    boolean delete(String path) throws IOException;
+
+    /**
+     * Size and modification time of a stored file, or empty if it does not exist.
+     */
+    Optional<FileStat> stat(String path) throws IOException;
+
+    /**
+     * Where the file sits on the local filesystem, for storages that keep files there.
+     * Lets the servlet container send it with zero-copy sendfile instead of copying it through the JVM.
+     */
+    default Optional<Path> localFile(String path) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,99 @@
+package com.backened.verisay.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The original behaviour: every upload is written under a fresh UUID name inside its subdirectory.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.mode", havingValue = "local", matchIfMissing = true)
+public class LocalFileStorage implements FileStorage {
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    private Path rootLocation;
+
+    // Subdirectories we already created, so uploads don't hit the filesystem for it every time
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() throws IOException {
+        rootLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Files.createDirectories(rootLocation);
+    }
+
+    @Override
+    public StoredFile store(InputStream content, String originalFilename, String subDirectory) throws IOException {
+        Path destinationFile = newDestination(originalFilename, subDirectory);
+        return StorageStreams.writeAndDigest(content, destinationFile,
+                StorageStreams.toRelativePath(rootLocation, destinationFile));
+    }
+
+    @Override
+    public StoredFile storeFile(Path file, String originalFilename, String subDirectory) throws IOException {
+        Path destinationFile;
+        StoredFile digested;
+        try {
+            destinationFile = newDestination(originalFilename, subDirectory);
+            digested = StorageStreams.digest(file, StorageStreams.toRelativePath(rootLocation, destinationFile));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        StorageStreams.moveInto(file, destinationFile);
+        return digested;
+    }
+
+    // A unique filename avoids overwrites
+    private Path newDestination(String originalFilename, String subDirectory) throws IOException {
+        String extension = StringUtils.getFilenameExtension(originalFilename);
+        String uniqueFilename = UUID.randomUUID().toString() + "." + extension;
+
+        Path targetDirectory = rootLocation.resolve(subDirectory);
+        if (!knownDirectories.contains(targetDirectory)) {
+            Files.createDirectories(targetDirectory);
+            knownDirectories.add(targetDirectory);
+        }
+        return targetDirectory.resolve(uniqueFilename).normalize();
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        return Files.newInputStream(StorageStreams.resolveInside(rootLocation, path));
+    }
+
+    @Override
+    public InputStream open(String path, long offset, long length) throws IOException {
+        return StorageStreams.openRange(StorageStreams.resolveInside(rootLocation, path), offset, length);
+    }
+
+    @Override
+    public boolean delete(String path) throws IOException {
+        return Files.deleteIfExists(StorageStreams.resolveInside(rootLocation, path));
+    }
+
+    @Override
+    public Optional<FileStat> stat(String path) throws IOException {
+        return StorageStreams.stat(StorageStreams.resolveInside(rootLocation, path), path);
+    }
+
+    @Override
+    public Optional<Path> localFile(String path) {
+        return Optional.of(StorageStreams.resolveInside(rootLocation, path));
+    }
+}
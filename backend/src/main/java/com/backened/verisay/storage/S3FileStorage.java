@@ -0,0 +1,263 @@
+package com.backened.verisay.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps files in an S3-compatible bucket (AWS S3, MinIO, ...), so every backend node sees the same files.
+ * Large uploads are sent as multipart uploads with several parts in flight at once;
+ * memory use is bounded by part size times upload concurrency.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.mode", havingValue = "s3")
+public class S3FileStorage implements FileStorage {
+
+    // S3 rejects multipart parts smaller than this (except the last one)
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    @Value("${file.storage.s3.bucket}")
+    private String bucket;
+
+    // Leave empty for AWS; set to e.g. http://localhost:9000 for MinIO
+    @Value("${file.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${file.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${file.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${file.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${file.storage.s3.part-size:8MB}")
+    private DataSize partSize;
+
+    @Value("${file.storage.s3.upload-concurrency:4}")
+    private int uploadConcurrency;
+
+    private S3Client s3;
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    public void init() {
+        S3ClientBuilder builder = S3Client.builder().region(Region.of(region));
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        if (StringUtils.hasText(accessKey)) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        s3 = builder.build();
+
+        uploadExecutor = Executors.newFixedThreadPool(uploadConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "s3-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
+        s3.close();
+    }
+
+    @Override
+    public StoredFile store(InputStream content, String originalFilename, String subDirectory) throws IOException {
+        String extension = StringUtils.getFilenameExtension(originalFilename);
+        String key = subDirectory + "/" + UUID.randomUUID() + "." + extension;
+
+        MessageDigest digest = StorageStreams.newSha256();
+        int chunkSize = (int) Math.max(partSize.toBytes(), MIN_PART_SIZE);
+        byte[] firstChunk = content.readNBytes(chunkSize);
+        digest.update(firstChunk);
+
+        if (firstChunk.length < chunkSize) {
+            // Small enough for a single PUT
+            try {
+                s3.putObject(PutObjectRequest.builder().bucket(bucket).key(key).contentLength((long) firstChunk.length).build(),
+                        RequestBody.fromBytes(firstChunk));
+            } catch (S3Exception e) {
+                throw new IOException("Failed to upload " + key, e);
+            }
+            return new StoredFile(key, HexFormat.of().formatHex(digest.digest()), firstChunk.length);
+        }
+
+        long size = multipartUpload(key, firstChunk, content, chunkSize, digest);
+        return new StoredFile(key, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    private long multipartUpload(String key, byte[] firstChunk, InputStream content, int chunkSize,
+                                 MessageDigest digest) throws IOException {
+        String uploadId = s3.createMultipartUpload(
+                CreateMultipartUploadRequest.builder().bucket(bucket).key(key).build()).uploadId();
+
+        // Each permit is one part buffer in memory
+        Semaphore inFlight = new Semaphore(uploadConcurrency);
+        List<Future<CompletedPart>> parts = new ArrayList<>();
+        long size = 0;
+        try {
+            byte[] chunk = firstChunk;
+            int partNumber = 1;
+            while (chunk.length > 0) {
+                size += chunk.length;
+                parts.add(uploadPartAsync(key, uploadId, partNumber++, chunk, inFlight));
+
+                inFlight.acquire();
+                try {
+                    chunk = content.readNBytes(chunkSize);
+                } finally {
+                    inFlight.release();
+                }
+                digest.update(chunk);
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                completedParts.add(part.get());
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            return size;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId, parts);
+            throw new IOException("Interrupted while uploading " + key, e);
+        } catch (ExecutionException | S3Exception e) {
+            abort(key, uploadId, parts);
+            throw new IOException("Failed to upload " + key, e);
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId, parts);
+            throw e;
+        }
+    }
+
+    private Future<CompletedPart> uploadPartAsync(String key, String uploadId, int partNumber, byte[] chunk,
+                                                  Semaphore inFlight) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            return uploadExecutor.submit(() -> {
+                try {
+                    String eTag = s3.uploadPart(UploadPartRequest.builder()
+                                    .bucket(bucket).key(key).uploadId(uploadId)
+                                    .partNumber(partNumber).contentLength((long) chunk.length).build(),
+                            RequestBody.fromBytes(chunk)).eTag();
+                    return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void abort(String key, String uploadId, List<Future<CompletedPart>> parts) {
+        parts.forEach(part -> part.cancel(true));
+        try {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).build());
+        } catch (S3Exception ignored) {
+            // The bucket's lifecycle rules clean up abandoned uploads if this fails too
+        }
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        return get(GetObjectRequest.builder().bucket(bucket).key(path).build(), path);
+    }
+
+    @Override
+    public InputStream open(String path, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        return get(GetObjectRequest.builder().bucket(bucket).key(path).range(range).build(), path);
+    }
+
+    private InputStream get(GetObjectRequest request, String path) throws IOException {
+        try {
+            return s3.getObject(request);
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(path);
+        } catch (S3Exception e) {
+            throw new IOException("Failed to read " + path, e);
+        }
+    }
+
+    @Override
+    public boolean delete(String path) throws IOException {
+        if (stat(path).isEmpty()) {
+            return false;
+        }
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(path).build());
+            return true;
+        } catch (S3Exception e) {
+            throw new IOException("Failed to delete " + path, e);
+        }
+    }
+
+    @Override
+    public Optional<FileStat> stat(String path) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(path).build());
+            return Optional.of(new FileStat(path, head.contentLength(), head.lastModified()));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Failed to stat " + path, e);
+        }
+    }
+}
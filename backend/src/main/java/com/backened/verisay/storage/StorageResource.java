@@ -0,0 +1,52 @@
+package com.backened.verisay.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Exposes a stored file as a Spring {@link org.springframework.core.io.Resource},
+ * e.g. to send it as a multipart part without knowing which storage holds it.
+ */
+public class StorageResource extends AbstractResource {
+
+    private final FileStorage storage;
+    private final FileStat stat;
+
+    public StorageResource(FileStorage storage, FileStat stat) {
+        this.storage = storage;
+        this.stat = stat;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return storage.open(stat.getPath());
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return stat.getSize();
+    }
+
+    @Override
+    public long lastModified() {
+        return stat.getLastModified().toEpochMilli();
+    }
+
+    @Override
+    public String getFilename() {
+        String path = stat.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public String getDescription() {
+        return "stored file [" + stat.getPath() + "]";
+    }
+}
@@ -0,0 +1,172 @@
+package com.backened.verisay.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+// Shared plumbing for the storage implementations.
+final class StorageStreams {
+
+    // Bytes handed to FileChannel.transferFrom per call
+    private static final long TRANSFER_CHUNK_SIZE = 1024 * 1024;
+
+    private StorageStreams() {
+    }
+
+    /**
+     * Pipes the stream into a new file through a FileChannel, hashing it on the way through.
+     * The partially written file is removed if anything fails.
+     */
+    static StoredFile writeAndDigest(InputStream content, Path destination, String relativePath) throws IOException {
+        MessageDigest digest = newSha256();
+        long size = 0;
+        try (ReadableByteChannel in = Channels.newChannel(new DigestInputStream(content, digest));
+             FileChannel out = FileChannel.open(destination, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long transferred;
+            // transferFrom returns 0 once the source channel is exhausted
+            while ((transferred = out.transferFrom(in, size, TRANSFER_CHUNK_SIZE)) > 0) {
+                size += transferred;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(destination);
+            throw e;
+        }
+        return new StoredFile(relativePath, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * Hashes a file that is already written. Reading it back is cheaper than writing it a second time.
+     */
+    static StoredFile digest(Path file, String relativePath) throws IOException {
+        MessageDigest digest = newSha256();
+        long size;
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+        return new StoredFile(relativePath, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * Moves a file into place: a rename on the same volume, a copy only across volumes.
+     * The source is removed if the move fails.
+     */
+    static void moveInto(Path source, Path destination) throws IOException {
+        try {
+            Files.move(source, destination);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(source);
+            throw e;
+        }
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String toRelativePath(Path root, Path file) {
+        return root.relativize(file).toString().replace("\\", "/");
+    }
+
+    /**
+     * Resolves a stored path against the root, refusing anything that would escape it.
+     */
+    static Path resolveInside(Path root, String path) {
+        Path resolved = root.resolve(path).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("Path is outside of the storage root: " + path);
+        }
+        return resolved;
+    }
+
+    static InputStream openRange(Path file, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new RangeInputStream(Channels.newInputStream(channel), length);
+    }
+
+    static Optional<FileStat> stat(Path file, String relativePath) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new FileStat(relativePath, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Stops after a fixed number of bytes, for ranged reads.
+    static final class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.backened.verisay.storage;
+
+/**
+ * Describes a stored file: its path relative to the storage root, its SHA-256 and its size.
+ */
+public class StoredFile {
+    private final String path;
+    private final String sha256;
+    private final long size;
+
+    public StoredFile(String path, String sha256, long size) {
+        this.path = path;
+        this.sha256 = sha256;
+        this.size = size;
+    }
+
+    public String getPath() { return path; }
+    public String getSha256() { return sha256; }
+    public long getSize() { return size; }
+}
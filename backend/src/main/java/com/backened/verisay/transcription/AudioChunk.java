@@ -0,0 +1,29 @@
+package com.backened.verisay.transcription;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * One self-contained piece of a longer recording, playable on its own.
+ * @param index position in the recording, starting at 0.
+ * @param startSeconds offset of the chunk within the recording.
+ */
+public record AudioChunk(int index, String filename, byte[] data, double startSeconds, double durationSeconds) {
+
+    public Resource toResource() {
+        // The filename becomes the multipart filename, from which Whisper infers the format
+        return new ByteArrayResource(data) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    // "recording.mp3", 3 -> "recording-part3.mp3"
+    static String nameFor(String filename, int index) {
+        int dot = filename.lastIndexOf('.');
+        return dot < 0 ? filename + "-part" + index
+                : filename.substring(0, dot) + "-part" + index + filename.substring(dot);
+    }
+}
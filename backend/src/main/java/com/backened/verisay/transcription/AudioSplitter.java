@@ -0,0 +1,19 @@
+package com.backened.verisay.transcription;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Splits a recording of one audio format into chunks that can be transcribed independently.
+ */
+public interface AudioSplitter {
+
+    boolean supports(String filename);
+
+    /**
+     * Reads the recording once and hands each chunk to the sink as soon as it is complete, in order,
+     * so the caller can start on the first chunk while the rest is still being read.
+     */
+    void split(InputStream in, String filename, Consumer<AudioChunk> sink) throws IOException;
+}
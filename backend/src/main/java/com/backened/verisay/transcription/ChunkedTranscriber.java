@@ -0,0 +1,210 @@
+package com.backened.verisay.transcription;
+
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.FileStorage;
+import com.backened.verisay.storage.StorageResource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Transcribes a stored recording, splitting long ones into chunks that are transcribed concurrently
+ * and stitched back together in order.
+ * <p>
+ * Splitting and uploading overlap: each chunk is submitted as soon as it has been read, and at most
+ * {@code transcription.chunking.max-in-flight} chunks of one recording are held at a time.
+ * Each chunk goes through {@link WhisperClient}'s own retries, so a failed chunk is retried alone
+ * rather than the whole recording; if a chunk still fails, the rest are cancelled.
+ * Where a chunk repeats the end of the one before, the words heard in both are kept once.
+ * Formats without an {@link AudioSplitter}, and recordings of up to {@code transcription.chunking.min-bytes},
+ * are uploaded whole.
+ */
+@Component
+public class ChunkedTranscriber {
+
+    @Autowired
+    private WhisperClient whisperClient;
+
+    @Autowired
+    private FileStorage fileStorage;
+
+    @Autowired
+    private List<AudioSplitter> splitters;
+
+    @Autowired
+    @Qualifier("whisperChunkExecutor")
+    private TaskExecutor chunkExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${transcription.chunking.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transcription.chunking.max-in-flight:4}")
+    private int maxInFlight;
+
+    // About a minute of 128 kbps MP3, well inside one chunk window: splitting would give a single chunk anyway
+    @Value("${transcription.chunking.min-bytes:1048576}")
+    private long minBytes;
+
+    // Longest run of words looked for at a join; an overlap of a second or two holds far fewer
+    private static final int MAX_OVERLAP_WORDS = 20;
+
+    private DistributionSummary chunksPerRecording;
+
+    @PostConstruct
+    public void init() {
+        chunksPerRecording = DistributionSummary.builder("transcription.chunks")
+                .description("Chunks a recording was split into")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether {@link #transcribe} splits this recording, rather than uploading it whole.
+     */
+    public boolean splits(FileStat audio) {
+        return splitterFor(audio) != null;
+    }
+
+    /**
+     * @throws WhisperException if any part of the recording could not be transcribed.
+     */
+    public String transcribe(FileStat audio) {
+        String path = audio.getPath();
+        String filename = path.substring(path.lastIndexOf('/') + 1);
+        AudioSplitter splitter = splitterFor(audio);
+        if (splitter == null) {
+            return whisperClient.transcribe(new StorageResource(fileStorage, audio));
+        }
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        List<CompletableFuture<String>> parts = new ArrayList<>();
+        List<Boolean> repeatsPrevious = new ArrayList<>();
+        double[] previousEnd = {0};
+        try (InputStream in = fileStorage.open(path)) {
+            splitter.split(in, filename, chunk -> {
+                // Stop reading once a chunk has failed for good
+                Throwable failure = firstFailure.get();
+                if (failure != null) {
+                    throw asRuntime(failure);
+                }
+                acquire(inFlight);
+                CompletableFuture<String> part;
+                try {
+                    part = CompletableFuture.supplyAsync(() -> whisperClient.transcribe(chunk.toResource()), chunkExecutor);
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                part.whenComplete((text, error) -> {
+                    inFlight.release();
+                    if (error != null) {
+                        firstFailure.compareAndSet(null, error);
+                    }
+                });
+                // Kept as submitted, so cancelling it also stops a chunk that is still queued
+                parts.add(part);
+                repeatsPrevious.add(chunk.index() > 0 && chunk.startSeconds() < previousEnd[0] - 1e-6);
+                previousEnd[0] = chunk.startSeconds() + chunk.durationSeconds();
+            });
+        } catch (IOException e) {
+            cancel(parts);
+            throw new RuntimeException("Could not split audio file: " + path, e);
+        } catch (RuntimeException e) {
+            cancel(parts);
+            throw e;
+        }
+
+        // Stitch the chunk transcripts back together in recording order
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            String text;
+            try {
+                text = parts.get(i).join();
+            } catch (CompletionException e) {
+                cancel(parts);
+                throw asRuntime(e);
+            }
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            List<String> chunkWords = List.of(text.trim().split("\\s+"));
+            int repeated = repeatsPrevious.get(i) ? repeatedWords(words, chunkWords) : 0;
+            words.addAll(chunkWords.subList(repeated, chunkWords.size()));
+        }
+        chunksPerRecording.record(parts.size());
+        return String.join(" ", words);
+    }
+
+    /**
+     * How many words at the start of {@code next} repeat the end of {@code transcript}: the longest run that matches
+     * ignoring case and punctuation, which the two transcriptions of the same audio often disagree on.
+     */
+    static int repeatedWords(List<String> transcript, List<String> next) {
+        int longest = Math.min(MAX_OVERLAP_WORDS, Math.min(transcript.size(), next.size()));
+        for (int length = longest; length > 0; length--) {
+            int offset = transcript.size() - length;
+            boolean matches = true;
+            for (int i = 0; i < length && matches; i++) {
+                matches = normalized(transcript.get(offset + i)).equals(normalized(next.get(i)));
+            }
+            if (matches) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private static String normalized(String word) {
+        return word.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private AudioSplitter splitterFor(FileStat audio) {
+        if (!enabled || audio.getSize() <= minBytes) {
+            return null;
+        }
+        String filename = audio.getPath().substring(audio.getPath().lastIndexOf('/') + 1);
+        for (AudioSplitter splitter : splitters) {
+            if (splitter.supports(filename)) {
+                return splitter;
+            }
+        }
+        return null;
+    }
+
+    private static void acquire(Semaphore inFlight) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WhisperException("Interrupted while transcribing audio chunks", true, e);
+        }
+    }
+
+    private static void cancel(List<CompletableFuture<String>> parts) {
+        parts.forEach(part -> part.cancel(false));
+    }
+
+    private static RuntimeException asRuntime(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof RuntimeException runtime ? runtime
+                : new WhisperException("Chunk transcription failed", true, cause);
+    }
+}
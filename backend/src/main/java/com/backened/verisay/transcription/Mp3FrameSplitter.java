@@ -0,0 +1,203 @@
+package com.backened.verisay.transcription;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits MP3 (MPEG audio layer III) recordings, the format the app records in, into windows of
+ * {@code transcription.chunking.window-seconds}.
+ * Chunks are cut on frame boundaries without decoding or re-encoding. A frame is not always decodable on its
+ * own, though: its audio data may start in the previous frames (the bit reservoir). And without decoding there is
+ * no way to find silence, so the cut lands at the window edge, often mid-word. Each chunk after the first therefore
+ * repeats the last {@code transcription.chunking.mp3-overlap-seconds} of the one before: enough to decode its first
+ * frames and to hear the word cut at the edge whole. {@link ChunkedTranscriber} drops the words heard twice.
+ */
+@Component
+public class Mp3FrameSplitter implements AudioSplitter {
+
+    // Kbps by bitrate index, layer III
+    private static final int[] BITRATES_MPEG1 = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] BITRATES_MPEG2 = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+
+    // Hz by version bits (MPEG 2.5, reserved, MPEG 2, MPEG 1) and sample rate index
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000},
+            null,
+            {22050, 24000, 16000},
+            {44100, 48000, 32000}
+    };
+
+    private static final int VERSION_MPEG1 = 3;
+
+    @Value("${transcription.chunking.window-seconds:120}")
+    private double windowSeconds;
+
+    // The bit reservoir reaches back at most 511 bytes, i.e. 5 frames at 32 kbps; always repeated
+    private static final int RESERVOIR_FRAMES = 8;
+
+    @Value("${transcription.chunking.mp3-overlap-seconds:1.0}")
+    private double overlapSeconds;
+
+    @Override
+    public boolean supports(String filename) {
+        return filename.toLowerCase(Locale.ROOT).endsWith(".mp3");
+    }
+
+    @Override
+    public void split(InputStream in, String filename, Consumer<AudioChunk> sink) throws IOException {
+        InputStream input = new BufferedInputStream(in, 64 * 1024);
+        skipId3v2Tag(input);
+
+        ByteArrayOutputStream current = new ByteArrayOutputStream();
+        // The latest frames, repeated at the start of the next chunk
+        Deque<byte[]> recent = new ArrayDeque<>();
+        double recentSeconds = 0;
+        double chunkStart = 0;
+        double chunkSeconds = 0;
+        double repeatedSeconds = 0;
+        int index = 0;
+        boolean firstFrame = true;
+
+        int header;
+        while ((header = nextHeader(input)) != -1) {
+            int length = frameLength(header);
+            byte[] frame = new byte[length];
+            frame[0] = (byte) (header >>> 24);
+            frame[1] = (byte) (header >>> 16);
+            frame[2] = (byte) (header >>> 8);
+            frame[3] = (byte) header;
+            if (input.readNBytes(frame, 4, length - 4) < length - 4) {
+                // Truncated last frame
+                break;
+            }
+            if (firstFrame) {
+                firstFrame = false;
+                // A Xing/Info/VBRI frame describes the whole file; it would give the first chunk a wrong duration
+                if (isVbrInfoFrame(frame)) {
+                    continue;
+                }
+            }
+
+            current.write(frame, 0, length);
+            chunkSeconds += frameSeconds(header);
+            recent.addLast(frame);
+            recentSeconds += frameSeconds(header);
+            while (recent.size() > RESERVOIR_FRAMES
+                    && recentSeconds - frameSeconds(headerOf(recent.peekFirst())) >= overlapSeconds) {
+                recentSeconds -= frameSeconds(headerOf(recent.removeFirst()));
+            }
+            if (chunkSeconds >= windowSeconds) {
+                sink.accept(new AudioChunk(index, AudioChunk.nameFor(filename, index), current.toByteArray(),
+                        chunkStart - repeatedSeconds, repeatedSeconds + chunkSeconds));
+                index++;
+                chunkStart += chunkSeconds;
+                chunkSeconds = 0;
+                current = new ByteArrayOutputStream();
+                for (byte[] repeated : recent) {
+                    current.write(repeated, 0, repeated.length);
+                }
+                repeatedSeconds = recentSeconds;
+            }
+        }
+        if (chunkSeconds > 0) {
+            sink.accept(new AudioChunk(index, AudioChunk.nameFor(filename, index), current.toByteArray(),
+                    chunkStart - repeatedSeconds, repeatedSeconds + chunkSeconds));
+        }
+    }
+
+    // --- FRAME PARSING ---
+
+    // Next valid frame header, skipping any bytes in between (ID3v1 tags, junk), or -1 at the end
+    private static int nextHeader(InputStream in) throws IOException {
+        int header = 0;
+        int seen = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            header = (header << 8) | b;
+            if (++seen >= 4 && isValidHeader(header)) {
+                return header;
+            }
+        }
+        return -1;
+    }
+
+    static boolean isValidHeader(int header) {
+        return (header & 0xFFE00000) == 0xFFE00000
+                && version(header) != 1
+                && ((header >>> 17) & 3) == 1           // layer III
+                && bitrateIndex(header) != 0            // "free" bitrate has no computable length
+                && bitrateIndex(header) != 15
+                && ((header >>> 10) & 3) != 3
+                && (header & 3) != 2;                   // reserved emphasis
+    }
+
+    private static int headerOf(byte[] frame) {
+        return ((frame[0] & 0xFF) << 24) | ((frame[1] & 0xFF) << 16) | ((frame[2] & 0xFF) << 8) | (frame[3] & 0xFF);
+    }
+
+    static int frameLength(int header) {
+        int samples = samplesPerFrame(header);
+        int bitrate = (version(header) == VERSION_MPEG1 ? BITRATES_MPEG1 : BITRATES_MPEG2)[bitrateIndex(header)] * 1000;
+        int padding = (header >>> 9) & 1;
+        return samples / 8 * bitrate / sampleRate(header) + padding;
+    }
+
+    static double frameSeconds(int header) {
+        return samplesPerFrame(header) / (double) sampleRate(header);
+    }
+
+    private static int version(int header) {
+        return (header >>> 19) & 3;
+    }
+
+    private static int bitrateIndex(int header) {
+        return (header >>> 12) & 0xF;
+    }
+
+    private static int sampleRate(int header) {
+        return SAMPLE_RATES[version(header)][(header >>> 10) & 3];
+    }
+
+    private static int samplesPerFrame(int header) {
+        return version(header) == VERSION_MPEG1 ? 1152 : 576;
+    }
+
+    private static boolean isVbrInfoFrame(byte[] frame) {
+        String head = new String(frame, 4, Math.min(frame.length - 4, 40), StandardCharsets.ISO_8859_1);
+        return head.contains("Xing") || head.contains("Info") || head.contains("VBRI");
+    }
+
+    private static void skipId3v2Tag(InputStream in) throws IOException {
+        in.mark(10);
+        byte[] tag = in.readNBytes(10);
+        if (tag.length < 10 || tag[0] != 'I' || tag[1] != 'D' || tag[2] != '3') {
+            in.reset();
+            return;
+        }
+        // Size is "syncsafe": 7 bits per byte
+        long size = ((tag[6] & 0x7F) << 21) | ((tag[7] & 0x7F) << 14) | ((tag[8] & 0x7F) << 7) | (tag[9] & 0x7F);
+        if ((tag[5] & 0x10) != 0) {
+            size += 10; // footer
+        }
+        while (size > 0) {
+            long skipped = in.skip(size);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    return;
+                }
+                skipped = 1;
+            }
+            size -= skipped;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.backened.verisay.transcription;
+
+import com.backened.verisay.config.OpenAIProperties;
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.FileStorage;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Non-blocking counterpart of {@link WhisperClient}: the audio is streamed from storage into a
+ * {@link WebClient} multipart request and the response is decoded without holding a thread,
+ * so hundreds of transcriptions can be in flight on the Netty event loop.
+ * <p>
+ * Uses the same {@code openai.api.*} timeouts and retry settings, shares the circuit breaker with the
+ * blocking client, and records into the same {@code whisper.*} meters.
+ * There is no bulkhead here; concurrency is capped by {@code openai.api.reactive-max-connections}.
+ */
+@Component
+public class ReactiveWhisperClient {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private OpenAIProperties properties;
+
+    @Autowired
+    private FileStorage fileStorage;
+
+    @Autowired
+    private WhisperClient whisperClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+    private CircuitBreaker circuitBreaker;
+    private Counter retries;
+
+    @PostConstruct
+    public void init() {
+        connectionProvider = ConnectionProvider.builder("whisper")
+                .maxConnections(properties.getReactiveMaxConnections())
+                .pendingAcquireMaxCount(-1)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getReadTimeout());
+        webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        circuitBreaker = whisperClient.getCircuitBreaker();
+        retries = Counter.builder("whisper.retries").description("Whisper attempts that were retried").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+
+    /**
+     * Transcribes a stored recording. Nothing happens until the returned Mono is subscribed.
+     * Errors are signalled as {@link WhisperException}.
+     */
+    public Mono<String> transcribe(FileStat audio) {
+        String path = audio.getPath();
+        return transcribe(read(path), path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    /**
+     * @param audio re-subscribed on every retry, so it must be cold (e.g. re-open the file per subscription).
+     */
+    public Mono<String> transcribe(Flux<DataBuffer> audio, String filename) {
+        // Retrying while the circuit is open would only fail again
+        Retry retry = Retry.backoff(properties.getMaxRetries(), properties.getRetryBaseDelay())
+                .maxBackoff(properties.getRetryMaxDelay())
+                .jitter(1.0)
+                .filter(e -> e instanceof WhisperException failure && failure.isTransientFailure()
+                        && circuitBreaker.getState() != CircuitBreaker.State.OPEN)
+                .doBeforeRetry(signal -> retries.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        return Mono.defer(() -> attempt(audio, filename)).retryWhen(retry);
+    }
+
+    private Mono<String> attempt(Flux<DataBuffer> audio, String filename) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            record(Timer.start(meterRegistry), "circuit_open");
+            return Mono.error(new WhisperException("Transcription service unavailable (circuit open)", true));
+        }
+
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.asyncPart("file", audio, DataBuffer.class)
+                .filename(filename)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM);
+        body.part("model", "whisper-1");
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return webClient.post()
+                .uri(properties.getUrl())
+                .headers(headers -> headers.setBearerAuth(properties.getKey()))
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(body.build()))
+                .exchangeToMono(response -> {
+                    int status = response.statusCode().value();
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToMono(JsonNode.class)
+                                .flatMap(json -> Mono.justOrEmpty(json.get("text")).map(JsonNode::asText))
+                                .onErrorMap(e -> !(e instanceof WhisperException),
+                                        e -> new WhisperException("Unreadable OpenAI response", false, e))
+                                .switchIfEmpty(Mono.error(() -> new WhisperException("No transcript in OpenAI response", false)));
+                    }
+                    boolean transientFailure = status == 429 || status >= 500;
+                    return response.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .flatMap(responseBody -> Mono.error(new WhisperException(
+                                    "OpenAI API error " + status + ": " + responseBody, transientFailure)));
+                })
+                // Connection failures and timeouts
+                .onErrorMap(e -> !(e instanceof WhisperException),
+                        e -> new WhisperException("Could not reach the transcription service", true, e))
+                .doOnSuccess(transcript -> {
+                    circuitBreaker.onSuccess();
+                    record(sample, "success");
+                })
+                .doOnError(WhisperException.class, failure -> {
+                    if (failure.isTransientFailure()) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        // The request itself was bad; the upstream is healthy
+                        circuitBreaker.onSuccess();
+                    }
+                    record(sample, outcomeOf(failure));
+                })
+                .doOnCancel(circuitBreaker::release);
+    }
+
+    // Local files are read with non-blocking file I/O; other storages are read on the blocking-I/O scheduler
+    private Flux<DataBuffer> read(String path) {
+        Optional<Path> localFile = fileStorage.localFile(path);
+        if (localFile.isPresent()) {
+            return DataBufferUtils.read(localFile.get(), bufferFactory, READ_BUFFER_SIZE);
+        }
+        return DataBufferUtils.readInputStream(() -> fileStorage.open(path), bufferFactory, READ_BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static String outcomeOf(WhisperException failure) {
+        if (failure.getCause() != null && failure.isTransientFailure()) {
+            return "io_error";
+        }
+        return failure.isTransientFailure() ? "server_error" : "client_error";
+    }
+
+    private void record(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("whisper.requests")
+                .description("Whisper transcription attempts")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
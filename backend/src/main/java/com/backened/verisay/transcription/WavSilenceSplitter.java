@@ -0,0 +1,122 @@
+package com.backened.verisay.transcription;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits PCM WAV recordings at pauses in speech, so chunk boundaries don't cut through words.
+ * Each chunk is cut at the quietest 20 ms block in the last {@code transcription.chunking.silence-search-seconds}
+ * before the window edge. For sample formats other than 16-bit signed PCM the cut falls at the window edge.
+ */
+@Component
+public class WavSilenceSplitter implements AudioSplitter {
+
+    private static final double BLOCK_SECONDS = 0.02;
+
+    @Value("${transcription.chunking.window-seconds:120}")
+    private double windowSeconds;
+
+    @Value("${transcription.chunking.silence-search-seconds:15}")
+    private double silenceSearchSeconds;
+
+    @Override
+    public boolean supports(String filename) {
+        return filename.toLowerCase(Locale.ROOT).endsWith(".wav");
+    }
+
+    @Override
+    public void split(InputStream in, String filename, Consumer<AudioChunk> sink) throws IOException {
+        AudioInputStream audio;
+        try {
+            audio = AudioSystem.getAudioInputStream(new BufferedInputStream(in, 64 * 1024));
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Unsupported WAV file: " + filename, e);
+        }
+        AudioFormat format = audio.getFormat();
+        int frameSize = format.getFrameSize();
+        double bytesPerSecond = format.getFrameRate() * frameSize;
+        byte[] block = new byte[frameSize * Math.max(1, Math.round(format.getFrameRate() * (float) BLOCK_SECONDS))];
+        double searchFrom = Math.max(0, windowSeconds - silenceSearchSeconds);
+
+        ByteArrayOutputStream current = new ByteArrayOutputStream();
+        double chunkStart = 0;
+        int index = 0;
+        double quietestLevel = Double.MAX_VALUE;
+        int cutAt = -1;
+
+        int read;
+        while ((read = audio.readNBytes(block, 0, block.length)) > 0) {
+            current.write(block, 0, read);
+            double seconds = current.size() / bytesPerSecond;
+            if (seconds >= searchFrom) {
+                // Ties go to the later block, so an unmeasurable format is cut at the window edge
+                double level = level(block, read, format);
+                if (level <= quietestLevel) {
+                    quietestLevel = level;
+                    // Cut in the middle of the quiet block, on a frame boundary
+                    cutAt = current.size() - read / 2 / frameSize * frameSize;
+                }
+            }
+            if (seconds >= windowSeconds) {
+                byte[] bytes = current.toByteArray();
+                if (cutAt <= 0) {
+                    cutAt = bytes.length;
+                }
+                sink.accept(chunk(filename, index, bytes, cutAt, format, chunkStart));
+                index++;
+                chunkStart += cutAt / bytesPerSecond;
+
+                // The audio after the cut starts the next chunk
+                current = new ByteArrayOutputStream();
+                current.write(bytes, cutAt, bytes.length - cutAt);
+                quietestLevel = Double.MAX_VALUE;
+                cutAt = -1;
+            }
+        }
+        if (current.size() > 0) {
+            byte[] bytes = current.toByteArray();
+            sink.accept(chunk(filename, index, bytes, bytes.length, format, chunkStart));
+        }
+    }
+
+    private static AudioChunk chunk(String filename, int index, byte[] pcm, int length, AudioFormat format,
+                                    double startSeconds) throws IOException {
+        int frameSize = format.getFrameSize();
+        ByteArrayOutputStream wav = new ByteArrayOutputStream(length + 64);
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm, 0, length), format, length / frameSize),
+                AudioFileFormat.Type.WAVE, wav);
+        double duration = length / (format.getFrameRate() * frameSize);
+        return new AudioChunk(index, AudioChunk.nameFor(filename, index), wav.toByteArray(), startSeconds, duration);
+    }
+
+    // RMS of the block's samples; 0 when the sample format can't be measured
+    private static double level(byte[] block, int length, AudioFormat format) {
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) || format.getSampleSizeInBits() != 16) {
+            return 0;
+        }
+        boolean bigEndian = format.isBigEndian();
+        long sumOfSquares = 0;
+        int samples = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            int sample = bigEndian
+                    ? (block[i] << 8) | (block[i + 1] & 0xFF)
+                    : (block[i + 1] << 8) | (block[i] & 0xFF);
+            sumOfSquares += (long) sample * sample;
+            samples++;
+        }
+        return samples == 0 ? 0 : Math.sqrt((double) sumOfSquares / samples);
+    }
+}
@@ -0,0 +1,266 @@
+package com.backened.verisay.transcription;
+
+import com.backened.verisay.config.OpenAIProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client for the Whisper transcription API at {@code openai.api.url}.
+ * <ul>
+ *   <li>Pooled keep-alive connections (JDK HttpClient) with connect and read timeouts.</li>
+ *   <li>Retries on 429, 5xx and I/O errors with full-jitter exponential backoff, honouring Retry-After;
+ *       a Retry-After longer than {@code retry-max-delay} ends the retries instead.</li>
+ *   <li>A circuit breaker that stops calling a failing upstream for a while.</li>
+ *   <li>A bulkhead capping concurrent upstream calls, so a slow upstream can't tie up every thread.
+ *       A permit is held per attempt, not while waiting to retry.</li>
+ * </ul>
+ * Exports {@code whisper.requests} (timer per attempt, tagged by outcome), {@code whisper.retries},
+ * {@code whisper.circuit.state} and {@code whisper.bulkhead.available}.
+ */
+@Component
+public class WhisperClient {
+
+    private static final Logger log = LoggerFactory.getLogger(WhisperClient.class);
+
+    @Autowired
+    private OpenAIProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RestClient restClient;
+    private Semaphore bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private Counter retries;
+
+    @PostConstruct
+    public void init() {
+        // One client for the whole application: the JDK client keeps and reuses connections per host
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getConnectTimeout())
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(properties.getReadTimeout());
+        restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        bulkhead = new Semaphore(properties.getMaxConcurrentRequests());
+        circuitBreaker = new CircuitBreaker(properties.getCircuitFailureThreshold(), properties.getCircuitOpenDuration());
+
+        retries = Counter.builder("whisper.retries").description("Whisper attempts that were retried").register(meterRegistry);
+        Gauge.builder("whisper.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("0 = closed, 1 = half open, 2 = open")
+                .register(meterRegistry);
+        Gauge.builder("whisper.bulkhead.available", bulkhead, Semaphore::availablePermits).register(meterRegistry);
+    }
+
+    /**
+     * Transcribes the audio. The resource is read once per attempt, so it must be re-readable.
+     * @throws WhisperException if no transcript could be obtained.
+     */
+    public String transcribe(Resource audio) {
+        WhisperException lastFailure = null;
+        for (int attempt = 0; attempt <= properties.getMaxRetries(); attempt++) {
+            acquireBulkhead();
+            Attempt result;
+            try {
+                if (!circuitBreaker.tryAcquirePermission()) {
+                    record(Timer.start(meterRegistry), "circuit_open");
+                    throw lastFailure != null ? lastFailure
+                            : new WhisperException("Transcription service unavailable (circuit open)", true);
+                }
+                try {
+                    result = attempt(audio);
+                } catch (RuntimeException e) {
+                    // Every permitted call must report back, or a half-open circuit would wait forever
+                    circuitBreaker.onFailure();
+                    throw e;
+                }
+            } finally {
+                // Held per attempt only, never while waiting to retry
+                bulkhead.release();
+            }
+            if (result.transcript != null) {
+                circuitBreaker.onSuccess();
+                return result.transcript;
+            }
+            if (!result.failure.isTransientFailure()) {
+                // The request itself was bad; the upstream is healthy
+                circuitBreaker.onSuccess();
+                throw result.failure;
+            }
+
+            circuitBreaker.onFailure();
+            lastFailure = result.failure;
+            if (result.retryAfter != null && result.retryAfter.compareTo(properties.getRetryMaxDelay()) > 0) {
+                // The server wants a longer pause than we hold a caller for; an earlier retry would be refused too
+                throw lastFailure;
+            }
+            if (attempt < properties.getMaxRetries()) {
+                retries.increment();
+                sleep(backoff(attempt, result.retryAfter));
+            }
+        }
+        throw lastFailure;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    // Shared with the reactive client: both call the same upstream
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private void acquireBulkhead() {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(properties.getBulkheadWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WhisperException("Interrupted while waiting for a transcription slot", true, e);
+        }
+        if (!acquired) {
+            record(Timer.start(meterRegistry), "rejected");
+            throw new WhisperException("Too many concurrent transcription requests", true);
+        }
+    }
+
+    private Attempt attempt(Resource audio) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", audio);
+        body.add("model", "whisper-1");
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Attempt result = restClient.post()
+                    .uri(properties.getUrl())
+                    .headers(headers -> headers.setBearerAuth(properties.getKey()))
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(body)
+                    .exchange((request, response) -> {
+                        int status = response.getStatusCode().value();
+                        String responseBody = new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                        if (status >= 200 && status < 300) {
+                            String transcript = parseTranscript(responseBody);
+                            return transcript != null ? Attempt.success(transcript)
+                                    : Attempt.failure(new WhisperException("No transcript in OpenAI response", false), null);
+                        }
+                        boolean transientFailure = status == 429 || status >= 500;
+                        return Attempt.failure(new WhisperException("OpenAI API error " + status + ": " + responseBody,
+                                transientFailure), retryAfter(response.getHeaders()));
+                    });
+            record(sample, result.transcript != null ? "success" : outcomeOf(result.failure));
+            return result;
+        } catch (ResourceAccessException e) {
+            // Connection failures and timeouts
+            record(sample, "io_error");
+            return Attempt.failure(new WhisperException("Could not reach the transcription service", true, e), null);
+        }
+    }
+
+    private String parseTranscript(String responseBody) {
+        try {
+            JsonNode text = objectMapper.readTree(responseBody).get("text");
+            return text != null ? text.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Full jitter: a random delay up to the exponential cap, but never sooner than the server asked for
+    private Duration backoff(int attempt, Duration retryAfter) {
+        long capMillis = Math.min(properties.getRetryMaxDelay().toMillis(),
+                properties.getRetryBaseDelay().toMillis() << Math.min(attempt, 20));
+        long delay = ThreadLocalRandom.current().nextLong(capMillis + 1);
+        if (retryAfter != null) {
+            delay = Math.max(delay, retryAfter.toMillis());
+        }
+        return Duration.ofMillis(delay);
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            // HTTP-date form; fall back to our own backoff
+            return null;
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WhisperException("Interrupted while retrying transcription", true, e);
+        }
+    }
+
+    private static String outcomeOf(WhisperException failure) {
+        return failure.isTransientFailure() ? "server_error" : "client_error";
+    }
+
+    private void record(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("whisper.requests")
+                .description("Whisper transcription attempts")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        if (!"success".equals(outcome)) {
+            log.debug("Whisper attempt finished with outcome {}", outcome);
+        }
+    }
+
+    // Outcome of a single HTTP attempt
+    private static final class Attempt {
+        final String transcript;
+        final WhisperException failure;
+        final Duration retryAfter;
+
+        private Attempt(String transcript, WhisperException failure, Duration retryAfter) {
+            this.transcript = transcript;
+            this.failure = failure;
+            this.retryAfter = retryAfter;
+        }
+
+        static Attempt success(String transcript) {
+            return new Attempt(transcript, null, null);
+        }
+
+        static Attempt failure(WhisperException failure, Duration retryAfter) {
+            return new Attempt(null, failure, retryAfter);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.backened.verisay.transcription;
+
+/**
+ * A transcription request that did not produce a transcript: an upstream error after retries,
+ * an open circuit, or a full bulkhead.
+ */
+public class WhisperException extends RuntimeException {
+
+    // Whether trying again later could succeed (e.g. 429, 5xx, circuit open)
+    private final boolean transientFailure;
+
+    public WhisperException(String message, boolean transientFailure) {
+        super(message);
+        this.transientFailure = transientFailure;
+    }
+
+    public WhisperException(String message, boolean transientFailure, Throwable cause) {
+        super(message, cause);
+        this.transientFailure = transientFailure;
+    }
+
+    public boolean isTransientFailure() {
+        return transientFailure;
+    }
+}
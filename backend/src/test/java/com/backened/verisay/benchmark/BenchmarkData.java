@@ -0,0 +1,141 @@
+package com.backened.verisay.benchmark;
+
+import com.backened.verisay.extraction.AgreementFieldRules;
+import com.backened.verisay.extraction.FieldRule;
+import com.backened.verisay.model.Agreement;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates realistic agreement content for the benchmarks: agreementData documents, titles and
+ * spoken-style transcripts, for every agreement type. Seeded, so every run measures the same data.
+ */
+public final class BenchmarkData {
+
+    private static final String[] FIRST_NAMES = {"Ramesh", "Priya", "Amit", "Sunita", "Rahul", "Anjali", "Vikram",
+            "Meera", "Arjun", "Kavya", "Rohan", "Neha", "Sanjay", "Pooja", "Karan", "Divya", "Aditya", "Isha"};
+    private static final String[] LAST_NAMES = {"Kumar", "Sharma", "Shah", "Patel", "Reddy", "Iyer", "Gupta",
+            "Singh", "Nair", "Mehta", "Joshi", "Rao", "Verma", "Das", "Menon", "Kapoor"};
+    private static final String[] STREETS = {"MG Road", "Park Street", "Linking Road", "Brigade Road", "Anna Salai",
+            "FC Road", "Residency Road", "Church Street"};
+    private static final String[] CITIES = {"Bengaluru", "Mumbai", "Chennai", "Pune", "Hyderabad", "Kolkata", "Delhi"};
+    private static final String[] BUSINESSES = {"Sunrise Traders", "Globex Corp", "Blue Lotus Foods",
+            "Northwind Logistics", "Acme Textiles", "Greenleaf Organics"};
+    // Small talk between the parts of a recording that mention fields
+    private static final String[] FILLER = {
+            "Okay, so let me just go over this once more so that everybody is on the same page.",
+            "We discussed this last week and both sides agreed that it is fair.",
+            "Can you hear me clearly, the connection was a bit patchy a moment ago.",
+            "Yes, that is correct, please note it down exactly as I say it.",
+            "I think we should also mention that either side can ask questions before signing.",
+            "Let me check my notes, one second, yes, here it is.",
+            "Both of us have read the draft and there are no objections so far.",
+            "We will keep a copy of this recording for our records as well."};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * A document with a value for every field of the type, as completeAgreementFields would store it.
+     */
+    public static Map<String, Object> agreementData(Agreement.AgreementType type, Random random) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (FieldRule rule : AgreementFieldRules.forType(type)) {
+            data.put(rule.getKey(), value(rule, random));
+        }
+        return data;
+    }
+
+    public static String title(Agreement.AgreementType type, Random random) {
+        String party = random.nextBoolean() ? name(random) : pick(BUSINESSES, random);
+        return switch (type) {
+            case RENTAL -> "Rental agreement for " + (10 + random.nextInt(300)) + " " + pick(STREETS, random) + " with " + party;
+            case LOAN -> "Loan to " + party;
+            case BUSINESS -> "Partnership with " + party;
+            case FREELANCING -> "Freelance project for " + party;
+        };
+    }
+
+    /**
+     * A transcript of about {@code length} characters: small talk with every field of the type mentioned once,
+     * spread over the whole recording, the way parties dictate an agreement.
+     */
+    public static String transcript(Agreement.AgreementType type, int length, Random random) {
+        List<FieldRule> rules = AgreementFieldRules.forType(type);
+        StringBuilder transcript = new StringBuilder(length + 200);
+        int mentioned = 0;
+        while (transcript.length() < length || mentioned < rules.size()) {
+            // Fields are spaced out so the last ones come near the end
+            boolean dueNext = mentioned < rules.size()
+                    && transcript.length() >= (long) length * mentioned / rules.size();
+            if (dueNext) {
+                FieldRule rule = rules.get(mentioned++);
+                String phrase = rule.getPhrases().get(random.nextInt(rule.getPhrases().size()));
+                transcript.append("The ").append(phrase).append(" is ").append(spoken(rule, random)).append(". ");
+            } else {
+                transcript.append(pick(FILLER, random)).append(' ');
+            }
+        }
+        return transcript.toString();
+    }
+
+    public static String name(Random random) {
+        return pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random);
+    }
+
+    // --- helpers ---
+
+    // The value as stored in agreementData, i.e. already normalised
+    private static Object value(FieldRule rule, Random random) {
+        return switch (rule.getType()) {
+            case NAME -> name(random);
+            case TEXT -> text(rule, random);
+            case AMOUNT -> String.valueOf((1 + random.nextInt(500)) * 1000);
+            case PERCENT -> String.valueOf(6 + random.nextInt(12)) + "." + random.nextInt(10);
+            case DURATION_MONTHS -> String.valueOf(6 + random.nextInt(54));
+            case DURATION_DAYS -> String.valueOf(15 + random.nextInt(75));
+            case DATE -> date(random).toString();
+            case RATIO -> (1 + random.nextInt(4)) + ":" + (1 + random.nextInt(4));
+        };
+    }
+
+    // The value as someone would say it
+    private static String spoken(FieldRule rule, Random random) {
+        return switch (rule.getType()) {
+            case AMOUNT -> "Rs. " + String.format("%,d", (1 + random.nextInt(500)) * 1000);
+            case PERCENT -> (6 + random.nextInt(12)) + " percent";
+            case DURATION_MONTHS -> (6 + random.nextInt(54)) + " months";
+            case DURATION_DAYS -> (15 + random.nextInt(75)) + " days";
+            case DATE -> {
+                LocalDate date = date(random);
+                yield date.getDayOfMonth() + " " + date.getMonth().name().charAt(0)
+                        + date.getMonth().name().substring(1).toLowerCase() + " " + date.getYear();
+            }
+            case RATIO -> (1 + random.nextInt(4)) + " to " + (1 + random.nextInt(4));
+            default -> String.valueOf(value(rule, random));
+        };
+    }
+
+    private static String text(FieldRule rule, Random random) {
+        String key = rule.getKey();
+        if (key.toLowerCase().contains("address")) {
+            return (1 + random.nextInt(300)) + " " + pick(STREETS, random) + ", " + pick(CITIES, random);
+        }
+        if (key.equals("businessName")) {
+            return pick(BUSINESSES, random);
+        }
+        return "as agreed between both parties in " + pick(CITIES, random);
+    }
+
+    private static LocalDate date(Random random) {
+        return LocalDate.of(2024, 1, 1).plusDays(random.nextInt(1_000));
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,100 @@
+package com.backened.verisay.config;
+
+import com.backened.verisay.config.AgreementDataColumnMigrator.ExistingColumn;
+import com.backened.verisay.repository.AgreementDataColumns;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementDataColumnMigratorTests {
+
+    private static final AgreementDataColumns.Column RENT = AgreementDataColumns.all().stream()
+            .filter(column -> column.fieldKey().equals("rentAmount"))
+            .findFirst()
+            .orElseThrow();
+
+    @Test
+    void addsEveryColumnWithItsIndexToAFreshTable() {
+        List<String> ddl = AgreementDataColumnMigrator.plan(Map.of(), Map.of());
+
+        assertEquals(2 * AgreementDataColumns.all().size(), ddl.size());
+        assertTrue(ddl.contains("ALTER TABLE agreements ADD COLUMN jf_rent_amount " + RENT.definition()
+                + ", ALGORITHM=INSTANT"));
+        assertTrue(ddl.contains("ALTER TABLE agreements ADD INDEX idx_agreements_jf_rent_amount"
+                + " (user_id, agreement_type, jf_rent_amount), ALGORITHM=INPLACE, LOCK=NONE"));
+    }
+
+    @Test
+    void leavesAnUpToDateTableAlone() {
+        assertEquals(List.of(), AgreementDataColumnMigrator.plan(upToDateColumns(), upToDateIndexes()));
+    }
+
+    @Test
+    void redefinesAColumnWhoseExpressionChanged() {
+        Map<String, ExistingColumn> columns = upToDateColumns();
+        // Same type, created from another expression
+        columns.put(RENT.name(), new ExistingColumn("decimal(15,2)", "jf_0000000000000000"));
+
+        List<String> ddl = AgreementDataColumnMigrator.plan(columns, upToDateIndexes());
+
+        assertEquals(List.of(
+                "ALTER TABLE agreements DROP COLUMN jf_rent_amount",
+                "ALTER TABLE agreements ADD COLUMN jf_rent_amount " + RENT.definition(),
+                "ALTER TABLE agreements ADD INDEX idx_agreements_jf_rent_amount"
+                        + " (user_id, agreement_type, jf_rent_amount), ALGORITHM=INPLACE, LOCK=NONE"), ddl);
+    }
+
+    @Test
+    void redefinesAColumnWhoseTypeChanged() {
+        Map<String, ExistingColumn> columns = upToDateColumns();
+        columns.put(RENT.name(), new ExistingColumn("decimal(12,2)", RENT.fingerprint()));
+
+        List<String> ddl = AgreementDataColumnMigrator.plan(columns, upToDateIndexes());
+
+        assertEquals("ALTER TABLE agreements DROP COLUMN jf_rent_amount", ddl.get(0));
+        assertEquals(3, ddl.size());
+    }
+
+    @Test
+    void rebuildsAnIndexWithoutTheUserColumn() {
+        Map<String, List<String>> indexes = upToDateIndexes();
+        indexes.put(RENT.indexName(), List.of("agreement_type", RENT.name()));
+
+        assertEquals(List.of("ALTER TABLE agreements DROP INDEX idx_agreements_jf_rent_amount, ADD INDEX"
+                        + " idx_agreements_jf_rent_amount (user_id, agreement_type, jf_rent_amount), ALGORITHM=INPLACE, LOCK=NONE"),
+                AgreementDataColumnMigrator.plan(upToDateColumns(), indexes));
+    }
+
+    @Test
+    void dropsColumnsOfFieldsNoLongerIndexed() {
+        Map<String, ExistingColumn> columns = upToDateColumns();
+        columns.put("jf_old_field", new ExistingColumn("varchar(255)", "jf_0000000000000000"));
+
+        assertEquals(List.of("ALTER TABLE agreements DROP COLUMN jf_old_field"),
+                AgreementDataColumnMigrator.plan(columns, upToDateIndexes()));
+    }
+
+    // --- helpers ---
+
+    // As information_schema reports them: types in lower case
+    private static Map<String, ExistingColumn> upToDateColumns() {
+        Map<String, ExistingColumn> columns = new HashMap<>();
+        for (AgreementDataColumns.Column column : AgreementDataColumns.all()) {
+            columns.put(column.name(), new ExistingColumn(column.sqlType().toLowerCase(), column.fingerprint()));
+        }
+        return columns;
+    }
+
+    private static Map<String, List<String>> upToDateIndexes() {
+        Map<String, List<String>> indexes = new HashMap<>();
+        indexes.put("PRIMARY", List.of("id"));
+        for (AgreementDataColumns.Column column : AgreementDataColumns.all()) {
+            indexes.put(column.indexName(), column.indexColumns());
+        }
+        return indexes;
+    }
+}
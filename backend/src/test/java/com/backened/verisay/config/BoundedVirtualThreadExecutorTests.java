@@ -0,0 +1,96 @@
+package com.backened.verisay.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EnabledForJreRange(min = JRE.JAVA_21)
+class BoundedVirtualThreadExecutorTests {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedVirtualThreadExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    void runsOnVirtualThreadsWithinTheRunningLimit() throws InterruptedException {
+        executor = new BoundedVirtualThreadExecutor("test-", 2, 10, false);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxSeen = new AtomicInteger();
+        AtomicReference<Boolean> virtual = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(6);
+
+        for (int i = 0; i < 6; i++) {
+            executor.execute(() -> {
+                virtual.set(isVirtual(Thread.currentThread()));
+                maxSeen.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(20);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(virtual.get());
+        assertEquals(2, maxSeen.get());
+    }
+
+    @Test
+    void rejectsOnceRunningAndWaitingSlotsAreTaken() {
+        executor = new BoundedVirtualThreadExecutor("test-", 1, 1, false);
+        executor.execute(this::awaitRelease);
+        executor.execute(this::awaitRelease);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(this::awaitRelease));
+    }
+
+    @Test
+    void callerRunsWhenFullIfConfigured() {
+        executor = new BoundedVirtualThreadExecutor("test-", 1, 0, true);
+        executor.execute(this::awaitRelease);
+
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertSame(caller, ranOn.get());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Thread.isVirtual() is Java 21 API; the project compiles for 17
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
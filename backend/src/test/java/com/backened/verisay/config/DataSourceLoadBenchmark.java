@@ -0,0 +1,132 @@
+package com.backened.verisay.config;
+
+import com.backened.verisay.benchmark.BenchmarkData;
+import com.backened.verisay.controller.AgreementController;
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.User;
+import com.backened.verisay.repository.UserRepository;
+import com.backened.verisay.service.AgreementService;
+import com.backened.verisay.service.AgreementServiceTestContext;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.handler.WebRequestHandlerInterceptorAdapter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Latency distribution of GET /api/agreements/{id} with {@value #CLIENTS} requests in flight, on a Hikari pool
+ * ({@link DataSourceConfig}) and on the DriverManagerDataSource it replaced, which opens a connection per
+ * transaction. Read the p0.99 line of each score.
+ * <p>
+ * Requests go through the controller and the real services and JPA mapping, with the session open for the whole
+ * request as spring.jpa.open-in-view leaves it in the app, so the lazy collections load while the response is
+ * written. The second-level cache is off, so every request reads the database. That is an H2 server in MySQL mode
+ * reached over TCP: opening a connection costs a round trip and a new session there, though less than a MySQL
+ * handshake, so the gap on MySQL is wider than here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(DataSourceLoadBenchmark.CLIENTS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class DataSourceLoadBenchmark {
+
+    static final int CLIENTS = 32;
+    private static final int AGREEMENTS = 1_000;
+    // spring.datasource.hikari.maximum-pool-size's default in DataSourceConfig
+    private static final int POOL_SIZE = 20;
+
+    @Param({"pooled", "driverManager"})
+    String dataSource;
+
+    private Server database;
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + database.getPort() + "/mem:load-benchmark;MODE=MySQL;"
+                + "DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ALIAS JSON_MERGE_PATCH FOR 'com.backened.verisay.service.H2JsonFunctions.mergePatch'");
+        }
+        String dataSourceType = dataSource.equals("pooled") ? HikariDataSource.class.getName() : DriverManagerDataSource.class.getName();
+        context = AgreementServiceTestContext.start(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.type=" + dataSourceType,
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "--cache.second-level.enabled=false");
+
+        AgreementService agreementService = context.getBean(AgreementService.class);
+        AgreementController controller = new AgreementController();
+        ReflectionTestUtils.setField(controller, "agreementService", agreementService);
+        OpenEntityManagerInViewInterceptor openInView = new OpenEntityManagerInViewInterceptor();
+        openInView.setEntityManagerFactory(context.getBean(EntityManagerFactory.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).addInterceptors(new WebRequestHandlerInterceptorAdapter(openInView)).build();
+
+        Integer userId = context.getBean(UserRepository.class)
+                .save(new User(null, UUID.randomUUID().toString(), null, "Benchmark", LocalDateTime.now(), null))
+                .getId();
+        Random random = new Random(42);
+        ids = new long[AGREEMENTS];
+        for (int i = 0; i < AGREEMENTS; i++) {
+            Agreement.AgreementType type = Agreement.AgreementType.values()[i % Agreement.AgreementType.values().length];
+            Agreement agreement = agreementService.createInitialAgreement(userId, type, BenchmarkData.title(type, random));
+            agreementService.patchAgreementData(agreement.getId(), BenchmarkData.agreementData(type, random), null);
+            ids[i] = agreement.getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        database.stop();
+    }
+
+    @Benchmark
+    public MvcResult getAgreement() throws Exception {
+        long id = ids[ThreadLocalRandom.current().nextInt(AGREEMENTS)];
+        MvcResult result = mockMvc.perform(get("/api/agreements/{id}", id)).andReturn();
+        if (result.getResponse().getStatus() != 200) {
+            throw new IllegalStateException("GET /api/agreements/" + id + " answered " + result.getResponse().getStatus());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package com.backened.verisay.config;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.User;
+import com.backened.verisay.repository.UserRepository;
+import com.backened.verisay.service.AgreementService;
+import com.backened.verisay.service.AgreementServiceTestContext;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cached agreements against H2: every way an agreement changes must reach the next read, cache or not.
+ */
+@SpringBootTest(classes = AgreementServiceTestContext.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SecondLevelCacheConfigTests {
+
+    @Autowired private AgreementService agreementService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private MeterBinder secondLevelCacheMetrics;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private Agreement agreement;
+
+    @BeforeEach
+    void setUp() {
+        secondLevelCacheMetrics.bindTo(registry);
+        User user = userRepository.save(new User(null, UUID.randomUUID().toString(), null, "Cache Tester",
+                LocalDateTime.now(), null));
+        agreement = agreementService.createInitialAgreement(user.getId(), Agreement.AgreementType.RENTAL, "Flat 4B");
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheCache() {
+        agreementService.findAgreementById(agreement.getId());
+        double hits = requests("hit");
+
+        agreementService.findAgreementById(agreement.getId());
+
+        assertEquals(hits + 1, requests("hit"));
+    }
+
+    @Test
+    void everyStatusTransitionReachesTheNextRead() {
+        agreementService.findAgreementById(agreement.getId());
+
+        agreementService.completeAgreementFields(agreement.getId(), Map.of("rentAmount", "15000"), null);
+        double hits = requests("hit");
+        Agreement completed = agreementService.findAgreementById(agreement.getId());
+        assertEquals(Agreement.AgreementStatus.REVIEW, completed.getStatus());
+        assertEquals(Map.of("rentAmount", "15000"), completed.getAgreementData());
+        // Updated in place by the write, so still a hit
+        assertEquals(hits + 1, requests("hit"));
+
+        // Written in SQL, past Hibernate: the entry is invalidated and the next read goes to the database
+        agreementService.patchAgreementData(agreement.getId(), Map.of("depositAmount", "50000"), null);
+        double misses = requests("miss");
+        Agreement patched = agreementService.findAgreementById(agreement.getId());
+        assertEquals(Map.of("rentAmount", "15000", "depositAmount", "50000"), patched.getAgreementData());
+        assertEquals(completed.getVersion() + 1, patched.getVersion());
+        assertEquals(misses + 1, requests("miss"));
+
+        agreementService.finalizeAgreement(agreement.getId());
+        Agreement signed = agreementService.findAgreementById(agreement.getId());
+        assertEquals(Agreement.AgreementStatus.SIGNED, signed.getStatus());
+        assertNotNull(signed.getSignedAt());
+        assertEquals(Map.of("rentAmount", "15000", "depositAmount", "50000"), signed.getAgreementData());
+    }
+
+    // --- helpers ---
+
+    private double requests(String result) {
+        return registry.get("hibernate.second.level.cache.requests")
+                .tags("region", SecondLevelCacheConfig.AGREEMENTS, "result", result)
+                .functionCounter()
+                .count();
+    }
+}
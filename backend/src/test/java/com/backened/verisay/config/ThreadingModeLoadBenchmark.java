@@ -0,0 +1,199 @@
+package com.backened.verisay.config;
+
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.LocalFileStorage;
+import com.backened.verisay.storage.StorageResource;
+import com.backened.verisay.storage.StoredFile;
+import com.backened.verisay.transcription.WhisperClient;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Upload→transcribe flows per second a node completes with {@code flows} of them in flight at once,
+ * on platform threads and on virtual threads ({@code spring.threads.virtual.enabled}).
+ * <p>
+ * A flow is what a recording upload costs the node: the request thread writes the upload to local storage and
+ * hands it to the transcription executor, which sends it to a stub Whisper answering after
+ * {@link #WHISPER_LATENCY_MILLIS}. Request threads are Tomcat's default 200 in platform mode and one per request in
+ * virtual mode. The transcription executor comes from {@link AsyncConfig}, sized so neither mode rejects a flow,
+ * so the scores differ only by what each thread model costs. Compare them as {@code flows} grows.
+ * <p>
+ * Virtual mode needs Java 21+; on an older JVM its runs fail at setup rather than quietly measure platform threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ThreadingModeLoadBenchmark {
+
+    static final long WHISPER_LATENCY_MILLIS = 100;
+    // server.tomcat.threads.max's default
+    private static final int TOMCAT_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    String mode;
+
+    @Param({"100", "1000"})
+    int flows;
+
+    private HttpServer whisperStub;
+    private Path uploadDir;
+    private LocalFileStorage storage;
+    private WhisperClient whisperClient;
+    private TaskExecutor requestThreads;
+    private TaskExecutor transcriptionExecutor;
+    private byte[] recording;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", String.valueOf(mode.equals("virtual")));
+        if (mode.equals("virtual") && !Threading.VIRTUAL.isActive(environment)) {
+            throw new IllegalStateException("Virtual mode needs Java 21+, this is Java " + Runtime.version().feature());
+        }
+
+        // Every flow may connect at once; a short accept backlog would time connects out
+        whisperStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        whisperStub.createContext("/v1/audio/transcriptions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            sleep(WHISPER_LATENCY_MILLIS);
+            byte[] body = "{\"text\":\"the rent is 15000 rupees\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        whisperStub.setExecutor(Executors.newCachedThreadPool());
+        whisperStub.start();
+
+        OpenAIProperties properties = new OpenAIProperties();
+        properties.setUrl("http://127.0.0.1:" + whisperStub.getAddress().getPort() + "/v1/audio/transcriptions");
+        properties.setKey("benchmark-key");
+        properties.setMaxConcurrentRequests(flows);
+        whisperClient = new WhisperClient();
+        ReflectionTestUtils.setField(whisperClient, "properties", properties);
+        ReflectionTestUtils.setField(whisperClient, "meterRegistry", new SimpleMeterRegistry());
+        whisperClient.init();
+
+        uploadDir = Files.createTempDirectory("verisay-load");
+        storage = new LocalFileStorage();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        storage.init();
+
+        AsyncConfig asyncConfig = new AsyncConfig();
+        ReflectionTestUtils.setField(asyncConfig, "environment", environment);
+        ReflectionTestUtils.setField(asyncConfig, "transcriptionCoreSize", flows);
+        ReflectionTestUtils.setField(asyncConfig, "transcriptionMaxSize", flows);
+        ReflectionTestUtils.setField(asyncConfig, "transcriptionQueueCapacity", flows);
+        transcriptionExecutor = asyncConfig.transcriptionExecutor();
+
+        if (mode.equals("virtual")) {
+            SimpleAsyncTaskExecutor perRequest = new SimpleAsyncTaskExecutor("request-");
+            perRequest.setVirtualThreads(true);
+            requestThreads = perRequest;
+        } else {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(TOMCAT_THREADS);
+            pool.setMaxPoolSize(TOMCAT_THREADS);
+            pool.setThreadNamePrefix("request-");
+            pool.initialize();
+            requestThreads = pool;
+        }
+
+        // A minute of 128 kbps MP3 is about 1 MB; a short clip keeps the disk out of the way
+        recording = new byte[64 * 1024];
+        new Random(42).nextBytes(recording);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        for (TaskExecutor executor : new TaskExecutor[]{requestThreads, transcriptionExecutor}) {
+            if (executor instanceof DisposableBean disposable) {
+                disposable.destroy();
+            } else if (executor instanceof SimpleAsyncTaskExecutor simple) {
+                simple.close();
+            }
+        }
+        whisperStub.stop(0);
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+
+    /**
+     * One op is {@code flows} flows started together and all finished; the score times {@code flows} is flows per second.
+     */
+    @Benchmark
+    public void uploadThenTranscribe() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(flows);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < flows; i++) {
+            requestThreads.execute(() -> {
+                try {
+                    StoredFile stored = storage.store(new ByteArrayInputStream(recording), "recording.mp3", "audio");
+                    FileStat stat = storage.stat(stored.getPath()).orElseThrow();
+                    transcriptionExecutor.execute(() -> {
+                        try {
+                            whisperClient.transcribe(new StorageResource(storage, stat));
+                            storage.delete(stat.getPath());
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (failure.get() != null) {
+            throw new IllegalStateException("A flow failed", failure.get());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.backened.verisay.controller;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.User;
+import com.backened.verisay.repository.AgreementRepository;
+import com.backened.verisay.repository.UserRepository;
+import com.backened.verisay.service.AgreementService;
+import com.backened.verisay.service.AgreementServiceTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PATCH /{agreementId}/data against H2 in MySQL mode: the merge itself, and the responses for a stale
+ * If-Match and a signed agreement.
+ */
+@SpringBootTest(classes = AgreementServiceTestContext.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class AgreementDataPatchTests {
+
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+
+    @Autowired private AgreementService agreementService;
+    @Autowired private AgreementRepository agreementRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+    private Agreement agreement;
+
+    @BeforeEach
+    void setUp() {
+        AgreementController controller = new AgreementController();
+        ReflectionTestUtils.setField(controller, "agreementService", agreementService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        User user = userRepository.save(new User(null, UUID.randomUUID().toString(), null, "Patch Tester",
+                LocalDateTime.now(), null));
+        agreement = agreementService.createInitialAgreement(user.getId(), Agreement.AgreementType.RENTAL, "Flat 4B");
+    }
+
+    @Test
+    void changesAndAddsFieldsAndANullRemovesOne() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("rentAmount", "15000");
+        fields.put("landlordName", "Ramesh Kumar");
+        fields.put("oldNote", "call before visiting");
+        long version = agreementService.patchAgreementData(agreement.getId(), fields, null);
+
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("rentAmount", "16000");
+        patch.put("depositAmount", "50000");
+        patch.put("oldNote", null);
+        long patched = agreementService.patchAgreementData(agreement.getId(), patch, version);
+
+        assertEquals(version + 1, patched);
+        assertEquals(Map.of("rentAmount", "16000", "landlordName", "Ramesh Kumar", "depositAmount", "50000"),
+                storedData());
+    }
+
+    @Test
+    void mergesIntoAnAgreementWithoutData() {
+        jdbcTemplate.update("UPDATE agreements SET agreement_data = NULL WHERE id = ?", agreement.getId());
+
+        agreementService.patchAgreementData(agreement.getId(), Map.of("rentAmount", "15000"), null);
+
+        assertEquals(Map.of("rentAmount", "15000"), storedData());
+    }
+
+    @Test
+    void aStaleVersionIsRefusedAndChangesNothing() {
+        long version = agreementService.patchAgreementData(agreement.getId(), Map.of("rentAmount", "15000"), null);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> agreementService.patchAgreementData(agreement.getId(), Map.of("rentAmount", "1"), version - 1));
+        assertEquals(Map.of("rentAmount", "15000"), storedData());
+    }
+
+    @Test
+    void answersWithTheNewVersionAsETag() throws Exception {
+        long version = currentVersion();
+
+        mockMvc.perform(patch("/api/agreements/{id}/data", agreement.getId())
+                        .contentType(MERGE_PATCH)
+                        .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                        .content("{\"rentAmount\": \"15000\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""))
+                .andExpect(jsonPath("$.version").value(version + 1));
+    }
+
+    @Test
+    void aStaleIfMatchIsAPreconditionFailure() throws Exception {
+        long version = currentVersion();
+        agreementService.patchAgreementData(agreement.getId(), Map.of("rentAmount", "15000"), version);
+
+        mockMvc.perform(patch("/api/agreements/{id}/data", agreement.getId())
+                        .contentType(MERGE_PATCH)
+                        .header(HttpHeaders.IF_MATCH, "W/\"" + version + "\"")
+                        .content("{\"rentAmount\": \"1\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        assertEquals(Map.of("rentAmount", "15000"), storedData());
+    }
+
+    @Test
+    void aSignedAgreementIsAConflict() throws Exception {
+        agreementService.patchAgreementData(agreement.getId(), Map.of("rentAmount", "15000"), null);
+        agreementService.finalizeAgreement(agreement.getId());
+
+        mockMvc.perform(patch("/api/agreements/{id}/data", agreement.getId())
+                        .contentType(MERGE_PATCH)
+                        .content("{\"rentAmount\": \"1\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Agreement " + agreement.getId()
+                        + " is signed and can no longer be edited"));
+
+        assertEquals(Map.of("rentAmount", "15000"), storedData());
+    }
+
+    // --- helpers ---
+
+    private Map<String, Object> storedData() {
+        return agreementRepository.findById(agreement.getId()).orElseThrow().getAgreementData();
+    }
+
+    private long currentVersion() {
+        return agreementRepository.findVersionById(agreement.getId()).orElseThrow().getVersion();
+    }
+}
@@ -0,0 +1,179 @@
+package com.backened.verisay.controller;
+
+import com.backened.verisay.dto.AgreementSummary;
+import com.backened.verisay.dto.AgreementSummaryPage;
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.User;
+import com.backened.verisay.repository.AgreementRepository;
+import com.backened.verisay.repository.UserRepository;
+import com.backened.verisay.service.AgreementService;
+import com.backened.verisay.service.AgreementServiceTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset-paginated summaries (GET /user/{userId}/summaries) against H2 in MySQL mode: walking the pages with the
+ * cursor, the id tiebreak between rows created at the same instant, the filters, and bad cursors.
+ */
+@SpringBootTest(classes = AgreementServiceTestContext.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class AgreementSummaryListingTests {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Autowired private AgreementService agreementService;
+    @Autowired private AgreementRepository agreementRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        AgreementController controller = new AgreementController();
+        ReflectionTestUtils.setField(controller, "agreementService", agreementService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        user = userRepository.save(new User(null, UUID.randomUUID().toString(), null, "Listing Tester",
+                LocalDateTime.now(), null));
+    }
+
+    @Test
+    void theCursorWalksEveryAgreementNewestFirst() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(agreement(Agreement.AgreementType.RENTAL, Agreement.AgreementStatus.IN_PROGRESS, NOON.plusMinutes(i)));
+        }
+
+        List<List<Long>> pages = walk(null, null, 2);
+
+        assertEquals(List.of(
+                List.of(created.get(4), created.get(3)),
+                List.of(created.get(2), created.get(1)),
+                List.of(created.get(0))), pages);
+    }
+
+    @Test
+    void agreementsCreatedAtTheSameInstantAreOrderedByIdAcrossPages() {
+        Long earlier = agreement(Agreement.AgreementType.LOAN, Agreement.AgreementStatus.IN_PROGRESS, NOON.minusSeconds(1));
+        List<Long> tied = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tied.add(agreement(Agreement.AgreementType.LOAN, Agreement.AgreementStatus.IN_PROGRESS, NOON));
+        }
+        List<Long> newestFirst = new ArrayList<>(tied);
+        Collections.reverse(newestFirst);
+        newestFirst.add(earlier);
+
+        // The first page ends inside the tie, so the cursor has to pick up at the next lower id
+        List<List<Long>> pages = walk(null, null, 3);
+
+        assertEquals(List.of(newestFirst.subList(0, 3), newestFirst.subList(3, 5)), pages);
+    }
+
+    @Test
+    void filtersByStatusAndType() {
+        Long rentalInProgress = agreement(Agreement.AgreementType.RENTAL, Agreement.AgreementStatus.IN_PROGRESS, NOON);
+        Long rentalSigned = agreement(Agreement.AgreementType.RENTAL, Agreement.AgreementStatus.SIGNED, NOON.plusMinutes(1));
+        Long loanSigned = agreement(Agreement.AgreementType.LOAN, Agreement.AgreementStatus.SIGNED, NOON.plusMinutes(2));
+
+        assertEquals(List.of(List.of(loanSigned, rentalSigned)), walk(Agreement.AgreementStatus.SIGNED, null, 10));
+        assertEquals(List.of(List.of(rentalSigned, rentalInProgress)), walk(null, Agreement.AgreementType.RENTAL, 10));
+        assertEquals(List.of(List.of(rentalSigned)),
+                walk(Agreement.AgreementStatus.SIGNED, Agreement.AgreementType.RENTAL, 10));
+        // The filters carry over to the next page with the cursor
+        assertEquals(List.of(List.of(loanSigned), List.of(rentalSigned)), walk(Agreement.AgreementStatus.SIGNED, null, 1));
+    }
+
+    @Test
+    void onlyAnExtraRowMakesANextPage() {
+        for (int i = 0; i < 3; i++) {
+            agreement(Agreement.AgreementType.BUSINESS, Agreement.AgreementStatus.IN_PROGRESS, NOON.plusMinutes(i));
+        }
+
+        AgreementSummaryPage full = agreementService.listAgreementSummaries(user.getId(), null, null, null, 3);
+        AgreementSummaryPage partial = agreementService.listAgreementSummaries(user.getId(), null, null, null, 2);
+
+        assertEquals(3, full.getItems().size());
+        assertNull(full.getNextCursor());
+        assertEquals(2, partial.getItems().size());
+        assertNotNull(partial.getNextCursor());
+    }
+
+    @Test
+    void answersWithThePageAndItsCursor() throws Exception {
+        Long older = agreement(Agreement.AgreementType.FREELANCING, Agreement.AgreementStatus.IN_PROGRESS, NOON);
+        Long newer = agreement(Agreement.AgreementType.FREELANCING, Agreement.AgreementStatus.IN_PROGRESS, NOON.plusMinutes(1));
+        String cursor = agreementService.listAgreementSummaries(user.getId(), null, null, null, 1).getNextCursor();
+
+        mockMvc.perform(get("/api/agreements/user/{userId}/summaries", user.getId()).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(newer))
+                .andExpect(jsonPath("$.nextCursor").value(cursor));
+        mockMvc.perform(get("/api/agreements/user/{userId}/summaries", user.getId())
+                        .param("limit", "1")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(older))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void anInvalidCursorIsABadRequest() throws Exception {
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2026-03-01T12:00".getBytes(StandardCharsets.UTF_8));
+        String badDate = Base64.getUrlEncoder().encodeToString("yesterday|42".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of("not base64!", noSeparator, badDate)) {
+            mockMvc.perform(get("/api/agreements/user/{userId}/summaries", user.getId()).param("cursor", cursor))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("Invalid cursor: " + cursor));
+        }
+    }
+
+    // --- helpers ---
+
+    // Every page's ids, following nextCursor until there is none
+    private List<List<Long>> walk(Agreement.AgreementStatus status, Agreement.AgreementType type, int limit) {
+        List<List<Long>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            AgreementSummaryPage page = agreementService.listAgreementSummaries(user.getId(), status, type, cursor, limit);
+            pages.add(page.getItems().stream().map(AgreementSummary::getId).toList());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return pages;
+    }
+
+    private Long agreement(Agreement.AgreementType type, Agreement.AgreementStatus status, LocalDateTime createdAt) {
+        Agreement saved = agreementRepository.save(Agreement.builder()
+                .user(user)
+                .type(type)
+                .title(type + " " + createdAt)
+                .status(status)
+                .agreementData(Map.of())
+                .build());
+        // created_at is set on insert and never updated through JPA
+        jdbcTemplate.update("UPDATE agreements SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), saved.getId());
+        return saved.getId();
+    }
+}
@@ -0,0 +1,187 @@
+package com.backened.verisay.controller;
+
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.FileStorage;
+import com.backened.verisay.storage.InMemoryFileStorage;
+import com.backened.verisay.storage.LocalFileStorage;
+import com.backened.verisay.storage.StoredFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoredFileResponderTests {
+
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void withoutARangeTheWholeFileIsSent() throws Exception {
+        Stored stored = inMemory();
+
+        ResponseEntity<StreamingResponseBody> response = stored.respond(new MockHttpServletRequest());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(CONTENT.length, response.getHeaders().getContentLength());
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(new String(CONTENT, StandardCharsets.US_ASCII), body(response));
+    }
+
+    @Test
+    void aSingleRangeIsAnsweredWithPartialContent() throws Exception {
+        Stored stored = inMemory();
+
+        ResponseEntity<StreamingResponseBody> response = stored.respond(request("bytes=10-19", null));
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 10-19/36", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10, response.getHeaders().getContentLength());
+        assertEquals("abcdefghij", body(response));
+    }
+
+    @Test
+    void openAndSuffixRangesAreClampedToTheFile() throws Exception {
+        Stored stored = inMemory();
+
+        ResponseEntity<StreamingResponseBody> open = stored.respond(request("bytes=30-", null));
+        ResponseEntity<StreamingResponseBody> suffix = stored.respond(request("bytes=-4", null));
+        ResponseEntity<StreamingResponseBody> pastTheEnd = stored.respond(request("bytes=34-100", null));
+
+        assertEquals("bytes 30-35/36", open.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("uvwxyz", body(open));
+        assertEquals("wxyz", body(suffix));
+        assertEquals("bytes 34-35/36", pastTheEnd.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("yz", body(pastTheEnd));
+    }
+
+    @Test
+    void unsatisfiableOrMalformedRangesGet416() throws Exception {
+        Stored stored = inMemory();
+
+        for (String range : new String[] {"bytes=36-40", "bytes=20-10", "bytes=abc", "items=0-1"}) {
+            ResponseEntity<StreamingResponseBody> response = stored.respond(request(range, null));
+
+            assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode(), range);
+            assertEquals("bytes */36", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE), range);
+            assertNull(response.getBody(), range);
+        }
+    }
+
+    @Test
+    void ifRangeWithTheCurrentETagKeepsTheRange() throws Exception {
+        Stored stored = inMemory();
+
+        ResponseEntity<StreamingResponseBody> response = stored.respond(request("bytes=0-3", ETAG));
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("0123", body(response));
+    }
+
+    @Test
+    void ifRangeWithAStaleValidatorSendsTheWholeFile() throws Exception {
+        Stored stored = inMemory();
+
+        ResponseEntity<StreamingResponseBody> response = stored.respond(request("bytes=0-3", "\"v0\""));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(CONTENT.length, body(response).length());
+    }
+
+    @Test
+    void multipleRangesAreAnsweredWithTheWholeFile() throws Exception {
+        Stored stored = inMemory();
+
+        ResponseEntity<StreamingResponseBody> response = stored.respond(request("bytes=0-3,10-12", null));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(CONTENT.length, response.getHeaders().getContentLength());
+        assertEquals(new String(CONTENT, StandardCharsets.US_ASCII), body(response));
+    }
+
+    @Test
+    void localFilesAreHandedToSendfileWhenTheConnectorSupportsIt() throws Exception {
+        Stored stored = local();
+        MockHttpServletRequest request = request("bytes=10-19", null);
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        ResponseEntity<StreamingResponseBody> response = stored.respond(request);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(uploadDir.resolve(stored.stat().getPath()).toAbsolutePath().toString(),
+                request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        // Exclusive end
+        assertEquals(20L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void localFilesAreStreamedWithoutSendfileSupport() throws Exception {
+        Stored stored = local();
+        MockHttpServletRequest request = request("bytes=10-19", null);
+
+        ResponseEntity<StreamingResponseBody> response = stored.respond(request);
+
+        assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals("abcdefghij", body(response));
+    }
+
+    // --- helpers ---
+
+    private record Stored(StoredFileResponder responder, FileStat stat) {
+        ResponseEntity<StreamingResponseBody> respond(MockHttpServletRequest request) {
+            return responder.respond(request, stat, ETAG, MediaType.APPLICATION_PDF, "agreement-1.pdf");
+        }
+    }
+
+    private Stored inMemory() throws IOException {
+        return store(new InMemoryFileStorage());
+    }
+
+    private Stored local() throws IOException {
+        LocalFileStorage storage = new LocalFileStorage();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        storage.init();
+        return store(storage);
+    }
+
+    private static Stored store(FileStorage storage) throws IOException {
+        StoredFile stored = storage.store(new ByteArrayInputStream(CONTENT), "agreement-1.pdf", "pdfs");
+        StoredFileResponder responder = new StoredFileResponder();
+        ReflectionTestUtils.setField(responder, "fileStorage", storage);
+        return new Stored(responder, storage.stat(stored.getPath()).orElseThrow());
+    }
+
+    private static MockHttpServletRequest request(String range, String ifRange) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/agreements/1/pdf");
+        request.addHeader(HttpHeaders.RANGE, range);
+        if (ifRange != null) {
+            request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+        }
+        return request;
+    }
+
+    private static String body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
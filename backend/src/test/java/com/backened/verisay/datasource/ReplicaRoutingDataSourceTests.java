@@ -0,0 +1,163 @@
+package com.backened.verisay.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes between two embedded H2 databases, each holding a marker row naming itself.
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private JdbcTemplate replicaAdmin;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        replicaAdmin = new JdbcTemplate(replica);
+        replicaAdmin.execute("CREATE TABLE replica_status (Seconds_Behind_Source BIGINT)");
+        replicaAdmin.update("INSERT INTO replica_status VALUES (0)");
+
+        routing = new ReplicaRoutingDataSource(primary, Map.of("replica", replica),
+                "SELECT Seconds_Behind_Source FROM replica_status", "Seconds_Behind_Source", 2000);
+        routing.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToAHealthyReplica() {
+        routing.refreshReplicaHealth();
+
+        assertEquals("replica", readOnly.execute(status -> currentDatabase()));
+        assertEquals("primary", readWrite.execute(status -> currentDatabase()));
+        // Outside a transaction
+        assertEquals("primary", currentDatabase());
+    }
+
+    @Test
+    void replicasAreUnusedUntilTheirLagHasBeenChecked() {
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void laggingReplicaIsSkippedUntilItCatchesUp() {
+        replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = 30");
+        routing.refreshReplicaHealth();
+        assertTrue(routing.getHealthyReplicas().isEmpty());
+        assertEquals(30_000L, routing.getReplicaLagMillis().get("replica"));
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+
+        replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = 1");
+        routing.refreshReplicaHealth();
+        assertEquals("replica", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void stoppedReplicationTakesTheReplicaOutOfRotation() {
+        replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = NULL");
+        routing.refreshReplicaHealth();
+
+        assertTrue(routing.getHealthyReplicas().isEmpty());
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void recentlyWrittenAgreementIsReadFromThePrimary() {
+        routing.refreshReplicaHealth();
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker();
+        ReflectionTestUtils.setField(tracker, "windowMillis", 60_000L);
+
+        readWrite.executeWithoutResult(status -> tracker.recordWrite(42L, 7));
+
+        assertEquals("primary", readOnly.execute(status -> {
+            tracker.routeAgreementRead(42L);
+            return currentDatabase();
+        }));
+        assertEquals("primary", readOnly.execute(status -> {
+            tracker.routeUserRead(7);
+            return currentDatabase();
+        }));
+        // The pin ends with its transaction, and other agreements still read from the replica
+        assertEquals("replica", readOnly.execute(status -> {
+            tracker.routeAgreementRead(43L);
+            return currentDatabase();
+        }));
+    }
+
+    @Test
+    void writeIsOnlyRecordedOnceItsTransactionCommits() {
+        routing.refreshReplicaHealth();
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker();
+        ReflectionTestUtils.setField(tracker, "windowMillis", 60_000L);
+
+        readWrite.executeWithoutResult(status -> {
+            tracker.recordWrite(42L, 7);
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", readOnly.execute(status -> {
+            tracker.routeAgreementRead(42L);
+            return currentDatabase();
+        }));
+    }
+
+    @Test
+    void closingTheRoutingDataSourceClosesEveryPool() throws Exception {
+        HikariDataSource primary = pool("primary");
+        HikariDataSource replica = pool("replica");
+        ReplicaRoutingDataSource pools = new ReplicaRoutingDataSource(primary, Map.of("replica", replica),
+                "SELECT 0 AS lag", "lag", 2000);
+        pools.afterPropertiesSet();
+        // Starts both pools
+        new JdbcTemplate(primary).execute("SELECT 1");
+        new JdbcTemplate(replica).execute("SELECT 1");
+
+        pools.close();
+
+        assertTrue(primary.isClosed());
+        assertTrue(replica.isClosed());
+    }
+
+    private String currentDatabase() {
+        return jdbc.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static HikariDataSource pool(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        pool.setUsername("sa");
+        return pool;
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE marker (name VARCHAR(20))");
+        jdbc.update("INSERT INTO marker VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,72 @@
+package com.backened.verisay.extraction;
+
+import com.backened.verisay.benchmark.BenchmarkData;
+import com.backened.verisay.model.Agreement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-transcript extraction latency at realistic transcript sizes (a one-minute recording is ~1k characters,
+ * a long negotiation ~50k), for the precompiled single-pass extractor and for the old approach of compiling
+ * one regex per field on every call and scanning the transcript once per field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranscriptFieldExtractorBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    int transcriptLength;
+
+    @Param({"RENTAL", "LOAN"})
+    Agreement.AgreementType type;
+
+    private final TranscriptFieldExtractor extractor = new TranscriptFieldExtractor();
+    private String transcript;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        transcript = BenchmarkData.transcript(type, transcriptLength, new Random(42));
+    }
+
+    @Benchmark
+    public Map<String, Object> precompiledSinglePass() {
+        return extractor.extract(transcript, type);
+    }
+
+    @Benchmark
+    public Map<String, Object> recompiledPerField() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (FieldRule rule : AgreementFieldRules.forType(type)) {
+            StringJoiner phrases = new StringJoiner("|", "\\b(?:", ")\\b");
+            rule.getPhrases().forEach(phrase -> phrases.add(Pattern.quote(phrase)));
+            Matcher m = Pattern.compile(phrases + rule.getType().valuePattern().pattern(),
+                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE).matcher(transcript);
+            if (m.find()) {
+                fields.put(rule.getKey(), m.group());
+            }
+        }
+        return fields;
+    }
+}
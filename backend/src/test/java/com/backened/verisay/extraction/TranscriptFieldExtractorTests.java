@@ -0,0 +1,63 @@
+package com.backened.verisay.extraction;
+
+import com.backened.verisay.model.Agreement;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptFieldExtractorTests {
+
+    private final TranscriptFieldExtractor extractor = new TranscriptFieldExtractor();
+
+    @Test
+    void extractsAndNormalisesRentalFields() {
+        Map<String, Object> fields = extractor.extract(
+                "This is a rental agreement. The landlord's name is ramesh kumar and the tenant is Priya Sharma. "
+                        + "The property is located at 12 MG Road, Bengaluru. The monthly rent is Rs. 15,000 and the "
+                        + "security deposit will be 1.5 lakh rupees. The lease starts on 1st June 2025 and the lease "
+                        + "end date is 31/05/2026. Notice period of two months.",
+                Agreement.AgreementType.RENTAL);
+
+        assertEquals("Ramesh Kumar", fields.get("landlordName"));
+        assertEquals("Priya Sharma", fields.get("tenantName"));
+        assertEquals("12 MG Road, Bengaluru", fields.get("propertyAddress"));
+        assertEquals("15000", fields.get("rentAmount"));
+        assertEquals("150000", fields.get("securityDeposit"));
+        assertEquals("2025-06-01", fields.get("startDate"));
+        assertEquals("2026-05-31", fields.get("endDate"));
+        assertEquals("60", fields.get("noticePeriod"));
+    }
+
+    @Test
+    void extractsLoanFields() {
+        Map<String, Object> fields = extractor.extract(
+                "Loan agreement between lender Amit Shah and borrower Rahul. The loan amount is $20k at an interest "
+                        + "rate of 12.5 percent, repaid within two years, starting from June 5, 2025, end date 2027-06-05.",
+                Agreement.AgreementType.LOAN);
+
+        assertEquals("Amit Shah", fields.get("lenderName"));
+        assertEquals("Rahul", fields.get("borrowerName"));
+        assertEquals("20000", fields.get("loanAmount"));
+        assertEquals("12.5", fields.get("interestRate"));
+        assertEquals("24", fields.get("repaymentPeriod"));
+        assertEquals("2025-06-05", fields.get("startDate"));
+        assertEquals("2027-06-05", fields.get("endDate"));
+    }
+
+    @Test
+    void leavesOutFieldsThatAreNotMentioned() {
+        Map<String, Object> fields = extractor.extract("The client is Globex Corp.", Agreement.AgreementType.FREELANCING);
+
+        assertEquals(Map.of("clientName", "Globex Corp"), fields);
+        assertTrue(extractor.extract("", Agreement.AgreementType.BUSINESS).isEmpty());
+    }
+
+    @Test
+    void requiredFieldsFollowTheFormDefinitions() {
+        assertEquals(List.of("businessName", "partnerName", "businessType", "investmentAmount", "profitSharingRatio", "startDate"),
+                extractor.requiredFields(Agreement.AgreementType.BUSINESS));
+    }
+}
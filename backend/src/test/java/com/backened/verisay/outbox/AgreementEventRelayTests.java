@@ -0,0 +1,179 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.AgreementEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the relay against an embedded H2 database in MySQL mode.
+ */
+class AgreementEventRelayTests {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+    private RecordingSink webhook;
+    private RecordingSink listener;
+    private List<AgreementEvent> streamed;
+
+    @BeforeEach
+    void createTables() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE agreement_events (id BIGINT AUTO_INCREMENT PRIMARY KEY, sequence_number BIGINT UNIQUE, "
+                + "agreement_id BIGINT NOT NULL, user_id INT NOT NULL, agreement_type VARCHAR(20) NOT NULL, "
+                + "event_type VARCHAR(20) NOT NULL, from_status VARCHAR(20), to_status VARCHAR(20) NOT NULL, "
+                + "agreement_version BIGINT NOT NULL, occurred_at TIMESTAMP(6) NOT NULL, detail VARCHAR(4000))");
+        jdbc.execute("CREATE TABLE outbox_cursors (name VARCHAR(100) PRIMARY KEY, last_sequence BIGINT NOT NULL, "
+                + "lease_owner VARCHAR(64), lease_until TIMESTAMP(6))");
+        webhook = new RecordingSink("webhook");
+        listener = new RecordingSink("in-process");
+        streamed = new ArrayList<>();
+    }
+
+    @Test
+    void numbersEventsInTheOrderTheyWereRecordedAndDeliversThem() {
+        AgreementEventRelay relay = startNode();
+        record(1L, "CREATED", null, "IN_PROGRESS", 0);
+        record(2L, "CREATED", null, "IN_PROGRESS", 0);
+        record(1L, "STATUS_CHANGED", "IN_PROGRESS", "REVIEW", 1);
+
+        relay.relay();
+
+        assertEquals(List.of(1L, 2L, 3L), webhook.sequenceNumbers());
+        assertEquals(List.of(1L, 2L, 3L), listener.sequenceNumbers());
+        assertEquals(List.of(1L, 2L, 1L), webhook.received.stream().map(AgreementEvent::getAgreementId).toList());
+        assertEquals(List.of(1L, 2L, 3L), streamed.stream().map(AgreementEvent::getSequenceNumber).toList());
+        assertEquals(3, cursor("webhook"));
+
+        // Nothing new: nothing sent again
+        relay.relay();
+        assertEquals(3, webhook.received.size());
+    }
+
+    @Test
+    void aFailingSinkIsRetriedFromItsOwnPosition() {
+        AgreementEventRelay relay = startNode();
+        record(1L, "CREATED", null, "IN_PROGRESS", 0);
+        webhook.failing = true;
+
+        relay.relay();
+        assertEquals(0, cursor("webhook"));
+        assertEquals(1, cursor("in-process"));
+
+        record(1L, "STATUS_CHANGED", "IN_PROGRESS", "REVIEW", 1);
+        webhook.failing = false;
+        relay.relay();
+
+        assertEquals(List.of(1L, 2L), webhook.sequenceNumbers());
+        assertEquals(List.of(1L, 2L), listener.sequenceNumbers());
+        assertEquals(2, cursor("webhook"));
+    }
+
+    @Test
+    void onlyTheLeaseHolderNumbersAndDelivers() {
+        AgreementEventRelay node = startNode();
+        List<AgreementEvent> otherNodeStreamed = new ArrayList<>();
+        RecordingSink otherNodeWebhook = new RecordingSink("webhook");
+        AgreementEventRelay otherNode = startNode(otherNodeWebhook, otherNodeStreamed);
+        record(1L, "CREATED", null, "IN_PROGRESS", 0);
+
+        node.relay();
+        otherNode.relay();
+
+        assertEquals(List.of(1L), webhook.sequenceNumbers());
+        assertTrue(otherNodeWebhook.received.isEmpty());
+        // Both nodes' SSE clients still see it
+        assertEquals(1, streamed.size());
+        assertEquals(1, otherNodeStreamed.size());
+        assertFalse(otherNode.takeLease());
+    }
+
+    @Test
+    void aNewSinkStartsFromTheNewestEvent() {
+        AgreementEventRelay relay = startNode();
+        record(1L, "CREATED", null, "IN_PROGRESS", 0);
+        relay.relay();
+
+        RecordingSink added = new RecordingSink("file-queue");
+        ReflectionTestUtils.setField(relay, "sinks", List.of(webhook, listener, added));
+        relay.init();
+        record(1L, "STATUS_CHANGED", "IN_PROGRESS", "REVIEW", 1);
+        relay.relay();
+
+        assertEquals(List.of(2L), added.sequenceNumbers());
+    }
+
+    // --- helpers ---
+
+    private AgreementEventRelay startNode() {
+        return startNode(webhook, streamed);
+    }
+
+    private AgreementEventRelay startNode(RecordingSink webhookSink, List<AgreementEvent> streamTo) {
+        AgreementEventRelay relay = new AgreementEventRelay();
+        ReflectionTestUtils.setField(relay, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(relay, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(relay, "sinks", List.of(webhookSink, listener));
+        ReflectionTestUtils.setField(relay, "stream", new AgreementEventStream() {
+            @Override
+            public void publish(List<AgreementEvent> events) {
+                streamTo.addAll(events);
+            }
+        });
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "leaseMillis", 60_000L);
+        // Retry straight away
+        ReflectionTestUtils.setField(relay, "maxRetryDelayMillis", 0L);
+        relay.init();
+        return relay;
+    }
+
+    private void record(long agreementId, String type, String from, String to, long version) {
+        jdbc.update("INSERT INTO agreement_events (agreement_id, user_id, agreement_type, event_type, from_status, "
+                        + "to_status, agreement_version, occurred_at) VALUES (?, 7, 'RENTAL', ?, ?, ?, ?, CURRENT_TIMESTAMP(6))",
+                agreementId, type, from, to, version);
+    }
+
+    private long cursor(String name) {
+        return jdbc.queryForObject("SELECT last_sequence FROM outbox_cursors WHERE name = ?", Long.class, name);
+    }
+
+    private static final class RecordingSink implements AgreementEventSink {
+        final String name;
+        final List<AgreementEvent> received = new ArrayList<>();
+        boolean failing;
+
+        RecordingSink(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void publish(List<AgreementEvent> events) {
+            if (failing) {
+                throw new IllegalStateException("unavailable");
+            }
+            received.addAll(events);
+        }
+
+        List<Long> sequenceNumbers() {
+            return received.stream().map(AgreementEvent::getSequenceNumber).toList();
+        }
+    }
+}
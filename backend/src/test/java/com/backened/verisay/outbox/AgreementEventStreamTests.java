@@ -0,0 +1,60 @@
+package com.backened.verisay.outbox;
+
+import com.backened.verisay.model.AgreementEvent;
+import com.backened.verisay.push.PushMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementEventStreamTests {
+
+    private AgreementEventStream stream;
+
+    @BeforeEach
+    void createStream() {
+        stream = new AgreementEventStream();
+        ReflectionTestUtils.setField(stream, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(stream, "replayLimit", 3);
+    }
+
+    @Test
+    void replaysWhatTheClientMissedInOrder() {
+        List<PushMessage> replay = stream.replay(events(3));
+
+        assertEquals(List.of(1L, 2L, 3L), replay.stream().map(PushMessage::id).toList());
+        assertEquals("STATUS_CHANGED", replay.get(0).name());
+    }
+
+    @Test
+    void aClientThatMissedMoreThanTheLimitIsToldToResync() {
+        // What the subscription fetches: one more than the limit
+        List<PushMessage> replay = stream.replay(events(4));
+
+        assertEquals(1, replay.size());
+        assertEquals(AgreementEventStream.RESYNC, replay.get(0).name());
+        assertNull(replay.get(0).id());
+        assertEquals("{\"missedMoreThan\":3}", replay.get(0).data());
+    }
+
+    // --- helpers ---
+
+    private static List<AgreementEvent> events(int count) {
+        List<AgreementEvent> events = new ArrayList<>();
+        for (long sequence = 1; sequence <= count; sequence++) {
+            events.add(AgreementEvent.builder()
+                    .id(sequence)
+                    .sequenceNumber(sequence)
+                    .agreementId(42L)
+                    .userId(7)
+                    .type(AgreementEvent.Type.STATUS_CHANGED)
+                    .build());
+        }
+        return events;
+    }
+}
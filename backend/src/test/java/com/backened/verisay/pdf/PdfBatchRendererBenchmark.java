@@ -0,0 +1,92 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.benchmark.BenchmarkData;
+import com.backened.verisay.model.Agreement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDFs per second from the batch renderer as its pool grows, over a mix of all agreement types.
+ * Compare the scores across {@code parallelism} with the machine's core count; past it they should level off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(PdfBatchRendererBenchmark.BATCH_SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfBatchRendererBenchmark {
+
+    static final int BATCH_SIZE = 200;
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    private PdfBatchRenderer batchRenderer;
+    private List<Agreement> agreements;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PdfLayout layout = new PdfLayout();
+        PdfRenderingEngine engine = new PdfRenderingEngine(layout, List.of(new RentalPdfRenderer(layout),
+                new BusinessPdfRenderer(layout), new LoanPdfRenderer(layout), new FreelancingPdfRenderer(layout)));
+        batchRenderer = new PdfBatchRenderer();
+        ReflectionTestUtils.setField(batchRenderer, "renderingEngine", engine);
+        ReflectionTestUtils.setField(batchRenderer, "parallelism", parallelism);
+        ReflectionTestUtils.setField(batchRenderer, "chunkPerThread", 4);
+        batchRenderer.init();
+
+        Random random = new Random(42);
+        Agreement.AgreementType[] types = Agreement.AgreementType.values();
+        agreements = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Agreement.AgreementType type = types[i % types.length];
+            agreements.add(Agreement.builder()
+                    .id((long) i + 1)
+                    .type(type)
+                    .title(BenchmarkData.title(type, random))
+                    .status(Agreement.AgreementStatus.SIGNED)
+                    .agreementData(BenchmarkData.agreementData(type, random))
+                    .createdAt(LocalDateTime.of(2025, 6, 1, 10, 30))
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batchRenderer.shutdown();
+    }
+
+    @Benchmark
+    public List<PdfBatchRenderer.RenderedPdf> renderAll() {
+        return batchRenderer.renderAll(agreements);
+    }
+
+    // The archival export: rendered chunk by chunk and zipped
+    @Benchmark
+    public List<PdfBatchRenderer.RenderedPdf> exportZip() throws IOException {
+        return batchRenderer.exportZip(agreements, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,72 @@
+package com.backened.verisay.pdf;
+
+import com.backened.verisay.benchmark.BenchmarkData;
+import com.backened.verisay.model.Agreement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDFs rendered per second by one thread, streamed to where they go and collected into a byte array.
+ * Run with {@code -Djmh.args="-prof gc"} for the bytes allocated per PDF (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfRenderingEngineBenchmark {
+
+    @Param({"RENTAL", "LOAN"})
+    Agreement.AgreementType type;
+
+    private PdfRenderingEngine engine;
+    private Agreement agreement;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PdfLayout layout = new PdfLayout();
+        engine = new PdfRenderingEngine(layout, List.of(new RentalPdfRenderer(layout), new BusinessPdfRenderer(layout),
+                new LoanPdfRenderer(layout), new FreelancingPdfRenderer(layout)));
+        Random random = new Random(42);
+        agreement = Agreement.builder()
+                .id(1L)
+                .type(type)
+                .title(BenchmarkData.title(type, random))
+                .status(Agreement.AgreementStatus.SIGNED)
+                .agreementData(BenchmarkData.agreementData(type, random))
+                .createdAt(LocalDateTime.of(2025, 6, 1, 10, 30))
+                .build();
+    }
+
+    // As when a PDF is streamed into storage or a response
+    @Benchmark
+    public void streamed() {
+        engine.render(agreement, OutputStream.nullOutputStream());
+    }
+
+    // As when the whole PDF is needed in memory, e.g. by the batch renderer
+    @Benchmark
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        engine.render(agreement, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,84 @@
+package com.backened.verisay.push;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushHubTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PushHub hub;
+
+    @BeforeEach
+    void createHub() {
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new PushHub();
+        ReflectionTestUtils.setField(hub, "executor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(hub, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(hub, "queueCapacity", 2);
+        ReflectionTestUtils.setField(hub, "timeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(hub, "heartbeatMillis", 20_000L);
+        hub.init();
+    }
+
+    @Test
+    void connectionsAreCountedPerTopic() {
+        hub.connect(Set.of("user:7"));
+        hub.connect(Set.of("user:7", "agreement:42"));
+
+        assertEquals(2, hub.getConnectionCount());
+        assertEquals(2, hub.getConnectionCount("user:7"));
+        assertEquals(1, hub.getConnectionCount("agreement:42"));
+        assertEquals(0, hub.getConnectionCount("user:8"));
+        assertEquals(2.0, meterRegistry.get("push.connections").gauge().value());
+    }
+
+    @Test
+    void aConnectionThatKeepsUpStaysOpen() {
+        PushConnection connection = hub.connect(Set.of("user:7"));
+        connection.catchUp(List.of(message(1), message(2)));
+        connection.resume();
+
+        for (long id = 3; id <= 10; id++) {
+            hub.publish("user:7", message(id));
+        }
+
+        assertEquals(1, hub.getConnectionCount("user:7"));
+        assertEquals(0.0, meterRegistry.get("push.disconnects.slow").counter().count());
+    }
+
+    @Test
+    void aConnectionThatFallsAFullQueueBehindIsDisconnected() {
+        // Never resumed, so nothing leaves its queue
+        hub.connect(Set.of("user:7"));
+        PushConnection other = hub.connect(Set.of("user:8"));
+        other.resume();
+
+        hub.publish("user:7", message(1));
+        hub.publish("user:7", message(2));
+        assertEquals(1, hub.getConnectionCount("user:7"));
+
+        hub.publish("user:7", message(3));
+
+        assertEquals(0, hub.getConnectionCount("user:7"));
+        assertEquals(1, hub.getConnectionCount());
+        assertEquals(1.0, meterRegistry.get("push.disconnects.slow").counter().count());
+
+        // Publishing to a topic nobody follows any more is a no-op
+        hub.publish("user:7", message(4));
+        assertEquals(1, hub.getConnectionCount());
+    }
+
+    // --- helpers ---
+
+    private static PushMessage message(long id) {
+        return new PushMessage(id, "STATUS_CHANGED", "{\"sequenceNumber\":" + id + "}");
+    }
+}
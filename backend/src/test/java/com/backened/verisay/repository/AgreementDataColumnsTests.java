@@ -0,0 +1,74 @@
+package com.backened.verisay.repository;
+
+import com.backened.verisay.extraction.FieldType;
+import com.backened.verisay.model.Agreement.AgreementType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementDataColumnsTests {
+
+    @Test
+    void namesColumnsAfterTheirField() {
+        AgreementDataColumns.Column tenant = AgreementDataColumns.forField(AgreementType.RENTAL, "tenantName").orElseThrow();
+
+        assertEquals("jf_tenant_name", tenant.name());
+        assertEquals("idx_agreements_jf_tenant_name", tenant.indexName());
+        // The by-field lookup is always for one user and one type
+        assertEquals(List.of("user_id", "agreement_type", "jf_tenant_name"), tenant.indexColumns());
+        assertTrue(AgreementDataColumns.isGenerated(tenant.name()));
+        assertFalse(AgreementDataColumns.isGenerated("agreement_data"));
+    }
+
+    @Test
+    void onlyFieldsIndexedForTheTypeCanBeFilteredOn() {
+        assertTrue(AgreementDataColumns.forField(AgreementType.RENTAL, "rentAmount").isPresent());
+        assertTrue(AgreementDataColumns.forField(AgreementType.LOAN, "startDate").isPresent());
+        // Indexed for rentals, not a loan field
+        assertTrue(AgreementDataColumns.forField(AgreementType.LOAN, "rentAmount").isEmpty());
+        assertTrue(AgreementDataColumns.forField(AgreementType.RENTAL, "propertyAddress").isEmpty());
+    }
+
+    @Test
+    void typesShareTheColumnOfACommonKey() {
+        assertSame(AgreementDataColumns.forField(AgreementType.RENTAL, "startDate").orElseThrow(),
+                AgreementDataColumns.forField(AgreementType.LOAN, "startDate").orElseThrow());
+        assertEquals(AgreementDataColumns.all().stream().map(AgreementDataColumns.Column::name).distinct().count(),
+                AgreementDataColumns.all().size());
+    }
+
+    @Test
+    void columnTypesFollowTheFieldType() {
+        assertEquals("DECIMAL(15,2)", AgreementDataColumns.column("rentAmount", FieldType.AMOUNT).sqlType());
+        assertEquals("CHAR(10)", AgreementDataColumns.column("startDate", FieldType.DATE).sqlType());
+        assertEquals("INT", AgreementDataColumns.column("duration", FieldType.DURATION_MONTHS).sqlType());
+        AgreementDataColumns.Column rent = AgreementDataColumns.column("rentAmount", FieldType.AMOUNT);
+        assertTrue(rent.definition().endsWith("END) VIRTUAL COMMENT '" + rent.fingerprint() + "'"));
+    }
+
+    @Test
+    void theFingerprintChangesWithTheTypeOrTheExpression() {
+        AgreementDataColumns.Column rent = AgreementDataColumns.column("rentAmount", FieldType.AMOUNT);
+
+        assertEquals(rent.fingerprint(), AgreementDataColumns.column("rentAmount", FieldType.AMOUNT).fingerprint());
+        assertTrue(rent.fingerprint().length() <= 64, "fits a column comment");
+        assertNotEquals(rent.fingerprint(), new AgreementDataColumns.Column(rent.fieldKey(), rent.fieldType(),
+                rent.name(), "DECIMAL(18,2)", rent.expression()).fingerprint());
+        assertNotEquals(rent.fingerprint(), new AgreementDataColumns.Column(rent.fieldKey(), rent.fieldType(),
+                rent.name(), rent.sqlType(), rent.expression().replace("{1,13}", "{1,16}")).fingerprint());
+    }
+
+    @Test
+    void parsesFilterValuesAsTheColumnHoldsThem() {
+        AgreementDataColumns.Column amount = AgreementDataColumns.column("rentAmount", FieldType.AMOUNT);
+        AgreementDataColumns.Column date = AgreementDataColumns.column("startDate", FieldType.DATE);
+
+        assertEquals(new BigDecimal("15000.50"), amount.parse(" 15000.50 "));
+        assertEquals("2025-03-01", date.parse("2025-03-01"));
+        assertThrows(IllegalArgumentException.class, () -> amount.parse("15k"));
+        assertThrows(IllegalArgumentException.class, () -> date.parse("01/03/2025"));
+    }
+}
@@ -0,0 +1,183 @@
+package com.backened.verisay.repository;
+
+import com.backened.verisay.benchmark.BenchmarkData;
+import com.backened.verisay.model.Agreement;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the by-field lookup, rentAmount in a range for one user's rental agreements, among {@code agreements}
+ * generated agreements of all types, {@code perUser} per user:
+ * <ul>
+ *   <li>through the generated column and its (user_id, agreement_type, column) index, as
+ *   {@link AgreementRepositoryImpl#findSummariesByDataField} queries it;</li>
+ *   <li>through the unindexed JSON path: the same expression evaluated on the agreement_data of each of the
+ *   user's rows, found through the (user_id, created_at, id) index.</li>
+ * </ul>
+ * The table lives in a file-backed H2 database in MySQL mode, with the JSON functions as Java aliases
+ * ({@code H2JsonFunctions}); that makes the JSON path slower than MySQL's native one, so compare the scaling with
+ * {@code perUser} more than the absolute numbers. H2 also stores computed columns, where MySQL's are virtual.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AgreementDataFieldQueryBenchmark {
+
+    private static final int LIMIT = 20;
+    // Rents are 1,000 to 500,000: each range holds about 5% of them
+    private static final int RANGE = 25_000;
+
+    @Param({"200000"})
+    int agreements;
+
+    @Param({"100", "10000"})
+    int perUser;
+
+    private Path workDir;
+    private Connection connection;
+    private PreparedStatement byColumn;
+    private PreparedStatement byJsonPath;
+    private int users;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        AgreementDataColumns.Column rent = AgreementDataColumns.forField(Agreement.AgreementType.RENTAL, "rentAmount")
+                .orElseThrow();
+        workDir = Files.createTempDirectory("verisay-field-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + workDir.resolve("db") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ALIAS JSON_EXTRACT FOR 'com.backened.verisay.service.H2JsonFunctions.extract'");
+            statement.execute("CREATE ALIAS JSON_UNQUOTE FOR 'com.backened.verisay.service.H2JsonFunctions.unquote'");
+            statement.execute("""
+                    CREATE TABLE agreements (
+                        id BIGINT PRIMARY KEY,
+                        user_id INT NOT NULL,
+                        title VARCHAR(255),
+                        agreement_type VARCHAR(20) NOT NULL,
+                        agreement_status VARCHAR(20) NOT NULL,
+                        agreement_data JSON,
+                        created_at TIMESTAMP NOT NULL,
+                        updated_at TIMESTAMP,
+                        signed_at TIMESTAMP)""");
+            statement.execute("CREATE INDEX idx_agreements_user_created ON agreements (user_id, created_at, id)");
+        }
+
+        users = Math.max(1, agreements / perUser);
+        generate();
+
+        // Added once the rows are in, as the migrator does on a live table
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE agreements ADD COLUMN " + rent.name() + " " + rent.sqlType()
+                    + " GENERATED ALWAYS AS (" + rent.expression() + ")");
+            statement.execute("CREATE INDEX " + rent.indexName() + " ON agreements ("
+                    + String.join(", ", rent.indexColumns()) + ")");
+        }
+
+        byColumn = connection.prepareStatement(query(rent.name()));
+        byJsonPath = connection.prepareStatement(query("(" + rent.expression() + ")"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        FileSystemUtils.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public List<Long> generatedColumnIndex() throws SQLException {
+        return ids(byColumn, next++);
+    }
+
+    @Benchmark
+    public List<Long> unindexedJsonPath() throws SQLException {
+        return ids(byJsonPath, next++);
+    }
+
+    // --- helpers ---
+
+    // What findSummariesByDataField runs for a range, with the column or the JSON expression it reads
+    private static String query(String value) {
+        return "SELECT id, title, agreement_type, agreement_status, created_at, updated_at, signed_at"
+                + " FROM agreements WHERE agreement_type = ? AND user_id = ?"
+                + " AND " + value + " >= ? AND " + value + " <= ?"
+                + " ORDER BY " + value + ", id LIMIT ?";
+    }
+
+    private void generate() throws SQLException, IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Random random = new Random(42);
+        Agreement.AgreementType[] types = Agreement.AgreementType.values();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO agreements (id, user_id, title,"
+                + " agreement_type, agreement_status, agreement_data, created_at) VALUES (?, ?, ?, ?, ?, ? FORMAT JSON, ?)")) {
+            for (int i = 1; i <= agreements; i++) {
+                Agreement.AgreementType type = types[random.nextInt(types.length)];
+                insert.setLong(1, i);
+                insert.setInt(2, 1 + random.nextInt(users));
+                insert.setString(3, BenchmarkData.title(type, random));
+                insert.setString(4, type.name());
+                insert.setString(5, Agreement.AgreementStatus.REVIEW.name());
+                insert.setString(6, objectMapper.writeValueAsString(BenchmarkData.agreementData(type, random)));
+                insert.setTimestamp(7, Timestamp.valueOf(start.plusMinutes(i)));
+                insert.addBatch();
+                if (i % 10_000 == 0 || i == agreements) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        connection.setAutoCommit(true);
+    }
+
+    private List<Long> ids(PreparedStatement query, int n) throws SQLException {
+        int from = 1_000 * (n % 476);
+        query.setString(1, Agreement.AgreementType.RENTAL.name());
+        query.setInt(2, 1 + n % users);
+        query.setBigDecimal(3, BigDecimal.valueOf(from));
+        query.setBigDecimal(4, BigDecimal.valueOf(from + RANGE));
+        query.setInt(5, LIMIT);
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,75 @@
+package com.backened.verisay.repository;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.User;
+import com.backened.verisay.service.AgreementServiceTestContext;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = AgreementServiceTestContext.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class AgreementRepositoryImplTests {
+
+    @Autowired private AgreementRepository agreementRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void mergingDataDetachesOnlyTheMergedAgreement() {
+        User user = userRepository.save(new User(null, UUID.randomUUID().toString(), null, "Merge Tester",
+                LocalDateTime.now(), null));
+        Agreement saved = agreementRepository.save(Agreement.builder()
+                .user(user)
+                .type(Agreement.AgreementType.LOAN)
+                .title("Loan to Priya")
+                .status(Agreement.AgreementStatus.IN_PROGRESS)
+                .agreementData(Map.of())
+                .build());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Agreement agreement = entityManager.find(Agreement.class, saved.getId());
+            User owner = entityManager.find(User.class, user.getId());
+
+            assertEquals(1, agreementRepository.mergeAgreementData(saved.getId(), "{\"loanAmount\": \"200000\"}",
+                    null, LocalDateTime.now()));
+
+            assertFalse(entityManager.contains(agreement));
+            assertTrue(entityManager.contains(owner));
+            assertEquals(Map.of("loanAmount", "200000"),
+                    entityManager.find(Agreement.class, saved.getId()).getAgreementData());
+        });
+    }
+
+    @Test
+    void fillingDataOnlyAddsTheKeysNotStoredYet() {
+        User user = userRepository.save(new User(null, UUID.randomUUID().toString(), null, "Fill Tester",
+                LocalDateTime.now(), null));
+        Agreement saved = agreementRepository.save(Agreement.builder()
+                .user(user)
+                .type(Agreement.AgreementType.LOAN)
+                .title("Loan to Amit")
+                .status(Agreement.AgreementStatus.IN_PROGRESS)
+                .agreementData(Map.of("loanAmount", "250000"))
+                .build());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertEquals(1, agreementRepository.fillAgreementData(saved.getId(),
+                        "{\"loanAmount\": \"200000\", \"interestRate\": \"8\"}", LocalDateTime.now())));
+
+        assertEquals(Map.of("loanAmount", "250000", "interestRate", "8"),
+                agreementRepository.findById(saved.getId()).orElseThrow().getAgreementData());
+    }
+}
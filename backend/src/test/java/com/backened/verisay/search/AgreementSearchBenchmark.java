@@ -0,0 +1,198 @@
+package com.backened.verisay.search;
+
+import com.backened.verisay.benchmark.BenchmarkData;
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency over {@code agreements} generated agreements, 100 per user, for:
+ * <ul>
+ *   <li>the title {@code LIKE '%word%'} that {@code findByTitleContainingIgnoreCase} ran, across all users,
+ *   as it was before the index;</li>
+ *   <li>the closest SQL to what the index answers: {@code LIKE} on title and data within one user, through the
+ *   {@code (user_id, created_at, id)} index;</li>
+ *   <li>{@link AgreementSearchIndex#search}, which also matches prefixes and typos.</li>
+ * </ul>
+ * The table lives in a file-backed H2 database in MySQL mode, so the numbers are H2's, not MySQL's; both
+ * scan every row for a leading-wildcard LIKE that no index narrows down. Transcripts are left out: they only
+ * grow the index.
+ * Generating a million agreements takes a few minutes per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AgreementSearchBenchmark {
+
+    private static final int AGREEMENTS_PER_USER = 100;
+    private static final int LIMIT = 20;
+    // Words people search for: surnames and business names, which titles and data are full of
+    private static final String[] WORDS = {"sharma", "patel", "reddy", "iyer", "menon", "kapoor", "globex",
+            "northwind", "sunrise", "greenleaf"};
+
+    @Param({"1000000"})
+    int agreements;
+
+    private Path workDir;
+    private Connection connection;
+    private PreparedStatement titleLike;
+    private PreparedStatement userLike;
+    private AgreementSearchIndex index;
+    private int users;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        workDir = Files.createTempDirectory("verisay-search-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + workDir.resolve("db") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE agreements (
+                        id BIGINT PRIMARY KEY,
+                        user_id INT NOT NULL,
+                        title VARCHAR(255),
+                        agreement_data JSON,
+                        created_at TIMESTAMP NOT NULL)""");
+            statement.execute("CREATE INDEX idx_agreements_user_created ON agreements (user_id, created_at, id)");
+        }
+
+        index = new AgreementSearchIndex();
+        ReflectionTestUtils.setField(index, "indexPath", workDir.resolve("index").toString());
+        index.open();
+
+        users = Math.max(1, agreements / AGREEMENTS_PER_USER);
+        generate();
+
+        titleLike = connection.prepareStatement("SELECT id FROM agreements WHERE LOWER(title) LIKE ?");
+        userLike = connection.prepareStatement("""
+                SELECT id FROM agreements
+                 WHERE user_id = ?
+                   AND (LOWER(title) LIKE ? OR LOWER(CAST(agreement_data AS VARCHAR)) LIKE ?)
+                 ORDER BY created_at DESC, id DESC
+                 LIMIT ?""");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        index.close();
+        connection.close();
+        FileSystemUtils.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public List<Long> titleLikeAcrossAllUsers() throws SQLException {
+        titleLike.setString(1, "%" + WORDS[next++ % WORDS.length] + "%");
+        return ids(titleLike);
+    }
+
+    @Benchmark
+    public List<Long> titleAndDataLikeForOneUser() throws SQLException {
+        int n = next++;
+        String pattern = "%" + WORDS[n % WORDS.length] + "%";
+        userLike.setInt(1, 1 + n % users);
+        userLike.setString(2, pattern);
+        userLike.setString(3, pattern);
+        userLike.setInt(4, LIMIT);
+        return ids(userLike);
+    }
+
+    @Benchmark
+    public List<Long> searchIndexForOneUser() {
+        int n = next++;
+        return index.search(1 + n % users, WORDS[n % WORDS.length], LIMIT);
+    }
+
+    // --- helpers ---
+
+    private void generate() throws SQLException, IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Random random = new Random(42);
+        Agreement.AgreementType[] types = Agreement.AgreementType.values();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO agreements (id, user_id, title, agreement_data, created_at) VALUES (?, ?, ?, ? FORMAT JSON, ?)")) {
+            List<AgreementDocument> documents = new ArrayList<>();
+            for (int i = 1; i <= agreements; i++) {
+                Agreement.AgreementType type = types[random.nextInt(types.length)];
+                int userId = 1 + random.nextInt(users);
+                String title = BenchmarkData.title(type, random);
+                Map<String, Object> data = BenchmarkData.agreementData(type, random);
+                LocalDateTime createdAt = start.plusMinutes(i);
+
+                insert.setLong(1, i);
+                insert.setInt(2, userId);
+                insert.setString(3, title);
+                insert.setString(4, objectMapper.writeValueAsString(data));
+                insert.setTimestamp(5, Timestamp.valueOf(createdAt));
+                insert.addBatch();
+
+                Agreement agreement = Agreement.builder()
+                        .id((long) i)
+                        .user(new User(userId, null, null, null, null, null))
+                        .version(0L)
+                        .type(type)
+                        .title(title)
+                        .agreementData(data)
+                        .build();
+                documents.add(AgreementDocument.of(agreement, null));
+
+                if (i % 10_000 == 0 || i == agreements) {
+                    insert.executeBatch();
+                    connection.commit();
+                    index.update(documents);
+                    documents.clear();
+                }
+            }
+        }
+        connection.setAutoCommit(true);
+        index.commit(Map.of());
+        index.refresh();
+    }
+
+    private static List<Long> ids(PreparedStatement query) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,97 @@
+package com.backened.verisay.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementSearchIndexTests {
+
+    @TempDir
+    Path indexDir;
+
+    private AgreementSearchIndex index;
+
+    @BeforeEach
+    void openIndex() throws IOException {
+        index = open();
+        index.update(List.of(
+                new AgreementDocument(1L, 7, 0L, "Flat rental", "Ravi Sharma\nMG Road, Bangalore\n15000", null),
+                new AgreementDocument(2L, 7, 3L, "Office lease", "Anita Rao\nPune", "the rent is payable on the fifth"),
+                new AgreementDocument(3L, 8, 0L, "Flat rental", "Ravi Sharma\nBangalore", null)));
+        index.refresh();
+    }
+
+    @AfterEach
+    void closeIndex() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void matchesWordPrefixes() {
+        assertEquals(List.of(1L), index.search(7, "Sharm", 10));
+        // "rental" in one title, "rent" in the other's transcript
+        assertEquals(Set.of(1L, 2L), Set.copyOf(index.search(7, "rent", 10)));
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertEquals(List.of(1L), index.search(7, "Bangalroe", 10));
+        assertEquals(List.of(2L), index.search(7, "Anitha", 10));
+    }
+
+    @Test
+    void searchesTheTranscript() {
+        assertEquals(List.of(2L), index.search(7, "payable fifth", 10));
+    }
+
+    @Test
+    void onlyReturnsTheUsersOwnAgreements() {
+        assertEquals(List.of(3L), index.search(8, "sharma", 10));
+        assertEquals(List.of(), index.search(9, "sharma", 10));
+    }
+
+    @Test
+    void everyWordHasToMatch() {
+        assertEquals(List.of(), index.search(7, "sharma pune", 10));
+    }
+
+    @Test
+    void updatesReplaceTheEarlierVersion() {
+        index.update(List.of(new AgreementDocument(1L, 7, 1L, "Flat rental", "Ravi Verma\nMysore", null)));
+        index.refresh();
+
+        assertEquals(List.of(), index.search(7, "sharma", 10));
+        assertEquals(List.of(1L), index.search(7, "verma", 10));
+        assertEquals(Map.of(1L, 1L, 2L, 3L), index.indexedVersions(List.of(1L, 2L, 99L)));
+    }
+
+    @Test
+    void keepsDocumentsAndCommitDataAcrossRestarts() throws IOException {
+        index.commit(Map.of("watermark", "2025-01-01T10:00"));
+        index.close();
+
+        index = open();
+        assertEquals(3, index.size());
+        assertEquals("2025-01-01T10:00", index.getCommitData().get("watermark"));
+        assertEquals(List.of(3L), index.search(8, "ravi", 10));
+    }
+
+    // --- helpers ---
+
+    private AgreementSearchIndex open() throws IOException {
+        AgreementSearchIndex opened = new AgreementSearchIndex();
+        ReflectionTestUtils.setField(opened, "indexPath", indexDir.toString());
+        opened.open();
+        return opened;
+    }
+}
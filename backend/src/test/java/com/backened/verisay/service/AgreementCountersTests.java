@@ -0,0 +1,179 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.Agreement.AgreementStatus;
+import com.backened.verisay.model.Agreement.AgreementType;
+import com.backened.verisay.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the counters against an embedded H2 database in MySQL mode.
+ */
+class AgreementCountersTests {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createTables() {
+        DriverManagerDataSource h2 = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource = h2;
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE agreements (id BIGINT PRIMARY KEY, user_id INT, agreement_status VARCHAR(20), "
+                + "agreement_type VARCHAR(20))");
+        jdbc.execute("CREATE TABLE agreement_counts (user_id INT, agreement_status VARCHAR(20), agreement_type VARCHAR(20), "
+                + "agreement_count BIGINT NOT NULL, updated_at TIMESTAMP(6) NOT NULL, "
+                + "PRIMARY KEY (user_id, agreement_status, agreement_type))");
+        jdbc.update("INSERT INTO agreements VALUES (1, 7, 'IN_PROGRESS', 'RENTAL'), (2, 7, 'SIGNED', 'RENTAL'), "
+                + "(3, 7, 'SIGNED', 'LOAN'), (4, 8, 'REVIEW', 'BUSINESS')");
+    }
+
+    @Test
+    void startsFromTheAgreementsTable() {
+        AgreementCounters counters = startNode();
+
+        assertEquals(3, counters.count(7, null, null));
+        assertEquals(2, counters.count(7, AgreementStatus.SIGNED, null));
+        assertEquals(1, counters.count(7, AgreementStatus.SIGNED, AgreementType.LOAN));
+        assertEquals(2, counters.count(null, null, AgreementType.RENTAL));
+        assertEquals(4, counters.count(null, null, null));
+        assertEquals(0, counters.count(9, null, null));
+        assertEquals(Map.of(AgreementStatus.IN_PROGRESS, 1L, AgreementStatus.REVIEW, 0L,
+                AgreementStatus.SIGNED, 2L, AgreementStatus.CANCELLED, 0L), counters.countByStatus(7));
+    }
+
+    @Test
+    void countsCreationsAndStatusChangesAndFlushesThem() {
+        AgreementCounters counters = startNode();
+        Agreement agreement = agreement(8, AgreementType.RENTAL, AgreementStatus.IN_PROGRESS);
+
+        counters.recordCreated(List.of(agreement));
+        agreement.setStatus(AgreementStatus.REVIEW);
+        counters.recordStatusChange(agreement, AgreementStatus.IN_PROGRESS);
+
+        assertEquals(2, counters.count(8, null, null));
+        assertEquals(0, counters.count(8, AgreementStatus.IN_PROGRESS, null));
+        assertEquals(2, counters.count(8, AgreementStatus.REVIEW, null));
+
+        counters.flush();
+        assertEquals(1, stored(8, "REVIEW", "RENTAL"));
+        assertEquals(0, stored(8, "IN_PROGRESS", "RENTAL"));
+        assertEquals(2, counters.count(8, AgreementStatus.REVIEW, null));
+    }
+
+    @Test
+    void rolledBackChangesAreNotCounted() {
+        AgreementCounters counters = startNode();
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transaction.executeWithoutResult(status -> {
+            counters.recordCreated(List.of(agreement(7, AgreementType.LOAN, AgreementStatus.IN_PROGRESS)));
+            status.setRollbackOnly();
+        });
+        assertEquals(3, counters.count(7, null, null));
+
+        transaction.executeWithoutResult(status ->
+                counters.recordCreated(List.of(agreement(7, AgreementType.LOAN, AgreementStatus.IN_PROGRESS))));
+        assertEquals(4, counters.count(7, null, null));
+    }
+
+    @Test
+    void reconcilePicksUpWhatOtherNodesFlushed() {
+        AgreementCounters node = startNode();
+        AgreementCounters otherNode = startNode();
+
+        otherNode.recordCreated(List.of(agreement(7, AgreementType.RENTAL, AgreementStatus.IN_PROGRESS)));
+        otherNode.flush();
+        node.recordCreated(List.of(agreement(7, AgreementType.RENTAL, AgreementStatus.IN_PROGRESS)));
+        assertEquals(4, node.count(7, null, null));
+
+        node.reconcile();
+        otherNode.reconcile();
+        assertEquals(5, node.count(7, null, null));
+        assertEquals(5, otherNode.count(7, null, null));
+        assertEquals(3, stored(7, "IN_PROGRESS", "RENTAL"));
+    }
+
+    @Test
+    void keepsEveryConcurrentChange() throws InterruptedException {
+        AgreementCounters counters = startNode();
+        int threads = 8;
+        int perThread = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int userId = 100 + t % 2;
+            Thread worker = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < perThread; i++) {
+                    counters.recordCreated(List.of(agreement(userId, AgreementType.LOAN, AgreementStatus.IN_PROGRESS)));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+        // Flushes running alongside must neither lose nor double any change
+        while (workers.stream().anyMatch(Thread::isAlive)) {
+            counters.flush();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        counters.flush();
+
+        long expected = (long) threads * perThread;
+        assertEquals(expected, counters.count(null, AgreementStatus.IN_PROGRESS, AgreementType.LOAN));
+        assertEquals(expected / 2, counters.count(100, null, null));
+        assertEquals(expected / 2, stored(100, "IN_PROGRESS", "LOAN"));
+        assertEquals(expected / 2, stored(101, "IN_PROGRESS", "LOAN"));
+    }
+
+    // --- helpers ---
+
+    private AgreementCounters startNode() {
+        AgreementCounters counters = new AgreementCounters();
+        ReflectionTestUtils.setField(counters, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(counters, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(counters, "reconcileOverlapMillis", 10_000L);
+        counters.init();
+        return counters;
+    }
+
+    private long stored(int userId, String status, String type) {
+        List<Long> count = jdbc.queryForList("SELECT agreement_count FROM agreement_counts "
+                + "WHERE user_id = ? AND agreement_status = ? AND agreement_type = ?", Long.class, userId, status, type);
+        return count.isEmpty() ? 0 : count.get(0);
+    }
+
+    private static Agreement agreement(int userId, AgreementType type, AgreementStatus status) {
+        User user = new User();
+        user.setId(userId);
+        return Agreement.builder().user(user).type(type).status(status).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.backened.verisay.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests for {@link AgreementLocks}, with transactions simulated by transaction synchronization.
+ */
+class AgreementLocksTests {
+
+    private static final int THREADS = 16;
+    private static final int WRITES_PER_THREAD = 500;
+
+    private AgreementLocks locks;
+
+    @BeforeEach
+    void setUp() {
+        locks = new AgreementLocks();
+        ReflectionTestUtils.setField(locks, "stripes", 8);
+        ReflectionTestUtils.setField(locks, "waitMillis", 5_000L);
+        locks.init();
+    }
+
+    @Test
+    void exclusiveWritersLoseNoUpdates() throws Exception {
+        // Plain, unsynchronized read-modify-write per agreement: only the lock keeps it correct.
+        // Four agreements on separate stripes, so each serializes its own writers but not the others'.
+        int[] counters = new int[5];
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                int agreementId = 1 + (thread + i) % 4;
+                inTransaction(() -> {
+                    locks.lockExclusive((long) agreementId);
+                    int current = counters[agreementId];
+                    Thread.yield();
+                    counters[agreementId] = current + 1;
+                });
+            }
+        });
+
+        for (int agreementId = 1; agreementId <= 4; agreementId++) {
+            assertEquals(THREADS * WRITES_PER_THREAD / 4, counters[agreementId]);
+        }
+    }
+
+    @Test
+    void uploadsRunSideBySideButNotDuringAnExclusiveStep() throws Exception {
+        AtomicInteger uploadsInFlight = new AtomicInteger();
+        AtomicInteger maxUploadsInFlight = new AtomicInteger();
+        AtomicInteger uploadsSeenByExclusiveStep = new AtomicInteger(-1);
+        CountDownLatch allUploading = new CountDownLatch(4);
+
+        runConcurrently(5, thread -> {
+            if (thread < 4) {
+                inTransaction(() -> {
+                    locks.lockShared(42L);
+                    maxUploadsInFlight.accumulateAndGet(uploadsInFlight.incrementAndGet(), Math::max);
+                    allUploading.countDown();
+                    await(allUploading);
+                    sleep(50);
+                    uploadsInFlight.decrementAndGet();
+                });
+            } else {
+                // Like beginTranscription: starts once all four uploads are in flight
+                await(allUploading);
+                inTransaction(() -> {
+                    locks.lockExclusive(42L);
+                    uploadsSeenByExclusiveStep.set(uploadsInFlight.get());
+                });
+            }
+        });
+
+        assertEquals(4, maxUploadsInFlight.get());
+        // The exclusive step waited for every upload to complete
+        assertEquals(0, uploadsSeenByExclusiveStep.get());
+    }
+
+    @Test
+    void givesUpWhenTheAgreementStaysBusy() throws Exception {
+        ReflectionTestUtils.setField(locks, "waitMillis", 50L);
+        CountDownLatch uploading = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> inTransaction(() -> {
+                locks.lockShared(7L);
+                uploading.countDown();
+                await(done);
+            }));
+            assertTrue(uploading.await(5, TimeUnit.SECONDS));
+
+            assertThrows(CannotAcquireLockException.class, () -> inTransaction(() -> locks.lockExclusive(7L)));
+            // Another agreement on a different stripe is not held up
+            inTransaction(() -> locks.lockExclusive(8L));
+        } finally {
+            done.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void needsATransaction() {
+        assertThrows(IllegalStateException.class, () -> locks.lockExclusive(1L));
+    }
+
+    // --- helpers ---
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Runs the body like a transactional method: locks are released when the "transaction" completes
+    private static void inTransaction(Runnable body) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            body.run();
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
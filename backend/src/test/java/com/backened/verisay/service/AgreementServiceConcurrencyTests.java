@@ -0,0 +1,163 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.AudioRecord;
+import com.backened.verisay.model.User;
+import com.backened.verisay.repository.AgreementRepository;
+import com.backened.verisay.repository.AudioRecordRepository;
+import com.backened.verisay.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Audio uploads, transcription starts and field edits for one agreement, all at once through the service
+ * and H2, checking that no upload, status change or field edit is lost.
+ */
+@SpringBootTest(classes = AgreementServiceTestContext.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class AgreementServiceConcurrencyTests {
+
+    private static final int UPLOADERS = 4;
+    private static final int UPLOADS_PER_THREAD = 10;
+    private static final int EDITORS = 2;
+    private static final int EDITS_PER_THREAD = 10;
+    private static final int TRANSCRIPTION_STARTS = 10;
+
+    @Autowired private AgreementService agreementService;
+    @Autowired private AgreementRepository agreementRepository;
+    @Autowired private AudioRecordRepository audioRecordRepository;
+    @Autowired private UserRepository userRepository;
+
+    private Agreement agreement;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User(null, UUID.randomUUID().toString(), null, "Concurrency Tester",
+                LocalDateTime.now(), null));
+        agreement = agreementService.createInitialAgreement(user.getId(), Agreement.AgreementType.RENTAL, "Flat 4B");
+    }
+
+    @Test
+    void concurrentUploadsTranscriptionsAndEditsLoseNothing() throws Exception {
+        Long agreementId = agreement.getId();
+        long initialVersion = agreementRepository.findById(agreementId).orElseThrow().getVersion();
+        Set<Long> transcribedAudio = ConcurrentHashMap.newKeySet();
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < UPLOADERS; thread++) {
+            int uploader = thread;
+            tasks.add(() -> {
+                for (int i = 0; i < UPLOADS_PER_THREAD; i++) {
+                    agreementService.saveAgreementAudio(agreementId, audio("take-" + uploader + "-" + i + ".mp3"));
+                }
+                return null;
+            });
+        }
+        for (int thread = 0; thread < EDITORS; thread++) {
+            int editor = thread;
+            tasks.add(() -> {
+                for (int i = 0; i < EDITS_PER_THREAD; i++) {
+                    addField(agreementId, "field-" + editor + "-" + i);
+                }
+                return null;
+            });
+        }
+        tasks.add(() -> {
+            for (int i = 0; i < TRANSCRIPTION_STARTS; i++) {
+                Long audioRecordId = agreementService.beginTranscription(agreementId).getAudioRecordId();
+                if (audioRecordId != null) {
+                    transcribedAudio.add(audioRecordId);
+                }
+            }
+            return null;
+        });
+        runConcurrently(tasks);
+
+        // Every upload got its row
+        List<AudioRecord> audio = audioRecordRepository.findAll().stream()
+                .filter(record -> record.getAgreement().getId().equals(agreementId))
+                .toList();
+        assertEquals(UPLOADERS * UPLOADS_PER_THREAD, audio.size());
+        // Every transcription start kept its status change
+        for (AudioRecord record : audio) {
+            AudioRecord.AudioStatus expected = transcribedAudio.contains(record.getId())
+                    ? AudioRecord.AudioStatus.PROCESSING_TRANSCRIPTION : AudioRecord.AudioStatus.UPLOADED;
+            assertEquals(expected, record.getStatus(), "audio record " + record.getId());
+        }
+        // Every edit is in the document, each one a version of its own
+        Agreement stored = agreementRepository.findById(agreementId).orElseThrow();
+        Set<String> expectedFields = new HashSet<>();
+        for (int editor = 0; editor < EDITORS; editor++) {
+            for (int i = 0; i < EDITS_PER_THREAD; i++) {
+                expectedFields.add("field-" + editor + "-" + i);
+            }
+        }
+        assertEquals(expectedFields, stored.getAgreementData().keySet());
+        assertEquals(initialVersion + EDITORS * EDITS_PER_THREAD, stored.getVersion());
+        assertEquals(Agreement.AgreementStatus.REVIEW, stored.getStatus());
+    }
+
+    // --- helpers ---
+
+    // What the review form does: read, add one field, save against the version read, and start over on a conflict
+    private void addField(Long agreementId, String field) {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Agreement current = agreementService.findAgreementById(agreementId);
+            Map<String, Object> data = new LinkedHashMap<>(current.getAgreementData());
+            data.put(field, "value of " + field);
+            try {
+                agreementService.completeAgreementFields(agreementId, data, current.getVersion());
+                return;
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Someone saved first; their fields are in the next read
+            }
+        }
+        fail("Could not save " + field);
+    }
+
+    private static void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = tasks.stream()
+                    .map(task -> pool.submit(() -> {
+                        start.await();
+                        return task.call();
+                    }))
+                    .collect(Collectors.toList());
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static MockMultipartFile audio(String filename) {
+        return new MockMultipartFile("file", filename, "audio/mpeg", filename.getBytes(StandardCharsets.UTF_8));
+    }
+}
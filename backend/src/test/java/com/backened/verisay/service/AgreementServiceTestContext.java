@@ -0,0 +1,101 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.config.FileStorageConfig;
+import com.backened.verisay.config.JpaConfig;
+import com.backened.verisay.config.SecondLevelCacheConfig;
+import com.backened.verisay.datasource.ReadYourWritesTracker;
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.outbox.AgreementOutbox;
+import com.backened.verisay.pdf.PdfRenderingEngine;
+import com.backened.verisay.push.PushHub;
+import com.backened.verisay.repository.AgreementRepository;
+import com.backened.verisay.search.AgreementSearchIndex;
+import com.backened.verisay.storage.FileStorage;
+import com.backened.verisay.storage.InMemoryFileStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The agreement services over JPA on an embedded H2 database in MySQL mode, with files kept in memory.
+ * Nothing is scheduled, so counters, outbox and index only move when a test drives them.
+ * Every test class uses this same configuration, so Spring builds it once per run.
+ * Deliberately not a @Configuration: the application's component scan would pick that up in full-context tests.
+ */
+@PropertySource("classpath:agreement-service-test.properties")
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+        TransactionAutoConfiguration.class, JdbcTemplateAutoConfiguration.class})
+@EntityScan(basePackageClasses = Agreement.class)
+@EnableJpaRepositories(basePackageClasses = AgreementRepository.class)
+@ComponentScan(basePackageClasses = {AgreementOutbox.class, PushHub.class, PdfRenderingEngine.class})
+@Import({AgreementService.class, BulkAgreementService.class, FileStorageService.class, FinalPDFService.class,
+        PdfGenerationService.class, AgreementLocks.class, AgreementCounters.class, ReadYourWritesTracker.class,
+        AgreementSearchIndex.class, JpaConfig.class, SecondLevelCacheConfig.class, FileStorageConfig.class})
+public class AgreementServiceTestContext {
+
+    /**
+     * Starts the context outside of a test, for the benchmarks; {@code args} override properties as
+     * {@code --name=value}.
+     */
+    public static ConfigurableApplicationContext start(String... args) {
+        List<String> arguments = new ArrayList<>(List.of("--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(AgreementServiceTestContext.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    @Bean
+    public FileStorage fileStorage() {
+        return new InMemoryFileStorage();
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public ObjectMapper objectMapper() {
+        return new ObjectMapper().findAndRegisterModules();
+    }
+
+    @Bean(name = "pdfRenderExecutor")
+    public TaskExecutor pdfRenderExecutor() {
+        return executor("pdf-render-", 2);
+    }
+
+    @Bean(name = "pushExecutor")
+    public TaskExecutor pushExecutor() {
+        return executor("push-", 2);
+    }
+
+    private static ThreadPoolTaskExecutor executor(String threadNamePrefix, int size) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,135 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.extraction.TranscriptFieldExtractor;
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.service.AudioTranscriptionService.TranscriptionResult;
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.InMemoryFileStorage;
+import com.backened.verisay.transcription.ChunkedTranscriber;
+import com.backened.verisay.transcription.Mp3FrameSplitter;
+import com.backened.verisay.transcription.ReactiveWhisperClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Which Whisper path the reactive transcription takes: short recordings are streamed whole through the
+ * non-blocking client, long ones are split by the chunked transcriber off the event loop.
+ */
+class AudioTranscriptionServiceTests {
+
+    private static final long MIN_SPLIT_BYTES = 1024;
+
+    private InMemoryFileStorage storage;
+    private StubChunkedTranscriber chunkedTranscriber;
+    private StubReactiveWhisperClient reactiveClient;
+    private AudioTranscriptionService service;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFileStorage();
+
+        chunkedTranscriber = new StubChunkedTranscriber();
+        ReflectionTestUtils.setField(chunkedTranscriber, "splitters", List.of(new Mp3FrameSplitter()));
+        ReflectionTestUtils.setField(chunkedTranscriber, "enabled", true);
+        ReflectionTestUtils.setField(chunkedTranscriber, "minBytes", MIN_SPLIT_BYTES);
+        reactiveClient = new StubReactiveWhisperClient();
+
+        service = new AudioTranscriptionService();
+        ReflectionTestUtils.setField(service, "transcriber", chunkedTranscriber);
+        ReflectionTestUtils.setField(service, "reactiveWhisperClient", reactiveClient);
+        ReflectionTestUtils.setField(service, "transcriptionCache", new NoTranscriptionCache());
+        ReflectionTestUtils.setField(service, "fieldExtractor", new TranscriptFieldExtractor());
+        ReflectionTestUtils.setField(service, "fileStorage", storage);
+    }
+
+    @Test
+    void aShortRecordingIsSentWholeThroughTheReactiveClient() throws IOException {
+        String path = recording("short.mp3", (int) MIN_SPLIT_BYTES);
+
+        TranscriptionResult result = transcribe(path);
+
+        assertEquals("15000", result.getExtractedFields().get("rentAmount"));
+        assertEquals(1, reactiveClient.calls);
+        assertEquals(0, chunkedTranscriber.calls);
+    }
+
+    @Test
+    void aLongRecordingIsSplitOffTheCallingThread() throws IOException {
+        String path = recording("long.mp3", (int) MIN_SPLIT_BYTES + 1);
+
+        TranscriptionResult result = transcribe(path);
+
+        assertEquals("15000", result.getExtractedFields().get("rentAmount"));
+        assertEquals(0, reactiveClient.calls);
+        assertEquals(1, chunkedTranscriber.calls);
+        assertTrue(chunkedTranscriber.thread.startsWith("boundedElastic-"), chunkedTranscriber.thread);
+    }
+
+    @Test
+    void aLongRecordingInAFormatThatCannotBeSplitIsSentWhole() throws IOException {
+        String path = recording("long.m4a", (int) MIN_SPLIT_BYTES + 1);
+
+        transcribe(path);
+
+        assertEquals(1, reactiveClient.calls);
+        assertEquals(0, chunkedTranscriber.calls);
+    }
+
+    // --- helpers ---
+
+    private TranscriptionResult transcribe(String path) {
+        return service.transcribeAndExtractReactive(path, "hash-" + path, Agreement.AgreementType.RENTAL)
+                .block(Duration.ofSeconds(10));
+    }
+
+    private String recording(String filename, int size) throws IOException {
+        return storage.store(new ByteArrayInputStream(new byte[size]), filename, "audio").getPath();
+    }
+
+    private static class StubChunkedTranscriber extends ChunkedTranscriber {
+
+        volatile int calls;
+        volatile String thread;
+
+        @Override
+        public String transcribe(FileStat audio) {
+            calls++;
+            thread = Thread.currentThread().getName();
+            return "the rent is 15000 rupees";
+        }
+    }
+
+    private static class StubReactiveWhisperClient extends ReactiveWhisperClient {
+
+        volatile int calls;
+
+        @Override
+        public Mono<String> transcribe(FileStat audio) {
+            calls++;
+            return Mono.just("the rent is 15000 rupees");
+        }
+    }
+
+    private static class NoTranscriptionCache extends TranscriptionCacheService {
+
+        @Override
+        public Optional<TranscriptionResult> get(String contentHash, Agreement.AgreementType agreementType) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void put(String contentHash, Agreement.AgreementType agreementType, TranscriptionResult result) {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.benchmark.BenchmarkData;
+import com.backened.verisay.dto.BulkAgreementRequest;
+import com.backened.verisay.dto.BulkAgreementRequest.FileKind;
+import com.backened.verisay.dto.BulkAgreementRequest.FileRef;
+import com.backened.verisay.dto.BulkAgreementResult;
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.FaceIdentity;
+import com.backened.verisay.model.User;
+import com.backened.verisay.repository.UserRepository;
+import com.backened.verisay.storage.InMemoryFileStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agreements created per second, each with a face image and an audio file: one bulk request against the
+ * one-by-one flow the app makes for a single agreement (create, then one upload call per file).
+ * Runs the real services and JPA mapping on H2; files are kept in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BulkAgreementServiceBenchmark.AGREEMENTS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkAgreementServiceBenchmark {
+
+    static final int AGREEMENTS = 50;
+
+    private ConfigurableApplicationContext context;
+    private BulkAgreementService bulkAgreementService;
+    private AgreementService agreementService;
+    private InMemoryFileStorage storage;
+
+    private Integer userId;
+    private List<String> titles;
+    private BulkAgreementRequest request;
+    private MultiValueMap<String, MultipartFile> files;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = AgreementServiceTestContext.start();
+        bulkAgreementService = context.getBean(BulkAgreementService.class);
+        agreementService = context.getBean(AgreementService.class);
+        storage = context.getBean(InMemoryFileStorage.class);
+        userId = context.getBean(UserRepository.class)
+                .save(new User(null, UUID.randomUUID().toString(), null, "Benchmark", LocalDateTime.now(), null))
+                .getId();
+
+        Random random = new Random(42);
+        titles = new ArrayList<>();
+        List<BulkAgreementRequest.Item> items = new ArrayList<>();
+        files = new LinkedMultiValueMap<>();
+        for (int i = 0; i < AGREEMENTS; i++) {
+            String title = BenchmarkData.title(Agreement.AgreementType.RENTAL, random);
+            titles.add(title);
+            files.add("face-" + i, file("face-" + i, "face.jpg", 8 * 1024, random));
+            files.add("audio-" + i, file("audio-" + i, "talk.mp3", 32 * 1024, random));
+            items.add(new BulkAgreementRequest.Item("item-" + i, userId, "RENTAL", title, List.of(
+                    new FileRef("face-" + i, FileKind.FACE, "PARTY1", null),
+                    new FileRef("audio-" + i, FileKind.AUDIO, null, null))));
+        }
+        request = new BulkAgreementRequest(items);
+    }
+
+    // Stored files would otherwise pile up in memory across iterations
+    @TearDown(Level.Iteration)
+    public void dropFiles() {
+        storage.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BulkAgreementResult> bulk() {
+        return bulkAgreementService.createAll(request, files);
+    }
+
+    @Benchmark
+    public long oneByOne() {
+        long lastId = 0;
+        for (int i = 0; i < AGREEMENTS; i++) {
+            Agreement agreement = agreementService.createInitialAgreement(userId, Agreement.AgreementType.RENTAL, titles.get(i));
+            agreementService.savePartyFace(agreement.getId(), FaceIdentity.PartyType.PARTY1, files.getFirst("face-" + i));
+            agreementService.saveAgreementAudio(agreement.getId(), files.getFirst("audio-" + i));
+            lastId = agreement.getId();
+        }
+        return lastId;
+    }
+
+    private static MockMultipartFile file(String part, String filename, int size, Random random) {
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+        return new MockMultipartFile(part, filename, "application/octet-stream", content);
+    }
+}
@@ -0,0 +1,124 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.dto.BulkAgreementRequest;
+import com.backened.verisay.dto.BulkAgreementRequest.FileKind;
+import com.backened.verisay.dto.BulkAgreementRequest.FileRef;
+import com.backened.verisay.dto.BulkAgreementResult;
+import com.backened.verisay.model.FaceIdentity;
+import com.backened.verisay.model.User;
+import com.backened.verisay.repository.FaceIdentityRepository;
+import com.backened.verisay.repository.UserRepository;
+import com.backened.verisay.storage.FileStorage;
+import com.backened.verisay.storage.InMemoryFileStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs bulk creation through the services against H2, checking what is left in storage when items fail.
+ */
+@SpringBootTest(classes = AgreementServiceTestContext.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BulkAgreementServiceTests {
+
+    @Autowired private BulkAgreementService bulkAgreementService;
+    @Autowired private FaceIdentityRepository faceIdentityRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FileStorage fileStorage;
+
+    private InMemoryFileStorage storage;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        storage = (InMemoryFileStorage) fileStorage;
+        storage.clear();
+        user = userRepository.save(new User(null, UUID.randomUUID().toString(), null, "Bulk Tester", LocalDateTime.now(), null));
+    }
+
+    @Test
+    void anInvalidItemStoresNoneOfItsFiles() {
+        MultiValueMap<String, MultipartFile> files = new LinkedMultiValueMap<>();
+        files.add("face-1", file("face-1", "face.jpg"));
+        files.add("proof-1", file("proof-1", "proof.pdf"));
+        files.add("face-2", file("face-2", "face.jpg"));
+
+        List<BulkAgreementResult> results = bulkAgreementService.createAll(request(
+                item("bad", new FileRef("face-1", FileKind.FACE, "PARTY1", null),
+                        new FileRef("proof-1", FileKind.ID_PROOF, "PARTY1", "NO_SUCH_TYPE")),
+                item("good", new FileRef("face-2", FileKind.FACE, "PARTY1", null))), files);
+
+        assertEquals(BulkAgreementResult.Status.FAILED, results.get(0).getStatus());
+        assertEquals(BulkAgreementResult.Status.CREATED, results.get(1).getStatus());
+        // The bad item's face was never stored, although it comes before the invalid reference
+        assertEquals(1, storage.size());
+        List<String> created = faceIdentityRepository.findAll().stream()
+                .filter(face -> face.getAgreement().getId().equals(results.get(1).getAgreementId()))
+                .map(FaceIdentity::getImagePath)
+                .toList();
+        assertEquals(1, created.size());
+        assertTrue(storage.contains(created.get(0)));
+    }
+
+    @Test
+    void filesStoredForAnItemThatFailsLaterAreDeleted() {
+        MultiValueMap<String, MultipartFile> files = new LinkedMultiValueMap<>();
+        files.add("face-1", file("face-1", "face.jpg"));
+        files.add("audio-1", unreadable("audio-1", "talk.mp3"));
+
+        List<BulkAgreementResult> results = bulkAgreementService.createAll(request(
+                item("broken-upload", new FileRef("face-1", FileKind.FACE, "PARTY1", null),
+                        new FileRef("audio-1", FileKind.AUDIO, null, null))), files);
+
+        assertEquals(BulkAgreementResult.Status.FAILED, results.get(0).getStatus());
+        assertEquals(0, storage.size());
+    }
+
+    @Test
+    void aMissingPartyTypeIsReportedAsAValidationError() {
+        MultiValueMap<String, MultipartFile> files = new LinkedMultiValueMap<>();
+        files.add("face-1", file("face-1", "face.jpg"));
+
+        List<BulkAgreementResult> results = bulkAgreementService.createAll(request(
+                item("no-party", new FileRef("face-1", FileKind.FACE, null, null))), files);
+
+        assertEquals("Party type is required for file part: face-1", results.get(0).getError());
+        assertEquals(0, storage.size());
+    }
+
+    // --- helpers ---
+
+    private BulkAgreementRequest request(BulkAgreementRequest.Item... items) {
+        return new BulkAgreementRequest(List.of(items));
+    }
+
+    private BulkAgreementRequest.Item item(String clientRef, FileRef... files) {
+        return new BulkAgreementRequest.Item(clientRef, user.getId(), "RENTAL", clientRef, List.of(files));
+    }
+
+    private static MockMultipartFile file(String part, String filename) {
+        return new MockMultipartFile(part, filename, "application/octet-stream", (part + "-content").getBytes());
+    }
+
+    // Fails once the service starts reading it, i.e. after its item's earlier files were stored
+    private static MockMultipartFile unreadable(String part, String filename) {
+        return new MockMultipartFile(part, filename, "audio/mpeg", new byte[16]) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("Connection reset while reading " + part);
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.model.FinalPDF;
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.InMemoryFileStorage;
+import com.backened.verisay.storage.StoredFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FinalPDFServiceTests {
+
+    private static final byte[] PDF = "%PDF-1.4 signed agreement".getBytes(StandardCharsets.US_ASCII);
+
+    private final AtomicInteger opens = new AtomicInteger();
+    private InMemoryFileStorage storage;
+    private FinalPDFService service;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFileStorage() {
+            @Override
+            public InputStream open(String path) throws IOException {
+                opens.incrementAndGet();
+                return super.open(path);
+            }
+        };
+        service = new FinalPDFService();
+        ReflectionTestUtils.setField(service, "fileStorage", storage);
+    }
+
+    @Test
+    void anArtifactMatchingItsHashIsServedAndOnlyHashedOnce() throws Exception {
+        StoredFile stored = storage.store(new ByteArrayInputStream(PDF), "agreement-1.pdf", "pdfs");
+        FinalPDF finalPDF = finalPDF(1L, stored.getPath(), stored.getSha256());
+
+        FileStat first = service.verifiedStat(finalPDF);
+        FileStat second = service.verifiedStat(finalPDF);
+
+        assertEquals(PDF.length, first.getSize());
+        assertEquals(PDF.length, second.getSize());
+        assertEquals(1, opens.get());
+    }
+
+    @Test
+    void anArtifactNotMatchingItsHashIsNeverServed() throws Exception {
+        StoredFile stored = storage.store(new ByteArrayInputStream(PDF), "agreement-2.pdf", "pdfs");
+        String otherHash = storage.store(new ByteArrayInputStream("replaced".getBytes(StandardCharsets.US_ASCII)),
+                "other.pdf", "pdfs").getSha256();
+        FinalPDF finalPDF = finalPDF(2L, stored.getPath(), otherHash);
+
+        RuntimeException first = assertThrows(RuntimeException.class, () -> service.verifiedStat(finalPDF));
+        assertEquals("Final PDF 2 does not match its recorded hash", first.getMessage());
+        // A failed check is not remembered: every download is checked again
+        assertThrows(RuntimeException.class, () -> service.verifiedStat(finalPDF));
+        assertEquals(2, opens.get());
+    }
+
+    @Test
+    void aMissingArtifactIsReported() {
+        FinalPDF finalPDF = finalPDF(3L, "pdfs/gone.pdf", "00");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.verifiedStat(finalPDF));
+
+        assertEquals("Final PDF file is missing: pdfs/gone.pdf", e.getMessage());
+    }
+
+    // --- helpers ---
+
+    private static FinalPDF finalPDF(Long id, String path, String hash) {
+        return new FinalPDF(id, 10L + id, path, hash, LocalDateTime.now());
+    }
+}
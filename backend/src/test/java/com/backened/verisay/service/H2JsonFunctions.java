@@ -0,0 +1,84 @@
+package com.backened.verisay.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.h2.value.Value;
+import org.h2.value.ValueJson;
+import org.h2.value.ValueNull;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * MySQL's JSON functions that H2 lacks, registered as aliases in the test database's INIT script.
+ */
+public final class H2JsonFunctions {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private H2JsonFunctions() {
+    }
+
+    /**
+     * JSON_MERGE_PATCH (RFC 7396): objects are merged key by key, a null removes the key, anything else replaces.
+     */
+    public static ValueJson mergePatch(ValueJson target, ValueJson patch) throws IOException {
+        if (patch == null) {
+            return null;
+        }
+        JsonNode patchNode = parse(patch);
+        JsonNode targetNode = target != null ? parse(target) : null;
+        return ValueJson.fromJson(MAPPER.writeValueAsString(merge(targetNode, patchNode)));
+    }
+
+    /**
+     * JSON_EXTRACT for a top-level key, {@code $.key} or {@code $."key"}: the value as JSON, or NULL if absent.
+     * Returns a {@link Value} because H2 can't take a Java null for a JSON result.
+     */
+    public static Value extract(ValueJson json, String path) throws IOException {
+        if (json == null || path == null || !path.startsWith("$.")) {
+            return ValueNull.INSTANCE;
+        }
+        String key = path.substring(2);
+        if (key.length() > 1 && key.startsWith("\"") && key.endsWith("\"")) {
+            key = key.substring(1, key.length() - 1);
+        }
+        JsonNode value = MAPPER.readTree(json.getString()).get(key);
+        return value != null ? ValueJson.fromJson(MAPPER.writeValueAsString(value)) : ValueNull.INSTANCE;
+    }
+
+    /**
+     * JSON_UNQUOTE: a JSON string's text; any other JSON as written.
+     */
+    public static String unquote(String json) throws IOException {
+        if (json == null || !json.startsWith("\"")) {
+            return json;
+        }
+        return MAPPER.readTree(json).textValue();
+    }
+
+    private static JsonNode parse(ValueJson json) throws IOException {
+        JsonNode node = MAPPER.readTree(json.getString());
+        // H2 turns CAST('{...}' AS JSON) into a JSON string holding the text, where MySQL parses it
+        return node.isTextual() ? MAPPER.readTree(node.textValue()) : node;
+    }
+
+    private static JsonNode merge(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode merged = target != null && target.isObject() ? ((ObjectNode) target).deepCopy() : MAPPER.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                merged.remove(field.getKey());
+            } else {
+                merged.set(field.getKey(), merge(merged.get(field.getKey()), field.getValue()));
+            }
+        }
+        return merged;
+    }
+}
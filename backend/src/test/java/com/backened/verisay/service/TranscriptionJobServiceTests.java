@@ -0,0 +1,200 @@
+package com.backened.verisay.service;
+
+import com.backened.verisay.model.Agreement;
+import com.backened.verisay.model.AudioRecord;
+import com.backened.verisay.model.User;
+import com.backened.verisay.repository.AgreementRepository;
+import com.backened.verisay.repository.AudioRecordRepository;
+import com.backened.verisay.repository.UserRepository;
+import com.backened.verisay.service.AudioTranscriptionService.TranscriptionResult;
+import com.backened.verisay.service.TranscriptionJobService.TranscriptionJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The transcription job pipeline through the services and H2, with a stub in place of Whisper and extraction.
+ */
+@SpringBootTest(classes = AgreementServiceTestContext.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class TranscriptionJobServiceTests {
+
+    @Autowired private AgreementService agreementService;
+    @Autowired private AgreementRepository agreementRepository;
+    @Autowired private AudioRecordRepository audioRecordRepository;
+    @Autowired private UserRepository userRepository;
+
+    private StubTranscriptionService transcriptionService;
+    private TranscriptionJobService jobService;
+    private Agreement agreement;
+
+    @BeforeEach
+    void setUp() {
+        transcriptionService = new StubTranscriptionService();
+        jobService = jobService(new SyncTaskExecutor());
+
+        User user = userRepository.save(new User(null, UUID.randomUUID().toString(), null, "Job Tester",
+                LocalDateTime.now(), null));
+        agreement = agreementService.createInitialAgreement(user.getId(), Agreement.AgreementType.RENTAL, "Flat 4B");
+        agreementService.saveAgreementAudio(agreement.getId(), new MockMultipartFile("file", "take.mp3", "audio/mpeg",
+                "take".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void aJobSavesTheExtractedFieldsAndMarksTheAudioProcessed() {
+        TranscriptionJob job = jobService.submit(agreement.getId());
+
+        assertTrue(job.isDone());
+        assertEquals(AudioRecord.AudioStatus.PROCESSED_SUCCESS, job.getStatus());
+        assertEquals(Map.of("rentAmount", "15000"), job.getCompletion().join().getExtractedFields());
+        assertEquals(AudioRecord.AudioStatus.PROCESSED_SUCCESS, audioStatus());
+        assertEquals(Map.of("rentAmount", "15000"), storedData());
+        assertSame(job, jobService.getJob(job.getJobId()).orElseThrow());
+    }
+
+    @Test
+    void fieldsTheUserAlreadyFilledInKeepTheUsersValues() {
+        transcriptionService.extracted = Map.of("rentAmount", "15000", "landlordName", "Ramesh Kumar");
+        agreementService.patchAgreementData(agreement.getId(), Map.of("rentAmount", "18000"), null);
+
+        TranscriptionJob job = jobService.submit(agreement.getId());
+
+        assertEquals(AudioRecord.AudioStatus.PROCESSED_SUCCESS, job.getStatus());
+        assertEquals(Map.of("rentAmount", "18000", "landlordName", "Ramesh Kumar"), storedData());
+    }
+
+    @Test
+    void aFailedTranscriptionMarksTheAudioFailedAndLeavesTheData() {
+        transcriptionService.failure = new RuntimeException("Whisper is down");
+
+        TranscriptionJob job = jobService.submit(agreement.getId());
+
+        assertEquals(AudioRecord.AudioStatus.PROCESSED_FAILED, job.getStatus());
+        assertEquals("Whisper is down", job.getError());
+        assertEquals(AudioRecord.AudioStatus.PROCESSED_FAILED, audioStatus());
+        assertEquals(Map.of(), storedData());
+    }
+
+    @Test
+    void aJobTheQueueRejectsPutsTheAudioBackToUploaded() {
+        jobService = jobService(task -> {
+            throw new RejectedExecutionException("full");
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit(agreement.getId()));
+
+        assertEquals(AudioRecord.AudioStatus.UPLOADED, audioStatus());
+        assertEquals(0, transcriptionService.calls);
+    }
+
+    @Test
+    void finishedJobsAreEvictedOnceTheirRetentionHasPassed() {
+        TranscriptionJob job = jobService.submit(agreement.getId());
+
+        jobService.evictExpiredJobs();
+        assertTrue(jobService.getJob(job.getJobId()).isPresent());
+
+        // Finished more than the retention ago
+        ReflectionTestUtils.setField(jobService, "retentionMinutes", -1L);
+        jobService.evictExpiredJobs();
+        assertTrue(jobService.getJob(job.getJobId()).isEmpty());
+    }
+
+    @Test
+    void aReactiveJobSavesTheExtractedFields() {
+        TranscriptionResult result = jobService.transcribeReactive(agreement.getId()).block(Duration.ofSeconds(10));
+
+        assertEquals(Map.of("rentAmount", "15000"), result.getExtractedFields());
+        assertEquals(AudioRecord.AudioStatus.PROCESSED_SUCCESS, audioStatus());
+        assertEquals(Map.of("rentAmount", "15000"), storedData());
+    }
+
+    @Test
+    void cancellingAReactiveJobMarksTheAudioFailed() throws InterruptedException {
+        CountDownLatch waiting = new CountDownLatch(1);
+        transcriptionService.reactive = Mono.<TranscriptionResult>never().doOnSubscribe(s -> waiting.countDown());
+
+        Disposable subscription = jobService.transcribeReactive(agreement.getId()).subscribe();
+        assertTrue(waiting.await(10, TimeUnit.SECONDS));
+        assertEquals(AudioRecord.AudioStatus.PROCESSING_TRANSCRIPTION, audioStatus());
+        subscription.dispose();
+
+        // The cancellation completes the job on another thread
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (audioStatus() == AudioRecord.AudioStatus.PROCESSING_TRANSCRIPTION && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(AudioRecord.AudioStatus.PROCESSED_FAILED, audioStatus());
+        assertEquals(Map.of(), storedData());
+    }
+
+    // --- helpers ---
+
+    private TranscriptionJobService jobService(TaskExecutor executor) {
+        TranscriptionJobService service = new TranscriptionJobService();
+        ReflectionTestUtils.setField(service, "agreementService", agreementService);
+        ReflectionTestUtils.setField(service, "transcriptionService", transcriptionService);
+        ReflectionTestUtils.setField(service, "transcriptionExecutor", executor);
+        ReflectionTestUtils.setField(service, "retentionMinutes", 60L);
+        return service;
+    }
+
+    private AudioRecord.AudioStatus audioStatus() {
+        return audioRecordRepository.findTopByAgreement_IdOrderByUploadedAtDesc(agreement.getId())
+                .orElseThrow().getStatus();
+    }
+
+    private Map<String, Object> storedData() {
+        return agreementRepository.findById(agreement.getId()).orElseThrow().getAgreementData();
+    }
+
+    // Hears the rent (or the given fields) in every recording, or fails with the given exception
+    static class StubTranscriptionService extends AudioTranscriptionService {
+
+        volatile RuntimeException failure;
+        volatile int calls;
+        volatile Map<String, Object> extracted = Map.of("rentAmount", "15000");
+        // What the reactive path returns; null runs the blocking stub on subscription
+        volatile Mono<TranscriptionResult> reactive;
+
+        @Override
+        public TranscriptionResult transcribeAndExtract(String relativeFilePath, String contentHash,
+                                                        Agreement.AgreementType agreementType) {
+            calls++;
+            if (failure != null) {
+                throw failure;
+            }
+            return new TranscriptionResult(extracted, List.of(), "the rent is 15000 rupees");
+        }
+
+        @Override
+        public Mono<TranscriptionResult> transcribeAndExtractReactive(String relativeFilePath, String contentHash,
+                                                                      Agreement.AgreementType agreementType) {
+            return reactive != null ? reactive
+                    : Mono.fromCallable(() -> transcribeAndExtract(relativeFilePath, contentHash, agreementType));
+        }
+
+        @Override
+        public TranscriptionResult emptyResult(Agreement.AgreementType agreementType) {
+            return new TranscriptionResult(Map.of(), List.of("rentAmount"));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.backened.verisay.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageTests {
+
+    private static final byte[] CONTENT = "the quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+    private static final String CONTENT_SHA256 = "05c6e08f1d9fdafa03147fcb8f82f124c76d2f70e3d989dc8aadb5e7d7450bec";
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void localStorageRoundTrip() throws Exception {
+        LocalFileStorage storage = new LocalFileStorage();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        storage.init();
+
+        assertContract(storage);
+    }
+
+    @Test
+    void contentAddressableStorageRoundTripAndDeduplication() throws Exception {
+        ContentAddressableFileStorage storage = new ContentAddressableFileStorage();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        storage.init();
+
+        StoredFile first = storage.store(new ByteArrayInputStream(CONTENT), "a.mp3", "audio");
+        StoredFile second = storage.store(new ByteArrayInputStream(CONTENT), "b.mp3", "audio");
+        assertEquals(first.getPath(), second.getPath());
+        assertEquals("blobs/05/c6/" + CONTENT_SHA256 + ".mp3", first.getPath());
+
+        assertContract(storage);
+    }
+
+    @Test
+    void aBlobReusedAfterTheCutoffIsNotCollected() throws Exception {
+        ContentAddressableFileStorage storage = new ContentAddressableFileStorage();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        storage.init();
+        StoredFile stored = storage.store(new ByteArrayInputStream(CONTENT), "a.mp3", "audio");
+        Path blob = uploadDir.resolve(stored.getPath());
+        Files.setLastModifiedTime(blob, FileTime.fromMillis(1_000));
+        long cutoff = System.currentTimeMillis() - 60_000;
+
+        // Listed as old, then an upload reuses it before the collector deletes it
+        storage.store(new ByteArrayInputStream(CONTENT), "b.mp3", "audio");
+        assertFalse(storage.deleteIfNotModifiedSince(stored.getPath(), cutoff));
+        assertTrue(Files.exists(blob));
+
+        Files.setLastModifiedTime(blob, FileTime.fromMillis(1_000));
+        assertTrue(storage.deleteIfNotModifiedSince(stored.getPath(), cutoff));
+        assertFalse(storage.deleteIfNotModifiedSince(stored.getPath(), cutoff));
+    }
+
+    @Test
+    void spooledFilesAreMovedIntoPlace() throws Exception {
+        LocalFileStorage local = new LocalFileStorage();
+        ReflectionTestUtils.setField(local, "uploadDir", uploadDir.resolve("local").toString());
+        local.init();
+        ContentAddressableFileStorage cas = new ContentAddressableFileStorage();
+        ReflectionTestUtils.setField(cas, "uploadDir", uploadDir.resolve("cas").toString());
+        cas.init();
+
+        for (FileStorage storage : List.of(local, cas, cas)) {
+            Path spooled = Files.write(uploadDir.resolve("spooled-" + UUID.randomUUID()), CONTENT);
+            StoredFile stored = storage.storeFile(spooled, "recording.mp3", "audio");
+
+            assertFalse(Files.exists(spooled));
+            assertEquals(CONTENT_SHA256, stored.getSha256());
+            assertEquals(CONTENT.length, stored.getSize());
+            try (InputStream in = storage.open(stored.getPath())) {
+                assertArrayEquals(CONTENT, in.readAllBytes());
+            }
+        }
+        assertEquals("blobs/05/c6/" + CONTENT_SHA256 + ".mp3",
+                cas.storeFile(Files.write(uploadDir.resolve("again"), CONTENT), "x.mp3", "audio").getPath());
+    }
+
+    @Test
+    void inMemoryStandInRoundTrip() throws Exception {
+        assertContract(new InMemoryFileStorage());
+    }
+
+    @Test
+    void pathsCannotEscapeTheStorageRoot() throws Exception {
+        LocalFileStorage storage = new LocalFileStorage();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        storage.init();
+
+        assertThrows(IllegalArgumentException.class, () -> storage.open("../outside.txt"));
+    }
+
+    private void assertContract(FileStorage storage) throws Exception {
+        StoredFile stored = storage.store(new ByteArrayInputStream(CONTENT), "recording.mp3", "audio");
+        assertEquals(CONTENT.length, stored.getSize());
+        assertEquals(CONTENT_SHA256, stored.getSha256());
+        assertTrue(stored.getPath().endsWith(".mp3"));
+
+        try (InputStream in = storage.open(stored.getPath())) {
+            assertArrayEquals(CONTENT, in.readAllBytes());
+        }
+        try (InputStream in = storage.open(stored.getPath(), 4, 5)) {
+            assertEquals("quick", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        FileStat stat = storage.stat(stored.getPath()).orElseThrow();
+        assertEquals(CONTENT.length, stat.getSize());
+
+        assertTrue(storage.delete(stored.getPath()));
+        assertFalse(storage.delete(stored.getPath()));
+        assertTrue(storage.stat(stored.getPath()).isEmpty());
+    }
+}
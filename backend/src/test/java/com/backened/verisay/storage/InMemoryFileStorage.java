@@ -0,0 +1,78 @@
+package com.backened.verisay.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process stand-in for an object store, keyed like the S3 backend ("audio/uuid.mp3").
+ * Lets storage consumers be tested without a bucket or a disk.
+ */
+public class InMemoryFileStorage implements FileStorage {
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    private record StoredObject(byte[] content, Instant lastModified) {
+    }
+
+    @Override
+    public StoredFile store(InputStream content, String originalFilename, String subDirectory) throws IOException {
+        byte[] bytes = content.readAllBytes();
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1);
+        String key = subDirectory + "/" + UUID.randomUUID() + "." + extension;
+        objects.put(key, new StoredObject(bytes, Instant.now()));
+        return new StoredFile(key, HexFormat.of().formatHex(StorageStreams.newSha256().digest(bytes)), bytes.length);
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        return new ByteArrayInputStream(get(path).content());
+    }
+
+    @Override
+    public InputStream open(String path, long offset, long length) throws IOException {
+        byte[] content = get(path).content();
+        int from = (int) Math.min(offset, content.length);
+        int to = (int) Math.min(offset + length, content.length);
+        return new ByteArrayInputStream(content, from, to - from);
+    }
+
+    @Override
+    public boolean delete(String path) {
+        return objects.remove(path) != null;
+    }
+
+    @Override
+    public Optional<FileStat> stat(String path) {
+        StoredObject object = objects.get(path);
+        return Optional.ofNullable(object)
+                .map(o -> new FileStat(path, o.content().length, o.lastModified()));
+    }
+
+    public boolean contains(String path) {
+        return objects.containsKey(path);
+    }
+
+    public int size() {
+        return objects.size();
+    }
+
+    public void clear() {
+        objects.clear();
+    }
+
+    private StoredObject get(String path) throws NoSuchFileException {
+        StoredObject object = objects.get(path);
+        if (object == null) {
+            throw new NoSuchFileException(path);
+        }
+        return object;
+    }
+}
@@ -0,0 +1,128 @@
+package com.backened.verisay.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the S3 backend against {@link S3Stub}.
+ */
+class S3FileStorageTests {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private S3Stub stub;
+    private S3FileStorage storage;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = new S3Stub("agreements");
+        storage = new S3FileStorage();
+        ReflectionTestUtils.setField(storage, "bucket", "agreements");
+        ReflectionTestUtils.setField(storage, "endpoint", stub.endpoint());
+        ReflectionTestUtils.setField(storage, "region", "us-east-1");
+        ReflectionTestUtils.setField(storage, "accessKey", "test");
+        ReflectionTestUtils.setField(storage, "secretKey", "test");
+        ReflectionTestUtils.setField(storage, "partSize", DataSize.ofBytes(PART_SIZE));
+        ReflectionTestUtils.setField(storage, "uploadConcurrency", 2);
+        storage.init();
+    }
+
+    @AfterEach
+    void stopStub() {
+        storage.shutdown();
+        stub.close();
+    }
+
+    @Test
+    void smallFilesGoUpInOnePut() throws Exception {
+        byte[] content = "the quick brown fox jumps over the lazy dog".getBytes();
+
+        StoredFile stored = storage.store(new ByteArrayInputStream(content), "recording.mp3", "audio");
+
+        assertTrue(stored.getPath().startsWith("audio/") && stored.getPath().endsWith(".mp3"));
+        assertEquals(sha256(content), stored.getSha256());
+        assertArrayEquals(content, stub.object(stored.getPath()));
+        try (InputStream in = storage.open(stored.getPath(), 4, 5)) {
+            assertEquals("quick", new String(in.readAllBytes()));
+        }
+        assertEquals(content.length, storage.stat(stored.getPath()).orElseThrow().getSize());
+        assertTrue(storage.delete(stored.getPath()));
+        assertFalse(storage.delete(stored.getPath()));
+        assertTrue(storage.stat(stored.getPath()).isEmpty());
+        assertThrows(NoSuchFileException.class, () -> storage.open(stored.getPath()));
+    }
+
+    @Test
+    void largeFilesGoUpAsPartsWithBoundedConcurrency() throws Exception {
+        // Four full parts and a short last one
+        byte[] content = randomBytes(4 * PART_SIZE + 1234);
+
+        StoredFile stored = storage.store(new ByteArrayInputStream(content), "recording.mp3", "audio");
+
+        assertEquals(content.length, stored.getSize());
+        assertEquals(sha256(content), stored.getSha256());
+        assertArrayEquals(content, stub.object(stored.getPath()));
+        assertEquals(0, stub.pendingUploads());
+        // Parts overlap, but never more than upload-concurrency of them
+        assertEquals(2, stub.maxPartsInFlight);
+
+        // A range across a part boundary
+        try (InputStream in = storage.open(stored.getPath(), PART_SIZE - 10, 20)) {
+            assertArrayEquals(Arrays.copyOfRange(content, PART_SIZE - 10, PART_SIZE + 10), in.readAllBytes());
+        }
+        // A range running past the end is cut short
+        try (InputStream in = storage.open(stored.getPath(), content.length - 5, 100)) {
+            assertArrayEquals(Arrays.copyOfRange(content, content.length - 5, content.length), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void aFailedPartAbortsTheUploadAndReleasesItsPermits() throws Exception {
+        stub.failPartNumber = 2;
+        byte[] content = randomBytes(3 * PART_SIZE);
+
+        assertThrows(IOException.class, () -> storage.store(new ByteArrayInputStream(content), "a.mp3", "audio"));
+        assertEquals(1, stub.abortedUploads);
+        assertEquals(0, stub.pendingUploads());
+
+        // No permit was left behind: uploads still get through, and don't hang waiting for one
+        stub.failPartNumber = -1;
+        StoredFile stored = CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return storage.store(new ByteArrayInputStream(content), "b.mp3", "audio");
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .get(30, TimeUnit.SECONDS);
+        assertArrayEquals(content, stub.object(stored.getPath()));
+    }
+
+    // --- helpers ---
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] content) {
+        return HexFormat.of().formatHex(StorageStreams.newSha256().digest(content));
+    }
+}
@@ -0,0 +1,299 @@
+package com.backened.verisay.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for an S3-compatible endpoint (path-style, one bucket), covering what
+ * {@link S3FileStorage} uses: PUT, GET with Range, HEAD, DELETE and multipart uploads.
+ * Records how many part uploads were in flight at once, and can fail a given part number.
+ */
+class S3Stub implements AutoCloseable {
+
+    private static final Pattern PART = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private final String bucket;
+    private final HttpServer server;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, SortedMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+
+    volatile int maxPartsInFlight;
+    volatile int abortedUploads;
+    volatile int failPartNumber = -1;
+    // How long each part upload takes, so concurrent ones overlap
+    volatile long partDelayMillis = 50;
+
+    S3Stub(String bucket) throws IOException {
+        this.bucket = bucket;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    byte[] object(String key) {
+        return objects.get(key);
+    }
+
+    int pendingUploads() {
+        return uploads.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String prefix = "/" + bucket + "/";
+            String path = exchange.getRequestURI().getRawPath();
+            if (!path.startsWith(prefix)) {
+                send(exchange, 404, error("NoSuchBucket"));
+                return;
+            }
+            String key = URLDecoder.decode(path.substring(prefix.length()), StandardCharsets.UTF_8);
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> put(exchange, key, query);
+                case "POST" -> post(exchange, key, query);
+                case "GET" -> get(exchange, key);
+                case "HEAD" -> head(exchange, key);
+                case "DELETE" -> delete(exchange, key, query);
+                default -> send(exchange, 405, error("MethodNotAllowed"));
+            }
+        }
+    }
+
+    private void put(HttpExchange exchange, String key, Map<String, String> query) throws IOException {
+        byte[] body = body(exchange);
+        if (!query.containsKey("uploadId")) {
+            objects.put(key, body);
+            exchange.getResponseHeaders().add("ETag", eTag(body));
+            send(exchange, 200, new byte[0]);
+            return;
+        }
+        int partNumber = Integer.parseInt(query.get("partNumber"));
+        int inFlight = partsInFlight.incrementAndGet();
+        try {
+            synchronized (this) {
+                maxPartsInFlight = Math.max(maxPartsInFlight, inFlight);
+            }
+            sleep(partDelayMillis);
+            SortedMap<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+            if (parts == null) {
+                send(exchange, 404, error("NoSuchUpload"));
+                return;
+            }
+            if (partNumber == failPartNumber) {
+                send(exchange, 400, error("InvalidPart"));
+                return;
+            }
+            parts.put(partNumber, body);
+            exchange.getResponseHeaders().add("ETag", eTag(body));
+            send(exchange, 200, new byte[0]);
+        } finally {
+            partsInFlight.decrementAndGet();
+        }
+    }
+
+    private void post(HttpExchange exchange, String key, Map<String, String> query) throws IOException {
+        if (query.containsKey("uploads")) {
+            String uploadId = UUID.randomUUID().toString();
+            uploads.put(uploadId, new TreeMap<>());
+            send(exchange, 200, xml("<InitiateMultipartUploadResult><Bucket>" + bucket + "</Bucket><Key>" + key
+                    + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>"));
+            return;
+        }
+        String completion = new String(body(exchange), StandardCharsets.UTF_8);
+        SortedMap<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+        if (parts == null) {
+            send(exchange, 404, error("NoSuchUpload"));
+            return;
+        }
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        Matcher partNumbers = PART.matcher(completion);
+        while (partNumbers.find()) {
+            byte[] part = parts.get(Integer.parseInt(partNumbers.group(1)));
+            if (part == null) {
+                send(exchange, 400, error("InvalidPart"));
+                return;
+            }
+            assembled.write(part);
+        }
+        objects.put(key, assembled.toByteArray());
+        send(exchange, 200, xml("<CompleteMultipartUploadResult><Bucket>" + bucket + "</Bucket><Key>" + key
+                + "</Key><ETag>\"complete\"</ETag></CompleteMultipartUploadResult>"));
+    }
+
+    private void get(HttpExchange exchange, String key) throws IOException {
+        byte[] object = objects.get(key);
+        if (object == null) {
+            send(exchange, 404, error("NoSuchKey"));
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            send(exchange, 200, object);
+            return;
+        }
+        Matcher matcher = RANGE.matcher(range);
+        if (!matcher.matches()) {
+            send(exchange, 416, error("InvalidRange"));
+            return;
+        }
+        int start = Integer.parseInt(matcher.group(1));
+        int end = Math.min(Integer.parseInt(matcher.group(2)), object.length - 1);
+        if (start >= object.length) {
+            send(exchange, 416, error("InvalidRange"));
+            return;
+        }
+        byte[] slice = new byte[end - start + 1];
+        System.arraycopy(object, start, slice, 0, slice.length);
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + object.length);
+        send(exchange, 206, slice);
+    }
+
+    private void head(HttpExchange exchange, String key) throws IOException {
+        byte[] object = objects.get(key);
+        if (object == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        exchange.getResponseHeaders().add("Last-Modified",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+        exchange.getResponseHeaders().add("Content-Length", String.valueOf(object.length));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void delete(HttpExchange exchange, String key, Map<String, String> query) throws IOException {
+        if (query.containsKey("uploadId")) {
+            if (uploads.remove(query.get("uploadId")) != null) {
+                abortedUploads++;
+            }
+        } else {
+            objects.remove(key);
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    // --- helpers ---
+
+    private static byte[] body(HttpExchange exchange) throws IOException {
+        byte[] raw = exchange.getRequestBody().readAllBytes();
+        String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        boolean chunked = (contentSha256 != null && contentSha256.startsWith("STREAMING-"))
+                || (encoding != null && encoding.contains("aws-chunked"));
+        return chunked ? decodeAwsChunked(raw) : raw;
+    }
+
+    // aws-chunked: "<hex size>[;chunk-signature=...]\r\n<data>\r\n" repeated, ending with a zero-size chunk
+    private static byte[] decodeAwsChunked(byte[] raw) {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < raw.length) {
+            int lineEnd = indexOfCrlf(raw, position);
+            String header = new String(raw, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.split(";")[0].trim(), 16);
+            if (size == 0) {
+                break;
+            }
+            decoded.write(raw, lineEnd + 2, size);
+            position = lineEnd + 2 + size + 2;
+        }
+        return decoded.toByteArray();
+    }
+
+    private static int indexOfCrlf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length - 1; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return bytes.length;
+    }
+
+    // The client checks a single PUT's ETag against the MD5 it computed
+    private static String eTag(byte[] body) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(body)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            List<String> pair = List.of(parameter.split("=", 2));
+            query.put(URLDecoder.decode(pair.get(0), StandardCharsets.UTF_8),
+                    pair.size() > 1 ? URLDecoder.decode(pair.get(1), StandardCharsets.UTF_8) : "");
+        }
+        return query;
+    }
+
+    private static byte[] xml(String body) {
+        return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body
+                .replaceFirst(">", " xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] error(String code) {
+        return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>" + code
+                + "</Message></Error>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body.length > 0 && status != 206 && status != 200) {
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.backened.verisay.transcription;
+
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.InMemoryFileStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedTranscriberTests {
+
+    // MPEG 1 layer III, 128 kbps, 44.1 kHz, no padding: 417 bytes and 1152 samples per frame
+    private static final byte[] FRAME_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x00};
+    private static final int FRAME_LENGTH = 417;
+
+    private final InMemoryFileStorage storage = new InMemoryFileStorage();
+
+    // --- MP3 ---
+
+    @Test
+    void splitsMp3OnFrameBoundaries() throws IOException {
+        List<AudioChunk> chunks = split(mp3Splitter(1.0), mp3(100), "rec.mp3");
+
+        // 38 frames are just under a second, so each full chunk holds 39 new frames, plus 8 repeated after the first
+        assertEquals(3, chunks.size());
+        assertEquals(39 * FRAME_LENGTH, chunks.get(0).data().length);
+        assertEquals(47 * FRAME_LENGTH, chunks.get(1).data().length);
+        assertEquals(30 * FRAME_LENGTH, chunks.get(2).data().length);
+        for (AudioChunk chunk : chunks) {
+            assertEquals((byte) 0xFF, chunk.data()[0]);
+        }
+        assertEquals("rec-part1.mp3", chunks.get(1).filename());
+        double frameSeconds = 1152 / 44100.0;
+        assertEquals(chunks.get(0).durationSeconds() - 8 * frameSeconds, chunks.get(1).startSeconds(), 1e-9);
+        AudioChunk last = chunks.get(2);
+        assertEquals(100 * frameSeconds, last.startSeconds() + last.durationSeconds(), 1e-9);
+    }
+
+    @Test
+    void repeatsTheEndOfTheChunkBeforeAtTheStartOfTheNext() throws IOException {
+        byte[] recording = mp3(100);
+        // Tell the frames apart by their first audio byte
+        for (int i = 0; i < 100; i++) {
+            recording[i * FRAME_LENGTH + FRAME_HEADER.length] = (byte) i;
+        }
+        Mp3FrameSplitter splitter = mp3Splitter(1.0);
+        ReflectionTestUtils.setField(splitter, "overlapSeconds", 0.5);
+
+        List<AudioChunk> chunks = split(splitter, recording, "rec.mp3");
+
+        // Half a second is 20 frames: frames 19-38 end the first chunk and open the second
+        assertEquals(39, frameNumbers(chunks.get(0)).size());
+        assertEquals(List.of(19, 20, 38, 39), pick(frameNumbers(chunks.get(1)), 0, 1, 19, 20));
+        assertEquals(59, frameNumbers(chunks.get(1)).size());
+        assertEquals(List.of(58, 78, 99), pick(frameNumbers(chunks.get(2)), 0, 20, 41));
+        assertEquals(42, frameNumbers(chunks.get(2)).size());
+    }
+
+    @Test
+    void dropsTagsAndJunkAroundMp3Frames() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        // ID3v2 header announcing a 20-byte tag body
+        file.write(new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 0, 20});
+        file.write(new byte[20]);
+        file.write(mp3(10));
+        file.write("junk".getBytes());
+        file.write(mp3(10));
+        // ID3v1 trailer
+        file.write('T');
+        file.write('A');
+        file.write('G');
+        file.write(new byte[125]);
+
+        List<AudioChunk> chunks = split(mp3Splitter(60), file.toByteArray(), "rec.mp3");
+
+        assertEquals(1, chunks.size());
+        assertEquals(20 * FRAME_LENGTH, chunks.get(0).data().length);
+    }
+
+    // --- WAV ---
+
+    @Test
+    void cutsWavAtTheQuietestPointBeforeTheWindowEdge() throws Exception {
+        WavSilenceSplitter splitter = new WavSilenceSplitter();
+        ReflectionTestUtils.setField(splitter, "windowSeconds", 2.0);
+        ReflectionTestUtils.setField(splitter, "silenceSearchSeconds", 1.0);
+
+        // 5 s of tone with a pause from 1.5 s to 1.6 s
+        List<AudioChunk> chunks = split(splitter, wav(5.0, 1.5, 1.6), "rec.wav");
+
+        assertTrue(chunks.size() >= 3);
+        double firstCut = chunks.get(0).durationSeconds();
+        assertTrue(firstCut >= 1.5 && firstCut <= 1.6, "cut at " + firstCut);
+
+        double total = 0;
+        for (AudioChunk chunk : chunks) {
+            assertEquals(total, chunk.startSeconds(), 1e-6);
+            total += chunk.durationSeconds();
+            // Every chunk is a complete WAV file
+            try (AudioInputStream in = AudioSystem.getAudioInputStream(new ByteArrayInputStream(chunk.data()))) {
+                assertEquals(Math.round(chunk.durationSeconds() * 8000), in.getFrameLength());
+            }
+        }
+        assertEquals(5.0, total, 1e-6);
+    }
+
+    // --- TRANSCRIPTION ---
+
+    @Test
+    void stitchesChunkTranscriptsInRecordingOrder() throws IOException {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        WhisperClient whisper = new WhisperClient() {
+            @Override
+            public String transcribe(Resource audio) {
+                threads.add(Thread.currentThread().getName());
+                String name = audio.getFilename();
+                int index = Integer.parseInt(name.substring(name.indexOf("-part") + 5, name.indexOf('.')));
+                // Later chunks finish first
+                sleep(40 - index * 15L);
+                return " text" + index + " ";
+            }
+        };
+
+        assertEquals("text0 text1 text2", transcriber(whisper).transcribe(store(mp3(100))));
+        assertTrue(threads.size() > 1);
+    }
+
+    @Test
+    void keepsWordsHeardInTwoOverlappingChunksOnce() throws IOException {
+        WhisperClient whisper = new WhisperClient() {
+            @Override
+            public String transcribe(Resource audio) {
+                String name = audio.getFilename();
+                return switch (name.substring(name.indexOf("-part") + 5, name.indexOf('.'))) {
+                    case "0" -> "The monthly rent is";
+                    case "1" -> "rent is fifteen thousand rupees.";
+                    default -> "Rupees, payable on the fifth.";
+                };
+            }
+        };
+
+        assertEquals("The monthly rent is fifteen thousand rupees. payable on the fifth.",
+                transcriber(whisper).transcribe(store(mp3(100))));
+    }
+
+    @Test
+    void findsTheLongestRepeatedRunOfWords() {
+        assertEquals(2, ChunkedTranscriber.repeatedWords(List.of("the", "rent", "is"), List.of("Rent", "is", "due")));
+        assertEquals(0, ChunkedTranscriber.repeatedWords(List.of("the", "rent"), List.of("is", "due")));
+        // A repeat must line up with the very end of what came before
+        assertEquals(0, ChunkedTranscriber.repeatedWords(List.of("rent", "is", "due"), List.of("rent", "is")));
+    }
+
+    @Test
+    void failsWhenAChunkFailsAfterRetries() throws IOException {
+        WhisperClient whisper = new WhisperClient() {
+            @Override
+            public String transcribe(Resource audio) {
+                if (audio.getFilename().contains("-part1")) {
+                    throw new WhisperException("OpenAI API error 500", true);
+                }
+                return "ok";
+            }
+        };
+
+        WhisperException e = assertThrows(WhisperException.class, () -> transcriber(whisper).transcribe(store(mp3(100))));
+        assertEquals("OpenAI API error 500", e.getMessage());
+    }
+
+    private static List<Integer> pick(List<Integer> values, int... positions) {
+        List<Integer> picked = new ArrayList<>();
+        for (int position : positions) {
+            picked.add(values.get(position));
+        }
+        return picked;
+    }
+
+    private static List<Integer> frameNumbers(AudioChunk chunk) {
+        List<Integer> numbers = new ArrayList<>();
+        for (int offset = 0; offset < chunk.data().length; offset += FRAME_LENGTH) {
+            numbers.add((int) chunk.data()[offset + FRAME_HEADER.length]);
+        }
+        return numbers;
+    }
+
+    private FileStat store(byte[] content) throws IOException {
+        String path = storage.store(new ByteArrayInputStream(content), "rec.mp3", "audio").getPath();
+        return storage.stat(path).orElseThrow();
+    }
+
+    private ChunkedTranscriber transcriber(WhisperClient whisper) {
+        ChunkedTranscriber transcriber = new ChunkedTranscriber();
+        ReflectionTestUtils.setField(transcriber, "whisperClient", whisper);
+        ReflectionTestUtils.setField(transcriber, "fileStorage", storage);
+        ReflectionTestUtils.setField(transcriber, "splitters", List.of(mp3Splitter(1.0)));
+        ReflectionTestUtils.setField(transcriber, "chunkExecutor", new SimpleAsyncTaskExecutor("chunk-"));
+        ReflectionTestUtils.setField(transcriber, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(transcriber, "enabled", true);
+        ReflectionTestUtils.setField(transcriber, "maxInFlight", 2);
+        transcriber.init();
+        return transcriber;
+    }
+
+    private static Mp3FrameSplitter mp3Splitter(double windowSeconds) {
+        Mp3FrameSplitter splitter = new Mp3FrameSplitter();
+        ReflectionTestUtils.setField(splitter, "windowSeconds", windowSeconds);
+        // Only the frames the bit reservoir needs
+        ReflectionTestUtils.setField(splitter, "overlapSeconds", 0.0);
+        return splitter;
+    }
+
+    private static List<AudioChunk> split(AudioSplitter splitter, byte[] content, String filename) throws IOException {
+        List<AudioChunk> chunks = new ArrayList<>();
+        splitter.split(new ByteArrayInputStream(content), filename, chunks::add);
+        return chunks;
+    }
+
+    // Silent MP3 frames: a valid header followed by zeroed audio data
+    private static byte[] mp3(int frames) {
+        ByteBuffer buffer = ByteBuffer.allocate(frames * FRAME_LENGTH);
+        for (int i = 0; i < frames; i++) {
+            buffer.put(FRAME_HEADER);
+            buffer.put(new byte[FRAME_LENGTH - FRAME_HEADER.length]);
+        }
+        return buffer.array();
+    }
+
+    // 16-bit mono 8 kHz WAV: a square wave, silent between pauseFrom and pauseTo
+    private static byte[] wav(double seconds, double pauseFrom, double pauseTo) throws IOException {
+        AudioFormat format = new AudioFormat(8000, 16, 1, true, false);
+        int frames = (int) Math.round(seconds * 8000);
+        ByteBuffer pcm = ByteBuffer.allocate(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            double t = i / 8000.0;
+            boolean pause = t >= pauseFrom && t < pauseTo;
+            pcm.putShort(pause ? 0 : (short) ((i / 10) % 2 == 0 ? 8000 : -8000));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm.array()), format, frames),
+                AudioFileFormat.Type.WAVE, out);
+        return out.toByteArray();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
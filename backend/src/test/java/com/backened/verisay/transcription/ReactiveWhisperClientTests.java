@@ -0,0 +1,146 @@
+package com.backened.verisay.transcription;
+
+import com.backened.verisay.config.OpenAIProperties;
+import com.backened.verisay.storage.FileStat;
+import com.backened.verisay.storage.InMemoryFileStorage;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the reactive client against a local stub server standing in for the Whisper API.
+ */
+class ReactiveWhisperClientTests {
+
+    private HttpServer server;
+    // Status codes the stub answers with, in order; 200 once they run out
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile long responseDelayMillis;
+
+    private final InMemoryFileStorage storage = new InMemoryFileStorage();
+    private ReactiveWhisperClient client;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(64));
+        server.createContext("/v1/audio/transcriptions", exchange -> {
+            hits.incrementAndGet();
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+            Integer status = statuses.poll();
+            int code = status != null ? status : 200;
+            if (code == 200 && !request.contains("fake audio")) {
+                code = 422;
+            }
+            sleep(responseDelayMillis);
+            byte[] body = (code == 200 ? "{\"text\":\"rent is 15000 rupees\"}" : "{\"error\":\"stub\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        OpenAIProperties properties = new OpenAIProperties();
+        properties.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/audio/transcriptions");
+        properties.setKey("test-key");
+        properties.setRetryBaseDelay(Duration.ofMillis(1));
+        properties.setRetryMaxDelay(Duration.ofMillis(5));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        WhisperClient whisperClient = new WhisperClient();
+        ReflectionTestUtils.setField(whisperClient, "properties", properties);
+        ReflectionTestUtils.setField(whisperClient, "meterRegistry", meterRegistry);
+        whisperClient.init();
+
+        client = new ReactiveWhisperClient();
+        ReflectionTestUtils.setField(client, "properties", properties);
+        ReflectionTestUtils.setField(client, "fileStorage", storage);
+        ReflectionTestUtils.setField(client, "whisperClient", whisperClient);
+        ReflectionTestUtils.setField(client, "meterRegistry", meterRegistry);
+        client.init();
+    }
+
+    @AfterEach
+    void stopStub() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void streamsTheStoredAudioAndReturnsTheTranscript() throws IOException {
+        assertEquals("rent is 15000 rupees", client.transcribe(storedAudio()).block(Duration.ofSeconds(10)));
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void retriesServerErrors() throws IOException {
+        statuses.add(503);
+        statuses.add(429);
+
+        assertEquals("rent is 15000 rupees", client.transcribe(storedAudio()).block(Duration.ofSeconds(10)));
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() throws IOException {
+        statuses.add(400);
+
+        WhisperException e = assertThrows(WhisperException.class,
+                () -> client.transcribe(storedAudio()).block(Duration.ofSeconds(10)));
+        assertFalse(e.isTransientFailure());
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void keepsManyRequestsInFlightWithoutAThreadEach() throws IOException {
+        responseDelayMillis = 200;
+        FileStat audio = storedAudio();
+
+        long start = System.nanoTime();
+        List<String> transcripts = Flux.range(0, 64)
+                .flatMap(i -> client.transcribe(audio), 64)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(64, transcripts.size());
+        // One after the other this would take over 12 seconds
+        assertTrue(elapsedMillis < 5_000, "took " + elapsedMillis + " ms");
+    }
+
+    private FileStat storedAudio() throws IOException {
+        String path = storage.store(new ByteArrayInputStream("fake audio".getBytes(StandardCharsets.UTF_8)),
+                "audio.mp3", "audio").getPath();
+        return storage.stat(path).orElseThrow();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.backened.verisay.transcription;
+
+import com.backened.verisay.config.OpenAIProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the client against a local stub server standing in for the Whisper API.
+ */
+class WhisperClientTests {
+
+    private HttpServer server;
+    // Status codes the stub answers with, in order; 200 once they run out
+    private final Deque<Integer> statuses = new ArrayDeque<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    // Sent with every error response when set
+    private volatile String retryAfter;
+
+    private OpenAIProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/audio/transcriptions", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            Integer status = statuses.poll();
+            int code = status != null ? status : 200;
+            byte[] body = (code == 200 ? "{\"text\":\"rent is 15000 rupees\"}" : "{\"error\":\"stub\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (code != 200 && retryAfter != null) {
+                exchange.getResponseHeaders().add("Retry-After", retryAfter);
+            }
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        properties = new OpenAIProperties();
+        properties.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/audio/transcriptions");
+        properties.setKey("test-key");
+        properties.setRetryBaseDelay(Duration.ofMillis(1));
+        properties.setRetryMaxDelay(Duration.ofMillis(5));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void returnsTheTranscript() {
+        assertEquals("rent is 15000 rupees", client().transcribe(audio()));
+        assertEquals(1, hits.get());
+        assertEquals(1, meterRegistry.get("whisper.requests").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void retriesThrottlingAndServerErrors() {
+        statuses.add(429);
+        statuses.add(503);
+
+        assertEquals("rent is 15000 rupees", client().transcribe(audio()));
+        assertEquals(3, hits.get());
+        assertEquals(2.0, meterRegistry.get("whisper.retries").counter().count());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        statuses.add(400);
+
+        WhisperException e = assertThrows(WhisperException.class, () -> client().transcribe(audio()));
+        assertFalse(e.isTransientFailure());
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        properties.setMaxRetries(2);
+        for (int i = 0; i < 5; i++) {
+            statuses.add(500);
+        }
+
+        WhisperException e = assertThrows(WhisperException.class, () -> client().transcribe(audio()));
+        assertTrue(e.isTransientFailure());
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    void waitsAsLongAsRetryAfterAsksEvenBeyondTheBackoffCap() {
+        properties.setRetryMaxDelay(Duration.ofSeconds(2));
+        retryAfter = "1";
+        statuses.add(429);
+
+        long started = System.nanoTime();
+        assertEquals("rent is 15000 rupees", client().transcribe(audio()));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() >= 1000);
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void givesUpWhenRetryAfterIsLongerThanTheMaxDelay() {
+        retryAfter = "60";
+        statuses.add(503);
+
+        WhisperException e = assertThrows(WhisperException.class, () -> client().transcribe(audio()));
+        assertTrue(e.isTransientFailure());
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void theBulkheadSlotIsFreeWhileACallWaitsToRetry() throws Exception {
+        properties.setMaxConcurrentRequests(1);
+        properties.setBulkheadWait(Duration.ofMillis(100));
+        properties.setRetryMaxDelay(Duration.ofSeconds(2));
+        retryAfter = "1";
+        statuses.add(503);
+        WhisperClient client = client();
+
+        CompletableFuture<String> retrying = CompletableFuture.supplyAsync(() -> client.transcribe(audio()));
+        while (hits.get() == 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+
+        // Gets the only slot while the first call sleeps before its retry
+        assertEquals("rent is 15000 rupees", client.transcribe(audio()));
+        assertEquals("rent is 15000 rupees", retrying.get(5, TimeUnit.SECONDS));
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    void openCircuitStopsCallingTheUpstream() throws InterruptedException {
+        properties.setMaxRetries(0);
+        properties.setCircuitFailureThreshold(2);
+        properties.setCircuitOpenDuration(Duration.ofMillis(200));
+        WhisperClient client = client();
+        statuses.add(500);
+        statuses.add(500);
+
+        assertThrows(WhisperException.class, () -> client.transcribe(audio()));
+        assertThrows(WhisperException.class, () -> client.transcribe(audio()));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        assertThrows(WhisperException.class, () -> client.transcribe(audio()));
+        assertEquals(2, hits.get());
+
+        // After the open period one trial call goes through and closes the circuit again
+        Thread.sleep(250);
+        assertEquals("rent is 15000 rupees", client.transcribe(audio()));
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    @Test
+    void connectionFailuresAreTransient() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        properties.setUrl("http://127.0.0.1:" + closedPort + "/v1/audio/transcriptions");
+        properties.setMaxRetries(1);
+        properties.setConnectTimeout(Duration.ofMillis(200));
+        WhisperClient client = client();
+
+        WhisperException e = assertThrows(WhisperException.class, () -> client.transcribe(audio()));
+        assertTrue(e.isTransientFailure());
+        assertEquals(2, meterRegistry.get("whisper.requests").tag("outcome", "io_error").timer().count());
+    }
+
+    private WhisperClient client() {
+        WhisperClient client = new WhisperClient();
+        ReflectionTestUtils.setField(client, "properties", properties);
+        ReflectionTestUtils.setField(client, "meterRegistry", meterRegistry);
+        client.init();
+        return client;
+    }
+
+    private static ByteArrayResource audio() {
+        return new ByteArrayResource("fake audio".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return "audio.mp3";
+            }
+        };
+    }
+}